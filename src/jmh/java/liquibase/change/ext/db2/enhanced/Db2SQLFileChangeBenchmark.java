@@ -0,0 +1,125 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.core.DB2Database;
+import liquibase.statement.SqlStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing a 'db2SqlFile' script, end-to-end and per stage.
+ * <p>
+ * Each operation processes the whole script of 'size' characters, so with the default size of 1 MiB
+ * the 'gc.alloc.rate.norm' of the GC profiler is the number of bytes allocated per MB of SQL.
+ *
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Db2SQLFileChangeBenchmark {
+
+    @Param({"1048576"})
+    public int size;
+
+    @Param({"0", "100"})
+    public int terminatorSwitches;
+
+    @Param({"10"})
+    public int commentPercent;
+
+    @Param({"1"})
+    public int reorgPercent;
+
+    @Param({"1"})
+    public int truncatePercent;
+
+    @Param({"200"})
+    public int statementLength;
+
+    private String script;
+    private List<String> statements;
+    private DB2Database database;
+
+    @Setup
+    public void setUp() throws IOException {
+        script = new ScriptGenerator(size, terminatorSwitches, commentPercent, reorgPercent, truncatePercent,
+                statementLength).generate();
+        statements = new ArrayList<>();
+        Db2ScriptLexer lexer = createLexer();
+        for (DelimitedSegment segment = lexer.next(); segment != null; segment = lexer.next()) {
+            if (segment.hasSql()) {
+                statements.add(segment.getSql());
+            }
+        }
+        database = new DB2Database();
+    }
+
+    private Db2ScriptLexer createLexer() {
+        return new Db2ScriptLexer(new StringReader(script), null, true, false, true);
+    }
+
+    /**
+     * The whole change, as Liquibase runs it for updateSQL (no connection)
+     */
+    @Benchmark
+    public SqlStatement[] generateStatements() {
+        Db2SQLFileChange change = new Db2SQLFileChange();
+        change.setSql(script);
+        return change.generateStatements(database);
+    }
+
+    @Benchmark
+    public void lexer(Blackhole blackhole) throws IOException {
+        Db2ScriptLexer lexer = createLexer();
+        for (DelimitedSegment segment = lexer.next(); segment != null; segment = lexer.next()) {
+            blackhole.consume(segment);
+        }
+    }
+
+    @Benchmark
+    public void statementKinds(Blackhole blackhole) {
+        for (String statement : statements) {
+            blackhole.consume(StatementKind.of(statement));
+        }
+    }
+
+    @Benchmark
+    public void dmlShapes(Blackhole blackhole) {
+        for (String statement : statements) {
+            blackhole.consume(DmlShape.of(statement));
+        }
+    }
+
+    @Benchmark
+    public void literalInserts(Blackhole blackhole) {
+        for (String statement : statements) {
+            blackhole.consume(LiteralInsert.parse(statement));
+        }
+    }
+
+    @Benchmark
+    public void ddlTables(Blackhole blackhole) {
+        for (String statement : statements) {
+            blackhole.consume(DdlTableAnalyzer.tablesOf(statement));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package liquibase.change.ext.db2.enhanced;
+
+import java.util.Random;
+
+/**
+ * Generates synthetic DB2 scripts for the benchmarks. The same parameters always give the same script.
+ * <p>
+ * Most statements are INSERTs and UPDATEs, mixed with some DDL. Every terminator switch adds a compound statement
+ * between '--#SET TERMINATOR @' and '--#SET TERMINATOR ;', spread evenly over the script.
+ *
+ * @since 1.2
+ */
+public class ScriptGenerator {
+
+    private final int size;
+    private final int terminatorSwitches;
+    private final int commentPercent;
+    private final int reorgPercent;
+    private final int truncatePercent;
+    private final int statementLength;
+
+    /**
+     * @param size Approximate size of the script in characters
+     * @param terminatorSwitches Number of compound statements with their own terminator
+     * @param commentPercent Percentage of statements with line and block comments
+     * @param reorgPercent Percentage of 'REORG TABLE' statements
+     * @param truncatePercent Percentage of 'TRUNCATE TABLE' statements
+     * @param statementLength Approximate length of a statement in characters
+     */
+    public ScriptGenerator(int size, int terminatorSwitches, int commentPercent, int reorgPercent, int truncatePercent,
+                           int statementLength) {
+        this.size = size;
+        this.terminatorSwitches = terminatorSwitches;
+        this.commentPercent = commentPercent;
+        this.reorgPercent = reorgPercent;
+        this.truncatePercent = truncatePercent;
+        this.statementLength = statementLength;
+    }
+
+    /**
+     * Generates the script
+     *
+     * @return The script
+     */
+    public String generate() {
+        Random random = new Random(42);
+        StringBuilder script = new StringBuilder(size + statementLength * 2);
+        int switchEvery = terminatorSwitches > 0 ? size / (terminatorSwitches + 1) : Integer.MAX_VALUE;
+        int nextSwitch = switchEvery;
+        int switches = 0;
+        for (int i = 0; script.length() < size; i++) {
+            if (random.nextInt(100) < commentPercent) {
+                script.append("-- Statement ").append(i).append(" of the benchmark script; with a terminator\n");
+            }
+            int table = random.nextInt(20);
+            int kind = random.nextInt(100);
+            if (kind < reorgPercent) {
+                script.append("REORG TABLE BENCH.T").append(table).append(";\n");
+            } else if (kind < reorgPercent + truncatePercent) {
+                // With the COMMIT, no extra COMMIT (and warning) is added
+                script.append("COMMIT;\nTRUNCATE TABLE BENCH.T").append(table).append(" IMMEDIATE;\n");
+            } else if (kind < reorgPercent + truncatePercent + 2) {
+                script.append("CREATE INDEX BENCH.I").append(i).append(" ON BENCH.T").append(table).append(" (NAME, ID);\n");
+            } else if (kind < 70) {
+                script.append("INSERT INTO BENCH.T").append(table).append(" (ID, NAME, AMOUNT) VALUES (").append(i)
+                        .append(", '").append(text(random, statementLength - 60)).append("', ")
+                        .append(random.nextInt(100000)).append(".25);\n");
+            } else {
+                script.append("UPDATE BENCH.T").append(table).append(" SET NAME = '").append(text(random, statementLength - 60))
+                        .append("'").append(random.nextInt(100) < commentPercent ? " /* renamed; again */" : "")
+                        .append(" WHERE ID = ").append(i).append(";\n");
+            }
+            if (switches < terminatorSwitches && script.length() >= nextSwitch) {
+                appendCompoundStatement(script, i);
+                switches++;
+                nextSwitch += switchEvery;
+            }
+        }
+        return script.toString();
+    }
+
+    private void appendCompoundStatement(StringBuilder script, int i) {
+        script.append("--#SET TERMINATOR @\n")
+                .append("BEGIN\n")
+                .append("  DECLARE V_COUNT INTEGER;\n")
+                .append("  SELECT COUNT(*) INTO V_COUNT FROM BENCH.T0 WHERE ID > ").append(i).append(";\n")
+                .append("  IF V_COUNT > 0 THEN\n")
+                .append("    UPDATE BENCH.T0 SET AMOUNT = AMOUNT + 1 WHERE ID > ").append(i).append(";\n")
+                .append("  END IF;\n")
+                .append("END\n")
+                .append("@\n")
+                .append("--#SET TERMINATOR ;\n");
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder text = new StringBuilder(Math.max(length, 1));
+        do {
+            text.append(random.nextBoolean() ? "word " : "it''s ");
+        } while (text.length() < length);
+        return text.toString();
+    }
+}
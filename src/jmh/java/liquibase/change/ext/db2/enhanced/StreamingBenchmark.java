@@ -0,0 +1,60 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.core.DB2Database;
+import liquibase.exception.DatabaseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks streaming a 'db2SqlFile' script ('streamStatements'): reading and parsing it one statement at a time,
+ * as the statements are handed to the executor.
+ *
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingBenchmark {
+
+    @Param({"1048576"})
+    public int size;
+
+    private byte[] script;
+    private DB2Database database;
+
+    @Setup
+    public void setUp() {
+        script = new ScriptGenerator(size, 0, 10, 1, 1, 200).generate().getBytes(StandardCharsets.UTF_8);
+        database = new DB2Database();
+    }
+
+    @Benchmark
+    public void streamSqlStatements(Blackhole blackhole) throws DatabaseException {
+        Db2SQLFileChange change = new Db2SQLFileChange() {
+            @Override
+            public InputStream openSqlStream() {
+                return new ByteArrayInputStream(script);
+            }
+        };
+        change.setEncoding("UTF-8");
+        change.streamSqlStatements(database, blackhole::consume);
+    }
+}
@@ -0,0 +1,284 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Merges consecutive 'ALTER TABLE' statements of the same table into one statement with several clauses,
+ * so the table is locked once and DB2 counts one reorg-recommended alteration instead of one per statement.
+ * All other statements are passed on unchanged.
+ * <p>
+ * Only statements with a single clause of these forms are merged:
+ * <ul>
+ *     <li>ALTER TABLE table ADD COLUMN column definition, without GENERATED columns or constraints</li>
+ *     <li>ALTER TABLE table ALTER COLUMN column SET DATA TYPE / SET [WITH] DEFAULT / DROP DEFAULT / SET NOT NULL /
+ *     DROP NOT NULL</li>
+ * </ul>
+ * As DB2 allows a column in only one clause of an 'ALTER TABLE' statement, a statement that refers to a column
+ * of the merged statement starts a new one. Statements with a different terminator are not merged.
+ *
+ * @since 1.2
+ */
+public class AlterTableCoalescer implements SqlStatementConsumer {
+
+    /** Words that end a clause, or make a column definition unsuitable for merging */
+    private static final Set<String> ADD_COLUMN_EXCLUDED = new HashSet<>(Arrays.asList("ADD", "ALTER", "DROP",
+            "GENERATED", "REFERENCES", "PRIMARY", "UNIQUE", "CHECK", "CONSTRAINT"));
+    private static final Set<String> CLAUSE_STARTS = new HashSet<>(Arrays.asList("ADD", "ALTER", "DROP"));
+
+    private final String path;
+    private final SqlStatementConsumer consumer;
+    private final List<Db2RawSqlStatement> pending = new ArrayList<>();
+    private final Set<String> pendingColumns = new HashSet<>();
+    private final StringBuilder pendingSql = new StringBuilder();
+    private String pendingTable;
+
+    /**
+     * @param path The path of the script, for the log
+     * @param consumer Receives the merged statements and all other statements
+     */
+    public AlterTableCoalescer(String path, SqlStatementConsumer consumer) {
+        this.path = path;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void accept(SqlStatement statement) throws DatabaseException {
+        Clause clause = statement instanceof Db2RawSqlStatement
+                && ((Db2RawSqlStatement) statement).getKind() == StatementKind.DDL
+                ? Clause.of(((Db2RawSqlStatement) statement).getSql()) : null;
+        if (clause == null) {
+            passOnPending();
+            consumer.accept(statement);
+            return;
+        }
+        Db2RawSqlStatement alter = (Db2RawSqlStatement) statement;
+        if (!pending.isEmpty() && (!clause.table.equals(pendingTable) || pendingColumns.contains(clause.column)
+                || !pending.get(0).getTerminator().equals(alter.getTerminator()))) {
+            passOnPending();
+        }
+        if (pending.isEmpty()) {
+            pendingTable = clause.table;
+            pendingSql.append(alter.getSql().trim());
+        } else {
+            // A new line, as the previous clause can end with a comment
+            pendingSql.append('\n').append(clause.sql);
+        }
+        pending.add(alter);
+        pendingColumns.add(clause.column);
+    }
+
+    @Override
+    public void flush() throws DatabaseException {
+        passOnPending();
+        consumer.flush();
+    }
+
+    private void passOnPending() throws DatabaseException {
+        if (pending.size() == 1) {
+            consumer.accept(pending.get(0));
+        } else if (pending.size() > 1) {
+            Db2RawSqlStatement first = pending.get(0);
+            List<Integer> lines = new ArrayList<>();
+            for (Db2RawSqlStatement statement : pending) {
+                lines.add(statement.getLine());
+            }
+            Scope.getCurrentScope().getLog(getClass()).info("Merged the ALTER TABLE statements of " + pendingTable
+                    + " at lines " + lines + " of " + path + " into the statement at line " + first.getLine());
+            consumer.accept(new Db2RawSqlStatement(pendingSql.toString(), first.getEndDelimiter(), first.getTerminator(),
+                    first.getLine()));
+        }
+        pending.clear();
+        pendingColumns.clear();
+        pendingSql.setLength(0);
+        pendingTable = null;
+    }
+
+    /**
+     * The single clause of a statement that can be merged
+     */
+    static class Clause {
+
+        private final String table;
+        private final String column;
+        private final String sql;
+
+        private Clause(String table, String column, String sql) {
+            this.table = table;
+            this.column = column;
+            this.sql = sql;
+        }
+
+        /**
+         * @return The table, as 'SCHEMA.TABLE' or 'TABLE' with ordinary identifiers in upper case
+         */
+        String getTable() {
+            return table;
+        }
+
+        /**
+         * @return The column the clause refers to
+         */
+        String getColumn() {
+            return column;
+        }
+
+        /**
+         * @return The clause, from its first keyword to the end of the statement
+         */
+        String getSql() {
+            return sql;
+        }
+
+        /**
+         * Parses a statement
+         *
+         * @param sql Any statement
+         * @return The clause, null if the statement is not an 'ALTER TABLE' that can be merged
+         */
+        static Clause of(String sql) {
+            List<Token> tokens = Token.split(sql);
+            if (tokens == null || !Token.is(tokens, 0, "ALTER") || !Token.is(tokens, 1, "TABLE")
+                    || tokens.size() < 3 || !tokens.get(2).isName()) {
+                return null;
+            }
+            String table = tokens.get(2).name();
+            int index = 3;
+            if (Token.is(tokens, 3, ".") && tokens.size() > 4 && tokens.get(4).isName()) {
+                table = table + "." + tokens.get(4).name();
+                index = 5;
+            }
+            int start = index;
+            if (!Token.is(tokens, index + 1, "COLUMN") || tokens.size() <= index + 2 || !tokens.get(index + 2).isName()) {
+                return null;
+            }
+            String column = tokens.get(index + 2).name();
+            int rest = index + 3;
+            if (Token.is(tokens, start, "ADD")) {
+                if (rest >= tokens.size() || Token.anyAtTopLevel(tokens, rest, ADD_COLUMN_EXCLUDED)) {
+                    return null;
+                }
+            } else if (Token.is(tokens, start, "ALTER")) {
+                if (!isColumnAlteration(tokens, rest) || Token.anyAtTopLevel(tokens, rest + 2, CLAUSE_STARTS)) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+            return new Clause(table, column, sql.substring(tokens.get(start).start).trim());
+        }
+
+        private static boolean isColumnAlteration(List<Token> tokens, int index) {
+            if (Token.is(tokens, index, "SET")) {
+                return Token.is(tokens, index + 1, "DATA") && Token.is(tokens, index + 2, "TYPE")
+                        || Token.is(tokens, index + 1, "DEFAULT")
+                        || Token.is(tokens, index + 1, "WITH") && Token.is(tokens, index + 2, "DEFAULT")
+                        || Token.is(tokens, index + 1, "NOT") && Token.is(tokens, index + 2, "NULL")
+                        && tokens.size() == index + 3;
+            } else if (Token.is(tokens, index, "DROP")) {
+                return Token.is(tokens, index + 1, "DEFAULT") && tokens.size() == index + 2
+                        || Token.is(tokens, index + 1, "NOT") && Token.is(tokens, index + 2, "NULL")
+                        && tokens.size() == index + 3;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A word (in upper case), delimited identifier, string literal or single character of a statement
+     */
+    private static class Token {
+
+        private final String text;
+        private final int start;
+        private final int depth;
+
+        Token(String text, int start, int depth) {
+            this.text = text;
+            this.start = start;
+            this.depth = depth;
+        }
+
+        boolean isName() {
+            return Character.isLetter(text.charAt(0)) || text.charAt(0) == '"';
+        }
+
+        String name() {
+            return text.charAt(0) == '"' ? text.substring(1, text.length() - 1).replace("\"\"", "\"") : text;
+        }
+
+        static boolean is(List<Token> tokens, int index, String text) {
+            return index < tokens.size() && tokens.get(index).text.equals(text);
+        }
+
+        static boolean anyAtTopLevel(List<Token> tokens, int from, Set<String> words) {
+            for (int i = from; i < tokens.size(); i++) {
+                if (tokens.get(i).depth == 0 && words.contains(tokens.get(i).text)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Splits a statement, skipping comments
+         *
+         * @return The tokens, null if a literal, identifier or comment is not closed
+         */
+        static List<Token> split(String sql) {
+            List<Token> tokens = new ArrayList<>();
+            int depth = 0;
+            int i = 0;
+            while (i < sql.length()) {
+                char c = sql.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (sql.startsWith("--", i)) {
+                    int end = sql.indexOf('\n', i);
+                    i = end == -1 ? sql.length() : end;
+                } else if (sql.startsWith("/*", i)) {
+                    int end = sql.indexOf("*/", i + 2);
+                    if (end == -1) {
+                        return null;
+                    }
+                    i = end + 2;
+                } else if (c == '"' || c == '\'') {
+                    int end = sql.indexOf(c, i + 1);
+                    // Quotes are escaped by doubling them
+                    while (end != -1 && end + 1 < sql.length() && sql.charAt(end + 1) == c) {
+                        end = sql.indexOf(c, end + 2);
+                    }
+                    if (end == -1) {
+                        return null;
+                    }
+                    tokens.add(new Token(sql.substring(i, end + 1), i, depth));
+                    i = end + 1;
+                } else if (Character.isLetterOrDigit(c) || c == '_') {
+                    int end = i;
+                    while (end < sql.length() && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_')) {
+                        end++;
+                    }
+                    tokens.add(new Token(sql.substring(i, end).toUpperCase(), i, depth));
+                    i = end;
+                } else {
+                    if (c == ')') {
+                        depth--;
+                    }
+                    tokens.add(new Token(String.valueOf(c), i, depth));
+                    if (c == '(') {
+                        depth++;
+                    }
+                    i++;
+                }
+            }
+            return tokens;
+        }
+    }
+}
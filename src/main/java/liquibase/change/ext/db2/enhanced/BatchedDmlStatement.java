@@ -0,0 +1,169 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.logging.Logger;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consecutive DML statements of a script, executed with JDBC batches.
+ * <p>
+ * Consecutive statements with the same {@link DmlShape} are executed with a single prepared statement and
+ * bound parameters, all other statements are executed with a plain statement batch.
+ * If a statement fails, the error reports that statement (and its line in the script).
+ *
+ * @since 1.2
+ */
+public class BatchedDmlStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private final Database database;
+    private final List<Db2RawSqlStatement> statements;
+    private long rowsAffected;
+
+    /**
+     * @param database The database the statements are executed against
+     * @param statements The DML statements, in script order
+     */
+    public BatchedDmlStatement(Database database, List<Db2RawSqlStatement> statements) {
+        this.database = database;
+        this.statements = statements;
+    }
+
+    /**
+     * Gets the statements of this batch
+     *
+     * @return List, in script order
+     */
+    public List<Db2RawSqlStatement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Gets the number of rows changed by the last execution, as far as the driver reports it
+     *
+     * @return long, 0 before the first execution
+     */
+    public long getRowsAffected() {
+        return rowsAffected;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        rowsAffected = 0;
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        List<DmlShape> shapes = new ArrayList<>(statements.size());
+        for (Db2RawSqlStatement statement : statements) {
+            shapes.add(DmlShape.of(statement.getSql()));
+        }
+        getLogger().fine("Executing batch of " + statements.size() + " statements starting at line " + statements.get(0).getLine());
+        int start = 0;
+        while (start < statements.size()) {
+            int end = sameShapeEnd(shapes, start);
+            if (end - start > 1) {
+                executePrepared(connection, shapes, start, end);
+            } else {
+                while (end < statements.size() && sameShapeEnd(shapes, end) - end == 1) {
+                    end++;
+                }
+                executePlain(connection, start, end);
+            }
+            start = end;
+        }
+    }
+
+    private int sameShapeEnd(List<DmlShape> shapes, int start) {
+        DmlShape shape = shapes.get(start);
+        int end = start + 1;
+        if (shape.hasParameters()) {
+            while (end < shapes.size() && shapes.get(end).getSql().equals(shape.getSql())) {
+                end++;
+            }
+        }
+        return end;
+    }
+
+    private void executePrepared(Connection connection, List<DmlShape> shapes, int start, int end) throws DatabaseException {
+        try (PreparedStatement stmt = connection.prepareStatement(shapes.get(start).getSql())) {
+            for (int i = start; i < end; i++) {
+                List<Object> parameters = shapes.get(i).getParameters();
+                for (int p = 0; p < parameters.size(); p++) {
+                    stmt.setObject(p + 1, parameters.get(p));
+                }
+                stmt.addBatch();
+            }
+            addRowsAffected(stmt.executeBatch());
+        } catch (SQLException e) {
+            throw toDatabaseException(e, start, end);
+        }
+    }
+
+    private void executePlain(Connection connection, int start, int end) throws DatabaseException {
+        try (Statement stmt = connection.createStatement()) {
+            for (int i = start; i < end; i++) {
+                stmt.addBatch(statements.get(i).getSql());
+            }
+            addRowsAffected(stmt.executeBatch());
+        } catch (SQLException e) {
+            throw toDatabaseException(e, start, end);
+        }
+    }
+
+    private void addRowsAffected(int[] updateCounts) {
+        for (int updateCount : updateCounts) {
+            // SUCCESS_NO_INFO is negative
+            rowsAffected += Math.max(updateCount, 0);
+        }
+    }
+
+    /**
+     * The update counts of a failed batch tell which statement failed: either the first one marked as failed,
+     * or the one following the last successful statement if the driver stopped at the failure.
+     */
+    private DatabaseException toDatabaseException(SQLException e, int start, int end) {
+        int failed = start;
+        if (e instanceof BatchUpdateException && ((BatchUpdateException) e).getUpdateCounts() != null) {
+            int[] updateCounts = ((BatchUpdateException) e).getUpdateCounts();
+            int index = 0;
+            while (index < updateCounts.length && updateCounts[index] != Statement.EXECUTE_FAILED) {
+                index++;
+            }
+            failed = Math.min(start + index, end - 1);
+        }
+        Db2RawSqlStatement statement = statements.get(failed);
+        String message = e.getMessage();
+        if (e.getNextException() != null) {
+            message += " " + e.getNextException().getMessage();
+        }
+        return new DatabaseException("Error executing SQL " + statement.getSql()
+                + " (line " + statement.getLine() + "): " + message, e);
+    }
+
+    private Logger getLogger() {
+        return Scope.getCurrentScope().getLog(getClass());
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchedDmlStatement{" +
+                "statements=" + statements.size() +
+                ", line=" + statements.get(0).getLine() +
+                '}';
+    }
+}
@@ -0,0 +1,286 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.logging.Logger;
+import liquibase.statement.SqlStatement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The checkpoint of a script: the ordinal (see {@link Db2RawSqlStatement#getOrdinal()}) of the last committed
+ * statement, recorded in {@link Db2EnhancedConfiguration#CHECKPOINT_TABLE} together with the checksum of the
+ * script and of its parse options, so a rerun of the changeset can skip the statements that were committed.
+ * <p>
+ * The checkpoint is written in the unit of work it describes, just before it is committed, and deleted in the
+ * last unit of work of the script. It is only moved forward at commit points where all earlier statements were
+ * executed (a deferred REORG may still be pending at a COMMIT of the script).
+ * <p>
+ * The commit points are planned for the whole script, the same way in every run. The checkpoint of a previous run
+ * is only read when the script starts executing (see {@link ScriptStartStatement}), and the {@link ScriptExecutor}
+ * then skips the statements it covers (see {@link #isCommitted(SqlStatement)}).
+ *
+ * @since 1.2
+ */
+public class Checkpoint {
+
+    private static final String UNDEFINED_NAME = "42704";
+
+    private final Database database;
+    private final String changeId;
+    private final String changeKey;
+    private final String checksum;
+    private final String options;
+    private final TreeSet<Integer> passedAhead = new TreeSet<>();
+    private int passed;
+    private int resumed;
+    private String tableName;
+
+    /**
+     * @param database The database the script is executed against, also holds the checkpoint table
+     * @param changeId Identifies the change, e.g. 'changelog.xml::1::author::script.sql'
+     * @param checksum Checksum of the script, see {@link #checksum(Reader)}
+     * @param options The parse options of the script
+     */
+    public Checkpoint(Database database, String changeId, String checksum, String options) {
+        this.database = database;
+        this.changeId = changeId;
+        this.changeKey = sha256(changeId);
+        this.checksum = checksum;
+        this.options = sha256(options);
+    }
+
+    /**
+     * Reads the checkpoint of a previous run of the change, see {@link #getResumed()}
+     *
+     * @return The ordinal of the last committed statement, 0 if there is no checkpoint
+     * @throws DatabaseException If the checkpoint cannot be read, or was recorded for another script or other options
+     */
+    public int read() throws DatabaseException {
+        try (PreparedStatement stmt = getConnection().prepareStatement("SELECT SCRIPT_CHECKSUM, PARSE_OPTIONS, "
+                + "STATEMENT_ORDINAL, STATEMENT_LINE FROM " + getTableName() + " WHERE CHANGE_KEY = ?")) {
+            stmt.setString(1, changeKey);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return 0;
+                }
+                if (!checksum.equals(rs.getString(1)) || !options.equals(rs.getString(2))) {
+                    throw new DatabaseException("The checkpoint of " + changeId + " was recorded for another version "
+                            + "of the script or other parse options. Delete its row from " + getTableName()
+                            + " to run the script from the start");
+                }
+                resumed = rs.getInt(3);
+                getLogger().info("Resuming " + changeId + " after statement " + resumed + " (line " + rs.getInt(4) + ")");
+                return resumed;
+            }
+        } catch (SQLException e) {
+            if (UNDEFINED_NAME.equals(e.getSQLState())) {
+                return 0;
+            }
+            throw new DatabaseException("Error reading checkpoint from " + getTableName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the checkpoint of the previous run
+     *
+     * @return The ordinal of the last statement committed by the previous run, 0 if none or not read yet
+     */
+    public int getResumed() {
+        return resumed;
+    }
+
+    /**
+     * Checks if a statement was committed by the previous run, so it is skipped. SET statements and DBMS_OUTPUT
+     * settings only change the session, so they are executed again. A statement which executes several statements
+     * of the script is only skipped if all of them were committed.
+     *
+     * @param statement Any statement of the script
+     * @return true if the statement is covered by the checkpoint read, see {@link #getResumed()}
+     */
+    public boolean isCommitted(SqlStatement statement) {
+        if (resumed == 0) {
+            return false;
+        }
+        if (statement instanceof CommitIntervalStatement) {
+            return ((CommitIntervalStatement) statement).getOrdinal() <= resumed;
+        }
+        List<Db2RawSqlStatement> statements = ScriptMetrics.statementsOf(statement);
+        return !statements.isEmpty() && statements.stream().allMatch(raw -> raw.getOrdinal() <= resumed
+                && raw.getKind() != StatementKind.SET && !raw.getSql().contains("DBMS_OUTPUT.ENABLE")
+                && !raw.getSql().contains("DBMS_OUTPUT.DISABLE"));
+    }
+
+    /**
+     * Records that statements are planned, in execution order
+     *
+     * @param statements The statements of the script executed by one statement
+     */
+    public void passed(List<Db2RawSqlStatement> statements) {
+        for (Db2RawSqlStatement statement : statements) {
+            if (statement.getOrdinal() > passed) {
+                passedAhead.add(statement.getOrdinal());
+            }
+        }
+        while (!passedAhead.isEmpty() && passedAhead.first() == passed + 1) {
+            passed = passedAhead.pollFirst();
+        }
+    }
+
+    /**
+     * Gets the last statement which is executed after all statements before it, as planned so far
+     *
+     * @return The ordinal, 0 if none
+     */
+    public int getPassed() {
+        return passed;
+    }
+
+    /**
+     * Records the checkpoint in the current unit of work, creating the table if needed
+     *
+     * @param ordinal The ordinal of the last statement of the unit of work, see {@link #getPassed()}
+     * @param line The line of that statement, for information only
+     * @throws DatabaseException If the checkpoint cannot be written
+     */
+    public void write(int ordinal, int line) throws DatabaseException {
+        try {
+            try {
+                replace(ordinal, line);
+            } catch (SQLException e) {
+                if (!UNDEFINED_NAME.equals(e.getSQLState())) {
+                    throw e;
+                }
+                createTable();
+                replace(ordinal, line);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Error writing checkpoint to " + getTableName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deletes the checkpoint, when the script is complete
+     *
+     * @throws DatabaseException If the checkpoint cannot be deleted
+     */
+    public void clear() throws DatabaseException {
+        try (PreparedStatement stmt = getConnection().prepareStatement("DELETE FROM " + getTableName() + " WHERE CHANGE_KEY = ?")) {
+            stmt.setString(1, changeKey);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            if (!UNDEFINED_NAME.equals(e.getSQLState())) {
+                throw new DatabaseException("Error deleting checkpoint from " + getTableName() + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void replace(int ordinal, int line) throws SQLException {
+        Connection connection = getConnection();
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + getTableName() + " WHERE CHANGE_KEY = ?");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO " + getTableName() + " (CHANGE_KEY, CHANGE_ID, "
+                     + "SCRIPT_CHECKSUM, PARSE_OPTIONS, STATEMENT_ORDINAL, STATEMENT_LINE, UPDATED) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            delete.setString(1, changeKey);
+            delete.executeUpdate();
+            insert.setString(1, changeKey);
+            insert.setString(2, changeId.length() > 1000 ? changeId.substring(0, 1000) : changeId);
+            insert.setString(3, checksum);
+            insert.setString(4, options);
+            insert.setInt(5, ordinal);
+            insert.setInt(6, line);
+            insert.setTimestamp(7, new Timestamp(System.currentTimeMillis()));
+            insert.executeUpdate();
+        }
+    }
+
+    private void createTable() throws SQLException {
+        getLogger().info("Creating checkpoint table " + getTableName());
+        try (Statement stmt = getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE " + getTableName() + " (CHANGE_KEY CHAR(64) NOT NULL PRIMARY KEY, "
+                    + "CHANGE_ID VARCHAR(1000) NOT NULL, SCRIPT_CHECKSUM CHAR(64) NOT NULL, PARSE_OPTIONS CHAR(64) NOT NULL, "
+                    + "STATEMENT_ORDINAL INTEGER NOT NULL, STATEMENT_LINE INTEGER NOT NULL, UPDATED TIMESTAMP NOT NULL)");
+        }
+    }
+
+    /**
+     * The table is in the Liquibase schema, as the script may change the current schema
+     */
+    private String getTableName() {
+        if (tableName == null) {
+            tableName = database.escapeTableName(database.getLiquibaseCatalogName(), database.getLiquibaseSchemaName(),
+                    Db2EnhancedConfiguration.CHECKPOINT_TABLE.getCurrentValue());
+        }
+        return tableName;
+    }
+
+    private Connection getConnection() {
+        return ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+    }
+
+    private Logger getLogger() {
+        return Scope.getCurrentScope().getLog(getClass());
+    }
+
+    /**
+     * Computes the checksum of a script
+     *
+     * @param reader The script, read to its end
+     * @return SHA-256 of the script in UTF-8, in hex
+     * @throws IOException If the script cannot be read
+     */
+    public static String checksum(Reader reader) throws IOException {
+        MessageDigest digest = newDigest();
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        };
+        try (Writer writer = new OutputStreamWriter(new DigestOutputStream(discard, digest), StandardCharsets.UTF_8)) {
+            char[] buffer = new char[8192];
+            for (int length = reader.read(buffer); length != -1; length = reader.read(buffer)) {
+                writer.write(buffer, 0, length);
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    static String sha256(String value) {
+        MessageDigest digest = newDigest();
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
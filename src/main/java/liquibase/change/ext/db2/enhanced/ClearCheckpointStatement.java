@@ -0,0 +1,39 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.PreparedStatementFactory;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+/**
+ * Marks the end of a script with a {@link Checkpoint}: deletes the checkpoint in the last unit of work,
+ * so it is only gone when the whole script is committed.
+ *
+ * @since 1.2
+ */
+public class ClearCheckpointStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private final Checkpoint checkpoint;
+
+    /**
+     * @param checkpoint The checkpoint of the script
+     */
+    public ClearCheckpointStatement(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        checkpoint.clear();
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ClearCheckpointStatement";
+    }
+}
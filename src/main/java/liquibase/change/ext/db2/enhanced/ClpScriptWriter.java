@@ -0,0 +1,104 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+import liquibase.statement.core.RawSqlStatement;
+import liquibase.util.StreamUtil;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the statements of a script as a script for the DB2 command line processor ('db2 -tvf'),
+ * each statement followed by the terminator it had in the script. A '--#SET TERMINATOR x' directive is written
+ * before the first statement and whenever the terminator changes, so the output runs whatever '-td' is used.
+ * When flushed, the terminator is set back to ';', which ends the statements Liquibase writes after the script
+ * (e.g. the DATABASECHANGELOG inserts).
+ * <p>
+ * Statements are written as they are accepted, nothing is held back.
+ *
+ * @since 1.2
+ */
+public class ClpScriptWriter implements SqlStatementConsumer {
+
+    private static final String SET_TERMINATOR = "--#SET TERMINATOR ";
+    /**
+     * The LoggingExecutor ends the statements it writes with ';'
+     */
+    private static final String CHANGELOG_TERMINATOR = ";";
+
+    private final Writer output;
+    private final String lineSeparator = StreamUtil.getLineSeparator();
+    private String terminator;
+    private int count;
+
+    /**
+     * @param output Receives the script, is not closed
+     */
+    public ClpScriptWriter(Writer output) {
+        this.output = output;
+    }
+
+    /**
+     * Gets the number of statements written
+     *
+     * @return int
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void accept(SqlStatement statement) throws DatabaseException {
+        if (!(statement instanceof RawSqlStatement)) {
+            throw new DatabaseException("Cannot write " + statement + " to a DB2 script");
+        }
+        String sql = ((RawSqlStatement) statement).getSql();
+        String statementTerminator = statement instanceof Db2RawSqlStatement
+                ? ((Db2RawSqlStatement) statement).getTerminator() : ";";
+        try {
+            if (!statementTerminator.equals(terminator)) {
+                terminator = statementTerminator;
+                output.write(SET_TERMINATOR + terminator + lineSeparator);
+            }
+            output.write(sql);
+            if (!isComment(sql)) {
+                output.write(needsOwnLine(sql) ? lineSeparator + terminator : terminator);
+            }
+            output.write(lineSeparator + lineSeparator);
+            count++;
+        } catch (IOException e) {
+            throw new DatabaseException("Error writing " + statement + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void flush() throws DatabaseException {
+        try {
+            if (terminator != null && !CHANGELOG_TERMINATOR.equals(terminator)) {
+                terminator = CHANGELOG_TERMINATOR;
+                output.write(SET_TERMINATOR + terminator + lineSeparator);
+            }
+            output.flush();
+        } catch (IOException e) {
+            throw new DatabaseException("Error writing script: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Statements disabled by the change (e.g. '--SET SERVEROUTPUT ON') are single line comments
+     */
+    private static boolean isComment(String sql) {
+        return sql.startsWith("--") && sql.indexOf('\n') == -1;
+    }
+
+    /**
+     * '/' and word terminators like 'GO' are only recognized on their own, and a terminator after a
+     * line comment would be part of the comment
+     */
+    private boolean needsOwnLine(String sql) {
+        char first = terminator.charAt(0);
+        return first == '/' || Character.isLetterOrDigit(first) || first == '_'
+                || sql.substring(sql.lastIndexOf('\n') + 1).contains("--");
+    }
+}
@@ -0,0 +1,130 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+
+/**
+ * The commit interval of a script (see {@link CommitIntervalPlanner}): counts the DML statements and the rows
+ * they changed since the last commit, commits when either limit is reached, and records the commit points,
+ * also in the {@link Checkpoint} of the script if it has one.
+ *
+ * @since 1.2
+ */
+public class CommitInterval {
+
+    private final String script;
+    private final int statementLimit;
+    private final int rowLimit;
+    private final ScriptMetrics metrics;
+    private final Checkpoint checkpoint;
+    private int statements;
+    private long rowsAtLastCommit;
+    private int commits;
+    private int lastCommittedLine;
+    private int lastCheckpoint;
+
+    /**
+     * @param script The path of the script, for the log
+     * @param statementLimit Commit after this number of DML statements, 0 for no limit
+     * @param rowLimit Commit after this number of changed rows, 0 for no limit
+     * @param metrics Records the rows changed, only needed with a row limit
+     * @param checkpoint Records the commit points for a rerun, null if not needed
+     */
+    public CommitInterval(String script, int statementLimit, int rowLimit, ScriptMetrics metrics, Checkpoint checkpoint) {
+        this.script = script;
+        this.statementLimit = statementLimit;
+        this.rowLimit = rowLimit;
+        this.metrics = metrics;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Gets the checkpoint of the script
+     *
+     * @return Checkpoint, null if the script has none
+     */
+    public Checkpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Called after DML statements were executed, commits if a limit is reached
+     *
+     * @param database The database the statements were executed against
+     * @param count Number of statements executed
+     * @param line The line of the last statement
+     * @param ordinal The checkpoint of the script at this point, see {@link Checkpoint#getPassed()}
+     * @throws DatabaseException If the commit fails
+     */
+    public void executed(Database database, int count, int line, int ordinal) throws DatabaseException {
+        statements += count;
+        long rows = getRowsSinceCommit();
+        if ((statementLimit > 0 && statements >= statementLimit) || (rowLimit > 0 && rows >= rowLimit)) {
+            writeCheckpoint(ordinal, line);
+            database.commit();
+            Scope.getCurrentScope().getLog(getClass()).info("Committed " + script + " up to line " + line
+                    + " (" + statements + " statements, " + rows + " rows since the last commit)");
+            committed(line);
+        }
+    }
+
+    /**
+     * Called just before the script commits or rolls back itself
+     *
+     * @param line The line of the COMMIT or ROLLBACK
+     * @param isCommit true for a COMMIT
+     * @param ordinal The checkpoint of the script at this point, see {@link Checkpoint#getPassed()}
+     * @throws DatabaseException If the checkpoint cannot be written
+     */
+    public void ending(int line, boolean isCommit, int ordinal) throws DatabaseException {
+        if (isCommit) {
+            writeCheckpoint(ordinal, line);
+            committed(line);
+        } else {
+            statements = 0;
+            rowsAtLastCommit = getRows();
+        }
+    }
+
+    private void writeCheckpoint(int ordinal, int line) throws DatabaseException {
+        // Never moves back behind the checkpoint of the previous run
+        if (checkpoint != null && ordinal > Math.max(lastCheckpoint, checkpoint.getResumed())) {
+            checkpoint.write(ordinal, line);
+            lastCheckpoint = ordinal;
+        }
+    }
+
+    private void committed(int line) {
+        statements = 0;
+        rowsAtLastCommit = getRows();
+        commits++;
+        lastCommittedLine = line;
+    }
+
+    private long getRowsSinceCommit() {
+        return getRows() - rowsAtLastCommit;
+    }
+
+    private long getRows() {
+        return metrics == null ? 0 : metrics.getRowsAffected();
+    }
+
+    /**
+     * Gets the number of commits, including the ones of the script itself
+     *
+     * @return int
+     */
+    public int getCommits() {
+        return commits;
+    }
+
+    /**
+     * Gets the line of the last statement that was committed
+     *
+     * @return int, 0 if nothing was committed yet
+     */
+    public int getLastCommittedLine() {
+        return lastCommittedLine;
+    }
+}
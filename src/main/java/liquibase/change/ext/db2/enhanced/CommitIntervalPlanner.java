@@ -0,0 +1,90 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Adds a {@link CommitIntervalStatement} after each DML statement, batch or LOAD, so the {@link CommitInterval}
+ * can commit between statements, and before each COMMIT or ROLLBACK of the script. Tracks the statements passed
+ * on for the {@link Checkpoint} of the script, and deletes the checkpoint at the end of the script.
+ * <p>
+ * Statements are never split, so a compound statement is always committed as a whole. After a SAVEPOINT,
+ * or a DECLARE GLOBAL TEMPORARY TABLE whose rows are deleted on commit, nothing is committed until the
+ * script itself commits or rolls back.
+ *
+ * @since 1.2
+ */
+public class CommitIntervalPlanner implements SqlStatementConsumer {
+
+    private static final String LEADING_COMMENTS = "(?is)^(\\s|--[^\\n]*(\\n|$)|/\\*.*?\\*/)*";
+    private static final Pattern HOLDS_UNIT_OF_WORK = Pattern.compile(
+            LEADING_COMMENTS + "(SAVEPOINT|DECLARE\\s+GLOBAL\\s+TEMPORARY\\s+TABLE)\\s");
+    private static final Pattern PRESERVE_ROWS = Pattern.compile("(?is)\\bON\\s+COMMIT\\s+PRESERVE\\s+ROWS\\b");
+    private static final Pattern TO_SAVEPOINT = Pattern.compile(LEADING_COMMENTS + "ROLLBACK(\\s+WORK)?\\s+TO\\s+SAVEPOINT\\b");
+
+    private final Database database;
+    private final CommitInterval interval;
+    private final SqlStatementConsumer consumer;
+    private boolean isSuspended;
+
+    /**
+     * @param database The database the statements are executed against
+     * @param interval The commit interval of the script
+     * @param consumer Receives all statements, and the commit points
+     */
+    public CommitIntervalPlanner(Database database, CommitInterval interval, SqlStatementConsumer consumer) {
+        this.database = database;
+        this.interval = interval;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void accept(SqlStatement statement) throws DatabaseException {
+        StatementKind kind = ScriptMetrics.kindOf(statement);
+        boolean isToSavepoint = kind == StatementKind.ROLLBACK
+                && TO_SAVEPOINT.matcher(((Db2RawSqlStatement) statement).getSql()).find();
+        if ((kind == StatementKind.COMMIT || kind == StatementKind.ROLLBACK) && !isToSavepoint) {
+            passed(statement);
+            isSuspended = false;
+            consumer.accept(new CommitIntervalStatement(database, interval, kind, 0, ScriptMetrics.lineOf(statement),
+                    getCheckpointOrdinal()));
+            consumer.accept(statement);
+            return;
+        }
+        consumer.accept(statement);
+        passed(statement);
+        if (statement instanceof Db2RawSqlStatement && holdsUnitOfWork(((Db2RawSqlStatement) statement).getSql())) {
+            isSuspended = true;
+        } else if (kind == StatementKind.DML && !isSuspended) {
+            List<Db2RawSqlStatement> statements = ScriptMetrics.statementsOf(statement);
+            consumer.accept(new CommitIntervalStatement(database, interval, kind, statements.size(),
+                    statements.get(statements.size() - 1).getLine(), getCheckpointOrdinal()));
+        }
+    }
+
+    @Override
+    public void flush() throws DatabaseException {
+        if (interval.getCheckpoint() != null) {
+            consumer.accept(new ClearCheckpointStatement(interval.getCheckpoint()));
+        }
+        consumer.flush();
+    }
+
+    private void passed(SqlStatement statement) {
+        if (interval.getCheckpoint() != null) {
+            interval.getCheckpoint().passed(ScriptMetrics.statementsOf(statement));
+        }
+    }
+
+    private int getCheckpointOrdinal() {
+        return interval.getCheckpoint() == null ? 0 : interval.getCheckpoint().getPassed();
+    }
+
+    private static boolean holdsUnitOfWork(String sql) {
+        return HOLDS_UNIT_OF_WORK.matcher(sql).find() && !PRESERVE_ROWS.matcher(sql).find();
+    }
+}
@@ -0,0 +1,84 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+/**
+ * A point in a script where the {@link CommitInterval} may commit: after DML statements, or just before a COMMIT
+ * or ROLLBACK of the script itself.
+ *
+ * @since 1.2
+ */
+public class CommitIntervalStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private final Database database;
+    private final CommitInterval interval;
+    private final StatementKind kind;
+    private final int count;
+    private final int line;
+    private final int ordinal;
+    private boolean committed;
+
+    /**
+     * @param database The database the statements are executed against
+     * @param interval The commit interval of the script
+     * @param kind DML, COMMIT or ROLLBACK
+     * @param count Number of DML statements executed just before
+     * @param line The line of the last statement executed just before, or of the COMMIT or ROLLBACK
+     * @param ordinal The checkpoint of the script at this point, see {@link Checkpoint#getPassed()}
+     */
+    public CommitIntervalStatement(Database database, CommitInterval interval, StatementKind kind, int count, int line,
+                                   int ordinal) {
+        this.database = database;
+        this.interval = interval;
+        this.kind = kind;
+        this.count = count;
+        this.line = line;
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * Gets the checkpoint of the script at this point
+     *
+     * @return The ordinal, see {@link Checkpoint#getPassed()}
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Checks if the commit interval committed when this was executed last
+     *
+     * @return true if a unit of work ended here
+     */
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        if (kind == StatementKind.DML) {
+            int commits = interval.getCommits();
+            interval.executed(database, count, line, ordinal);
+            committed = interval.getCommits() > commits;
+        } else {
+            interval.ending(line, kind == StatementKind.COMMIT, ordinal);
+        }
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "CommitIntervalStatement{" +
+                "kind=" + kind +
+                ", line=" + line +
+                '}';
+    }
+}
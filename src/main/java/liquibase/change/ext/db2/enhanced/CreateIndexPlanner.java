@@ -0,0 +1,137 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Defers 'CREATE INDEX' statements past the inserts into their table that follow them, so the rows are inserted
+ * without maintaining the index, and the index is built once from all rows. All other statements are passed on
+ * unchanged, in script order.
+ * <p>
+ * Only indexes which cannot change the outcome of the inserts are deferred: not UNIQUE (which would reject rows)
+ * and not CLUSTER (which places the rows). They are only deferred past 'INSERT INTO table VALUES (...)' statements
+ * of literals (see {@link LiteralInsert}) into a table of a deferred index. Any other statement (including COMMIT,
+ * as a deferred index must not be committed later than in the script) first passes on the deferred indexes,
+ * in script order.
+ *
+ * @since 1.2
+ */
+public class CreateIndexPlanner implements SqlStatementConsumer {
+
+    private static final Pattern CREATE_INDEX = Pattern.compile("(?is)^(?:\\s|--[^\\n]*(?:\\n|$)|/\\*.*?\\*/)*"
+            + "CREATE\\s+INDEX\\s");
+
+    private final String path;
+    private final SqlStatementConsumer consumer;
+    private final List<Db2RawSqlStatement> pending = new ArrayList<>();
+    private final Set<String> pendingTables = new LinkedHashSet<>();
+    private int deferredPast;
+    private int firstDeferredPast;
+
+    /**
+     * @param path The path of the script, for the log
+     * @param consumer Receives all statements
+     */
+    public CreateIndexPlanner(String path, SqlStatementConsumer consumer) {
+        this.path = path;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void accept(SqlStatement statement) throws DatabaseException {
+        if (statement instanceof Db2RawSqlStatement) {
+            Db2RawSqlStatement raw = (Db2RawSqlStatement) statement;
+            String table = raw.getKind() == StatementKind.DDL ? deferrableIndexTable(raw.getSql()) : null;
+            if (table != null) {
+                pending.add(raw);
+                pendingTables.add(table);
+                return;
+            }
+            if (!pending.isEmpty() && raw.getKind() == StatementKind.DML && pendingTables.contains(insertedTable(raw))) {
+                if (deferredPast++ == 0) {
+                    firstDeferredPast = raw.getLine();
+                }
+                consumer.accept(statement);
+                return;
+            }
+        }
+        passOnPending(statement);
+        consumer.accept(statement);
+    }
+
+    @Override
+    public void flush() throws DatabaseException {
+        passOnPending(null);
+        consumer.flush();
+    }
+
+    private void passOnPending(SqlStatement next) throws DatabaseException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (deferredPast > 0) {
+            List<Integer> lines = new ArrayList<>();
+            for (Db2RawSqlStatement index : pending) {
+                lines.add(index.getLine());
+            }
+            Scope.getCurrentScope().getLog(getClass()).info("Deferred CREATE INDEX at lines " + lines + " of " + path
+                    + " on " + String.join(", ", pendingTables) + " past " + deferredPast + " inserts from line "
+                    + firstDeferredPast + (next == null ? " to the end of the script"
+                    : " to before the statement at line " + ScriptMetrics.lineOf(next)));
+        }
+        for (Db2RawSqlStatement index : pending) {
+            consumer.accept(index);
+        }
+        pending.clear();
+        pendingTables.clear();
+        deferredPast = 0;
+    }
+
+    /**
+     * @return The table of a 'CREATE INDEX' that can be deferred, null for any other statement
+     */
+    static String deferrableIndexTable(String sql) {
+        if (!CREATE_INDEX.matcher(sql).find() || ReorgCommand.namesIn(sql).contains("CLUSTER")) {
+            return null;
+        }
+        Set<String> tables = DdlTableAnalyzer.tablesOf(sql);
+        return tables == null || tables.size() != 1 ? null : tables.iterator().next();
+    }
+
+    /**
+     * @return The table of an insert of literals, as returned by {@link DdlTableAnalyzer}, null for any other statement
+     */
+    static String insertedTable(Db2RawSqlStatement statement) {
+        LiteralInsert insert = LiteralInsert.parse(statement.getSql());
+        if (insert == null) {
+            return null;
+        }
+        StringBuilder name = new StringBuilder();
+        String table = insert.getTable();
+        int i = 0;
+        while (i < table.length()) {
+            char c = table.charAt(i);
+            if (c == '"') {
+                int end = table.indexOf('"', i + 1);
+                name.append(table, i + 1, end);
+                i = end + 1;
+            } else if (c == '.') {
+                name.append('.');
+                i++;
+            } else if (!Character.isWhitespace(c)) {
+                name.append(Character.toUpperCase(c));
+                i++;
+            } else {
+                i++;
+            }
+        }
+        return name.toString();
+    }
+}
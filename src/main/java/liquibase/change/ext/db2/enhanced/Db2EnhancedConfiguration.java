@@ -0,0 +1,152 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.configuration.AutoloadedConfigurations;
+import liquibase.configuration.ConfigurationDefinition;
+import liquibase.configuration.ConfigurationValueObfuscator;
+
+/**
+ * Global settings of the DB2 enhancements, which apply to all 'db2SqlFile' changes of a run.
+ * They can be set like any other Liquibase setting, for example with '-Dliquibase.db2Enhanced.parseCacheDirectory=...'
+ * or the 'LIQUIBASE_DB2_ENHANCED_PARSE_CACHE_DIRECTORY' environment variable.
+ *
+ * @since 1.2
+ */
+public class Db2EnhancedConfiguration implements AutoloadedConfigurations {
+
+    public static final ConfigurationDefinition<String> PARSE_CACHE_DIRECTORY;
+    public static final ConfigurationDefinition<Long> PARSE_CACHE_MAX_SIZE;
+    public static final ConfigurationDefinition<String> PARALLEL_USERNAME;
+    public static final ConfigurationDefinition<String> PARALLEL_PASSWORD;
+    public static final ConfigurationDefinition<String> LOAD_STAGING_DIRECTORY;
+    public static final ConfigurationDefinition<String> LOAD_OPTIONS;
+    public static final ConfigurationDefinition<Integer> REORG_POLL_INTERVAL;
+    public static final ConfigurationDefinition<Boolean> METRICS;
+    public static final ConfigurationDefinition<Integer> METRICS_SLOWEST;
+    public static final ConfigurationDefinition<String> CHECKPOINT_TABLE;
+    public static final ConfigurationDefinition<Integer> PARSE_PARALLELISM;
+    public static final ConfigurationDefinition<String> FILE_CHECKSUM_TABLE;
+    public static final ConfigurationDefinition<Integer> EXPLAIN_REPORT_SIZE;
+    public static final ConfigurationDefinition<Integer> LOCK_RETRY_BUDGET;
+    public static final ConfigurationDefinition<Integer> LOCK_RETRY_DELAY;
+    public static final ConfigurationDefinition<Integer> LOCK_RETRY_MAX_DELAY;
+    public static final ConfigurationDefinition<String> DBMS_OUTPUT_SINK;
+    public static final ConfigurationDefinition<String> DBMS_OUTPUT_FILE;
+    public static final ConfigurationDefinition<Long> DBMS_OUTPUT_FILE_MAX_SIZE;
+    public static final ConfigurationDefinition<Integer> DBMS_OUTPUT_FILE_COUNT;
+
+    static {
+        ConfigurationDefinition.Builder builder = new ConfigurationDefinition.Builder("liquibase.db2Enhanced");
+
+        PARSE_CACHE_DIRECTORY = builder.define("parseCacheDirectory", String.class)
+                .setDescription("Directory where parsed 'db2SqlFile' scripts are cached between runs. " +
+                        "If not set, no parse cache is used.")
+                .build();
+
+        PARSE_CACHE_MAX_SIZE = builder.define("parseCacheMaxSize", Long.class)
+                .setDescription("Maximum size of the parse cache directory in bytes, " +
+                        "the least recently used entries are removed first.")
+                .setDefaultValue(256L * 1024 * 1024)
+                .build();
+
+        PARALLEL_USERNAME = builder.define("parallelUsername", String.class)
+                .setDescription("User for the extra connections of 'db2SqlFile' changes with 'parallelDdl'. " +
+                        "Defaults to the user of the main connection.")
+                .build();
+
+        PARALLEL_PASSWORD = builder.define("parallelPassword", String.class)
+                .setDescription("Password for the extra connections of 'db2SqlFile' changes with 'parallelDdl'. " +
+                        "The password of the main connection is not available to extensions.")
+                .setValueObfuscator(ConfigurationValueObfuscator.STANDARD)
+                .build();
+
+        LOAD_STAGING_DIRECTORY = builder.define("loadStagingDirectory", String.class)
+                .setDescription("Directory for the DEL files of 'db2SqlFile' changes with 'loadThreshold'. " +
+                        "It must be readable by the DB2 server at the same path. " +
+                        "If not set, rows are loaded from a cursor instead.")
+                .build();
+
+        LOAD_OPTIONS = builder.define("loadOptions", String.class)
+                .setDescription("Options added to the end of each LOAD command of 'db2SqlFile' changes with 'loadThreshold', " +
+                        "for example 'NONRECOVERABLE' to avoid the backup pending state with archive logging.")
+                .build();
+
+        REORG_POLL_INTERVAL = builder.define("reorgPollInterval", Integer.class)
+                .setDescription("Seconds between two status checks of the online REORGs of 'db2SqlFile' changes with 'onlineReorg'.")
+                .setDefaultValue(10)
+                .build();
+
+        METRICS = builder.define("metrics", Boolean.class)
+                .setDescription("If true, the execution of 'db2SqlFile' scripts is measured, " +
+                        "logged at the end of each script and published with JMX as 'liquibase.db2Enhanced:type=Metrics'.")
+                .setDefaultValue(false)
+                .build();
+
+        METRICS_SLOWEST = builder.define("metricsSlowest", Integer.class)
+                .setDescription("Number of slowest statements kept by the metrics.")
+                .setDefaultValue(10)
+                .build();
+
+        CHECKPOINT_TABLE = builder.define("checkpointTable", String.class)
+                .setDescription("Table in the Liquibase schema where 'db2SqlFile' changes with 'checkpoint' record " +
+                        "their last committed statement. Created when first needed.")
+                .setDefaultValue("DB2ENHANCED_CHECKPOINT")
+                .build();
+
+        PARSE_PARALLELISM = builder.define("parseParallelism", Integer.class)
+                .setDescription("Number of threads parsing the scripts of a 'db2SqlDirectory' change. " +
+                        "0 uses one thread per processor.")
+                .setDefaultValue(0)
+                .build();
+
+        FILE_CHECKSUM_TABLE = builder.define("fileChecksumTable", String.class)
+                .setDescription("Table in the Liquibase schema where 'db2SqlDirectory' changes with 'skipUnchangedFiles' " +
+                        "record the checksum of each executed file. Created when first needed.")
+                .setDefaultValue("DB2ENHANCED_FILE_CHECKSUM")
+                .build();
+
+        EXPLAIN_REPORT_SIZE = builder.define("explainReportSize", Integer.class)
+                .setDescription("Number of most expensive statements logged by 'db2SqlFile' changes with 'explain'. " +
+                        "0 logs all of them.")
+                .setDefaultValue(20)
+                .build();
+
+        LOCK_RETRY_BUDGET = builder.define("lockRetryBudget", Integer.class)
+                .setDescription("Maximum number of retries after deadlocks and lock timeouts per 'db2SqlFile' script " +
+                        "with 'lockRetries', over all of its statements.")
+                .setDefaultValue(10)
+                .build();
+
+        LOCK_RETRY_DELAY = builder.define("lockRetryDelay", Integer.class)
+                .setDescription("Delay in milliseconds before the first retry after a deadlock or lock timeout, " +
+                        "doubled for every further retry of the same statement. The actual delay is a random value " +
+                        "between half and all of it.")
+                .setDefaultValue(100)
+                .build();
+
+        LOCK_RETRY_MAX_DELAY = builder.define("lockRetryMaxDelay", Integer.class)
+                .setDescription("Maximum delay in milliseconds before a retry after a deadlock or lock timeout.")
+                .setDefaultValue(10000)
+                .build();
+
+        DBMS_OUTPUT_SINK = builder.define("dbmsOutputSink", String.class)
+                .setDescription("Class name of a " + DbmsOutputSink.class.getName() + " with a public constructor " +
+                        "without arguments, which receives the DBMS_OUTPUT of all scripts instead of the log.")
+                .build();
+
+        DBMS_OUTPUT_FILE = builder.define("dbmsOutputFile", String.class)
+                .setDescription("File the DBMS_OUTPUT of all scripts is appended to instead of the log. " +
+                        "It is rotated when it reaches 'dbmsOutputFileMaxSize'.")
+                .build();
+
+        DBMS_OUTPUT_FILE_MAX_SIZE = builder.define("dbmsOutputFileMaxSize", Long.class)
+                .setDescription("Size in bytes at which 'dbmsOutputFile' is renamed to 'dbmsOutputFile.1' " +
+                        "(and older files to '.2' and so on), and a new file is started.")
+                .setDefaultValue(10L * 1024 * 1024)
+                .build();
+
+        DBMS_OUTPUT_FILE_COUNT = builder.define("dbmsOutputFileCount", Integer.class)
+                .setDescription("Number of DBMS_OUTPUT files kept, including the current one.")
+                .setDefaultValue(5)
+                .build();
+    }
+}
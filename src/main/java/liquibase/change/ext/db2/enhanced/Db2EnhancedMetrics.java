@@ -0,0 +1,158 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Collects the {@link ScriptMetrics} of all 'db2SqlFile' scripts of this JVM, and publishes them with JMX.
+ * The MBean is registered when the first script with metrics starts.
+ *
+ * @since 1.2
+ */
+public class Db2EnhancedMetrics implements Db2EnhancedMetricsMBean {
+
+    private static final String OBJECT_NAME = "liquibase.db2Enhanced:type=Metrics";
+
+    private static Db2EnhancedMetrics instance;
+
+    private ScriptMetrics total;
+    private ScriptMetrics current;
+    private long scriptCount;
+
+    private Db2EnhancedMetrics() {
+        total = new ScriptMetrics("all scripts", getMaxSlowest());
+    }
+
+    /**
+     * Gets the metrics of this JVM, registering the MBean if needed
+     *
+     * @return Db2EnhancedMetrics, never null
+     */
+    public static synchronized Db2EnhancedMetrics getInstance() {
+        if (instance == null) {
+            instance = new Db2EnhancedMetrics();
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (server.isRegistered(name)) {
+                    // Registered by another class loader, e.g. a previous Maven plugin execution
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(instance, name);
+            } catch (JMException | SecurityException e) {
+                Scope.getCurrentScope().getLog(Db2EnhancedMetrics.class).fine("Could not register " + OBJECT_NAME + ": " + e.getMessage());
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Checks if metrics are enabled, see {@link Db2EnhancedConfiguration#METRICS}
+     *
+     * @return true if scripts record their metrics
+     */
+    public static boolean isEnabled() {
+        return Boolean.TRUE.equals(Db2EnhancedConfiguration.METRICS.getCurrentValue());
+    }
+
+    /**
+     * Creates the metrics of a script, if metrics are enabled
+     *
+     * @param script The path of the script
+     * @return The metrics to record, null if metrics are disabled
+     */
+    public static ScriptMetrics newScript(String script) {
+        return isEnabled() ? new ScriptMetrics(script, getMaxSlowest()) : null;
+    }
+
+    /**
+     * Makes the metrics of a script that starts executing the current ones, if metrics are enabled
+     *
+     * @param metrics The metrics of the script, see {@link #newScript(String)}
+     */
+    public static void startScript(ScriptMetrics metrics) {
+        if (!isEnabled()) {
+            return;
+        }
+        Db2EnhancedMetrics instance = getInstance();
+        synchronized (instance) {
+            instance.current = metrics;
+        }
+    }
+
+    /**
+     * Adds the metrics of a finished script to the totals, and logs its summary
+     *
+     * @param metrics The metrics of the script
+     */
+    public synchronized void finishScript(ScriptMetrics metrics) {
+        total.add(metrics);
+        scriptCount++;
+        Scope.getCurrentScope().getLog(getClass()).info(metrics.getSummary());
+    }
+
+    private static int getMaxSlowest() {
+        return Db2EnhancedConfiguration.METRICS_SLOWEST.getCurrentValue();
+    }
+
+    @Override
+    public synchronized long getScriptCount() {
+        return scriptCount;
+    }
+
+    @Override
+    public synchronized long getStatementCount() {
+        return total.getStatementCount();
+    }
+
+    @Override
+    public synchronized long getExecutionMillis() {
+        return total.getExecutionMillis();
+    }
+
+    @Override
+    public synchronized long getRowsAffected() {
+        return total.getRowsAffected();
+    }
+
+    @Override
+    public synchronized long getParseMillis() {
+        return total.getParseMillis();
+    }
+
+    @Override
+    public synchronized long getDbmsOutputDrainMillis() {
+        return total.getDbmsOutputDrainMillis();
+    }
+
+    @Override
+    public synchronized long getLockRetries() {
+        return total.getLockRetries();
+    }
+
+    @Override
+    public synchronized String[] getLatencyHistogram() {
+        return total.getLatencyHistogram().toArray(new String[0]);
+    }
+
+    @Override
+    public synchronized String[] getSlowestStatements() {
+        return total.getSlowestStatements().toArray(new String[0]);
+    }
+
+    @Override
+    public synchronized String getCurrentScriptSummary() {
+        return current == null ? null : current.getSummary();
+    }
+
+    @Override
+    public synchronized void reset() {
+        total = new ScriptMetrics("all scripts", getMaxSlowest());
+        current = null;
+        scriptCount = 0;
+    }
+}
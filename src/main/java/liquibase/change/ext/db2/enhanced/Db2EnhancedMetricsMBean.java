@@ -0,0 +1,65 @@
+package liquibase.change.ext.db2.enhanced;
+
+/**
+ * The JMX view of {@link Db2EnhancedMetrics}, registered as 'liquibase.db2Enhanced:type=Metrics'.
+ * Totals include all finished 'db2SqlFile' scripts since the start or the last reset.
+ *
+ * @since 1.2
+ */
+public interface Db2EnhancedMetricsMBean {
+
+    /**
+     * @return Number of finished scripts
+     */
+    long getScriptCount();
+
+    /**
+     * @return Number of statements executed
+     */
+    long getStatementCount();
+
+    /**
+     * @return Total execution time of the statements in milliseconds
+     */
+    long getExecutionMillis();
+
+    /**
+     * @return Number of rows changed, as far as the driver reports it
+     */
+    long getRowsAffected();
+
+    /**
+     * @return Time spent parsing in milliseconds
+     */
+    long getParseMillis();
+
+    /**
+     * @return Time spent retrieving DBMS_OUTPUT in milliseconds
+     */
+    long getDbmsOutputDrainMillis();
+
+    /**
+     * @return Number of retries after deadlocks and lock timeouts
+     */
+    long getLockRetries();
+
+    /**
+     * @return Latency histogram per kind of statement, one line per kind
+     */
+    String[] getLatencyHistogram();
+
+    /**
+     * @return The slowest statements, slowest first
+     */
+    String[] getSlowestStatements();
+
+    /**
+     * @return Summary of the running script, or of the last finished script
+     */
+    String getCurrentScriptSummary();
+
+    /**
+     * Clears all totals
+     */
+    void reset();
+}
@@ -0,0 +1,75 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.statement.core.RawSqlStatement;
+
+/**
+ * A raw SQL statement parsed from a DB2 script, which remembers where it came from in the script.
+ *
+ * @since 1.2
+ */
+public class Db2RawSqlStatement extends RawSqlStatement {
+
+    private final String terminator;
+    private final int line;
+    private int ordinal;
+    private StatementKind kind;
+
+    /**
+     * @param sql The SQL to execute
+     * @param endDelimiter The end delimiter of the change
+     * @param terminator The script terminator in use for this statement (see '--#SET TERMINATOR')
+     * @param line The line in the script where the statement starts (1 based)
+     */
+    public Db2RawSqlStatement(String sql, String endDelimiter, String terminator, int line) {
+        super(sql, endDelimiter);
+        this.terminator = terminator;
+        this.line = line;
+    }
+
+    /**
+     * Gets the script terminator that was in use for this statement
+     *
+     * @return String, never null
+     */
+    public String getTerminator() {
+        return terminator;
+    }
+
+    /**
+     * Gets the line in the script where the statement starts
+     *
+     * @return int, 1 based
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Gets the position of the statement among all statements parsed from the script
+     *
+     * @return int, 1 based, 0 if not known
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * @see #getOrdinal()
+     * @param ordinal 1 based
+     */
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * Gets the kind of this statement, based on its first keyword
+     *
+     * @return StatementKind, never null
+     */
+    public StatementKind getKind() {
+        if (kind == null) {
+            kind = StatementKind.of(getSql());
+        }
+        return kind;
+    }
+}
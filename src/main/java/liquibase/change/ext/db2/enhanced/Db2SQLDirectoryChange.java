@@ -0,0 +1,386 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.change.ChangeFactory;
+import liquibase.change.ChangeMetaData;
+import liquibase.change.ChangeParameterMetaData;
+import liquibase.change.CheckSum;
+import liquibase.change.DatabaseChange;
+import liquibase.change.DatabaseChangeProperty;
+import liquibase.database.Database;
+import liquibase.database.core.DB2Database;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.SetupException;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.logging.Logger;
+import liquibase.resource.Resource;
+import liquibase.resource.ResourceAccessor;
+import liquibase.statement.SqlStatement;
+import liquibase.util.StreamUtil;
+import liquibase.util.StringUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The 'db2SqlDirectory' executes all DB2 SQL files of a directory which match a pattern, in a fixed order,
+ * as if each file was a 'db2SqlFile' change with the same options.
+ * <p>
+ * The files are parsed concurrently (see {@link Db2EnhancedConfiguration#PARSE_PARALLELISM}), but always executed
+ * one after another in the order of their paths. The checksum of the change is made of the checksums of the files,
+ * and with 'skipUnchangedFiles' a rerun of the change only executes the files that changed since they were executed.
+ *
+ * @since 1.2
+ */
+@DatabaseChange(name = "db2SqlDirectory",
+        description = "The 'db2SqlDirectory' executes all DB2 SQL files of a directory, each parsed like a 'db2SqlFile'\n",
+        priority = ChangeMetaData.PRIORITY_DEFAULT)
+public class Db2SQLDirectoryChange extends Db2SQLFileChange {
+
+    private static final Set<String> FILE_PARAMETERS = new HashSet<>(Arrays.asList("path", "relativeToChangelogFile"));
+
+    private String includePattern = "*.sql";
+
+    private String order = "name";
+
+    private boolean skipUnchangedFiles = false;
+
+    @Override
+    @DatabaseChangeProperty(description = "The path of the directory containing the SQL files", requiredForDatabase = "all")
+    public String getPath() {
+        return super.getPath();
+    }
+
+    /**
+     * The files to execute, as a glob pattern (see {@link java.nio.file.FileSystem#getPathMatcher(String)})
+     * on their path relative to the directory. Sub-directories are only searched if the pattern contains '/' or '**'.
+     *
+     * @return String, Liquibase requires a String, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "Glob pattern of the files to execute, relative to the directory, " +
+            "for example '*.sql', 'procedures/*.sql' or '**.sql' for all files, including sub-directories. " +
+            "Default is '*.sql'.")
+    public String getIncludePattern() {
+        return includePattern;
+    }
+
+    /**
+     * @see #getIncludePattern()
+     * @param includePattern if null, this defaults to '*.sql'
+     */
+    public void setIncludePattern(String includePattern) {
+        this.includePattern = Optional.ofNullable(includePattern).orElse("*.sql");
+    }
+
+    /**
+     * The order of execution of the files, see {@link ScriptOrder}
+     *
+     * @return String, Liquibase requires a String, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "The order of execution of the files: 'name' compares their paths " +
+            "character by character, 'natural' compares numbers by their value (V2 before V10). Default is 'name'.")
+    public String getOrder() {
+        return order;
+    }
+
+    /**
+     * @see #getOrder()
+     * @param order if null, this defaults to 'name'
+     */
+    public void setOrder(String order) {
+        this.order = Optional.ofNullable(order).orElse("name");
+    }
+
+    /**
+     * If true, the checksum of each executed file is recorded in a tracking table
+     * (see {@link Db2EnhancedConfiguration#FILE_CHECKSUM_TABLE}), and files whose checksum did not change
+     * are skipped. Meant for changesets with 'runOnChange', which run again whenever one of their files changes.
+     * Only used when running against a live database.
+     *
+     * @return Boolean, Liquibase requires a Boolean, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If true, the checksum of each executed file is recorded, and a rerun " +
+            "of the change only executes the files that changed. Default is false.")
+    public Boolean isSkipUnchangedFiles() {
+        return skipUnchangedFiles;
+    }
+
+    /**
+     * @see #isSkipUnchangedFiles()
+     * @param skipUnchangedFiles if null, this defaults to false
+     */
+    public void setSkipUnchangedFiles(Boolean skipUnchangedFiles) {
+        this.skipUnchangedFiles = Optional.ofNullable(skipUnchangedFiles).orElse(false);
+    }
+
+    @Override
+    public void finishInitialization() throws SetupException {
+        if (getPath() == null) {
+            throw new SetupException("<db2SqlDirectory> - No path specified");
+        }
+    }
+
+    /**
+     * A directory has no single script
+     */
+    @Override
+    public InputStream openSqlStream() {
+        return null;
+    }
+
+    /**
+     * A directory has no single script
+     */
+    @Override
+    public String getSql() {
+        return null;
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors validationErrors = super.validate(database);
+        if (ScriptOrder.of(getOrder()) == null) {
+            validationErrors.addError("'order' must be 'name' or 'natural'");
+        }
+        return validationErrors;
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "SQL in directory " + getPath() + " executed";
+    }
+
+    /**
+     * Computed one file after the other: the content read is kept by {@link ScriptResource} and parsed without
+     * reading the file again
+     */
+    @Override
+    public CheckSum generateCheckSum() {
+        StringBuilder fileChecksums = new StringBuilder();
+        for (ScriptFile file : findFiles()) {
+            fileChecksums.append(file.path).append('=').append(file.checksum()).append('\n');
+        }
+        return CheckSum.compute(fileChecksums.toString());
+    }
+
+    @Override
+    public SqlStatement[] generateStatements(Database database) {
+        getLogger().fine("Running Db2SQLDirectoryChange");
+
+        List<ScriptFile> files = findFiles();
+        FileChecksums fileChecksums = null;
+        Map<String, String> executedChecksums = null;
+        if (isSkipUnchangedFiles() && database instanceof DB2Database && isJdbcExecution(database)) {
+            fileChecksums = new FileChecksums(database, getChangeId());
+            try {
+                executedChecksums = fileChecksums.read();
+            } catch (DatabaseException e) {
+                throw new UnexpectedLiquibaseException(e);
+            }
+        }
+
+        List<SqlStatement> statements = new ArrayList<>();
+        boolean isStartOfUnitOfWork = isStartOfUnitOfWork();
+        // The statistics are collected once, after all scripts
+        RunstatsStatement runstatsStatement = isRunstats() && database instanceof DB2Database && isJdbcExecution(database)
+                ? new RunstatsStatement(database, getPath(), getRunstatsSample()) : null;
+        for (ParsedScript script : parseFiles(database, files, executedChecksums)) {
+            if (script.unchanged) {
+                getLogger().info("Skipping unchanged file " + script.file.path);
+                continue;
+            }
+            // The scripts run in the unit of work of the first one, for 'lockRetries'
+            script.file.change.setStartOfUnitOfWork(isStartOfUnitOfWork);
+            isStartOfUnitOfWork = false;
+            script.file.change.setSharedRunstatsStatement(runstatsStatement);
+            if (script.statements == null) {
+                // Streamed, parsed when executed
+                statements.addAll(Arrays.asList(script.file.change.generateStatements(database)));
+            } else if (!script.statements.isEmpty()) {
+                statements.addAll(Arrays.asList(script.file.change.planStatements(database, script.statements,
+                        script.parseNanos)));
+            }
+            if (fileChecksums != null) {
+                statements.add(new FileChecksumStatement(fileChecksums, script.file.path, script.checksum));
+            }
+        }
+        if (runstatsStatement != null) {
+            statements.add(runstatsStatement);
+        }
+        return statements.toArray(new SqlStatement[0]);
+    }
+
+    /**
+     * Parses the files on a fork-join pool, unless they are streamed or unchanged
+     *
+     * @param executedChecksums See {@link FileChecksums#read()}, null if the checksums are not recorded
+     * @return The scripts, in the order of the files
+     */
+    private List<ParsedScript> parseFiles(Database database, List<ScriptFile> files, Map<String, String> executedChecksums) {
+        List<ForkJoinTask<ParsedScript>> tasks = new ArrayList<>();
+        ForkJoinPool pool = newPool();
+        try {
+            for (ScriptFile file : files) {
+                tasks.add(pool.submit(() -> file.parse(database, executedChecksums, isStreamed())));
+            }
+            List<ParsedScript> scripts = new ArrayList<>();
+            for (ForkJoinTask<ParsedScript> task : tasks) {
+                scripts.add(task.join());
+            }
+            return scripts;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private ForkJoinPool newPool() {
+        int parallelism = Db2EnhancedConfiguration.PARSE_PARALLELISM.getCurrentValue();
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Finds the files matching the pattern, in execution order
+     */
+    private List<ScriptFile> findFiles() {
+        ResourceAccessor resourceAccessor = Scope.getCurrentScope().getResourceAccessor();
+        ScriptOrder scriptOrder = Optional.ofNullable(ScriptOrder.of(getOrder())).orElse(ScriptOrder.NAME);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + getIncludePattern());
+        SortedMap<String, String> paths = new TreeMap<>(scriptOrder);
+        try {
+            String directory = getDirectory(resourceAccessor);
+            String prefix = trimSlashes(directory) + "/";
+            for (Resource resource : resourceAccessor.search(directory, isRecursive())) {
+                String resourcePath = trimSlashes(resource.getPath());
+                String relativePath = resourcePath.startsWith(prefix) ? resourcePath.substring(prefix.length())
+                        : resourcePath.substring(resourcePath.lastIndexOf('/') + 1);
+                if (matcher.matches(Paths.get(relativePath))) {
+                    paths.putIfAbsent(relativePath, resource.getPath());
+                }
+            }
+        } catch (IOException e) {
+            throw new UnexpectedLiquibaseException("Error listing the files of " + getPath() + ": " + e.getMessage(), e);
+        }
+        getLogger().fine("Files in " + getPath() + ": " + paths.size());
+
+        List<ScriptFile> files = new ArrayList<>();
+        for (Map.Entry<String, String> path : paths.entrySet()) {
+            files.add(new ScriptFile(path.getKey(), newFileChange(path.getValue())));
+        }
+        return files;
+    }
+
+    /**
+     * '*' does not match '/', so only patterns with '/' or '**' can match files in sub-directories
+     */
+    private boolean isRecursive() {
+        return getIncludePattern().contains("/") || getIncludePattern().contains("**");
+    }
+
+    private String getDirectory(ResourceAccessor resourceAccessor) throws IOException {
+        if (Boolean.TRUE.equals(isRelativeToChangelogFile()) && getChangeSet() != null) {
+            return resourceAccessor.get(getChangeSet().getChangeLog().getPhysicalFilePath()).resolveSibling(getPath()).getPath();
+        }
+        return getPath();
+    }
+
+    private static String trimSlashes(String path) {
+        String trimmed = path.replace('\\', '/');
+        while (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+
+    /**
+     * Creates the 'db2SqlFile' change of a file, with the options of this change
+     */
+    private Db2SQLFileChange newFileChange(String path) {
+        Db2SQLFileChange change = new Db2SQLFileChange();
+        ChangeFactory changeFactory = Scope.getCurrentScope().getSingleton(ChangeFactory.class);
+        Map<String, ChangeParameterMetaData> parameters = changeFactory.getChangeMetaData(this).getParameters();
+        for (ChangeParameterMetaData parameter : changeFactory.getChangeMetaData(change).getParameters().values()) {
+            if (!FILE_PARAMETERS.contains(parameter.getParameterName())) {
+                parameter.setValue(change, parameters.get(parameter.getParameterName()).getCurrentValue(this));
+            }
+        }
+        change.setPath(path);
+        change.setRelativeToChangelogFile(false);
+        change.setChangeSet(getChangeSet());
+        return change;
+    }
+
+    private Logger getLogger() {
+        return Scope.getCurrentScope().getLog(getClass());
+    }
+
+    /**
+     * A file of the directory
+     */
+    private static class ScriptFile {
+
+        private final String path;
+        private final Db2SQLFileChange change;
+
+        ScriptFile(String path, Db2SQLFileChange change) {
+            this.path = path;
+            this.change = change;
+        }
+
+        String checksum() {
+            try (InputStream stream = change.openSqlStream()) {
+                return Checkpoint.checksum(StreamUtil.readStreamWithReader(stream, change.getEncoding()));
+            } catch (IOException e) {
+                throw new UnexpectedLiquibaseException("Error reading " + change.getPath() + ": " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * @param executedChecksums The checksums of the files when they were last executed, null if not recorded
+         * @param isStreamed If true, the file is parsed when it is executed
+         */
+        ParsedScript parse(Database database, Map<String, String> executedChecksums, boolean isStreamed) {
+            String checksum = executedChecksums == null ? null : checksum();
+            if (checksum != null && checksum.equals(executedChecksums.get(path))) {
+                return new ParsedScript(this, checksum, true, null, 0);
+            }
+            if (isStreamed) {
+                return new ParsedScript(this, checksum, false, null, 0);
+            }
+            long parseStart = System.nanoTime();
+            String sql = StringUtil.trimToNull(change.getSql());
+            List<SqlStatement> statements = sql == null ? new ArrayList<>() : change.parseStatements(database, sql);
+            return new ParsedScript(this, checksum, false, statements, System.nanoTime() - parseStart);
+        }
+    }
+
+    /**
+     * The statements of a file, parsed ahead of execution
+     */
+    private static class ParsedScript {
+
+        private final ScriptFile file;
+        private final String checksum;
+        private final boolean unchanged;
+        private final List<SqlStatement> statements;
+        private final long parseNanos;
+
+        ParsedScript(ScriptFile file, String checksum, boolean unchanged, List<SqlStatement> statements,
+                     long parseNanos) {
+            this.file = file;
+            this.checksum = checksum;
+            this.unchanged = unchanged;
+            this.statements = statements;
+            this.parseNanos = parseNanos;
+        }
+    }
+}
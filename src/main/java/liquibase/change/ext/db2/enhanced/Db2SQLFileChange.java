@@ -2,22 +2,37 @@ package liquibase.change.ext.db2.enhanced;
 
 import liquibase.Scope;
 import liquibase.change.ChangeMetaData;
+import liquibase.change.CheckSum;
 import liquibase.change.DatabaseChange;
 import liquibase.change.DatabaseChangeProperty;
 import liquibase.change.core.SQLFileChange;
+import liquibase.changelog.ChangeSet;
 import liquibase.database.Database;
 import liquibase.database.core.DB2Database;
+import liquibase.database.jvm.JdbcConnection;
 import liquibase.exception.DatabaseException;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.exception.ValidationErrors;
 import liquibase.executor.Executor;
 import liquibase.executor.ExecutorService;
+import liquibase.executor.LoggingExecutor;
+import liquibase.executor.jvm.JdbcExecutor;
 import liquibase.logging.Logger;
+import liquibase.resource.Resource;
+import liquibase.resource.ResourceAccessor;
 import liquibase.statement.SqlStatement;
 import liquibase.statement.core.RawSqlStatement;
-import liquibase.util.SqlParser;
+import liquibase.util.ObjectUtil;
+import liquibase.util.StreamUtil;
 import liquibase.util.StringUtil;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The 'db2SqlFile' is an extension that parses DB2 SQL files a bit better.
@@ -29,18 +44,64 @@ import java.util.stream.Collectors;
         priority = ChangeMetaData.PRIORITY_DEFAULT)
 public class Db2SQLFileChange extends SQLFileChange {
 
-    private static final String DB2_DELIMITER_COMMAND = "--#SET TERMINATOR ";
-
     private static final String REORG_TABLE_COMMAND = "REORG TABLE ";
 
     private boolean useSetTerminatorComments = true;
 
+    private boolean useIncludeComments = false;
+
     private boolean rewriteReorgTableStatements = true;
 
     private boolean commitBeforeTruncate = true;
 
     private boolean disableAllDbmsOutput = false;
 
+    private boolean streamStatements = false;
+
+    private int dbmsOutputDrainEvery = 1;
+
+    private int dbmsOutputMaxLines = 0;
+
+    private int batchSize = 0;
+
+    private int parallelDdl = 0;
+
+    private int loadThreshold = 0;
+
+    private boolean loadFallback = true;
+
+    private boolean deferReorg = false;
+
+    private int reorgThreshold = 0;
+
+    private boolean onlineReorg = false;
+
+    private int commitEvery = 0;
+
+    private int commitEveryRows = 0;
+
+    private boolean checkpoint = false;
+
+    private boolean explain = false;
+
+    private int explainCostCeiling = 0;
+
+    private int lockRetries = 0;
+
+    private boolean coalesceAlterTable = false;
+
+    private boolean deferCreateIndex = false;
+
+    private boolean runstats = false;
+
+    private int runstatsSample = 0;
+
+    private RunstatsStatement sharedRunstatsStatement;
+
+    private Boolean startOfUnitOfWork;
+
+    private boolean isSqlSet;
+
     /**
      * If true, 'REORG TABLE X' will be re-written to be a ADMIN_CMD so that the JDBC driver can execute it.
      *
@@ -101,6 +162,27 @@ public class Db2SQLFileChange extends SQLFileChange {
         this.useSetTerminatorComments = Optional.ofNullable(useSetTerminatorComments).orElse(true);
     }
 
+    /**
+     * If true, a '--#INCLUDE path' comment between two statements is replaced by the statements of the script
+     * at that path, relative to this script (see {@link ScriptIncludes}). Included scripts are parsed once per run.
+     * Their content is part of the checksum of this change and of its checkpoint.
+     *
+     * @return Boolean, Liquibase requires a Boolean, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If true, '--#INCLUDE path' comments are replaced by the statements " +
+            "of the script at that path, relative to this script. Default is false.")
+    public Boolean isUseIncludeComments() {
+        return useIncludeComments;
+    }
+
+    /**
+     * @see #isUseIncludeComments()
+     * @param useIncludeComments if null, this defaults to false
+     */
+    public void setUseIncludeComments(Boolean useIncludeComments) {
+        this.useIncludeComments = Optional.ofNullable(useIncludeComments).orElse(false);
+    }
+
     /**
      * If true, even if DBMS_OUTPUT is turned on in scripts, it will be ignored.
      *
@@ -120,74 +202,1026 @@ public class Db2SQLFileChange extends SQLFileChange {
         this.disableAllDbmsOutput = Optional.ofNullable(disableAllDbmsOutput).orElse(false);
     }
 
+    /**
+     * If true, the script is read and executed one statement at a time instead of being loaded into memory as a whole.
+     * With updateSQL, the statements are written to the output as they are read, each with its terminator and
+     * '--#SET TERMINATOR' directives where the terminator changes, so the output can be run with 'db2 -tvf'.
+     * Note: modifySql is not applied to streamed statements.
+     *
+     * @return Boolean, Liquibase requires a Boolean, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If true, the script is read and executed one statement at a time, " +
+            "so memory is bounded by the largest statement instead of the whole file. " +
+            "Default is false.")
+    public Boolean isStreamStatements() {
+        return streamStatements;
+    }
+
+    /**
+     * @see #isStreamStatements()
+     * @param streamStatements if null, this defaults to false
+     */
+    public void setStreamStatements(Boolean streamStatements) {
+        this.streamStatements = Optional.ofNullable(streamStatements).orElse(false);
+    }
+
+    /**
+     * DBMS_OUTPUT is retrieved after every n statements that can produce output (CALLs, anonymous blocks and
+     * compound statements). With 0, the output is only retrieved once at the end of the script.
+     *
+     * @return Integer, Liquibase requires an Integer, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "DBMS_OUTPUT is retrieved after every n statements that can produce output " +
+            "(CALLs, anonymous blocks and compound statements). With 0, it is only retrieved at the end of the script. " +
+            "Default is 1.")
+    public Integer getDbmsOutputDrainEvery() {
+        return dbmsOutputDrainEvery;
+    }
+
+    /**
+     * @see #getDbmsOutputDrainEvery()
+     * @param dbmsOutputDrainEvery if null, this defaults to 1
+     */
+    public void setDbmsOutputDrainEvery(Integer dbmsOutputDrainEvery) {
+        this.dbmsOutputDrainEvery = Optional.ofNullable(dbmsOutputDrainEvery).orElse(1);
+    }
+
+    /**
+     * If more than 0, only this number of DBMS_OUTPUT lines of the script are passed on to the log (or the configured
+     * {@link DbmsOutputSink}). Further lines are still retrieved, but dropped, and their number is logged at the end
+     * of the script (see {@link DbmsOutputLimit}).
+     *
+     * @return Integer, Liquibase requires an Integer, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If more than 0, further DBMS_OUTPUT lines of the script are dropped, " +
+            "and their number is logged at the end of the script. Default is 0 (no limit).")
+    public Integer getDbmsOutputMaxLines() {
+        return dbmsOutputMaxLines;
+    }
+
+    /**
+     * @see #getDbmsOutputMaxLines()
+     * @param dbmsOutputMaxLines if null, this defaults to 0
+     */
+    public void setDbmsOutputMaxLines(Integer dbmsOutputMaxLines) {
+        this.dbmsOutputMaxLines = Optional.ofNullable(dbmsOutputMaxLines).orElse(0);
+    }
+
+    /**
+     * If more than 1, consecutive DML statements are executed with JDBC batches of (at most) this size.
+     * Statements sharing the same shape are executed with a single prepared statement, their literals being bound
+     * as parameters. Only used when running against a live database.
+     * Note: modifySql is not applied to batched statements.
+     *
+     * @return Integer, Liquibase requires an Integer, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If more than 1, consecutive DML statements (INSERT, UPDATE, DELETE, MERGE) " +
+            "are executed with JDBC batches of this size. A batch ends at any other statement (COMMIT, DDL, CALL, ...). " +
+            "Default is 0 (no batches).")
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @see #getBatchSize()
+     * @param batchSize if null, this defaults to 0
+     */
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = Optional.ofNullable(batchSize).orElse(0);
+    }
+
+    /**
+     * If more than 0, runs of consecutive 'CREATE INDEX' and 'ALTER TABLE ... ADD' constraint statements are
+     * executed in parallel on (at most) this number of extra connections, statements on the same tables staying
+     * in script order on one connection. Any other statement waits for all of them to finish.
+     * Only used when running against a live database.
+     * Note: the work before the parallel statements is committed and the extra connections commit their work, so
+     * a failing changeset stays partially applied. The changeset must have runInTransaction="false".
+     * modifySql is not applied to parallel statements.
+     *
+     * @return Integer, Liquibase requires an Integer, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If more than 0, runs of consecutive 'CREATE INDEX' and 'ALTER TABLE ... ADD' " +
+            "constraint statements on unrelated tables are executed in parallel on this number of extra connections. " +
+            "Default is 0 (no parallel execution).")
+    public Integer getParallelDdl() {
+        return parallelDdl;
+    }
+
+    /**
+     * @see #getParallelDdl()
+     * @param parallelDdl if null, this defaults to 0
+     */
+    public void setParallelDdl(Integer parallelDdl) {
+        this.parallelDdl = Optional.ofNullable(parallelDdl).orElse(0);
+    }
+
+    /**
+     * If more than 0, runs of at least this number of consecutive INSERT statements of literals into the same table
+     * are executed as a single LOAD (with 'CALL SYSPROC.ADMIN_CMD'). Only used when running against a live database.
+     * Note: LOAD is not part of the transaction of the changeset, modifySql is not applied to loaded statements.
+     *
+     * @return Integer, Liquibase requires an Integer, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If more than 0, runs of at least this number of consecutive INSERT " +
+            "statements of literals into the same table are executed as a LOAD with ADMIN_CMD. " +
+            "Default is 0 (no LOAD).")
+    public Integer getLoadThreshold() {
+        return loadThreshold;
+    }
+
+    /**
+     * @see #getLoadThreshold()
+     * @param loadThreshold if null, this defaults to 0
+     */
+    public void setLoadThreshold(Integer loadThreshold) {
+        this.loadThreshold = Optional.ofNullable(loadThreshold).orElse(0);
+    }
+
+    /**
+     * If true, the INSERT statements are executed as usual when their LOAD fails.
+     *
+     * @return Boolean, Liquibase requires a Boolean, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If true, the INSERT statements are executed as usual when their LOAD fails. " +
+            "Default is true.")
+    public Boolean isLoadFallback() {
+        return loadFallback;
+    }
+
+    /**
+     * @see #isLoadFallback()
+     * @param loadFallback if null, this defaults to true
+     */
+    public void setLoadFallback(Boolean loadFallback) {
+        this.loadFallback = Optional.ofNullable(loadFallback).orElse(true);
+    }
+
+    /**
+     * If true, REORG TABLE statements executed with ADMIN_CMD are deferred to the latest point that is still safe,
+     * and identical REORGs of the same table are merged. Only used when running against a live database.
+     *
+     * @return Boolean, Liquibase requires a Boolean, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If true, REORG TABLE statements are deferred as long as it is safe, " +
+            "and identical REORGs of the same table in between are merged. Default is false.")
+    public Boolean isDeferReorg() {
+        return deferReorg;
+    }
+
+    /**
+     * @see #isDeferReorg()
+     * @param deferReorg if null, this defaults to false
+     */
+    public void setDeferReorg(Boolean deferReorg) {
+        this.deferReorg = Optional.ofNullable(deferReorg).orElse(false);
+    }
+
+    /**
+     * If more than 0, REORG TABLE statements executed with ADMIN_CMD are skipped, unless the table is in reorg pending
+     * state or has at least this number of reorg-recommended alterations (see ADMIN_GET_TAB_INFO).
+     * Only used when running against a live database.
+     *
+     * @return Integer, Liquibase requires an Integer, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If more than 0, a REORG TABLE is skipped unless the table is reorg pending " +
+            "or has at least this number of reorg-recommended alterations. Default is 0 (always REORG).")
+    public Integer getReorgThreshold() {
+        return reorgThreshold;
+    }
+
+    /**
+     * @see #getReorgThreshold()
+     * @param reorgThreshold if null, this defaults to 0
+     */
+    public void setReorgThreshold(Integer reorgThreshold) {
+        this.reorgThreshold = Optional.ofNullable(reorgThreshold).orElse(0);
+    }
+
+    /**
+     * If true, REORG TABLE statements without options are executed as 'INPLACE ALLOW WRITE ACCESS' when the table
+     * supports it, without waiting for them to finish. The script waits for them at a 'WAIT FOR REORG' statement,
+     * before DDL statements that use the tables, and at its end. Only used when running against a live database.
+     *
+     * @return Boolean, Liquibase requires a Boolean, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If true, REORG TABLE statements are executed online (INPLACE ALLOW WRITE ACCESS) " +
+            "where possible, and waited for at 'WAIT FOR REORG' statements and at the end of the script. Default is false.")
+    public Boolean isOnlineReorg() {
+        return onlineReorg;
+    }
+
+    /**
+     * @see #isOnlineReorg()
+     * @param onlineReorg if null, this defaults to false
+     */
+    public void setOnlineReorg(Boolean onlineReorg) {
+        this.onlineReorg = Optional.ofNullable(onlineReorg).orElse(false);
+    }
+
+    /**
+     * If more than 0, the script is committed after this number of DML statements (INSERT, UPDATE, DELETE, MERGE),
+     * counted since the last commit. Commits are only added between statements, and not while the script holds
+     * a savepoint or a temporary table whose rows are deleted on commit. Only used when running against a live database.
+     *
+     * @return Integer, Liquibase requires an Integer, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If more than 0, a COMMIT is executed after this number of DML statements " +
+            "since the last commit. Default is 0 (no extra commits).")
+    public Integer getCommitEvery() {
+        return commitEvery;
+    }
+
+    /**
+     * @see #getCommitEvery()
+     * @param commitEvery if null, this defaults to 0
+     */
+    public void setCommitEvery(Integer commitEvery) {
+        this.commitEvery = Optional.ofNullable(commitEvery).orElse(0);
+    }
+
+    /**
+     * If more than 0, the script is committed after the DML statement (or batch) which brings the number of rows
+     * changed since the last commit to this number. Can be combined with {@link #getCommitEvery()}.
+     * Only used when running against a live database.
+     *
+     * @return Integer, Liquibase requires an Integer, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If more than 0, a COMMIT is executed after DML statements which changed " +
+            "at least this number of rows since the last commit. Default is 0 (no extra commits).")
+    public Integer getCommitEveryRows() {
+        return commitEveryRows;
+    }
+
+    /**
+     * @see #getCommitEveryRows()
+     * @param commitEveryRows if null, this defaults to 0
+     */
+    public void setCommitEveryRows(Integer commitEveryRows) {
+        this.commitEveryRows = Optional.ofNullable(commitEveryRows).orElse(0);
+    }
+
+    /**
+     * If true, the last committed statement is recorded with the checksum of the script in a tracking table
+     * (see {@link Db2EnhancedConfiguration#CHECKPOINT_TABLE}) at each commit point, and a rerun of the change skips
+     * the committed statements if the script and its parse options did not change. SET statements before the
+     * checkpoint are executed again. Only used when running against a live database.
+     *
+     * @return Boolean, Liquibase requires a Boolean, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If true, the last committed statement is recorded, and a rerun of the " +
+            "change resumes after it if the script did not change. Default is false.")
+    public Boolean isCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * @see #isCheckpoint()
+     * @param checkpoint if null, this defaults to false
+     */
+    public void setCheckpoint(Boolean checkpoint) {
+        this.checkpoint = Optional.ofNullable(checkpoint).orElse(false);
+    }
+
+    /**
+     * If true, the DML statements and queries of the script are explained with 'EXPLAIN PLAN FOR' before the script
+     * is executed, and their estimated cost, cardinality and table scans are logged, most expensive first
+     * (see {@link ExplainStatement}). A streamed script is read twice. Only used when running against a live database.
+     *
+     * @return Boolean, Liquibase requires a Boolean, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If true, the DML statements and queries are explained before the script " +
+            "is executed, and their estimated costs are logged. Default is false.")
+    public Boolean isExplain() {
+        return explain;
+    }
+
+    /**
+     * @see #isExplain()
+     * @param explain if null, this defaults to false
+     */
+    public void setExplain(Boolean explain) {
+        this.explain = Optional.ofNullable(explain).orElse(false);
+    }
+
+    /**
+     * If more than 0, the script is explained (see {@link #isExplain()}), and the changeset fails before any statement
+     * of the script is executed if the estimated cost of a statement exceeds this number of timerons.
+     *
+     * @return Integer, Liquibase requires an Integer, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If more than 0, the script is explained, and fails before it is executed " +
+            "if the estimated cost of a statement exceeds this number of timerons. Default is 0 (no maximum).")
+    public Integer getExplainCostCeiling() {
+        return explainCostCeiling;
+    }
+
+    /**
+     * @see #getExplainCostCeiling()
+     * @param explainCostCeiling if null, this defaults to 0
+     */
+    public void setExplainCostCeiling(Integer explainCostCeiling) {
+        this.explainCostCeiling = Optional.ofNullable(explainCostCeiling).orElse(0);
+    }
+
+    /**
+     * If more than 0, a statement that fails with a deadlock or lock timeout (SQL0911N, SQL0913N) is retried up to
+     * this number of times, after a jittered exponential backoff (see {@link LockRetry}). Only DML statements,
+     * queries, SET statements, savepoints and DDL except TRUNCATE are retried. If DB2 rolled back the unit of work,
+     * its statements are executed again first, unless it contains other statements or did not start in a script.
+     *
+     * @return Integer, Liquibase requires an Integer, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "Number of times a statement is retried after a deadlock or lock timeout, " +
+            "replaying the rolled back unit of work if it is safe to. Default is 0 (no retries).")
+    public Integer getLockRetries() {
+        return lockRetries;
+    }
+
+    /**
+     * @see #getLockRetries()
+     * @param lockRetries if null, this defaults to 0
+     */
+    public void setLockRetries(Integer lockRetries) {
+        this.lockRetries = Optional.ofNullable(lockRetries).orElse(0);
+    }
+
+    /**
+     * If true, consecutive 'ALTER TABLE x ADD COLUMN ...' and 'ALTER TABLE x ALTER COLUMN ...' statements of the same
+     * table are merged into one statement (see {@link AlterTableCoalescer}), which locks the table once and counts
+     * as a single reorg-recommended alteration.
+     *
+     * @return Boolean, Liquibase requires a Boolean, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If true, consecutive 'ALTER TABLE' statements that add or alter columns " +
+            "of the same table are merged into one statement. Default is false.")
+    public Boolean isCoalesceAlterTable() {
+        return coalesceAlterTable;
+    }
+
+    /**
+     * @see #isCoalesceAlterTable()
+     * @param coalesceAlterTable if null, this defaults to false
+     */
+    public void setCoalesceAlterTable(Boolean coalesceAlterTable) {
+        this.coalesceAlterTable = Optional.ofNullable(coalesceAlterTable).orElse(false);
+    }
+
+    /**
+     * If true, a 'CREATE INDEX' statement is executed after the following inserts of literals into its table
+     * (see {@link CreateIndexPlanner}), so the index is built once from all rows instead of maintained for each row.
+     * UNIQUE and CLUSTER indexes are never deferred. Only used when running against a live database,
+     * and not with 'checkpoint'.
+     *
+     * @return Boolean, Liquibase requires a Boolean, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If true, a non-unique 'CREATE INDEX' is executed after the following " +
+            "INSERT statements of literals into its table. Default is false.")
+    public Boolean isDeferCreateIndex() {
+        return deferCreateIndex;
+    }
+
+    /**
+     * @see #isDeferCreateIndex()
+     * @param deferCreateIndex if null, this defaults to false
+     */
+    public void setDeferCreateIndex(Boolean deferCreateIndex) {
+        this.deferCreateIndex = Optional.ofNullable(deferCreateIndex).orElse(false);
+    }
+
+    /**
+     * If true, the statistics of the tables modified by the script are collected after its last statement,
+     * with one RUNSTATS per table, unless they were collected since (see {@link RunstatsStatement}).
+     *
+     * @return Boolean, Liquibase requires a Boolean, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "If true, RUNSTATS is executed once for each table modified by the script, " +
+            "after its last statement. Tables with statistics collected since are skipped. Default is false.")
+    public Boolean isRunstats() {
+        return runstats;
+    }
+
+    /**
+     * @see #isRunstats()
+     * @param runstats if null, this defaults to false
+     */
+    public void setRunstats(Boolean runstats) {
+        this.runstats = Optional.ofNullable(runstats).orElse(false);
+    }
+
+    /**
+     * If between 1 and 99, RUNSTATS (see {@link #isRunstats()}) only reads this percentage of the pages of a table
+     * ('TABLESAMPLE SYSTEM').
+     *
+     * @return Integer, Liquibase requires an Integer, but this will never be null
+     */
+    @DatabaseChangeProperty(description = "Percentage of the pages of a table read by 'runstats'. " +
+            "Default is 0 (all rows).")
+    public Integer getRunstatsSample() {
+        return runstatsSample;
+    }
+
+    /**
+     * @see #getRunstatsSample()
+     * @param runstatsSample if null, this defaults to 0
+     */
+    public void setRunstatsSample(Integer runstatsSample) {
+        this.runstatsSample = Optional.ofNullable(runstatsSample).orElse(0);
+    }
+
     public String getSerializedObjectNamespace() {
         return GENERIC_CHANGELOG_EXTENSION_NAMESPACE;
     }
 
+    @Override
+    public void setSql(String sql) {
+        super.setSql(sql);
+        isSqlSet = sql != null;
+    }
+
+    /**
+     * 'parallelDdl' commits in the middle of the change, so it is only allowed when the changeset does not run
+     * in a transaction
+     */
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors validationErrors = super.validate(database);
+        ChangeSet changeSet = getChangeSet();
+        if (getParallelDdl() > 0 && changeSet != null && changeSet.isRunInTransaction()) {
+            validationErrors.addError("'parallelDdl' commits the statements before it, it requires " +
+                    "runInTransaction=\"false\" on changeset " + changeSet.getId());
+        }
+        return validationErrors;
+    }
+
+    /**
+     * Opens the script through its {@link ScriptResource}, so the content read for the checksum is parsed without
+     * reading the file again. Scripts that are streamed are not kept in memory.
+     */
+    @Override
+    public InputStream openSqlStream() throws IOException {
+        if (getPath() == null) {
+            return null;
+        }
+        return ScriptResource.of(getResource()).open(!isStreamed());
+    }
+
+    /**
+     * The same checksum as 'sqlFile', computed once per file of a run (see {@link ScriptResource}). With
+     * 'useIncludeComments', the checksums of the included scripts are folded in, so changing one changes the checksum.
+     */
+    @Override
+    public CheckSum generateCheckSum() {
+        if (getPath() == null || isSqlSet) {
+            return super.generateCheckSum();
+        }
+        try {
+            CheckSum checkSum = ScriptResource.of(getResource()).getCheckSum(getEndDelimiter(), isSplitStatements(),
+                    isStripComments(), !isStreamed());
+            List<Resource> included = getIncludedResources();
+            if (included.isEmpty()) {
+                return checkSum;
+            }
+            StringBuilder checkSums = new StringBuilder(checkSum.toString());
+            for (Resource resource : included) {
+                checkSums.append(':').append(ScriptResource.of(resource).getCheckSum(getEndDelimiter(),
+                        isSplitStatements(), isStripComments(), true));
+            }
+            return CheckSum.compute(checkSums.toString());
+        } catch (IOException e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+    }
+
+    /**
+     * @return The scripts included by this script (see {@link ScriptIncludes#findIncluded(Resource, String, boolean)}),
+     *         empty without 'useIncludeComments'
+     */
+    private List<Resource> getIncludedResources() throws IOException {
+        if (!isUseIncludeComments() || getPath() == null || isSqlSet) {
+            return Collections.emptyList();
+        }
+        return ScriptIncludes.findIncluded(getResource(), getEncoding(), !isStreamed());
+    }
+
+    /**
+     * Resolves the path like 'sqlFile'
+     */
+    private Resource getResource() throws IOException {
+        ResourceAccessor resourceAccessor = Scope.getCurrentScope().getResourceAccessor();
+        if (ObjectUtil.defaultIfNull(isRelativeToChangelogFile(), false)) {
+            return resourceAccessor.get(getChangeSet().getChangeLog().getPhysicalFilePath()).resolveSibling(getPath());
+        }
+        return resourceAccessor.getExisting(getPath());
+    }
+
+    /**
+     * Checks if the script is parsed when it is executed, with 'streamStatements'
+     */
+    boolean isStreamed() {
+        return isStreamStatements();
+    }
+
     @Override
     public SqlStatement[] generateStatements(Database database) {
         getLogger().fine("Running Db2SQLFileChange");
 
+        if (getPath() != null) {
+            if (isStreamStatements() && isJdbcExecution(database)) {
+                return new SqlStatement[] { new StreamingScriptStatement(this, database) };
+            } else if (isStreamStatements() && isSqlOutput(database)) {
+                return new SqlStatement[] { new ScriptOutputStatement(this, database) };
+            }
+        }
+
         String sql = StringUtil.trimToNull(getSql());
         if (sql == null) {
             return new SqlStatement[0];
         }
 
-        List<DelimitedSegment> segments = getDelimitedSegments(sql);
-        List<SqlStatement> returnStatements = getSqlStatements(database, segments);
+        long parseStart = System.nanoTime();
+        List<SqlStatement> statements = parseStatements(database, sql);
+        return planStatements(database, statements, System.nanoTime() - parseStart);
+    }
+
+    /**
+     * Parses the whole script, or gets its statements from the parse cache. Does not use the executor or the
+     * connection, so scripts can be parsed concurrently: JDBC escapes are translated by
+     * {@link #planStatements(Database, List, long)}.
+     *
+     * @param database The database the statements are generated for
+     * @param sql The script
+     * @return The statements, numbered (see {@link Db2RawSqlStatement#getOrdinal()})
+     */
+    List<SqlStatement> parseStatements(Database database, String sql) {
+        // The statements of included scripts are not part of the cache key
+        ParseCache parseCache = isUseIncludeComments() && Db2ScriptLexer.hasIncludeDirective(sql) ? null
+                : ParseCache.fromConfiguration();
+        String cacheKey = parseCache == null ? null : ParseCache.key(sql, getParseOptions());
+        List<SqlStatement> statements = parseCache == null ? null : parseCache.get(cacheKey);
 
-        doDbmsOutput(database, returnStatements);
+        if (statements == null) {
+            List<DelimitedSegment> segments = getDelimitedSegments(sql);
+            statements = getSqlStatements(database, segments);
+            if (parseCache != null) {
+                parseCache.put(cacheKey, getEndDelimiter(), statements);
+            }
+        }
+        for (int i = 0; i < statements.size(); i++) {
+            if (statements.get(i) instanceof Db2RawSqlStatement) {
+                ((Db2RawSqlStatement) statements.get(i)).setOrdinal(i + 1);
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Plans the execution of parsed statements, and adds the statements which start the script (and read its
+     * checkpoint), retrieve DBMS_OUTPUT and report the metrics
+     *
+     * @param database The database the statements are generated for
+     * @param statements See {@link #parseStatements(Database, String)}
+     * @param parseNanos The time spent parsing, for the metrics
+     * @return The statements to execute
+     */
+    SqlStatement[] planStatements(Database database, List<SqlStatement> statements, long parseNanos) {
+        ScriptMetrics metrics = createMetrics(database);
+        long planStart = System.nanoTime();
+        List<SqlStatement> returnStatements = new ArrayList<>(statements.size());
+        for (SqlStatement statement : statements) {
+            returnStatements.add(toNativeSql(database, statement));
+        }
+        boolean isJdbcExecution = isJdbcExecution(database);
+        Checkpoint checkpoint = null;
+        RunstatsStatement runstatsStatement = null;
+        if (isJdbcExecution) {
+            try {
+                checkpoint = createCheckpoint(database);
+            } catch (DatabaseException e) {
+                throw new UnexpectedLiquibaseException(e);
+            }
+            // The tables are recorded when the statements are executed
+            runstatsStatement = startRunstats(database);
+            ExplainStatement explainStatement = isExplainEnabled() ? createExplainStatement(database, checkpoint) : null;
+            if (explainStatement != null) {
+                returnStatements.forEach(explainStatement::add);
+            }
+            returnStatements = planExecution(database, returnStatements, metrics, checkpoint);
+            if (explainStatement != null) {
+                returnStatements.add(0, explainStatement);
+            }
+            if (getLockRetries() > 0) {
+                returnStatements.add(0, createLockRetryStatement(metrics));
+            }
+            if (runstatsStatement != null && runstatsStatement != sharedRunstatsStatement) {
+                returnStatements.add(runstatsStatement);
+            }
+        }
+        if (metrics != null) {
+            metrics.recordParse(parseNanos + System.nanoTime() - planStart);
+        }
+
+        boolean isDbmsOutputRetrieved = doDbmsOutput(database, returnStatements, metrics);
+        if (isDbmsOutputRetrieved && isJdbcExecution) {
+            // Retrieves whatever output is left at the end of the script
+            returnStatements.add(new DrainDbmsOutputStatement());
+        }
+        if (metrics != null && Db2EnhancedMetrics.isEnabled()) {
+            returnStatements.add(new MetricsSummaryStatement(metrics));
+        }
+        if (isJdbcExecution && database instanceof DB2Database) {
+            returnStatements.add(0, createScriptStartStatement(metrics, checkpoint, isDbmsOutputRetrieved,
+                    runstatsStatement));
+        }
 
         return returnStatements.toArray(new SqlStatement[0]);
     }
 
+    private List<SqlStatement> planExecution(Database database, List<SqlStatement> statements, ScriptMetrics metrics,
+                                             Checkpoint checkpoint) {
+        List<SqlStatement> plannedStatements = new ArrayList<>();
+        SqlStatementConsumer planner = planExecution(database, plannedStatements::add, metrics, checkpoint);
+        try {
+            for (SqlStatement statement : statements) {
+                planner.accept(statement);
+            }
+            planner.flush();
+        } catch (DatabaseException e) {
+            // Adding to a list never fails
+            throw new UnexpectedLiquibaseException(e);
+        }
+        return plannedStatements;
+    }
+
+    private boolean isExplainEnabled() {
+        return isExplain() || getExplainCostCeiling() > 0;
+    }
+
+    private ExplainStatement createExplainStatement(Database database, Checkpoint checkpoint) {
+        return new ExplainStatement(database, getPath(), getExplainCostCeiling(), checkpoint);
+    }
+
+    /**
+     * @return The statement which collects the statistics after the script, null if not enabled
+     */
+    private RunstatsStatement startRunstats(Database database) {
+        if (sharedRunstatsStatement != null) {
+            return sharedRunstatsStatement;
+        }
+        return isRunstats() && database instanceof DB2Database ? new RunstatsStatement(database, getPath(),
+                getRunstatsSample()) : null;
+    }
+
+    /**
+     * Records the tables modified by the script in the statement of a 'db2SqlDirectory', which collects
+     * the statistics after all of its scripts
+     */
+    void setSharedRunstatsStatement(RunstatsStatement sharedRunstatsStatement) {
+        this.sharedRunstatsStatement = sharedRunstatsStatement;
+    }
+
+    LockRetryStatement createLockRetryStatement(ScriptMetrics metrics) {
+        return new LockRetryStatement(new LockRetry(getPath(), getLockRetries(), isStartOfUnitOfWork(), metrics));
+    }
+
+    /**
+     * Checks if nothing was executed in the current unit of work before the script. Liquibase commits after each
+     * changeset, so this is true for the first change of a changeset, unless set otherwise by a 'db2SqlDirectory'.
+     */
+    boolean isStartOfUnitOfWork() {
+        if (startOfUnitOfWork != null) {
+            return startOfUnitOfWork;
+        }
+        ChangeSet changeSet = getChangeSet();
+        return changeSet != null && !changeSet.getChanges().isEmpty() && changeSet.getChanges().get(0) == this;
+    }
+
+    /**
+     * @see #isStartOfUnitOfWork()
+     */
+    void setStartOfUnitOfWork(boolean startOfUnitOfWork) {
+        this.startOfUnitOfWork = startOfUnitOfWork;
+    }
+
+    /**
+     * Defers indexes, groups statements for REORG, LOAD, batches and parallel execution, and adds commit points
+     * and checkpoints, if enabled
+     */
+    private SqlStatementConsumer planExecution(Database database, SqlStatementConsumer consumer, ScriptMetrics metrics,
+                                               Checkpoint checkpoint) {
+        SqlStatementConsumer planner = consumer;
+        if (getCommitEvery() > 0 || getCommitEveryRows() > 0 || checkpoint != null) {
+            CommitInterval interval = new CommitInterval(getPath(), getCommitEvery(), getCommitEveryRows(), metrics,
+                    checkpoint);
+            planner = new CommitIntervalPlanner(database, interval, planner);
+        }
+        if (getParallelDdl() > 0) {
+            planner = new ParallelDdlPlanner(database, getParallelDdl(), planner);
+        }
+        if (getBatchSize() > 1) {
+            planner = new DmlBatcher(database, getBatchSize(), planner);
+        }
+        if (getLoadThreshold() > 0) {
+            planner = new LoadPlanner(database, getLoadThreshold(), isLoadFallback(), planner);
+        }
+        if (isDeferReorg() || getReorgThreshold() > 0 || isOnlineReorg()) {
+            if (isDeferReorg() && checkpoint != null) {
+                // A deferred REORG could be executed after a checkpoint that is recorded before its line
+                getLogger().info("Not deferring REORG statements of " + getPath() + ", as it has a checkpoint");
+            }
+            planner = new ReorgPlanner(database, isDeferReorg() && checkpoint == null, getReorgThreshold(),
+                    isOnlineReorg(), planner);
+        }
+        if (isDeferCreateIndex()) {
+            if (checkpoint == null) {
+                planner = new CreateIndexPlanner(getPath(), planner);
+            } else {
+                // A deferred index could be executed after a checkpoint that is recorded before its line
+                getLogger().info("Not deferring CREATE INDEX statements of " + getPath() + ", as it has a checkpoint");
+            }
+        }
+        return planner;
+    }
+
     private List<DelimitedSegment> getDelimitedSegments(String sql) {
         getLogger().fine("Parsing SQL in "+this.getPath()
                 + ", useSetTerminatorCommentTags: " + isUseSetTerminatorComments()
                 + ", rewriteOrgTable:"+isRewriteReorgTableStatements()
                 + ", commitBeforeTruncate= "+ isCommitBeforeTruncate());
-        String processedSQL = normalizeLineEndings(sql);
         final List<DelimitedSegment> segments = new ArrayList<>();
-        DelimitedSegment currentSegment = new DelimitedSegment(this.getEndDelimiter(), "");
-        for (String line : processedSQL.split("\n")) {
-            if (isUseSetTerminatorComments() && line.toUpperCase().startsWith(DB2_DELIMITER_COMMAND)) {
-                String previousSqlAfterLastDelimiterChange = currentSegment.getAndRemoveAfterLastDelimiter();
-                String delimiter = line.substring(DB2_DELIMITER_COMMAND.length()).trim();
-                segments.add(currentSegment);
-                currentSegment = new DelimitedSegment(delimiter, previousSqlAfterLastDelimiterChange);
-            }
-            currentSegment.append(line).append("\n");
-        }
-        segments.add(currentSegment);
-        getLogger().fine("DelimitedSegments: "+segments);
+        Db2ScriptLexer lexer;
+        try {
+            lexer = createLexer(new StringReader(sql));
+        } catch (IOException e) {
+            throw new UnexpectedLiquibaseException("Error reading " + getPath() + ": " + e.getMessage(), e);
+        }
+        try {
+            for (DelimitedSegment segment = lexer.next(); segment != null; segment = lexer.next()) {
+                segments.add(segment);
+            }
+        } catch (IOException e) {
+            throw new UnexpectedLiquibaseException("Error reading " + getPath() + " at line " + lexer.getLine() + ": "
+                    + e.getMessage(), e);
+        }
+        getLogger().fine("DelimitedSegments: "+segments.size());
         return segments;
     }
 
+    /**
+     * All options that influence the generated statements, used as part of the parse cache key and the checkpoint
+     */
+    String getParseOptions() {
+        return "endDelimiter=" + getEndDelimiter()
+                + ",stripComments=" + isStripComments()
+                + ",splitStatements=" + isSplitStatements()
+                + ",useSetTerminatorComments=" + isUseSetTerminatorComments()
+                + ",useIncludeComments=" + isUseIncludeComments()
+                + ",rewriteReorgTableStatements=" + isRewriteReorgTableStatements()
+                + ",commitBeforeTruncate=" + isCommitBeforeTruncate()
+                + ",disableAllDbmsOutput=" + isDisableAllDbmsOutput()
+                + ",coalesceAlterTable=" + isCoalesceAlterTable();
+    }
+
+    private Db2ScriptLexer createLexer(Reader reader) throws IOException {
+        Db2ScriptLexer lexer = new Db2ScriptLexer(reader, this.getEndDelimiter(),
+                isUseSetTerminatorComments(), isStripComments(), isSplitStatements());
+        if (isUseIncludeComments() && getPath() != null) {
+            lexer.setIncludes(new ScriptIncludes(getResource(), getEncoding(), isUseSetTerminatorComments(),
+                    isStripComments(), isSplitStatements()));
+        }
+        return lexer;
+    }
+
     private List<SqlStatement> getSqlStatements(Database database, List<DelimitedSegment> segments) {
         List<SqlStatement> sqlStatements = new ArrayList<>();
         for (DelimitedSegment segment : segments) {
-            for (String statement : StringUtil.processMultiLineSQL(segment.getSql(), isStripComments(), isSplitStatements(), segment.getDelimiter())) {
-                String escapedStatement = statement;
-                try {
-                    if (database.getConnection() != null) {
-                        escapedStatement = database.getConnection().nativeSQL(statement);
-                    }
-                } catch (DatabaseException e) {
-                    escapedStatement = statement;
-                }
-                if (hasSql(escapedStatement)) {
-                    escapedStatement = refactorForJdbc(escapedStatement, sqlStatements);
-                    sqlStatements.add(new RawSqlStatement(escapedStatement, getEndDelimiter()));
+            if (segment.hasSql()) {
+                // The script was expanded as a whole, included scripts were not
+                addSqlStatements(segment,
+                        segment.isIncluded() ? expandExpressions(segment.getSql()) : segment.getSql(), sqlStatements);
+            }
+        }
+        if (isCoalesceAlterTable()) {
+            List<SqlStatement> coalescedStatements = new ArrayList<>();
+            SqlStatementConsumer coalescer = new AlterTableCoalescer(getPath(), coalescedStatements::add);
+            try {
+                for (SqlStatement statement : sqlStatements) {
+                    coalescer.accept(statement);
                 }
+                coalescer.flush();
+            } catch (DatabaseException e) {
+                // Adding to a list never fails
+                throw new UnexpectedLiquibaseException(e);
             }
+            sqlStatements = coalescedStatements;
         }
-        getLogger().fine("SqlStatements: "+sqlStatements);
+        getLogger().fine("SqlStatements: "+sqlStatements.size());
         return sqlStatements;
     }
 
-    private String refactorForJdbc(String statement, List<SqlStatement> sqlStatements) {
+    /**
+     * Reads the script one statement at a time and hands each statement to the consumer.
+     * Only the statement being processed (and the one before it) is kept in memory.
+     *
+     * @param database The database the statements are generated for
+     * @param consumer Receives the statements in script order
+     * @throws DatabaseException If the consumer fails, or the script cannot be read
+     */
+    void streamSqlStatements(Database database, SqlStatementConsumer consumer) throws DatabaseException {
+        getLogger().fine("Streaming SQL in "+this.getPath()
+                + ", useSetTerminatorCommentTags: " + isUseSetTerminatorComments()
+                + ", rewriteOrgTable:"+isRewriteReorgTableStatements()
+                + ", commitBeforeTruncate= "+ isCommitBeforeTruncate());
+        ScriptMetrics metrics = createMetrics(database);
+        try (InputStream stream = openSqlStream()) {
+            if (stream == null) {
+                return;
+            }
+        } catch (IOException e) {
+            throw new DatabaseException("Error reading " + getPath() + ": " + e.getMessage(), e);
+        }
+        Checkpoint checkpoint = createCheckpoint(database);
+        AtomicBoolean isDbmsOutputRetrieved = new AtomicBoolean(doDbmsOutput(database, false, metrics));
+        RunstatsStatement runstatsStatement = startRunstats(database);
+        if (database instanceof DB2Database && isJdbcExecution(database)) {
+            consumer.accept(createScriptStartStatement(metrics, checkpoint, false, runstatsStatement));
+        }
+        if (isExplainEnabled()) {
+            // The script is read once more, so its statements are explained before any of them is executed
+            ExplainStatement explainStatement = createExplainStatement(database, checkpoint);
+            parseSqlStream(database, null, explainStatement::add);
+            consumer.accept(explainStatement);
+        }
+        SqlStatementConsumer planner = planExecution(database, consumer, metrics, checkpoint);
+        if (getLockRetries() > 0) {
+            consumer.accept(createLockRetryStatement(metrics));
+        }
+        SqlStatementConsumer executor = statement -> {
+            if (isDbmsOutputEnable(statement)) {
+                isDbmsOutputRetrieved.set(doDbmsOutput(database, true, metrics));
+                Executor currentExecutor = Scope.getCurrentScope().getSingleton(ExecutorService.class)
+                        .getExecutor("jdbc", database);
+                if (currentExecutor instanceof DbmsOutputExecutor) {
+                    // Streamed statements are executed as they are parsed, so this applies from here on
+                    ((DbmsOutputExecutor) currentExecutor).setDbmsOutputEnabled(isDbmsOutputRetrieved.get());
+                }
+            }
+            planner.accept(statement);
+        };
+        int count = parseSqlStream(database, metrics, executor);
+        if (count < 0) {
+            return;
+        }
+        planner.flush();
+        if (runstatsStatement != null && runstatsStatement != sharedRunstatsStatement) {
+            consumer.accept(runstatsStatement);
+        }
+        if (isDbmsOutputRetrieved.get()) {
+            consumer.accept(new DrainDbmsOutputStatement());
+        }
+        if (metrics != null && Db2EnhancedMetrics.isEnabled()) {
+            consumer.accept(new MetricsSummaryStatement(metrics));
+        }
+        getLogger().fine("Streamed SqlStatements: "+count);
+    }
+
+    /**
+     * Writes the script for updateSQL one statement at a time, keeping its terminators (see {@link ClpScriptWriter}).
+     * Only the statement being written (and the one before it) is kept in memory.
+     *
+     * @param database The database the statements are generated for
+     * @param output Receives the statements, is not closed
+     * @return The number of statements written
+     * @throws DatabaseException If the script cannot be read or written
+     */
+    int writeSqlStatements(Database database, Writer output) throws DatabaseException {
+        getLogger().fine("Writing SQL in "+this.getPath()
+                + ", useSetTerminatorCommentTags: " + isUseSetTerminatorComments()
+                + ", rewriteOrgTable:"+isRewriteReorgTableStatements()
+                + ", commitBeforeTruncate= "+ isCommitBeforeTruncate());
+        ClpScriptWriter writer = new ClpScriptWriter(output);
+        parseSqlStream(database, null, writer);
+        writer.flush();
+        getLogger().fine("Written SqlStatements: "+writer.getCount());
+        return writer.getCount();
+    }
+
+    /**
+     * Parses the script one statement at a time, numbering the statements (see {@link Db2RawSqlStatement#getOrdinal()})
+     *
+     * @return The number of statements, -1 if the script does not exist
+     */
+    private int parseSqlStream(Database database, ScriptMetrics metrics, SqlStatementConsumer consumer) throws DatabaseException {
+        List<SqlStatement> window = new ArrayList<>();
+        int[] count = { 0 };
+        SqlStatementConsumer numbering = statement -> {
+            ((Db2RawSqlStatement) statement).setOrdinal(++count[0]);
+            consumer.accept(toNativeSql(database, statement));
+        };
+        SqlStatementConsumer parsed = isCoalesceAlterTable() ? new AlterTableCoalescer(getPath(), numbering) : numbering;
+        Db2ScriptLexer lexer = null;
+        try (InputStream stream = openSqlStream()) {
+            if (stream == null) {
+                return -1;
+            }
+            lexer = createLexer(StreamUtil.readStreamWithReader(stream, getEncoding()));
+            long parseStart = System.nanoTime();
+            for (DelimitedSegment segment = lexer.next(); segment != null; segment = lexer.next()) {
+                if (!segment.hasSql()) {
+                    continue;
+                }
+                int from = window.size();
+                addSqlStatements(segment, expandExpressions(segment.getSql()), window);
+                if (metrics != null) {
+                    metrics.recordParse(System.nanoTime() - parseStart);
+                }
+                for (int i = from; i < window.size(); i++) {
+                    parsed.accept(window.get(i));
+                }
+                // Only the previous statement is needed to refactor the next one
+                SqlStatement previous = window.get(window.size() - 1);
+                window.clear();
+                window.add(previous);
+                parseStart = System.nanoTime();
+            }
+            // Passes on the ALTER TABLE statements held back for merging
+            parsed.flush();
+        } catch (IOException e) {
+            throw new DatabaseException("Error reading " + getPath() + (lexer == null ? "" : " at line " + lexer.getLine())
+                    + ": " + e.getMessage(), e);
+        }
+        return count[0];
+    }
+
+    /**
+     * Streaming and batches need to execute statements directly, so not for updateSQL
+     */
+    boolean isJdbcExecution(Database database) {
+        Executor currentExecutor = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
+        return database.getConnection() instanceof JdbcConnection
+                && currentExecutor instanceof JdbcExecutor;
+    }
+
+    /**
+     * updateSQL writes the statements to its output instead of executing them
+     */
+    private boolean isSqlOutput(Database database) {
+        return Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database) instanceof LoggingExecutor;
+    }
+
+    private String expandExpressions(String sql) {
+        ChangeSet changeSet = getChangeSet();
+        if (changeSet == null || changeSet.getChangeLogParameters() == null) {
+            return sql;
+        }
+        return changeSet.getChangeLogParameters().expandExpressions(sql, changeSet.getChangeLog());
+    }
+
+    /**
+     * JDBC escapes are left for {@link #toNativeSql(Database, SqlStatement)}
+     */
+    private void addSqlStatements(DelimitedSegment segment, String statement, List<SqlStatement> sqlStatements) {
+        String refactoredStatement = refactorForJdbc(statement, segment, sqlStatements);
+        sqlStatements.add(new Db2RawSqlStatement(refactoredStatement, getEndDelimiter(), segment.getDelimiter(), segment.getLine()));
+    }
+
+    private static String nativeSql(Database database, String statement) {
+        try {
+            // Only JDBC escapes ('{fn ...}', '{d ...}', ...) are translated, which saves a call to the driver per statement
+            if (database.getConnection() != null && statement.indexOf('{') >= 0) {
+                return database.getConnection().nativeSQL(statement);
+            }
+        } catch (DatabaseException e) {
+            // Executed as written
+        }
+        return statement;
+    }
+
+    /**
+     * Translates the JDBC escapes of a statement on the thread which plans or executes it, so the threads parsing
+     * scripts do not use the connection
+     */
+    private SqlStatement toNativeSql(Database database, SqlStatement statement) {
+        if (!(statement instanceof Db2RawSqlStatement)) {
+            return statement;
+        }
+        Db2RawSqlStatement rawStatement = (Db2RawSqlStatement) statement;
+        String sql = nativeSql(database, rawStatement.getSql());
+        if (sql.equals(rawStatement.getSql())) {
+            return statement;
+        }
+        Db2RawSqlStatement nativeStatement = new Db2RawSqlStatement(sql, getEndDelimiter(), rawStatement.getTerminator(),
+                rawStatement.getLine());
+        nativeStatement.setOrdinal(rawStatement.getOrdinal());
+        return nativeStatement;
+    }
+
+    private String refactorForJdbc(String statement, DelimitedSegment segment, List<SqlStatement> sqlStatements) {
         if (isRewriteReorgTableStatements() && statement.startsWith(REORG_TABLE_COMMAND)) {
             return "CALL SYSPROC.ADMIN_CMD ('REORG TABLE "+statement.substring(REORG_TABLE_COMMAND.length())+"')";
+        } else if (statement.startsWith("WAIT FOR REORG")) {
+            // Not a DB2 statement, only a marker for online REORGs
+            return "--" + statement;
         } else if (statement.startsWith("SET SERVEROUTPUT ON")) {
             if (isDisableAllDbmsOutput()) {
                 return "--" + statement;
@@ -205,44 +1239,124 @@ public class Db2SQLFileChange extends SQLFileChange {
             if (!previous.getSql().equalsIgnoreCase("COMMIT")) {
                 getLogger().warning("TRUNCATE TABLE should be at the start of a unit of work, so committing before truncate");
                 // DB2 Truncate table must start a unit of work
-                sqlStatements.add(new RawSqlStatement("COMMIT"));
+                sqlStatements.add(new Db2RawSqlStatement("COMMIT", getEndDelimiter(), segment.getDelimiter(), segment.getLine()));
             }
         }
         return statement;
     }
 
-    private boolean hasSql(String statement) {
-        return !Arrays.stream(SqlParser.parse(statement, false, false).toArray(true))
-                .map(Objects::toString)
-                .collect(Collectors.joining())
-                .isEmpty();
+    private boolean doDbmsOutput(Database database, List<SqlStatement> returnStatements, ScriptMetrics metrics) {
+        return doDbmsOutput(database, returnStatements.stream().anyMatch(this::isDbmsOutputEnable), metrics);
+    }
+
+    private DbmsOutputLimit createDbmsOutputLimit() {
+        return getDbmsOutputMaxLines() > 0 ? new DbmsOutputLimit(getPath(), getDbmsOutputMaxLines()) : null;
+    }
+
+    private boolean isDbmsOutputEnable(SqlStatement statement) {
+        return statement instanceof RawSqlStatement && ((RawSqlStatement) statement).getSql().contains("DBMS_OUTPUT.ENABLE");
     }
 
-    private void doDbmsOutput(Database database, List<SqlStatement> returnStatements) {
-        if (database instanceof DB2Database && ! isDisableAllDbmsOutput()) {
+    /**
+     * Installs the {@link ScriptExecutor}, which retrieves DBMS_OUTPUT, records the metrics of the script, retries
+     * statements after deadlocks and lock timeouts, skips the statements before the checkpoint, and records when tables
+     * are modified. The settings of the script are applied by its {@link ScriptStartStatement}, when it is executed.
+     *
+     * @return true if DBMS_OUTPUT is retrieved for this script
+     */
+    private boolean doDbmsOutput(Database database, boolean isDbmsOutputEnabledInScript, ScriptMetrics metrics) {
+        if (database instanceof DB2Database && (! isDisableAllDbmsOutput() || metrics != null || getLockRetries() > 0
+                || isCheckpoint() || isRunstats())) {
+            boolean isDbmsOutputRetrieved = isDbmsOutputEnabledInScript && ! isDisableAllDbmsOutput();
             Executor currentExecutor = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
 
-            boolean isDbmsOutputEnabledInScript = returnStatements.stream()
-                    .filter(RawSqlStatement.class::isInstance)
-                    .map(RawSqlStatement.class::cast)
-                    .map(RawSqlStatement::getSql)
-                    .map(s -> s.contains("DBMS_OUTPUT.ENABLE"))
-                    .filter(Boolean.TRUE::equals)
-                    .findAny()
-                    .orElse(false);
+            // updateSQL keeps its LoggingExecutor, so it only writes the statements
+            if ((isDbmsOutputRetrieved || metrics != null || getLockRetries() > 0 || isCheckpoint() || isRunstats())
+                    && !(currentExecutor instanceof ScriptExecutor) && isJdbcExecution(database)) {
+                getLogger().fine("Enabling ScriptExecutor");
+                ScriptExecutor.install(database);
+            }
+            return isDbmsOutputRetrieved;
+        }
+        return false;
+    }
+
+    private ScriptStartStatement createScriptStartStatement(ScriptMetrics metrics, Checkpoint checkpoint,
+                                                            boolean isDbmsOutputRetrieved, RunstatsStatement runstats) {
+        return new ScriptStartStatement(getPath(), metrics, checkpoint, isDbmsOutputRetrieved,
+                getDbmsOutputDrainEvery(), createDbmsOutputLimit(), getLockRetries() > 0, runstats);
+    }
 
-            boolean isDbmsOutputExecutorInstalled = currentExecutor instanceof DbmsOutputExecutor;
+    /**
+     * Creates the checkpoint of the script, if enabled and the statements are executed against DB2. The checkpoint
+     * of a previous run is only read when the script is executed (see {@link ScriptStartStatement}).
+     *
+     * @return The checkpoint, null if not enabled
+     */
+    private Checkpoint createCheckpoint(Database database) throws DatabaseException {
+        if (!isCheckpoint() || !(database instanceof DB2Database)) {
+            return null;
+        }
+        return new Checkpoint(database, getChangeId(), getScriptChecksum(), getParseOptions());
+    }
 
-            if (isDbmsOutputEnabledInScript && !isDbmsOutputExecutorInstalled) {
-                getLogger().fine("Enabling DbmsOutputExecutor");
-                DbmsOutputExecutor dbmsOutputExecutor = new DbmsOutputExecutor();
-                dbmsOutputExecutor.setDatabase(database);
-                dbmsOutputExecutor.setResourceAccessor(Scope.getCurrentScope().getResourceAccessor());
-                Scope.getCurrentScope().getSingleton(ExecutorService.class).setExecutor("jdbc", database, dbmsOutputExecutor);
-            } else if (isDbmsOutputExecutorInstalled) {
-                ((DbmsOutputExecutor)currentExecutor).setDbmsOutputEnabled(isDbmsOutputEnabledInScript);
+    /**
+     * The checksum of the script, the same whether it is streamed or not: the content of the file as written,
+     * before changelog parameters are expanded, and of the scripts it includes, or the SQL of the change if it has
+     * no file
+     */
+    private String getScriptChecksum() throws DatabaseException {
+        try {
+            if (getPath() == null || isSqlSet) {
+                return Checkpoint.checksum(new StringReader(StringUtil.trimToEmpty(getSql())));
             }
+            String checksum;
+            try (InputStream stream = openSqlStream()) {
+                checksum = Checkpoint.checksum(StreamUtil.readStreamWithReader(stream, getEncoding()));
+            }
+            List<Resource> included = getIncludedResources();
+            if (included.isEmpty()) {
+                return checksum;
+            }
+            StringBuilder checksums = new StringBuilder(checksum);
+            for (Resource resource : included) {
+                try (InputStream stream = ScriptResource.of(resource).open(true)) {
+                    checksums.append(':').append(Checkpoint.checksum(StreamUtil.readStreamWithReader(stream, getEncoding())));
+                }
+            }
+            return Checkpoint.sha256(checksums.toString());
+        } catch (IOException e) {
+            throw new DatabaseException("Error reading " + getPath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Identifies the change in the tables of the enhancements
+     *
+     * @return String, e.g. 'changelog.xml::1::author::script.sql'
+     */
+    String getChangeId() {
+        ChangeSet changeSet = getChangeSet();
+        return (changeSet == null ? "" : changeSet.getFilePath() + "::" + changeSet.getId() + "::"
+                + changeSet.getAuthor() + "::") + getPath();
+    }
+
+    /**
+     * Creates the metrics of the script, if enabled or needed for {@link #getCommitEveryRows()},
+     * and the statements are executed against DB2. They are started by the {@link ScriptStartStatement} of the script.
+     *
+     * @return The metrics, null if not recorded
+     */
+    private ScriptMetrics createMetrics(Database database) {
+        if (!(database instanceof DB2Database) || !isJdbcExecution(database)) {
+            return null;
+        }
+        ScriptMetrics metrics = Db2EnhancedMetrics.newScript(getPath());
+        if (metrics == null && getCommitEveryRows() > 0) {
+            // Only used to count the rows, not reported
+            metrics = new ScriptMetrics(getPath(), 0);
         }
+        return metrics;
     }
 
     private Logger getLogger() {
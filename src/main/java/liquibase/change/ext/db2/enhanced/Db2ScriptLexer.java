@@ -0,0 +1,452 @@
+package liquibase.change.ext.db2.enhanced;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Pattern;
+
+/**
+ * Single pass lexer for DB2 (CLP style) SQL scripts.
+ * <p>
+ * The lexer reads the script once, character by character, and emits one {@link DelimitedSegment} per statement.
+ * It understands strings, delimited identifiers, line and block comments and the '--#SET TERMINATOR x' directive,
+ * so the delimiter is only recognized where it really ends a statement.
+ * Line endings are normalized to '\n' on the fly.
+ * <p>
+ * With {@link #setIncludes(ScriptIncludes)}, a '--#INCLUDE path' directive between statements is replaced by the
+ * statements of the included script, which starts with the current delimiter, and whose last delimiter stays in use.
+ * <p>
+ * To stay compatible with the way Liquibase splits statements, a delimiter between 'BEGIN' and 'END'
+ * (not followed by 'TRANSACTION'/'TRANS') does not end the statement.
+ *
+ * @since 1.2
+ */
+public class Db2ScriptLexer {
+
+    private static final String DB2_DELIMITER_COMMAND = "--#SET TERMINATOR ";
+
+    private static final String INCLUDE_COMMAND = "--#INCLUDE ";
+
+    private static final Pattern INCLUDE_DIRECTIVE = Pattern.compile("(?im)^--#INCLUDE ");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final boolean useSetTerminatorComments;
+    private final boolean stripComments;
+    private final boolean splitStatements;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    private String delimiter;
+    private boolean delimiterIsWord;
+    private int line = 1;
+    private boolean atLineStart = true;
+
+    private int clauseDepth;
+    private int pendingClauseChange;
+
+    private final StringBuilder statement = new StringBuilder();
+    private final StringBuilder word = new StringBuilder();
+    private final StringBuilder directive = new StringBuilder();
+    private int statementLine;
+    private boolean statementHasSql;
+
+    private ScriptIncludes includes;
+    private final Deque<DelimitedSegment> included = new ArrayDeque<>();
+
+    /**
+     * Creates a new lexer for the given script.
+     *
+     * @param reader The script to parse, it is read once and not closed by the lexer
+     * @param delimiter The delimiter in use at the start of the script, defaults to ';' if null
+     * @param useSetTerminatorComments If true, '--#SET TERMINATOR x' switches the delimiter
+     * @param stripComments If true, comments are removed from the statements
+     * @param splitStatements If false, the whole script is returned as one statement
+     */
+    public Db2ScriptLexer(Reader reader, String delimiter, boolean useSetTerminatorComments,
+                          boolean stripComments, boolean splitStatements) {
+        this.reader = reader;
+        this.useSetTerminatorComments = useSetTerminatorComments;
+        this.stripComments = stripComments;
+        this.splitStatements = splitStatements;
+        setDelimiter(delimiter == null ? ";" : delimiter);
+    }
+
+    /**
+     * Gets the delimiter currently in use
+     *
+     * @return String, never null
+     */
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Resolves the '--#INCLUDE' directives of the script
+     *
+     * @param includes null to treat them as comments
+     */
+    public void setIncludes(ScriptIncludes includes) {
+        this.includes = includes;
+    }
+
+    /**
+     * Checks if a script contains a '--#INCLUDE' directive, for example to not cache its statements
+     *
+     * @param script The whole script
+     * @return true if a line starts with the directive
+     */
+    public static boolean hasIncludeDirective(String script) {
+        return INCLUDE_DIRECTIVE.matcher(script).find();
+    }
+
+    /**
+     * Gets the line the lexer has read up to, for example to report where reading the script failed
+     *
+     * @return int, 1 based
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Reads the next statement from the script.
+     * Statements are trimmed, statements only containing comments are returned as well
+     * (see {@link DelimitedSegment#hasSql()}).
+     *
+     * @return The next statement, or null when the end of the script is reached
+     * @throws IOException If the script could not be read
+     */
+    public DelimitedSegment next() throws IOException {
+        if (!included.isEmpty()) {
+            return included.removeFirst();
+        }
+        while (ensure(1)) {
+            char c = buffer[position];
+
+            if (atLineStart && useSetTerminatorComments && c == '-' && matchesIgnoreCase(DB2_DELIMITER_COMMAND)) {
+                readTerminatorDirective();
+            } else if (atLineStart && includes != null && c == '-' && matchesIgnoreCase(INCLUDE_COMMAND)) {
+                DelimitedSegment comments = readIncludeDirective();
+                if (comments != null) {
+                    return comments;
+                } else if (!included.isEmpty()) {
+                    return included.removeFirst();
+                }
+            } else if (c == '-' && ensure(2) && buffer[position + 1] == '-') {
+                readLineComment(false);
+            } else if (c == '/' && ensure(2) && buffer[position + 1] == '*') {
+                readBlockComment();
+            } else if (c == '\'' || c == '"') {
+                resolvePendingClause(false);
+                readQuoted(c);
+            } else if (splitStatements && isDelimiterHere()) {
+                resolvePendingClause(false);
+                if (clauseDepth == 0) {
+                    position += delimiter.length();
+                    atLineStart = false;
+                    DelimitedSegment segment = finishStatement();
+                    if (segment != null) {
+                        return segment;
+                    }
+                } else {
+                    for (int i = 0; i < delimiter.length(); i++) {
+                        appendCode(buffer[position++]);
+                    }
+                }
+            } else if (isWordChar(c)) {
+                readWord();
+            } else {
+                position++;
+                if (c == '\r') {
+                    if (ensure(1) && buffer[position] == '\n') {
+                        position++;
+                    }
+                    c = '\n';
+                }
+                if (Character.isWhitespace(c)) {
+                    appendWhitespace(c);
+                } else {
+                    resolvePendingClause(false);
+                    appendCode(c);
+                }
+            }
+        }
+        return finishStatement();
+    }
+
+    private void setDelimiter(String delimiter) {
+        this.delimiter = delimiter;
+        this.delimiterIsWord = isWordChar(delimiter.charAt(0));
+    }
+
+    /**
+     * Words are always read as a whole (see {@link #readWord()}), so a word delimiter like 'GO'
+     * only needs to be checked for the end of the word.
+     */
+    private boolean isDelimiterHere() throws IOException {
+        if ("/".equals(delimiter) && !atLineStart) {
+            // Just like Liquibase, a '/' only ends a statement at the beginning of a line
+            return false;
+        }
+        if (!matchesIgnoreCase(delimiter)) {
+            return false;
+        }
+        return !delimiterIsWord || !ensure(delimiter.length() + 1) || !isWordChar(buffer[position + delimiter.length()]);
+    }
+
+    private void readTerminatorDirective() throws IOException {
+        readLineComment(true);
+        String newDelimiter = directive.substring(DB2_DELIMITER_COMMAND.length()).trim();
+        if (!newDelimiter.isEmpty()) {
+            setDelimiter(newDelimiter);
+        }
+        // The directive ends any open BEGIN ... END tracking, just like a new segment did before
+        clauseDepth = 0;
+    }
+
+    /**
+     * Reads the statements of the included script
+     *
+     * @return The comments before the directive (and the directive, unless comments are stripped), if any
+     */
+    private DelimitedSegment readIncludeDirective() throws IOException {
+        if (statementHasSql) {
+            throw new IOException("--#INCLUDE at line " + line + " is inside a statement, the statement before "
+                    + "must end with '" + delimiter + "'");
+        }
+        int directiveLine = line;
+        readLineComment(true);
+        String path = getIncludePath(directive.toString());
+        if (path.isEmpty()) {
+            throw new IOException("--#INCLUDE at line " + directiveLine + " has no path");
+        }
+        ScriptIncludes.Fragment fragment = includes.include(path, delimiter);
+        for (DelimitedSegment segment : fragment.getSegments()) {
+            included.add(segment.includedAt(directiveLine));
+        }
+        setDelimiter(fragment.getDelimiter());
+        return finishStatement();
+    }
+
+    /**
+     * Gets the path of an include directive
+     *
+     * @param directive A line starting with '--#INCLUDE '
+     * @return The path, without the quotes around it, empty if none
+     */
+    static String getIncludePath(String directive) {
+        String path = directive.substring(INCLUDE_COMMAND.length()).trim();
+        if (path.length() > 1 && (path.charAt(0) == '\'' || path.charAt(0) == '"')
+                && path.charAt(path.length() - 1) == path.charAt(0)) {
+            path = path.substring(1, path.length() - 1);
+        }
+        return path;
+    }
+
+    private void readLineComment(boolean isDirective) throws IOException {
+        resolvePendingClause(false);
+        markStatementStart();
+        directive.setLength(0);
+        while (ensure(1)) {
+            char c = buffer[position];
+            if (c == '\n' || c == '\r') {
+                break;
+            }
+            if (isDirective) {
+                directive.append(c);
+            }
+            appendComment(c);
+            position++;
+        }
+        atLineStart = false;
+    }
+
+    private void readBlockComment() throws IOException {
+        resolvePendingClause(false);
+        markStatementStart();
+        appendComment(buffer[position++]);
+        appendComment(buffer[position++]);
+        while (ensure(1)) {
+            char c = buffer[position++];
+            if (c == '*' && ensure(1) && buffer[position] == '/') {
+                appendComment(c);
+                appendComment(buffer[position++]);
+                break;
+            }
+            appendComment(normalizeNewLine(c));
+        }
+        atLineStart = false;
+    }
+
+    private void readQuoted(char quote) throws IOException {
+        appendCode(buffer[position++]);
+        while (ensure(1)) {
+            char c = buffer[position++];
+            appendCode(normalizeNewLine(c));
+            if (c == quote) {
+                if (ensure(1) && buffer[position] == quote) {
+                    // Escaped quote, for example 'It''s'
+                    appendCode(buffer[position++]);
+                } else {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void readWord() throws IOException {
+        word.setLength(0);
+        while (ensure(1) && isWordChar(buffer[position])) {
+            word.append(buffer[position++]);
+        }
+        resolvePendingClause(isWord("TRANSACTION") || isWord("TRANS"));
+        for (int i = 0; i < word.length(); i++) {
+            appendCode(word.charAt(i));
+        }
+        if (isWord("BEGIN")) {
+            pendingClauseChange = 1;
+        } else if (isWord("END") && clauseDepth > 0) {
+            pendingClauseChange = -1;
+        }
+    }
+
+    private boolean isWord(String keyword) {
+        if (word.length() != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toUpperCase(word.charAt(i)) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 'BEGIN' and 'END' only open/close a clause if the next token is not 'TRANSACTION' or 'TRANS',
+     * so the change is applied once that next token is seen.
+     */
+    private void resolvePendingClause(boolean nextTokenIsTransaction) {
+        if (pendingClauseChange != 0 && !nextTokenIsTransaction) {
+            clauseDepth += pendingClauseChange;
+        }
+        pendingClauseChange = 0;
+    }
+
+    private void appendWhitespace(char c) {
+        if (statement.length() > 0) {
+            statement.append(c);
+        }
+        if (c == '\n') {
+            line++;
+            atLineStart = true;
+        } else {
+            // Directives (and a '/' delimiter) only count in the first column, like the line based parsing did
+            atLineStart = false;
+        }
+    }
+
+    private void appendCode(char c) {
+        markStatementStart();
+        statement.append(c);
+        statementHasSql = true;
+        atLineStart = false;
+        if (c == '\n') {
+            line++;
+        }
+    }
+
+    private void appendComment(char c) {
+        if (!stripComments) {
+            statement.append(c);
+        }
+        if (c == '\n') {
+            line++;
+        }
+    }
+
+    private void markStatementStart() {
+        if (statement.length() == 0) {
+            statementLine = line;
+        }
+    }
+
+    private DelimitedSegment finishStatement() {
+        int end = statement.length();
+        while (end > 0 && statement.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        DelimitedSegment segment = null;
+        if (end > 0) {
+            segment = new DelimitedSegment(delimiter, statement.substring(0, end), statementLine, statementHasSql);
+        }
+        statement.setLength(0);
+        statementHasSql = false;
+        clauseDepth = 0;
+        pendingClauseChange = 0;
+        return segment;
+    }
+
+    private char normalizeNewLine(char c) throws IOException {
+        if (c == '\r') {
+            if (ensure(1) && buffer[position] == '\n') {
+                position++;
+            }
+            return '\n';
+        }
+        return c;
+    }
+
+    private boolean matchesIgnoreCase(String text) throws IOException {
+        if (!ensure(text.length())) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = buffer[position + i];
+            char t = text.charAt(i);
+            if (c != t && Character.toUpperCase(c) != Character.toUpperCase(t)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Makes sure at least the given number of characters can be read from the buffer
+     *
+     * @param count number of characters needed
+     * @return false if the end of the script is reached before
+     */
+    private boolean ensure(int count) throws IOException {
+        if (limit - position >= count) {
+            return true;
+        }
+        if (endOfInput) {
+            return false;
+        }
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        while (limit < count && !endOfInput) {
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                endOfInput = true;
+            } else {
+                limit += read;
+            }
+        }
+        return limit >= count;
+    }
+}
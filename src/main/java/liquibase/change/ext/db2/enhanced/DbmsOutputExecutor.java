@@ -1,6 +1,7 @@
 package liquibase.change.ext.db2.enhanced;
 
 import liquibase.Scope;
+import liquibase.database.Database;
 import liquibase.database.DatabaseConnection;
 import liquibase.database.OfflineConnection;
 import liquibase.database.jvm.JdbcConnection;
@@ -10,22 +11,50 @@ import liquibase.executor.jvm.RowMapper;
 import liquibase.logging.Logger;
 import liquibase.sql.visitor.SqlVisitor;
 import liquibase.statement.SqlStatement;
+import liquibase.statement.core.RawSqlStatement;
 
+import java.io.IOException;
+import java.sql.Array;
 import java.sql.CallableStatement;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
- * This executor tries to get the output from DBMS_OUTPUT after each statement execution
+ * This executor tries to get the output from DBMS_OUTPUT after statements that can produce output
+ * (CALLs, anonymous blocks and compound statements, see {@link StatementKind#canProduceOutput()}).
+ * Output can also be retrieved only every n of those statements, or only at the end of the script
+ * (when a {@link DrainDbmsOutputStatement} is executed). Output is always retrieved in the order it was written.
+ * Lines are fetched in batches with DBMS_OUTPUT.GET_LINES (falling back to GET_LINE if that is not supported),
+ * using a single callable statement for as long as the connection stays the same. Each batch is passed on to the
+ * {@link DbmsOutputSink} as it is fetched, optionally limited to a number of lines per script ({@link DbmsOutputLimit}).
+ * <p>
+ * The output settings of a script are applied when its {@link ScriptStartStatement} is executed.
+ * The other concerns of the script are handled by the {@link ScriptExecutor}, which is the one installed.
  *
  * @since 1.1
  */
-public class DbmsOutputExecutor extends JdbcExecutor {
+public class DbmsOutputExecutor extends JdbcExecutor implements AutoCloseable {
+
+    private static final int GET_LINES_BATCH_SIZE = 1000;
 
     private boolean isDbmsOutputEnabled = true;
 
+    private boolean isGetLinesSupported = true;
+
+    private CallableStatement getLinesStatement;
+
+    private Connection getLinesConnection;
+
+    private int drainEvery = 1;
+
+    private int statementsSinceDrain;
+
+    private DbmsOutputSink sink;
+
+    private DbmsOutputLimit outputLimit;
+
     /**
      * Simple flag indicating if DBMS_OUTPUT is currently enabled
      *
@@ -42,63 +71,305 @@ public class DbmsOutputExecutor extends JdbcExecutor {
      */
     public void setDbmsOutputEnabled(boolean isDbmsOutputEnabled) {
         this.isDbmsOutputEnabled = isDbmsOutputEnabled;
+        if (!isDbmsOutputEnabled) {
+            close();
+        }
+    }
+
+    /**
+     * Number of statements that can produce output after which the output is retrieved
+     *
+     * @return int, default is 1
+     */
+    public int getDrainEvery() {
+        return drainEvery;
+    }
+
+    /**
+     * @see #getDrainEvery()
+     * @param drainEvery if 0 or less, output is only retrieved at the end of the script
+     */
+    public void setDrainEvery(int drainEvery) {
+        this.drainEvery = drainEvery;
+    }
+
+    /**
+     * The destination of the output
+     *
+     * @return DbmsOutputSink, null until output is first retrieved, unless set
+     */
+    public DbmsOutputSink getSink() {
+        return sink;
+    }
+
+    /**
+     * @see #getSink()
+     * @param sink if null, the sink set in the configuration is created when output is retrieved,
+     *             see {@link DbmsOutputSink#fromConfiguration()}
+     */
+    public void setSink(DbmsOutputSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * The limit of lines of the current script
+     *
+     * @return DbmsOutputLimit, null if all lines are passed on
+     */
+    public DbmsOutputLimit getOutputLimit() {
+        return outputLimit;
+    }
+
+    /**
+     * @see #getOutputLimit()
+     * @param outputLimit null to pass on all lines
+     */
+    public void setOutputLimit(DbmsOutputLimit outputLimit) {
+        this.outputLimit = outputLimit;
     }
 
     @Override
-    public void execute(final SqlStatement sql) throws DatabaseException {
-        super.execute(sql);
-        logDbmsOutput();
+    public void setDatabase(Database database) {
+        if (this.database != null && this.database != database) {
+            close();
+        }
+        super.setDatabase(database);
     }
 
+    // execute(SqlStatement) is not overridden, JdbcExecutor passes it on to execute(SqlStatement, List)
+
     @Override
     public void execute(final SqlStatement sql, final List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        if (sql instanceof ScriptStartStatement) {
+            startScript((ScriptStartStatement) sql);
+        }
         super.execute(sql, sqlVisitors);
-        logDbmsOutput();
+        retrieveOutput(sql);
     }
 
     @Override
     public List query(SqlStatement sql, RowMapper rowMapper, List<SqlVisitor> sqlVisitors) throws DatabaseException {
         List<?> ret = super.query(sql, rowMapper, sqlVisitors);
-        logDbmsOutput();
+        retrieveOutput(sql);
         return ret;
     }
 
+    /**
+     * Executes a statement without retrieving the output afterwards
+     */
+    protected void executeWithoutOutput(SqlStatement sql, List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        super.execute(sql, sqlVisitors);
+    }
+
+    /**
+     * Executes a query without retrieving the output afterwards
+     */
+    protected List<?> queryWithoutOutput(SqlStatement sql, RowMapper rowMapper, List<SqlVisitor> sqlVisitors)
+            throws DatabaseException {
+        return super.query(sql, rowMapper, sqlVisitors);
+    }
+
+    /**
+     * Retrieves the output after a statement was executed, if due. The limit of the script ends with its
+     * {@link DrainDbmsOutputStatement}.
+     */
+    protected void retrieveOutput(SqlStatement sql) throws DatabaseException {
+        if (isDrainDue(sql)) {
+            logDbmsOutput();
+        }
+        if (sql instanceof DrainDbmsOutputStatement && outputLimit != null) {
+            outputLimit.finish();
+            outputLimit = null;
+        }
+    }
+
+    /**
+     * Called after output was retrieved, does nothing by default
+     *
+     * @param nanos Duration of the retrieval in nanoseconds
+     */
+    protected void outputRetrieved(long nanos) {
+    }
+
+    /**
+     * Applies the output settings of the script, the statements of several scripts are generated before any is executed
+     */
+    private void startScript(ScriptStartStatement start) {
+        setDbmsOutputEnabled(start.isDbmsOutputEnabled());
+        setDrainEvery(start.getDrainEvery());
+        setOutputLimit(start.getOutputLimit());
+    }
+
+    /**
+     * Closes the statement used to retrieve DBMS_OUTPUT. It is prepared again if output is retrieved afterwards.
+     */
+    @Override
+    public void close() {
+        if (getLinesStatement != null) {
+            try {
+                getLinesStatement.close();
+            } catch (SQLException e) {
+                getLogger().fine("Error closing DBMS_OUTPUT statement: " + e.getMessage());
+            }
+            getLinesStatement = null;
+            getLinesConnection = null;
+        }
+    }
+
+    private boolean isDrainDue(SqlStatement sql) {
+        if (sql instanceof DrainDbmsOutputStatement) {
+            return true;
+        }
+        if (!canProduceOutput(sql)) {
+            return false;
+        }
+        statementsSinceDrain++;
+        return drainEvery > 0 && statementsSinceDrain >= drainEvery;
+    }
+
+    /**
+     * Statements generated by Liquibase itself (e.g. for the DATABASECHANGELOG table) never produce output
+     */
+    private static boolean canProduceOutput(SqlStatement sql) {
+        if (sql instanceof Db2RawSqlStatement) {
+            return ((Db2RawSqlStatement) sql).getKind().canProduceOutput();
+        } else if (sql instanceof RawSqlStatement) {
+            return StatementKind.of(((RawSqlStatement) sql).getSql()).canProduceOutput();
+        }
+        return false;
+    }
+
     private void logDbmsOutput() throws DatabaseException {
+        statementsSinceDrain = 0;
         if (isDbmsOutputEnabled()) {
-            dbmsOutputGetLines().stream().forEach(getLogger()::info);
+            long start = System.nanoTime();
+            dbmsOutputGetLines();
+            outputRetrieved(System.nanoTime() - start);
         }
     }
 
-    private Logger getLogger() {
+    protected Logger getLogger() {
         return Scope.getCurrentScope().getLog(getClass());
     }
 
-    private List<String> dbmsOutputGetLines() throws DatabaseException {
+    /**
+     * Passes a line on to the sink, unless the limit of the script is reached
+     */
+    private void forward(String line) throws DatabaseException {
+        if (outputLimit != null && !outputLimit.accept()) {
+            return;
+        }
+        try {
+            sink.accept(line);
+        } catch (IOException e) {
+            throw new DatabaseException("Error writing DBMS_OUTPUT to " + sink + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void dbmsOutputGetLines() throws DatabaseException {
         DatabaseConnection con = database.getConnection();
 
         if (con instanceof OfflineConnection) {
             throw new DatabaseException("Cannot execute commands against an offline database");
         }
 
-        List<String> ret = new ArrayList<>();
+        Connection connection = ((JdbcConnection) con).getUnderlyingConnection();
+        if (sink == null) {
+            sink = DbmsOutputSink.fromConfiguration();
+        }
+        try {
+            fetchLines(connection);
+        } catch (DatabaseException e) {
+            try {
+                sink.flush();
+            } catch (IOException flushException) {
+                e.addSuppressed(flushException);
+            }
+            throw e;
+        }
+        try {
+            sink.flush();
+        } catch (IOException e) {
+            throw new DatabaseException("Error writing DBMS_OUTPUT to " + sink + ": " + e.getMessage(), e);
+        }
+    }
 
-        while(true) {
-            // GET_LINES does not appear to work, so just use GET_LINE
-            try (CallableStatement stmt = ((JdbcConnection) con).getUnderlyingConnection().prepareCall("{ CALL SYSIBMADM.DBMS_OUTPUT.GET_LINE(?,?) }")) {
-                stmt.registerOutParameter(1, Types.VARCHAR);
-                stmt.registerOutParameter(2, Types.INTEGER);
-                stmt.execute();
+    private void fetchLines(Connection connection) throws DatabaseException {
+        if (isGetLinesSupported) {
+            try {
+                fetchWithGetLines(getLinesStatement(connection));
+                return;
+            } catch (SQLException ex) {
+                // The CHARARR out parameter is not supported everywhere, so fall back to one line per call
+                getLogger().fine("DBMS_OUTPUT.GET_LINES is not supported, using GET_LINE instead: " + ex.getMessage());
+                isGetLinesSupported = false;
+                close();
+            }
+        }
+        try {
+            fetchWithGetLine(getLinesStatement(connection));
+        } catch (SQLException ex) {
+            close();
+            throw new DatabaseException("Error executing SQL " + getLinesSql() + ": " + ex.getMessage(), ex);
+        }
+    }
 
-                if (stmt.getInt(2) == 0) {
-                    ret.add(stmt.getString(1));
-                } else {
-                    return ret;
+    private void fetchWithGetLines(CallableStatement stmt) throws SQLException, DatabaseException {
+        int fetched;
+        do {
+            stmt.setInt(2, GET_LINES_BATCH_SIZE);
+            stmt.execute();
+            fetched = stmt.getInt(2);
+            if (fetched > 0) {
+                Array lines = stmt.getArray(1);
+                try {
+                    Object[] values = (Object[]) lines.getArray();
+                    for (int i = 0; i < fetched && i < values.length; i++) {
+                        forward(values[i] == null ? "" : values[i].toString());
+                    }
+                } finally {
+                    lines.free();
                 }
-            } catch (SQLException ex) {
-                throw new DatabaseException("Error executing SQL CALL SYSIBMADM.DBMS_OUTPUT.GET_LINES(?,?): " + ex.getMessage(), ex);
+            }
+        } while (fetched == GET_LINES_BATCH_SIZE);
+    }
+
+    private void fetchWithGetLine(CallableStatement stmt) throws SQLException, DatabaseException {
+        while (true) {
+            stmt.execute();
+            if (stmt.getInt(2) == 0) {
+                String line = stmt.getString(1);
+                forward(line == null ? "" : line);
+            } else {
+                return;
             }
         }
     }
 
+    /**
+     * The statement is prepared once, and kept as long as the connection does not change
+     */
+    private CallableStatement getLinesStatement(Connection connection) throws SQLException {
+        if (getLinesStatement != null && (getLinesConnection != connection || getLinesStatement.isClosed())) {
+            close();
+        }
+        if (getLinesStatement == null) {
+            getLinesStatement = connection.prepareCall(getLinesSql());
+            getLinesConnection = connection;
+            if (isGetLinesSupported) {
+                getLinesStatement.registerOutParameter(1, Types.ARRAY);
+            } else {
+                getLinesStatement.registerOutParameter(1, Types.VARCHAR);
+            }
+            getLinesStatement.registerOutParameter(2, Types.INTEGER);
+        }
+        return getLinesStatement;
+    }
+
+    private String getLinesSql() {
+        return isGetLinesSupported
+                ? "{ CALL SYSIBMADM.DBMS_OUTPUT.GET_LINES(?,?) }"
+                : "{ CALL SYSIBMADM.DBMS_OUTPUT.GET_LINE(?,?) }";
+    }
 
 }
@@ -0,0 +1,68 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+
+/**
+ * Limits the number of DBMS_OUTPUT lines of a script with 'dbmsOutputMaxLines' that are passed to the
+ * {@link DbmsOutputSink}. Further lines are still retrieved, so DB2's output buffer does not fill up, but dropped;
+ * their number is logged at the end of the script.
+ *
+ * @since 1.2
+ */
+public class DbmsOutputLimit {
+
+    private final String path;
+    private final int maxLines;
+    private long lines;
+    private long dropped;
+
+    /**
+     * @param path The path of the script, for the log
+     * @param maxLines Number of lines passed on, unlimited if 0 or less
+     */
+    public DbmsOutputLimit(String path, int maxLines) {
+        this.path = path;
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * Counts a retrieved line
+     *
+     * @return true if the line is passed on, false if it is dropped
+     */
+    public boolean accept() {
+        lines++;
+        if (maxLines <= 0 || lines <= maxLines) {
+            return true;
+        }
+        if (dropped++ == 0) {
+            Scope.getCurrentScope().getLog(getClass()).info("DBMS_OUTPUT of " + path + " exceeds " + maxLines
+                    + " lines, further lines are dropped");
+        }
+        return false;
+    }
+
+    /**
+     * Logs the number of dropped lines, if any, at the end of the script
+     */
+    public void finish() {
+        if (dropped > 0) {
+            Scope.getCurrentScope().getLog(getClass()).warning("Dropped " + dropped + " of " + lines
+                    + " lines of DBMS_OUTPUT of " + path + " (dbmsOutputMaxLines=" + maxLines + ")");
+        }
+    }
+
+    /**
+     * @return The number of lines retrieved so far
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * @return The number of lines dropped so far
+     */
+    public long getDropped() {
+        return dropped;
+    }
+}
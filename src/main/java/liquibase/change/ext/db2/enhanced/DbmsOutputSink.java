@@ -0,0 +1,63 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.exception.DatabaseException;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Receives the DBMS_OUTPUT retrieved by the {@link DbmsOutputExecutor}, one line at a time as it is fetched,
+ * so the output of a script is never held in memory as a whole.
+ * <p>
+ * By default, lines are logged at INFO. Output can be written to a rotating file instead
+ * ({@link Db2EnhancedConfiguration#DBMS_OUTPUT_FILE}), or passed to any implementation
+ * ({@link Db2EnhancedConfiguration#DBMS_OUTPUT_SINK}).
+ *
+ * @since 1.2
+ */
+@FunctionalInterface
+public interface DbmsOutputSink {
+
+    /**
+     * Receives a line of output
+     *
+     * @param line The line, never null
+     * @throws IOException if the line cannot be written, which fails the statement that produced it
+     */
+    void accept(String line) throws IOException;
+
+    /**
+     * Called after each retrieval of output, so buffered lines are written before the next statement is executed
+     *
+     * @throws IOException if the lines cannot be written
+     */
+    default void flush() throws IOException {
+        // Nothing is buffered
+    }
+
+    /**
+     * Creates the sink set in the configuration
+     *
+     * @return The configured sink, never null
+     * @throws DatabaseException if the class of {@link Db2EnhancedConfiguration#DBMS_OUTPUT_SINK} cannot be created
+     */
+    static DbmsOutputSink fromConfiguration() throws DatabaseException {
+        String className = Db2EnhancedConfiguration.DBMS_OUTPUT_SINK.getCurrentValue();
+        if (className != null) {
+            try {
+                return (DbmsOutputSink) Class.forName(className, true, Scope.getCurrentScope().getClassLoader())
+                        .getConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new DatabaseException("Cannot create the DBMS_OUTPUT sink " + className + ": " + e.getMessage(), e);
+            }
+        }
+        String file = Db2EnhancedConfiguration.DBMS_OUTPUT_FILE.getCurrentValue();
+        if (file != null) {
+            return new RotatingFileDbmsOutputSink(Paths.get(file),
+                    Db2EnhancedConfiguration.DBMS_OUTPUT_FILE_MAX_SIZE.getCurrentValue(),
+                    Db2EnhancedConfiguration.DBMS_OUTPUT_FILE_COUNT.getCurrentValue());
+        }
+        return line -> Scope.getCurrentScope().getLog(DbmsOutputExecutor.class).info(line);
+    }
+}
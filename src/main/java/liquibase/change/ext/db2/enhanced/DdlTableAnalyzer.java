@@ -0,0 +1,152 @@
+package liquibase.change.ext.db2.enhanced;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the tables a DDL statement depends on, for the statements that can safely run in parallel:
+ * <ul>
+ *     <li>CREATE [UNIQUE] INDEX x ON table ...</li>
+ *     <li>ALTER TABLE table ADD [CONSTRAINT x] PRIMARY KEY / UNIQUE / CHECK / FOREIGN KEY ... REFERENCES other ...</li>
+ * </ul>
+ * Table names are returned as 'SCHEMA.TABLE' or 'TABLE', with ordinary identifiers in upper case
+ * and delimited identifiers without their quotes.
+ *
+ * @since 1.2
+ */
+public class DdlTableAnalyzer {
+
+    private static final Set<String> CONSTRAINT_TYPES = new HashSet<>(Arrays.asList("PRIMARY", "UNIQUE", "CHECK", "FOREIGN"));
+
+    private DdlTableAnalyzer() {
+    }
+
+    /**
+     * Gets the tables of a statement
+     *
+     * @param sql The statement
+     * @return The tables, null if the statement is not one of the supported statements
+     */
+    public static Set<String> tablesOf(String sql) {
+        List<String> tokens = tokenize(sql);
+        if (tokens == null) {
+            return null;
+        }
+        Set<String> tables = new LinkedHashSet<>();
+        int index;
+        if (isToken(tokens, 0, "CREATE")) {
+            index = isToken(tokens, 1, "UNIQUE") ? 2 : 1;
+            if (!isToken(tokens, index, "INDEX")) {
+                return null;
+            }
+            index = skipName(tokens, index + 1);
+            if (!isToken(tokens, index, "ON")) {
+                return null;
+            }
+            index = readName(tokens, index + 1, tables);
+            return index == -1 ? null : tables;
+        } else if (isToken(tokens, 0, "ALTER") && isToken(tokens, 1, "TABLE")) {
+            index = readName(tokens, 2, tables);
+            if (index == -1 || !isToken(tokens, index, "ADD")) {
+                return null;
+            }
+            index++;
+            if (isToken(tokens, index, "CONSTRAINT")) {
+                index = skipName(tokens, index + 1);
+            }
+            if (index >= tokens.size() || !CONSTRAINT_TYPES.contains(tokens.get(index))) {
+                return null;
+            }
+            for (int i = index; i < tokens.size(); i++) {
+                if (tokens.get(i).equals("REFERENCES") && readName(tokens, i + 1, tables) == -1) {
+                    return null;
+                }
+            }
+            return tables;
+        }
+        return null;
+    }
+
+    private static boolean isToken(List<String> tokens, int index, String keyword) {
+        return index < tokens.size() && tokens.get(index).equals(keyword);
+    }
+
+    private static int skipName(List<String> tokens, int index) {
+        return readName(tokens, index, new HashSet<>());
+    }
+
+    /**
+     * Reads a (possibly qualified) name
+     *
+     * @return index after the name, -1 if there is no name
+     */
+    private static int readName(List<String> tokens, int index, Set<String> names) {
+        if (index == -1 || index >= tokens.size() || !isIdentifier(tokens.get(index))) {
+            return -1;
+        }
+        String name = unquote(tokens.get(index));
+        if (isToken(tokens, index + 1, ".") && index + 2 < tokens.size() && isIdentifier(tokens.get(index + 2))) {
+            name = name + "." + unquote(tokens.get(index + 2));
+            index += 2;
+        }
+        names.add(name);
+        return index + 1;
+    }
+
+    private static String unquote(String identifier) {
+        return identifier.charAt(0) == '"' ? identifier.substring(1, identifier.length() - 1) : identifier;
+    }
+
+    private static boolean isIdentifier(String token) {
+        return !token.isEmpty() && (Character.isLetter(token.charAt(0)) || token.charAt(0) == '"');
+    }
+
+    /**
+     * Splits the statement into upper case words, delimited identifiers (with quotes) and single characters,
+     * skipping comments
+     *
+     * @return The tokens, null if the statement contains string literals
+     */
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end == -1 ? sql.length() : end;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end == -1 ? sql.length() : end + 2;
+            } else if (c == '"') {
+                int end = sql.indexOf('"', i + 1);
+                if (end == -1 || (end + 1 < sql.length() && sql.charAt(end + 1) == '"')) {
+                    // Escaped quotes in identifiers are not supported
+                    return null;
+                }
+                tokens.add(sql.substring(i, end + 1));
+                i = end + 1;
+            } else if (c == '\'') {
+                // Check constraints with literals are not analyzed
+                return null;
+            } else if (Character.isLetterOrDigit(c) || c == '_') {
+                int end = i;
+                while (end < sql.length() && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_')) {
+                    end++;
+                }
+                tokens.add(sql.substring(i, end).toUpperCase());
+                i = end;
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+}
@@ -1,11 +1,16 @@
 package liquibase.change.ext.db2.enhanced;
 
 /**
- * This represents a portion of SQL with the delimiter used to separate the SQL statements.
+ * This represents a portion of SQL (a single statement) with the delimiter used to separate it from the next one.
+ * Segments are created by the {@link Db2ScriptLexer}.
  */
 public class DelimitedSegment {
 
     private final String delimiter;
+    private final String sql;
+    private final int line;
+    private final boolean hasSql;
+    private final boolean included;
     private final StringBuilder segmentSql;
 
     /**
@@ -13,12 +18,50 @@ public class DelimitedSegment {
      *
      * @param delimiter, the delimiter of the segment, defaults to ';' if null
      * @param str The initial text for the segment.
+     * @deprecated Segments are created by the {@link Db2ScriptLexer}, use
+     *             {@link #DelimitedSegment(String, String, int, boolean)}. Will be removed in the next release.
      */
+    @Deprecated
     public DelimitedSegment(String delimiter, String str) {
         this.delimiter = delimiter == null ? ";" : delimiter;
+        this.sql = null;
+        this.line = 1;
+        this.hasSql = true;
+        this.included = false;
         this.segmentSql = new StringBuilder(str);
     }
 
+    /**
+     * Creates a new delimited segment with the delimiter used for parsing this segment.
+     *
+     * @param delimiter, the delimiter of the segment, defaults to ';' if null
+     * @param sql The (trimmed) text of the statement, including comments unless they were stripped
+     * @param line The line in the script where the segment starts (1 based)
+     * @param hasSql false if the segment only contains comments
+     */
+    public DelimitedSegment(String delimiter, String sql, int line, boolean hasSql) {
+        this(delimiter, sql, line, hasSql, false);
+    }
+
+    private DelimitedSegment(String delimiter, String sql, int line, boolean hasSql, boolean included) {
+        this.delimiter = delimiter == null ? ";" : delimiter;
+        this.sql = sql;
+        this.line = line;
+        this.hasSql = hasSql;
+        this.included = included;
+        this.segmentSql = null;
+    }
+
+    /**
+     * Gets this segment as part of a script that includes it with '--#INCLUDE'
+     *
+     * @param line The line of the '--#INCLUDE' directive in the including script
+     * @return A copy of this segment at that line
+     */
+    public DelimitedSegment includedAt(int line) {
+        return new DelimitedSegment(delimiter, sql, line, hasSql, true);
+    }
+
     /**
      * Gets the delimiter for the current segment
      *
@@ -32,9 +75,12 @@ public class DelimitedSegment {
      * Appends some text to this delimited segment
      * @param str The string to append
      * @return 'this' for method chaining
+     * @deprecated Only supported on segments created with {@link #DelimitedSegment(String, String)}.
+     *             Will be removed in the next release.
      */
+    @Deprecated
     public DelimitedSegment append(String str) {
-        segmentSql.append(str);
+        getSegmentSql().append(str);
         return this;
     }
 
@@ -44,12 +90,12 @@ public class DelimitedSegment {
      * @return String, never null
      */
     public String getSql() {
+        if (segmentSql == null) {
+            return sql;
+        }
         String trimmed = segmentSql.toString().trim();
         if (!";".equals(delimiter) && !"go".equalsIgnoreCase(delimiter) && !"/".equals(delimiter)) {
-            // Liquibase seems not to be able to properly split statements when the delimiter is not a common one
-            // For example 'END@' with @ as a delimiter does not register as the end of a statement
-            // If we add a space, this gets properly parsed
-            trimmed = trimmed.replaceAll("(\\S)("+delimiter+")", "$1 $2");
+            trimmed = trimmed.replaceAll("(\\S)(" + delimiter + ")", "$1 $2");
         }
         return trimmed;
     }
@@ -59,18 +105,29 @@ public class DelimitedSegment {
      *
      * @return The text that was removed (it should be appended to next segment).
      *         Never null, empty string if nothing was removed.
+     * @deprecated The {@link Db2ScriptLexer} splits the statements, this is only supported on segments created
+     *             with {@link #DelimitedSegment(String, String)}. Will be removed in the next release.
      */
+    @Deprecated
     public String getAndRemoveAfterLastDelimiter() {
-        int index = getIndexOfLastDelimiterInUse(new StringBuilder(segmentSql).reverse(), 0);
+        StringBuilder segment = getSegmentSql();
+        int index = getIndexOfLastDelimiterInUse(new StringBuilder(segment).reverse(), 0);
 
         if (index == -1) {
             return "";
         }
-        String ret = segmentSql.substring(index);
-        segmentSql.delete(index, segmentSql.length());
+        String ret = segment.substring(index);
+        segment.delete(index, segment.length());
         return ret;
     }
 
+    private StringBuilder getSegmentSql() {
+        if (segmentSql == null) {
+            throw new UnsupportedOperationException("Segments created by the lexer can not be modified");
+        }
+        return segmentSql;
+    }
+
     /**
      * This finds the index of the end of the actual last SQL statement considering SQL comments
      *
@@ -82,40 +139,59 @@ public class DelimitedSegment {
         int nextFound = reversed.indexOf(delimiter, index);
 
         if (nextFound == -1) {
-            // No previous delimiter found
             return nextFound;
         }
 
-        // "\nREAL SQL; -- comment ; skipped" -> reversed -> "deppiks ; tnemmoc -- ;LQS LAER\n"
         int lineStart = reversed.indexOf("\n", nextFound);
         int commentIndex = reversed.indexOf("--", nextFound);
-        if (commentIndex != -1) {
-
-            if (commentIndex < lineStart && nextFound < commentIndex) {
-                // Delimiter is inside a single line comment, continue searching...
-                return getIndexOfLastDelimiterInUse(reversed, commentIndex + 1);
-            }
+        if (commentIndex != -1 && commentIndex < lineStart && nextFound < commentIndex) {
+            return getIndexOfLastDelimiterInUse(reversed, commentIndex + 1);
         }
 
-        // "\nREAL SQL; /*\n * ; skipped\n */" -> reversed -> "/* \ndeppiks ; * \n */ ;LSQ LAER\n"
         int multiLineCommentEnd = reversed.indexOf("/*", index);
         if (multiLineCommentEnd != -1) {
             int multiLineCommentStart = reversed.indexOf("*/", multiLineCommentEnd);
             if (nextFound < multiLineCommentStart && nextFound > multiLineCommentEnd) {
-                // Delimiter is inside multiline comment, continue searching...
                 return getIndexOfLastDelimiterInUse(reversed, multiLineCommentStart + 1);
             }
         }
 
-        // Found it!
-        return segmentSql.length() - nextFound;
+        return reversed.length() - nextFound;
+    }
+
+    /**
+     * Gets the line in the script where this segment starts
+     *
+     * @return int, 1 based
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Checks if the segment contains anything other than comments and whitespace
+     *
+     * @return false if the segment only contains comments
+     */
+    public boolean hasSql() {
+        return hasSql;
+    }
+
+    /**
+     * Checks if the segment comes from an included script, see {@link #includedAt(int)}
+     *
+     * @return true if the segment was included
+     */
+    public boolean isIncluded() {
+        return included;
     }
 
     @Override
     public String toString() {
         return "DelimitedSegment{" +
                 "delimiter='" + delimiter + '\'' +
-                ", segmentSql=" + segmentSql +
+                ", line=" + line +
+                ", sql=" + getSql() +
                 '}';
     }
 }
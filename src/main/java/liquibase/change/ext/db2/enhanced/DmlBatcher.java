@@ -0,0 +1,66 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups consecutive DML statements into {@link BatchedDmlStatement}s, and passes all other statements on unchanged.
+ * A batch ends when it is full, and at any other statement (COMMIT, DDL, CALL, ...) or change of terminator,
+ * so statements are still executed in script order.
+ *
+ * @since 1.2
+ */
+public class DmlBatcher implements SqlStatementConsumer {
+
+    private final Database database;
+    private final int batchSize;
+    private final SqlStatementConsumer consumer;
+    private final List<Db2RawSqlStatement> pending = new ArrayList<>();
+
+    /**
+     * @param database The database the statements are executed against
+     * @param batchSize Maximum number of statements in a batch
+     * @param consumer Receives the batches and all other statements
+     */
+    public DmlBatcher(Database database, int batchSize, SqlStatementConsumer consumer) {
+        this.database = database;
+        this.batchSize = batchSize;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void accept(SqlStatement statement) throws DatabaseException {
+        if (statement instanceof Db2RawSqlStatement && ((Db2RawSqlStatement) statement).getKind() == StatementKind.DML) {
+            Db2RawSqlStatement dml = (Db2RawSqlStatement) statement;
+            if (!pending.isEmpty() && !pending.get(0).getTerminator().equals(dml.getTerminator())) {
+                passOnPending();
+            }
+            pending.add(dml);
+            if (pending.size() >= batchSize) {
+                passOnPending();
+            }
+        } else {
+            passOnPending();
+            consumer.accept(statement);
+        }
+    }
+
+    @Override
+    public void flush() throws DatabaseException {
+        passOnPending();
+        consumer.flush();
+    }
+
+    private void passOnPending() throws DatabaseException {
+        if (pending.size() == 1) {
+            consumer.accept(pending.get(0));
+        } else if (pending.size() > 1) {
+            consumer.accept(new BatchedDmlStatement(database, new ArrayList<>(pending)));
+        }
+        pending.clear();
+    }
+}
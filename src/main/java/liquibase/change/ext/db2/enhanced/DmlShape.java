@@ -0,0 +1,241 @@
+package liquibase.change.ext.db2.enhanced;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The shape of a DML statement: the SQL with its inline literals replaced by parameter markers,
+ * and the values of those literals.
+ * <p>
+ * Only literals whose type DB2 can derive from the context are replaced, i.e. the values of a
+ * 'VALUES (...)' row and the right hand side of a comparison or assignment (e.g. 'SET A = 1', 'WHERE B = 'x'').
+ * Everything else (NULL, negative numbers, typed literals like DATE '...', literals within expressions)
+ * stays part of the shape, so statements sharing a shape can be executed with a single prepared statement.
+ * Comments and extra whitespace are not part of the shape.
+ *
+ * @since 1.2
+ */
+public class DmlShape {
+
+    private static final Set<String> COMPARISONS = new HashSet<>(Arrays.asList("=", "<>", "!=", "<", ">", "<=", ">="));
+    private static final Set<String> CONDITION_KEYWORDS = new HashSet<>(Arrays.asList("AND", "OR", "WHERE"));
+
+    private final String sql;
+    private final List<Object> parameters;
+
+    private DmlShape(String sql, List<Object> parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Gets the SQL with parameter markers
+     *
+     * @return String, the original SQL if there are no parameters
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Gets the values of the replaced literals, in the order of the parameter markers
+     *
+     * @return String, BigDecimal or Double values, never null
+     */
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return true if at least one literal was replaced
+     */
+    public boolean hasParameters() {
+        return !parameters.isEmpty();
+    }
+
+    /**
+     * Determines the shape of a statement
+     *
+     * @param sql The statement
+     * @return The shape, without parameters if the statement cannot be analyzed
+     */
+    public static DmlShape of(String sql) {
+        StringBuilder shape = new StringBuilder(sql.length());
+        List<Object> parameters = new ArrayList<>();
+        // For each open parenthesis: true if it is a row of a VALUES clause
+        Deque<Boolean> parentheses = new ArrayDeque<>();
+        boolean inValues = false;
+        String previousToken = "";
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            int end;
+            if (Character.isWhitespace(c)) {
+                appendSpace(shape);
+                i++;
+                continue;
+            } else if (sql.startsWith("--", i)) {
+                end = sql.indexOf('\n', i);
+                i = end == -1 ? length : end;
+                continue;
+            } else if (sql.startsWith("/*", i)) {
+                end = sql.indexOf("*/", i + 2);
+                i = end == -1 ? length : end + 2;
+                appendSpace(shape);
+                continue;
+            } else if (c == '\'' || c == '"') {
+                end = endOfQuoted(sql, i);
+                if (end == -1) {
+                    return unparameterized(sql);
+                }
+                String literal = sql.substring(i, end);
+                if (c == '\'' && isParameterContext(previousToken, parentheses, sql, end)) {
+                    shape.append('?');
+                    parameters.add(literal.substring(1, literal.length() - 1).replace("''", "'"));
+                } else {
+                    shape.append(literal);
+                }
+                previousToken = literal.substring(0, 1);
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))) {
+                end = endOfNumber(sql, i);
+                String literal = sql.substring(i, end);
+                if (end < length && isWordChar(sql.charAt(end))) {
+                    return unparameterized(sql);
+                } else if (isParameterContext(previousToken, parentheses, sql, end)) {
+                    try {
+                        parameters.add(literal.indexOf('E') != -1 || literal.indexOf('e') != -1
+                                ? (Object) Double.valueOf(literal) : new BigDecimal(literal));
+                    } catch (NumberFormatException e) {
+                        return unparameterized(sql);
+                    }
+                    shape.append('?');
+                } else {
+                    shape.append(literal);
+                }
+                previousToken = "0";
+            } else if (isWordChar(c)) {
+                end = i;
+                while (end < length && isWordChar(sql.charAt(end))) {
+                    end++;
+                }
+                shape.append(sql, i, end);
+                previousToken = sql.substring(i, end).toUpperCase();
+                if (parentheses.isEmpty() && previousToken.equals("VALUES")) {
+                    inValues = true;
+                }
+            } else if (c == '?') {
+                // Already contains parameter markers, the positions would not match
+                return unparameterized(sql);
+            } else {
+                end = i + 1;
+                if (end < length && isOperatorPair(c, sql.charAt(end))) {
+                    end++;
+                }
+                String operator = sql.substring(i, end);
+                if (c == '(') {
+                    parentheses.push(parentheses.isEmpty() && inValues
+                            && (previousToken.equals("VALUES") || previousToken.equals(",")));
+                } else if (c == ')' && !parentheses.isEmpty()) {
+                    parentheses.pop();
+                }
+                shape.append(operator);
+                previousToken = operator;
+            }
+            i = end;
+        }
+        return parameters.isEmpty() ? unparameterized(sql) : new DmlShape(shape.toString().trim(), parameters);
+    }
+
+    private static void appendSpace(StringBuilder shape) {
+        if (shape.length() > 0 && shape.charAt(shape.length() - 1) != ' ') {
+            shape.append(' ');
+        }
+    }
+
+    private static DmlShape unparameterized(String sql) {
+        return new DmlShape(sql, Collections.emptyList());
+    }
+
+    /**
+     * A literal can be replaced if it is a complete value of a VALUES row,
+     * or the complete right hand side of a comparison
+     */
+    private static boolean isParameterContext(String previousToken, Deque<Boolean> parentheses, String sql, int end) {
+        int next = end;
+        while (next < sql.length() && Character.isWhitespace(sql.charAt(next))) {
+            next++;
+        }
+        boolean isEnd = next == sql.length();
+        char nextChar = isEnd ? ' ' : sql.charAt(next);
+        if ((previousToken.equals("(") || previousToken.equals(","))
+                && !parentheses.isEmpty() && parentheses.peek()) {
+            return nextChar == ',' || nextChar == ')';
+        }
+        if (COMPARISONS.contains(previousToken)) {
+            if (isEnd || nextChar == ',' || nextChar == ')') {
+                return true;
+            }
+            int wordEnd = next;
+            while (wordEnd < sql.length() && isWordChar(sql.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            return next > end && CONDITION_KEYWORDS.contains(sql.substring(next, wordEnd).toUpperCase());
+        }
+        return false;
+    }
+
+    private static int endOfQuoted(String sql, int start) {
+        char quote = sql.charAt(start);
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static int endOfNumber(String sql, int start) {
+        int i = start;
+        while (i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+            i++;
+        }
+        if (i < sql.length() && (sql.charAt(i) == 'E' || sql.charAt(i) == 'e')) {
+            int exponent = i + 1;
+            if (exponent < sql.length() && (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < sql.length() && Character.isDigit(sql.charAt(exponent))) {
+                i = exponent;
+                while (i < sql.length() && Character.isDigit(sql.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        return i;
+    }
+
+    private static boolean isOperatorPair(char first, char second) {
+        return (first == '<' && (second == '>' || second == '='))
+                || (first == '>' && second == '=')
+                || (first == '!' && second == '=')
+                || (first == '|' && second == '|');
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
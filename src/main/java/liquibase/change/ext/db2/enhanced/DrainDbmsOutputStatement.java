@@ -0,0 +1,29 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.PreparedStatementFactory;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+/**
+ * Marks the end of a script: the {@link DbmsOutputExecutor} retrieves all remaining DBMS_OUTPUT when it executes this.
+ * For any other executor, this does nothing.
+ *
+ * @since 1.2
+ */
+public class DrainDbmsOutputStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    @Override
+    public void execute(PreparedStatementFactory factory) {
+        // Nothing to execute, the DbmsOutputExecutor drains the output afterwards
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "DrainDbmsOutputStatement";
+    }
+}
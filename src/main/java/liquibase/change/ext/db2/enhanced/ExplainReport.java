@@ -0,0 +1,162 @@
+package liquibase.change.ext.db2.enhanced;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The estimated costs of the statements of a script, as explained by DB2 (see {@link StatementExplainer}),
+ * ranked by their estimated total cost: the cost of a statement times the number of statements of the same shape.
+ *
+ * @since 1.2
+ */
+public class ExplainReport {
+
+    private static final int MAX_SQL_LENGTH = 100;
+
+    private final String script;
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+
+    /**
+     * @param script The path of the script, for the summary
+     */
+    public ExplainReport(String script) {
+        this.script = script;
+    }
+
+    /**
+     * Adds an explained statement
+     *
+     * @param statement The statement, the first of its shape
+     * @param count The number of statements of the script with the same shape
+     * @param cost The estimated cost of one statement in timerons
+     * @param cardinality The estimated number of rows returned or changed by one statement
+     * @param tableScans The tables read with a table scan, e.g. 'APP.ORDERS (2000000 rows)'
+     */
+    public void add(Db2RawSqlStatement statement, int count, double cost, double cardinality, List<String> tableScans) {
+        entries.add(new Entry(statement, count, cost, cardinality, tableScans));
+    }
+
+    /**
+     * Adds a statement DB2 could not explain, e.g. because it uses a table created earlier in the script
+     *
+     * @param statement The statement, the first of its shape
+     * @param message The error of DB2
+     */
+    public void addFailure(Db2RawSqlStatement statement, String message) {
+        failures.add("line " + statement.getLine() + ": " + describe(statement) + ": " + message);
+    }
+
+    /**
+     * Gets the explained statements
+     *
+     * @param limit The maximum number of statements, 0 for all
+     * @return One line per statement, highest total cost first, e.g.
+     *         'line 12 (cost 1200.5 x 3, 5 rows, table scans: APP.ORDERS (2000000 rows)): UPDATE ...'
+     */
+    public List<String> getRanked(int limit) {
+        List<Entry> ranked = new ArrayList<>(entries);
+        ranked.sort(Comparator.comparingDouble(Entry::getTotalCost).reversed());
+        List<String> lines = new ArrayList<>();
+        for (Entry entry : ranked.subList(0, limit > 0 ? Math.min(limit, ranked.size()) : ranked.size())) {
+            lines.add(entry.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Gets the statements whose estimated cost exceeds a ceiling
+     *
+     * @param costCeiling The ceiling in timerons, for a single statement
+     * @return One line per statement, in script order, e.g. 'line 12 (cost 1200.5)'
+     */
+    public List<String> getExceeding(double costCeiling) {
+        List<String> lines = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.cost > costCeiling) {
+                lines.add("line " + entry.statement.getLine() + " (cost " + format(entry.cost) + ")");
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Gets the statements DB2 could not explain
+     *
+     * @return One line per statement, in script order, e.g. 'line 12: UPDATE ...: message'
+     */
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Gets a summary of the report, for the log
+     *
+     * @param limit The maximum number of ranked statements, 0 for all
+     * @return String, multiple lines
+     */
+    public String getSummary(int limit) {
+        StringBuilder summary = new StringBuilder("EXPLAIN of " + script + ": " + entries.size()
+                + " statement shapes, estimated total cost " + format(getTotalCost()) + " timerons");
+        for (String line : getRanked(limit)) {
+            summary.append("\n  ").append(line);
+        }
+        for (String line : failures) {
+            summary.append("\n  Not explained: ").append(line);
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Gets the estimated cost of all explained statements
+     *
+     * @return Timerons
+     */
+    public double getTotalCost() {
+        double total = 0;
+        for (Entry entry : entries) {
+            total += entry.getTotalCost();
+        }
+        return total;
+    }
+
+    private static String describe(Db2RawSqlStatement statement) {
+        String sql = statement.getSql().replaceAll("\\s+", " ").trim();
+        return sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "..." : sql;
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static class Entry {
+
+        private final Db2RawSqlStatement statement;
+        private final int count;
+        private final double cost;
+        private final double cardinality;
+        private final List<String> tableScans;
+
+        Entry(Db2RawSqlStatement statement, int count, double cost, double cardinality, List<String> tableScans) {
+            this.statement = statement;
+            this.count = count;
+            this.cost = cost;
+            this.cardinality = cardinality;
+            this.tableScans = tableScans;
+        }
+
+        double getTotalCost() {
+            return cost * count;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + statement.getLine() + " (cost " + format(cost) + (count > 1 ? " x " + count : "")
+                    + ", " + Math.round(cardinality) + " rows"
+                    + (tableScans.isEmpty() ? "" : ", table scans: " + String.join(", ", tableScans))
+                    + "): " + describe(statement);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.logging.Logger;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+import liquibase.statement.SqlStatement;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs before the statements of a script with 'explain': explains its DML statements and queries
+ * (see {@link StatementExplainer}), logs the {@link ExplainReport}, and fails if the estimated cost of a statement
+ * exceeds the cost ceiling, so the script is not executed.
+ * <p>
+ * Statements of the same shape (see {@link DmlShape}) get the same plan, so only the first of each shape is explained.
+ * Shapes whose statements were all committed by a previous run (see {@link Checkpoint}) are not explained.
+ * The rows written to the explain tables are rolled back, unless the connection is in auto-commit mode.
+ *
+ * @since 1.2
+ */
+public class ExplainStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private final Database database;
+    private final String path;
+    private final int costCeiling;
+    private final Checkpoint checkpoint;
+    private final Map<String, Shape> shapes = new LinkedHashMap<>();
+
+    /**
+     * @param database The database the script is executed against
+     * @param path The path of the script, for the report
+     * @param costCeiling The maximum estimated cost of a statement in timerons, 0 for no maximum
+     * @param checkpoint The checkpoint of the script, null if not used
+     */
+    public ExplainStatement(Database database, String path, int costCeiling, Checkpoint checkpoint) {
+        this.database = database;
+        this.path = path;
+        this.costCeiling = costCeiling;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Adds a statement of the script, in script order. Statements which cannot be explained are ignored.
+     *
+     * @param statement Any statement of the script
+     */
+    public void add(SqlStatement statement) {
+        if (!(statement instanceof Db2RawSqlStatement)) {
+            return;
+        }
+        Db2RawSqlStatement rawStatement = (Db2RawSqlStatement) statement;
+        if (rawStatement.getKind() != StatementKind.DML && rawStatement.getKind() != StatementKind.QUERY) {
+            return;
+        }
+        Shape shape = shapes.computeIfAbsent(DmlShape.of(rawStatement.getSql()).getSql(), key -> new Shape(rawStatement));
+        shape.last = rawStatement;
+        shape.count++;
+    }
+
+    /**
+     * Gets the number of statements to explain
+     *
+     * @return The number of distinct shapes
+     */
+    public int getShapeCount() {
+        return shapes.size();
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        ExplainReport report = explain(connection);
+        getLogger().info(report.getSummary(Db2EnhancedConfiguration.EXPLAIN_REPORT_SIZE.getCurrentValue()));
+        checkCostCeiling(report);
+    }
+
+    /**
+     * Explains all added statements
+     *
+     * @param connection The connection the script is executed with
+     * @return The report, not yet logged
+     * @throws DatabaseException If the explain tables are missing or cannot be read
+     */
+    ExplainReport explain(Connection connection) throws DatabaseException {
+        ExplainReport report = new ExplainReport(path);
+        StatementExplainer explainer = new StatementExplainer(connection);
+        try {
+            Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+            try {
+                for (Shape shape : shapes.values()) {
+                    if (checkpoint != null && checkpoint.isCommitted(shape.last)) {
+                        continue;
+                    }
+                    explainer.explain(shape.statement, shape.count, report);
+                }
+            } finally {
+                if (savepoint != null) {
+                    connection.rollback(savepoint);
+                    connection.releaseSavepoint(savepoint);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Error explaining " + path + ": " + e.getMessage(), e);
+        }
+        return report;
+    }
+
+    /**
+     * @throws DatabaseException If the estimated cost of a statement exceeds the ceiling
+     */
+    void checkCostCeiling(ExplainReport report) throws DatabaseException {
+        if (costCeiling <= 0) {
+            return;
+        }
+        List<String> exceeding = report.getExceeding(costCeiling);
+        if (!exceeding.isEmpty()) {
+            throw new DatabaseException("EXPLAIN of " + path + ": " + exceeding.size() + " statements exceed the cost "
+                    + "ceiling of " + costCeiling + " timerons: " + String.join(", ", exceeding));
+        }
+    }
+
+    private Logger getLogger() {
+        return Scope.getCurrentScope().getLog(getClass());
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ExplainStatement{" +
+                "shapes=" + shapes.size() +
+                '}';
+    }
+
+    private static class Shape {
+
+        private final Db2RawSqlStatement statement;
+        private Db2RawSqlStatement last;
+        private int count;
+
+        Shape(Db2RawSqlStatement statement) {
+            this.statement = statement;
+        }
+    }
+}
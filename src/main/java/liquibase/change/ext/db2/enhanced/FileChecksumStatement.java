@@ -0,0 +1,47 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.PreparedStatementFactory;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+/**
+ * Marks the end of a file of a 'db2SqlDirectory' change: records its checksum in {@link FileChecksums},
+ * in the unit of work of its last statement.
+ *
+ * @since 1.2
+ */
+public class FileChecksumStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private final FileChecksums fileChecksums;
+    private final String path;
+    private final String checksum;
+
+    /**
+     * @param fileChecksums The checksums of the change
+     * @param path The path of the file, relative to the directory
+     * @param checksum The checksum of the file
+     */
+    public FileChecksumStatement(FileChecksums fileChecksums, String path, String checksum) {
+        this.fileChecksums = fileChecksums;
+        this.path = path;
+        this.checksum = checksum;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        fileChecksums.write(path, checksum);
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "FileChecksumStatement{" +
+                "path='" + path + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,137 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The checksums of the files of a 'db2SqlDirectory' change which were executed, recorded in
+ * {@link Db2EnhancedConfiguration#FILE_CHECKSUM_TABLE}, so a rerun of the changeset only executes the files
+ * which changed since.
+ * <p>
+ * The checksum of a file is written in the unit of work of its last statement.
+ *
+ * @since 1.2
+ */
+public class FileChecksums {
+
+    private static final String UNDEFINED_NAME = "42704";
+
+    private final Database database;
+    private final String changeId;
+    private final String changeKey;
+    private String tableName;
+
+    /**
+     * @param database The database the files are executed against, also holds the checksum table
+     * @param changeId Identifies the change, e.g. 'changelog.xml::1::author::procedures'
+     */
+    public FileChecksums(Database database, String changeId) {
+        this.database = database;
+        this.changeId = changeId;
+        this.changeKey = Checkpoint.sha256(changeId);
+    }
+
+    /**
+     * Reads the checksums of the files executed by previous runs of the change
+     *
+     * @return Map of the path of each file (relative to the directory) to its checksum, empty if there are none
+     * @throws DatabaseException If the checksums cannot be read
+     */
+    public Map<String, String> read() throws DatabaseException {
+        Map<String, String> checksums = new HashMap<>();
+        try (PreparedStatement stmt = getConnection().prepareStatement("SELECT FILE_PATH, FILE_CHECKSUM FROM "
+                + getTableName() + " WHERE CHANGE_KEY = ?")) {
+            stmt.setString(1, changeKey);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    checksums.put(rs.getString(1), rs.getString(2));
+                }
+            }
+        } catch (SQLException e) {
+            if (!UNDEFINED_NAME.equals(e.getSQLState())) {
+                throw new DatabaseException("Error reading file checksums from " + getTableName() + ": " + e.getMessage(), e);
+            }
+        }
+        return checksums;
+    }
+
+    /**
+     * Records the checksum of an executed file in the current unit of work, creating the table if needed
+     *
+     * @param path The path of the file, relative to the directory
+     * @param checksum The checksum of the file, see {@link Checkpoint#checksum(java.io.Reader)}
+     * @throws DatabaseException If the checksum cannot be written
+     */
+    public void write(String path, String checksum) throws DatabaseException {
+        try {
+            try {
+                replace(path, checksum);
+            } catch (SQLException e) {
+                if (!UNDEFINED_NAME.equals(e.getSQLState())) {
+                    throw e;
+                }
+                createTable();
+                replace(path, checksum);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Error writing file checksum to " + getTableName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void replace(String path, String checksum) throws SQLException {
+        Connection connection = getConnection();
+        String fileKey = Checkpoint.sha256(changeId + "::" + path);
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + getTableName() + " WHERE FILE_KEY = ?");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO " + getTableName() + " (FILE_KEY, "
+                     + "CHANGE_KEY, FILE_PATH, FILE_CHECKSUM, UPDATED) VALUES (?, ?, ?, ?, ?)")) {
+            delete.setString(1, fileKey);
+            delete.executeUpdate();
+            insert.setString(1, fileKey);
+            insert.setString(2, changeKey);
+            insert.setString(3, path);
+            insert.setString(4, checksum);
+            insert.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+            insert.executeUpdate();
+        }
+    }
+
+    private void createTable() throws SQLException {
+        getLogger().info("Creating file checksum table " + getTableName());
+        try (Statement stmt = getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE " + getTableName() + " (FILE_KEY CHAR(64) NOT NULL PRIMARY KEY, "
+                    + "CHANGE_KEY CHAR(64) NOT NULL, FILE_PATH VARCHAR(1000) NOT NULL, FILE_CHECKSUM CHAR(64) NOT NULL, "
+                    + "UPDATED TIMESTAMP NOT NULL)");
+        }
+    }
+
+    /**
+     * The table is in the Liquibase schema, as the scripts may change the current schema
+     */
+    private String getTableName() {
+        if (tableName == null) {
+            tableName = database.escapeTableName(database.getLiquibaseCatalogName(), database.getLiquibaseSchemaName(),
+                    Db2EnhancedConfiguration.FILE_CHECKSUM_TABLE.getCurrentValue());
+        }
+        return tableName;
+    }
+
+    private Connection getConnection() {
+        return ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+    }
+
+    private Logger getLogger() {
+        return Scope.getCurrentScope().getLog(getClass());
+    }
+}
@@ -0,0 +1,235 @@
+package liquibase.change.ext.db2.enhanced;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An 'INSERT INTO table [(columns)] VALUES (...)[, (...)]' statement which only inserts literals
+ * (strings, numbers and NULL), so its rows can be loaded instead of inserted.
+ *
+ * @since 1.2
+ */
+public class LiteralInsert {
+
+    private final String table;
+    private final String columns;
+    private final List<String[]> rows;
+
+    private LiteralInsert(String table, String columns, List<String[]> rows) {
+        this.table = table;
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /**
+     * Gets the table as written in the statement
+     *
+     * @return String, for example 'APP.ORDERS'
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the column list as written in the statement
+     *
+     * @return String, for example '(ID, NAME)', empty if the statement has no column list
+     */
+    public String getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the rows, each value as its SQL literal (e.g. '1', '-2.5', ''it''s'' or 'NULL')
+     *
+     * @return List, never empty
+     */
+    public List<String[]> getRows() {
+        return rows;
+    }
+
+    /**
+     * Checks if the rows of both statements can be loaded together
+     *
+     * @param other Another insert
+     * @return true if the table, the columns and the number of values are the same
+     */
+    public boolean isSameTarget(LiteralInsert other) {
+        return table.equalsIgnoreCase(other.table)
+                && columns.equalsIgnoreCase(other.columns)
+                && rows.get(0).length == other.rows.get(0).length;
+    }
+
+    /**
+     * Parses a statement
+     *
+     * @param sql The statement
+     * @return The insert, null if the statement is not an insert of literals only
+     */
+    public static LiteralInsert parse(String sql) {
+        Parser parser = new Parser(sql);
+        if (!parser.keyword("INSERT") || !parser.keyword("INTO")) {
+            return null;
+        }
+        parser.skipWhitespace();
+        int tableStart = parser.position;
+        if (!parser.name()) {
+            return null;
+        }
+        int tableEnd = parser.position;
+        if (parser.symbol('.')) {
+            if (!parser.name()) {
+                return null;
+            }
+            tableEnd = parser.position;
+        }
+        String table = sql.substring(tableStart, tableEnd);
+        String columns = "";
+        parser.skipWhitespace();
+        int columnsStart = parser.position;
+        if (parser.symbol('(')) {
+            do {
+                if (!parser.name()) {
+                    return null;
+                }
+            } while (parser.symbol(','));
+            if (!parser.symbol(')')) {
+                return null;
+            }
+            columns = sql.substring(columnsStart, parser.position);
+        }
+        if (!parser.keyword("VALUES")) {
+            return null;
+        }
+        List<String[]> rows = new ArrayList<>();
+        do {
+            if (!parser.symbol('(')) {
+                return null;
+            }
+            List<String> values = new ArrayList<>();
+            do {
+                String value = parser.literal();
+                if (value == null) {
+                    return null;
+                }
+                values.add(value);
+            } while (parser.symbol(','));
+            if (!parser.symbol(')') || (!rows.isEmpty() && rows.get(0).length != values.size())) {
+                return null;
+            }
+            rows.add(values.toArray(new String[0]));
+        } while (parser.symbol(','));
+        parser.skipWhitespace();
+        return parser.position == sql.length() ? new LiteralInsert(table, columns, rows) : null;
+    }
+
+    private static class Parser {
+
+        private final String sql;
+        private int position;
+
+        Parser(String sql) {
+            this.sql = sql;
+        }
+
+        void skipWhitespace() {
+            while (position < sql.length()) {
+                if (Character.isWhitespace(sql.charAt(position))) {
+                    position++;
+                } else if (sql.startsWith("--", position)) {
+                    int end = sql.indexOf('\n', position);
+                    position = end == -1 ? sql.length() : end;
+                } else if (sql.startsWith("/*", position)) {
+                    int end = sql.indexOf("*/", position + 2);
+                    position = end == -1 ? sql.length() : end + 2;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        boolean keyword(String keyword) {
+            skipWhitespace();
+            int end = position + keyword.length();
+            if (sql.regionMatches(true, position, keyword, 0, keyword.length())
+                    && (end == sql.length() || !isWordChar(sql.charAt(end)))) {
+                position = end;
+                return true;
+            }
+            return false;
+        }
+
+        boolean symbol(char symbol) {
+            skipWhitespace();
+            if (position < sql.length() && sql.charAt(position) == symbol) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean name() {
+            skipWhitespace();
+            if (position >= sql.length()) {
+                return false;
+            }
+            if (sql.charAt(position) == '"') {
+                int end = sql.indexOf('"', position + 1);
+                if (end == -1) {
+                    return false;
+                }
+                position = end + 1;
+                return true;
+            }
+            if (!Character.isLetter(sql.charAt(position))) {
+                return false;
+            }
+            while (position < sql.length() && isWordChar(sql.charAt(position))) {
+                position++;
+            }
+            return true;
+        }
+
+        String literal() {
+            skipWhitespace();
+            int start = position;
+            if (position >= sql.length()) {
+                return null;
+            }
+            char c = sql.charAt(position);
+            if (c == '\'') {
+                position++;
+                while (position < sql.length()) {
+                    if (sql.charAt(position) == '\'') {
+                        if (position + 1 < sql.length() && sql.charAt(position + 1) == '\'') {
+                            position += 2;
+                            continue;
+                        }
+                        position++;
+                        return sql.substring(start, position);
+                    }
+                    position++;
+                }
+                return null;
+            }
+            if (keyword("NULL")) {
+                return "NULL";
+            }
+            if (c == '-' || c == '+') {
+                position++;
+            }
+            int digitsStart = position;
+            while (position < sql.length() && (Character.isDigit(sql.charAt(position)) || sql.charAt(position) == '.')) {
+                position++;
+            }
+            if (position == digitsStart || (position < sql.length() && isWordChar(sql.charAt(position)))) {
+                return null;
+            }
+            return sql.substring(start, position);
+        }
+
+        private static boolean isWordChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_';
+        }
+    }
+}
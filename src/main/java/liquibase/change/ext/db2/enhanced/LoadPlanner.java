@@ -0,0 +1,79 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects runs of consecutive literal INSERT statements into the same table (see {@link LiteralInsert}).
+ * Runs of at least the threshold are replaced by a {@link LoadStatement}, shorter runs and all other statements
+ * are passed on unchanged.
+ *
+ * @since 1.2
+ */
+public class LoadPlanner implements SqlStatementConsumer {
+
+    private static final int MAX_RUN_SIZE = 100000;
+
+    private final Database database;
+    private final int threshold;
+    private final boolean fallback;
+    private final SqlStatementConsumer consumer;
+    private final List<Db2RawSqlStatement> pending = new ArrayList<>();
+    private final List<LiteralInsert> pendingInserts = new ArrayList<>();
+
+    /**
+     * @param database The database the statements are executed against
+     * @param threshold Minimum number of statements replaced by a LOAD
+     * @param fallback If true, the statements are inserted normally when LOAD fails
+     * @param consumer Receives the LOAD statements and all other statements
+     */
+    public LoadPlanner(Database database, int threshold, boolean fallback, SqlStatementConsumer consumer) {
+        this.database = database;
+        this.threshold = threshold;
+        this.fallback = fallback;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void accept(SqlStatement statement) throws DatabaseException {
+        LiteralInsert insert = null;
+        if (statement instanceof Db2RawSqlStatement && ((Db2RawSqlStatement) statement).getKind() == StatementKind.DML) {
+            insert = LiteralInsert.parse(((Db2RawSqlStatement) statement).getSql());
+        }
+        if (insert == null) {
+            passOnPending();
+            consumer.accept(statement);
+            return;
+        }
+        if (!pendingInserts.isEmpty() && !pendingInserts.get(0).isSameTarget(insert)) {
+            passOnPending();
+        }
+        pending.add((Db2RawSqlStatement) statement);
+        pendingInserts.add(insert);
+        if (pending.size() >= MAX_RUN_SIZE) {
+            passOnPending();
+        }
+    }
+
+    @Override
+    public void flush() throws DatabaseException {
+        passOnPending();
+        consumer.flush();
+    }
+
+    private void passOnPending() throws DatabaseException {
+        if (!pending.isEmpty() && pending.size() >= threshold) {
+            consumer.accept(new LoadStatement(database, new ArrayList<>(pending), new ArrayList<>(pendingInserts), fallback));
+        } else {
+            for (Db2RawSqlStatement statement : pending) {
+                consumer.accept(statement);
+            }
+        }
+        pending.clear();
+        pendingInserts.clear();
+    }
+}
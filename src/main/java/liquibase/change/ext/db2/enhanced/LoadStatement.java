@@ -0,0 +1,349 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.ExecutorService;
+import liquibase.logging.Logger;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A run of literal INSERT statements into one table (see {@link LiteralInsert}), executed as a single
+ * LOAD with 'CALL SYSPROC.ADMIN_CMD', just like 'REORG TABLE' is re-written.
+ * <p>
+ * If {@link Db2EnhancedConfiguration#LOAD_STAGING_DIRECTORY} is set, the rows are staged as a DEL file in that
+ * directory, which must be readable by the DB2 server at the same path. Otherwise the rows are loaded from a
+ * cursor over a VALUES clause, split over several LOAD commands if needed.
+ * If a LOAD command fails, it is terminated (which restores the table as it was before that LOAD), and its
+ * statements (and all following ones) are executed as normal INSERTs when fallback is enabled.
+ * Rejected rows are always reported as an error.
+ * <p>
+ * LOAD does not fire triggers, so the rows of a table with triggers (see 'SYSCAT.TRIGGERS') are always inserted.
+ * LOAD does not check constraints either, and leaves a table with check or foreign key constraints
+ * (see 'SYSCAT.TABCONST') in set integrity pending state, so after each LOAD such a table is checked
+ * with 'SET INTEGRITY ... IMMEDIATE CHECKED'.
+ * Note: LOAD is not part of the transaction of the changeset.
+ *
+ * @since 1.2
+ */
+public class LoadStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private static final int MAX_COMMAND_LENGTH = 1024 * 1024;
+
+    private static final String TRIGGER_QUERY = "SELECT COUNT(*) FROM SYSCAT.TRIGGERS"
+            + " WHERE TABSCHEMA = COALESCE(CAST(? AS VARCHAR(128)), CURRENT SCHEMA) AND TABNAME = ?";
+
+    /** Finds the table if it is in set integrity pending state */
+    private static final String INTEGRITY_PENDING_QUERY = "SELECT TABSCHEMA, TABNAME FROM SYSCAT.TABLES"
+            + " WHERE TABSCHEMA = COALESCE(CAST(? AS VARCHAR(128)), CURRENT SCHEMA) AND TABNAME = ? AND STATUS = 'C'";
+
+    private final Database database;
+    private final List<Db2RawSqlStatement> statements;
+    private final List<LiteralInsert> inserts;
+    private final boolean fallback;
+
+    /**
+     * @param database The database the statements are executed against
+     * @param statements The INSERT statements, in script order
+     * @param inserts The parsed statements, all into the same target
+     * @param fallback If true, the statements are inserted normally when LOAD fails
+     */
+    public LoadStatement(Database database, List<Db2RawSqlStatement> statements, List<LiteralInsert> inserts, boolean fallback) {
+        this.database = database;
+        this.statements = statements;
+        this.inserts = inserts;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Gets the statements replaced by the LOAD
+     *
+     * @return List, in script order
+     */
+    public List<Db2RawSqlStatement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Gets the LOAD command for a staging file
+     *
+     * @param stagingFile The path of the DEL file on the DB2 server
+     * @return The command for ADMIN_CMD
+     */
+    public String getFileLoadCommand(String stagingFile) {
+        return getFileSource(stagingFile) + " " + getLoadTarget();
+    }
+
+    private static String getFileSource(String stagingFile) {
+        return "LOAD FROM \"" + stagingFile + "\" OF DEL MODIFIED BY CODEPAGE=1208 DELPRIORITYCHAR";
+    }
+
+    /**
+     * Gets the LOAD command which reads the rows of some of the statements from a cursor
+     *
+     * @param from Index of the first statement
+     * @param to Index after the last statement
+     * @return The command for ADMIN_CMD
+     */
+    public String getCursorLoadCommand(int from, int to) {
+        return getCursorSource(from, to) + " " + getLoadTarget();
+    }
+
+    private String getCursorSource(int from, int to) {
+        StringBuilder values = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            for (String[] row : inserts.get(i).getRows()) {
+                values.append(values.length() == 0 ? "" : ", ").append('(').append(String.join(", ", row)).append(')');
+            }
+        }
+        return "LOAD FROM (SELECT * FROM (VALUES " + values + ") AS V) OF CURSOR";
+    }
+
+    /**
+     * Gets the command which terminates a failed LOAD
+     *
+     * @param loadCommand The LOAD command which failed, see {@link #getFileLoadCommand(String)}
+     *                    and {@link #getCursorLoadCommand(int, int)}
+     * @return The command for ADMIN_CMD, with the same source as the LOAD
+     */
+    public String getTerminateCommand(String loadCommand) {
+        return loadCommand.substring(0, loadCommand.length() - getLoadTarget().length())
+                + "TERMINATE INTO " + inserts.get(0).getTable();
+    }
+
+    private String getLoadTarget() {
+        String options = Db2EnhancedConfiguration.LOAD_OPTIONS.getCurrentValue();
+        LiteralInsert target = inserts.get(0);
+        return "INSERT INTO " + target.getTable() + (target.getColumns().isEmpty() ? "" : " " + target.getColumns())
+                + (options == null || options.trim().isEmpty() ? "" : " " + options.trim());
+    }
+
+    /**
+     * Writes the rows of all statements in DEL format (UTF-8, '"' as string delimiter, ',' as column delimiter)
+     *
+     * @param writer Receives the rows, one per line
+     * @throws IOException If the rows cannot be written
+     */
+    public void writeStagingFile(Writer writer) throws IOException {
+        for (LiteralInsert insert : inserts) {
+            for (String[] row : insert.getRows()) {
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(toDelValue(row[i]));
+                }
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static String toDelValue(String literal) {
+        if (literal.equals("NULL")) {
+            return "";
+        } else if (literal.startsWith("'")) {
+            String value = literal.substring(1, literal.length() - 1).replace("''", "'");
+            return '"' + value.replace("\"", "\"\"") + '"';
+        } else if (literal.startsWith("+")) {
+            return literal.substring(1);
+        }
+        return literal;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        RunstatsStatement.Table table = RunstatsStatement.Table.modifiedBy(statements.get(0).getSql());
+        if (hasTriggers(connection, table)) {
+            getLogger().info("Inserting the rows of the INSERT statements starting at line " + statements.get(0).getLine()
+                    + ", as LOAD would not fire the triggers of " + table.getQualifiedName());
+            insert(0);
+            return;
+        }
+        String stagingDirectory = Db2EnhancedConfiguration.LOAD_STAGING_DIRECTORY.getCurrentValue();
+        if (stagingDirectory != null && !stagingDirectory.trim().isEmpty()) {
+            Path stagingFile = Paths.get(stagingDirectory.trim()).resolve("db2load-" + UUID.randomUUID() + ".del");
+            try {
+                try (Writer writer = Files.newBufferedWriter(stagingFile, StandardCharsets.UTF_8)) {
+                    writeStagingFile(writer);
+                }
+                load(connection, table, getFileLoadCommand(stagingFile.toAbsolutePath().toString()), 0);
+            } catch (IOException e) {
+                throw new DatabaseException("Error writing LOAD staging file " + stagingFile + ": " + e.getMessage(), e);
+            } finally {
+                try {
+                    Files.deleteIfExists(stagingFile);
+                } catch (IOException e) {
+                    getLogger().warning("Could not delete LOAD staging file " + stagingFile + ": " + e.getMessage());
+                }
+            }
+            return;
+        }
+        int from = 0;
+        while (from < statements.size()) {
+            int to = from;
+            int length = 0;
+            while (to < statements.size() && (to == from || length < MAX_COMMAND_LENGTH)) {
+                length += statements.get(to).getSql().length();
+                to++;
+            }
+            if (!load(connection, table, getCursorLoadCommand(from, to), from)) {
+                return;
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * @return false if the LOAD failed, and the remaining statements were executed as INSERTs
+     */
+    private boolean load(Connection connection, RunstatsStatement.Table table, String command, int from)
+            throws DatabaseException {
+        Db2RawSqlStatement first = statements.get(from);
+        getLogger().info("Loading the rows of the INSERT statements starting at line " + first.getLine());
+        try (CallableStatement stmt = connection.prepareCall("CALL SYSPROC.ADMIN_CMD(?)")) {
+            stmt.setString(1, command);
+            boolean hasResult;
+            try {
+                hasResult = stmt.execute();
+            } catch (SQLException e) {
+                terminate(connection, command);
+                checkIntegrity(connection, table);
+                if (!fallback) {
+                    throw e;
+                }
+                getLogger().warning("LOAD failed, inserting the rows instead: " + e.getMessage());
+                insert(from);
+                return false;
+            }
+            long rejectedRows = hasResult ? getRejectedRows(stmt.getResultSet()) : 0;
+            checkIntegrity(connection, table);
+            if (rejectedRows > 0) {
+                throw new DatabaseException("LOAD of the INSERT statements starting at line " + first.getLine()
+                        + " rejected " + rejectedRows + " rows");
+            }
+            return true;
+        } catch (SQLException e) {
+            throw new DatabaseException("Error executing LOAD for the INSERT statements starting at line "
+                    + first.getLine() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void insert(int from) throws DatabaseException {
+        for (Db2RawSqlStatement statement : statements.subList(from, statements.size())) {
+            Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database).execute(statement);
+        }
+    }
+
+    /**
+     * Terminates a failed LOAD, so the table is not left in load pending state. It fails itself if the LOAD
+     * did not get that far, which is only logged.
+     */
+    private void terminate(Connection connection, String command) {
+        try (CallableStatement stmt = connection.prepareCall("CALL SYSPROC.ADMIN_CMD(?)")) {
+            stmt.setString(1, getTerminateCommand(command));
+            stmt.execute();
+        } catch (SQLException e) {
+            getLogger().fine("Could not terminate the LOAD: " + e.getMessage());
+        }
+    }
+
+    private boolean hasTriggers(Connection connection, RunstatsStatement.Table table) throws DatabaseException {
+        if (table == null) {
+            return false;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(TRIGGER_QUERY)) {
+            stmt.setString(1, table.getSchema());
+            stmt.setString(2, table.getName());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Error reading the triggers of " + table.getQualifiedName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks the constraints of the table if LOAD left it in set integrity pending state
+     */
+    private void checkIntegrity(Connection connection, RunstatsStatement.Table table) throws DatabaseException {
+        if (table == null) {
+            return;
+        }
+        try {
+            String pendingTable = null;
+            try (PreparedStatement stmt = connection.prepareStatement(INTEGRITY_PENDING_QUERY)) {
+                stmt.setString(1, table.getSchema());
+                stmt.setString(2, table.getName());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        pendingTable = quote(rs.getString(1).trim()) + "." + quote(rs.getString(2));
+                    }
+                }
+            }
+            if (pendingTable != null) {
+                getLogger().info("Checking the constraints of " + pendingTable + " after LOAD");
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("SET INTEGRITY FOR " + pendingTable + " IMMEDIATE CHECKED");
+                }
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Error checking the integrity of " + table.getQualifiedName() + " after LOAD: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    private static long getRejectedRows(ResultSet rs) throws SQLException {
+        try {
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                if ("ROWS_REJECTED".equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                    return rs.next() ? rs.getLong(i) : 0;
+                }
+            }
+            return 0;
+        } finally {
+            rs.close();
+        }
+    }
+
+    private Logger getLogger() {
+        return Scope.getCurrentScope().getLog(getClass());
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadStatement{" +
+                "statements=" + statements.size() +
+                ", line=" + statements.get(0).getLine() +
+                '}';
+    }
+}
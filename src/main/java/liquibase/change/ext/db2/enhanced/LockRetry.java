@@ -0,0 +1,156 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.statement.SqlStatement;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The retries of a script after a deadlock or lock timeout (SQLCODE -911 or -913 with reason 2 or 68), executed by the
+ * {@link ScriptExecutor}. With -913 only the statement was rolled back, and it is executed again. With -911 DB2
+ * rolled back the whole unit of work, which is executed again if its statements allow it (see {@link UnitOfWork}).
+ * <p>
+ * Before each retry, the script waits for a random delay between half and all of an exponential backoff,
+ * starting at {@link Db2EnhancedConfiguration#LOCK_RETRY_DELAY}. A statement is retried at most 'lockRetries' times,
+ * and the script at most {@link Db2EnhancedConfiguration#LOCK_RETRY_BUDGET} times in total.
+ *
+ * @since 1.2
+ */
+public class LockRetry {
+
+    private static final int UNIT_OF_WORK_ROLLED_BACK = -911;
+    private static final int STATEMENT_ROLLED_BACK = -913;
+    private static final String DEADLOCK = "2";
+    private static final String LOCK_TIMEOUT = "68";
+    private static final Pattern REASON = Pattern.compile("(?i)(?:SQLERRMC=|reason code:?\\s*\"?)(\\d+)");
+
+    private final String script;
+    private final int maxRetries;
+    private final int budget;
+    private final long delayMillis;
+    private final long maxDelayMillis;
+    private final boolean startsUnitOfWork;
+    private final ScriptMetrics metrics;
+    private int retries;
+
+    /**
+     * @param script The path of the script, for the log
+     * @param maxRetries Maximum number of retries of a statement
+     * @param startsUnitOfWork true if the script starts a unit of work, i.e. nothing was executed in the current
+     *                         unit of work before the script
+     * @param metrics Records the retries, null if metrics are disabled
+     */
+    public LockRetry(String script, int maxRetries, boolean startsUnitOfWork, ScriptMetrics metrics) {
+        this.script = script;
+        this.maxRetries = maxRetries;
+        this.budget = Db2EnhancedConfiguration.LOCK_RETRY_BUDGET.getCurrentValue();
+        this.delayMillis = Math.max(Db2EnhancedConfiguration.LOCK_RETRY_DELAY.getCurrentValue(), 1);
+        this.maxDelayMillis = Math.max(Db2EnhancedConfiguration.LOCK_RETRY_MAX_DELAY.getCurrentValue(), delayMillis);
+        this.startsUnitOfWork = startsUnitOfWork;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Checks if the script starts a unit of work
+     *
+     * @return true if the unit of work can be replayed from the start of the script
+     */
+    public boolean isStartsUnitOfWork() {
+        return startsUnitOfWork;
+    }
+
+    /**
+     * Gets the number of retries so far
+     *
+     * @return int
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * Finds the deadlock or lock timeout that caused an error
+     *
+     * @param error Any error of a statement
+     * @return The error of DB2, null if the error is not a deadlock or lock timeout
+     */
+    public static SQLException lockFailureOf(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                SQLException e = (SQLException) cause;
+                if (e.getErrorCode() == UNIT_OF_WORK_ROLLED_BACK || e.getErrorCode() == STATEMENT_ROLLED_BACK) {
+                    String reason = reasonOf(e);
+                    return reason == null || DEADLOCK.equals(reason) || LOCK_TIMEOUT.equals(reason) ? e : null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if DB2 rolled back the unit of work, or only the statement
+     *
+     * @param failure See {@link #lockFailureOf(Throwable)}
+     * @return true for SQLCODE -911
+     */
+    public static boolean isUnitOfWorkRolledBack(SQLException failure) {
+        return failure.getErrorCode() == UNIT_OF_WORK_ROLLED_BACK;
+    }
+
+    /**
+     * @return The reason code of the message, null if the message has none
+     */
+    private static String reasonOf(SQLException e) {
+        Matcher matcher = REASON.matcher(String.valueOf(e.getMessage()));
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Decides on a retry, and waits before it
+     *
+     * @param statement The statement that failed
+     * @param failure See {@link #lockFailureOf(Throwable)}
+     * @param attempt The number of times the statement failed
+     * @param replayed The number of statements of the unit of work which are executed again first
+     * @return false if the limits are reached, or the wait was interrupted
+     */
+    public boolean retry(SqlStatement statement, SQLException failure, int attempt, int replayed) {
+        String cause = (DEADLOCK.equals(reasonOf(failure)) ? "Deadlock" : "Lock timeout")
+                + " (SQLCODE " + failure.getErrorCode() + ") at line " + ScriptMetrics.lineOf(statement) + " of " + script;
+        if (attempt > maxRetries || retries >= budget) {
+            Scope.getCurrentScope().getLog(getClass()).warning(cause + ", giving up after " + (attempt - 1)
+                    + " retries (" + retries + " retries of the script)");
+            return false;
+        }
+        long delay = getDelay(attempt);
+        Scope.getCurrentScope().getLog(getClass()).warning(cause + ", retrying "
+                + (replayed > 0 ? "the unit of work of " + (replayed + 1) + " statements" : "the statement")
+                + " in " + delay + " ms (retry " + attempt + " of " + maxRetries + ")");
+        retries++;
+        if (metrics != null) {
+            metrics.recordLockRetry(replayed);
+        }
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Gets the delay before a retry: a random value between half and all of the exponential backoff
+     *
+     * @param attempt The number of the retry, 1 based
+     * @return Milliseconds
+     */
+    long getDelay(int attempt) {
+        long backoff = delayMillis << Math.min(attempt - 1, 30);
+        backoff = backoff <= 0 || backoff > maxDelayMillis ? maxDelayMillis : backoff;
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff - backoff / 2 + 1);
+    }
+}
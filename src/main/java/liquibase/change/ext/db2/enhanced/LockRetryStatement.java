@@ -0,0 +1,48 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.PreparedStatementFactory;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+/**
+ * Marks the start of a script with 'lockRetries': the {@link ScriptExecutor} retries the following statements
+ * after a deadlock or lock timeout with the {@link LockRetry} of the script when it executes this.
+ * For any other executor, this does nothing.
+ *
+ * @since 1.2
+ */
+public class LockRetryStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private final LockRetry lockRetry;
+
+    /**
+     * @param lockRetry The retries of the script
+     */
+    public LockRetryStatement(LockRetry lockRetry) {
+        this.lockRetry = lockRetry;
+    }
+
+    /**
+     * Gets the retries of the script
+     *
+     * @return LockRetry, never null
+     */
+    public LockRetry getLockRetry() {
+        return lockRetry;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) {
+        // Nothing to execute, the ScriptExecutor starts retrying
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "LockRetryStatement";
+    }
+}
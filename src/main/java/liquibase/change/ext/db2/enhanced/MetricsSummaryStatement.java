@@ -0,0 +1,38 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.PreparedStatementFactory;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+/**
+ * Marks the end of a script with metrics: logs the summary of its {@link ScriptMetrics},
+ * and adds them to the totals of {@link Db2EnhancedMetrics}.
+ *
+ * @since 1.2
+ */
+public class MetricsSummaryStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private final ScriptMetrics metrics;
+
+    /**
+     * @param metrics The metrics of the script
+     */
+    public MetricsSummaryStatement(ScriptMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) {
+        Db2EnhancedMetrics.getInstance().finishScript(metrics);
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSummaryStatement";
+    }
+}
@@ -0,0 +1,139 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks the online (INPLACE) REORGs started by a script, which run in the background on the DB2 server.
+ * Waiting polls 'SYSIBMADM.SNAPTAB_REORG' every {@link Db2EnhancedConfiguration#REORG_POLL_INTERVAL} seconds,
+ * and logs the progress of each REORG.
+ *
+ * @since 1.2
+ */
+public class OnlineReorgMonitor {
+
+    private static final String STATUS_QUERY = "SELECT REORG_STATUS, REORG_COMPLETION, REORG_CURRENT_COUNTER, REORG_MAX_COUNTER"
+            + " FROM SYSIBMADM.SNAPTAB_REORG"
+            + " WHERE TABSCHEMA = COALESCE(CAST(? AS VARCHAR(128)), CURRENT SCHEMA) AND TABNAME = ? AND REORG_START >= ?";
+
+    private final Map<String, RunningReorg> running = new LinkedHashMap<>();
+
+    /**
+     * Registers a started REORG
+     *
+     * @param command The REORG command
+     * @param line The line of the REORG statement in the script
+     * @param start The time on the DB2 server just before the REORG was started
+     */
+    public void started(ReorgCommand command, int line, Timestamp start) {
+        running.put(command.getQualifiedTable(), new RunningReorg(command, line, start));
+    }
+
+    /**
+     * Waits until REORGs are finished
+     *
+     * @param database The database the REORGs run in
+     * @param tables Only REORGs of tables with one of these names (without schema) are waited for, null for all
+     * @throws DatabaseException If a REORG failed, was stopped or paused, or its status cannot be read
+     */
+    public void waitFor(Database database, Set<String> tables) throws DatabaseException {
+        List<RunningReorg> reorgs = new ArrayList<>();
+        for (RunningReorg reorg : running.values()) {
+            if (tables == null || tables.contains(reorg.command.getTable())) {
+                reorgs.add(reorg);
+            }
+        }
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        while (!reorgs.isEmpty()) {
+            for (RunningReorg reorg : new ArrayList<>(reorgs)) {
+                if (isFinished(connection, reorg)) {
+                    reorgs.remove(reorg);
+                    running.remove(reorg.command.getQualifiedTable());
+                }
+            }
+            if (!reorgs.isEmpty()) {
+                try {
+                    Thread.sleep(Db2EnhancedConfiguration.REORG_POLL_INTERVAL.getCurrentValue() * 1000L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DatabaseException("Interrupted while waiting for online REORGs", e);
+                }
+            }
+        }
+    }
+
+    private boolean isFinished(Connection connection, RunningReorg reorg) throws DatabaseException {
+        String table = reorg.command.getQualifiedTable();
+        try (PreparedStatement stmt = connection.prepareStatement(STATUS_QUERY)) {
+            if (reorg.command.getSchema() == null) {
+                stmt.setNull(1, Types.VARCHAR);
+            } else {
+                stmt.setString(1, reorg.command.getSchema());
+            }
+            stmt.setString(2, reorg.command.getTable());
+            stmt.setTimestamp(3, reorg.start);
+            int partitions = 0;
+            int completed = 0;
+            long current = 0;
+            long max = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                // One row per database partition
+                while (rs.next()) {
+                    partitions++;
+                    String status = rs.getString(1);
+                    if ("FAIL".equals(rs.getString(2)) || "STOPPED".equals(status) || "PAUSED".equals(status)) {
+                        throw new DatabaseException("Online REORG of " + table + " (line " + reorg.line + ") "
+                                + ("FAIL".equals(rs.getString(2)) ? "failed" : "is " + status.toLowerCase()));
+                    }
+                    completed += "COMPLETED".equals(status) ? 1 : 0;
+                    current += rs.getLong(3);
+                    max += rs.getLong(4);
+                }
+            }
+            if (partitions == 0) {
+                getLogger().warning("No status found for the online REORG of " + table + ", not waiting for it");
+                return true;
+            } else if (completed == partitions) {
+                getLogger().info("Online REORG of " + table + " finished");
+                return true;
+            }
+            getLogger().info("Online REORG of " + table + " running"
+                    + (max > 0 ? ": " + (current * 100 / max) + "% (" + current + " of " + max + ")" : ""));
+            return false;
+        } catch (SQLException e) {
+            throw new DatabaseException("Error reading the status of the online REORG of " + table + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Logger getLogger() {
+        return Scope.getCurrentScope().getLog(getClass());
+    }
+
+    private static class RunningReorg {
+
+        private final ReorgCommand command;
+        private final int line;
+        private final Timestamp start;
+
+        RunningReorg(ReorgCommand command, int line, Timestamp start) {
+            this.command = command;
+            this.line = line;
+            this.start = start;
+        }
+    }
+}
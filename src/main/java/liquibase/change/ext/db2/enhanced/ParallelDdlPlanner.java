@@ -0,0 +1,66 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects runs of consecutive DDL statements that can be analyzed by {@link DdlTableAnalyzer}
+ * into {@link ParallelDdlStatement}s, and passes all other statements on unchanged.
+ * Any other statement is a barrier: the run before it is completely executed before it.
+ *
+ * @since 1.2
+ */
+public class ParallelDdlPlanner implements SqlStatementConsumer {
+
+    private static final int MAX_RUN_SIZE = 1000;
+
+    private final Database database;
+    private final int parallelism;
+    private final SqlStatementConsumer consumer;
+    private final List<Db2RawSqlStatement> pending = new ArrayList<>();
+
+    /**
+     * @param database The database the statements are executed against
+     * @param parallelism Maximum number of extra connections
+     * @param consumer Receives the parallel statements and all other statements
+     */
+    public ParallelDdlPlanner(Database database, int parallelism, SqlStatementConsumer consumer) {
+        this.database = database;
+        this.parallelism = parallelism;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void accept(SqlStatement statement) throws DatabaseException {
+        if (statement instanceof Db2RawSqlStatement
+                && ((Db2RawSqlStatement) statement).getKind() == StatementKind.DDL
+                && DdlTableAnalyzer.tablesOf(((Db2RawSqlStatement) statement).getSql()) != null) {
+            pending.add((Db2RawSqlStatement) statement);
+            if (pending.size() >= MAX_RUN_SIZE) {
+                passOnPending();
+            }
+        } else {
+            passOnPending();
+            consumer.accept(statement);
+        }
+    }
+
+    @Override
+    public void flush() throws DatabaseException {
+        passOnPending();
+        consumer.flush();
+    }
+
+    private void passOnPending() throws DatabaseException {
+        if (pending.size() == 1) {
+            consumer.accept(pending.get(0));
+        } else if (pending.size() > 1) {
+            consumer.accept(new ParallelDdlStatement(database, parallelism, new ArrayList<>(pending)));
+        }
+        pending.clear();
+    }
+}
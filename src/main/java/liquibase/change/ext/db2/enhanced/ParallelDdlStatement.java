@@ -0,0 +1,250 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.DatabaseConnection;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.ExecutorService;
+import liquibase.logging.Logger;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Consecutive DDL statements of a script (see {@link DdlTableAnalyzer}) which are executed in parallel.
+ * <p>
+ * The statements are split into groups of statements that share a table (directly or through other statements
+ * of the group). Each group is executed in script order on one of a few extra connections and committed
+ * at its end, and independent groups run at the same time. The work of the main connection is committed first,
+ * so the extra connections do not wait for its locks.
+ * All groups are finished before the next statement of the script is executed. If statements fail,
+ * the first failing statement in script order is reported (the other groups are still committed).
+ * If the extra connections cannot be opened, the statements are executed one after another as usual.
+ *
+ * @since 1.2
+ */
+public class ParallelDdlStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private final Database database;
+    private final int parallelism;
+    private final List<Db2RawSqlStatement> statements;
+
+    /**
+     * @param database The database the statements are executed against
+     * @param parallelism Maximum number of extra connections
+     * @param statements The DDL statements, in script order
+     */
+    public ParallelDdlStatement(Database database, int parallelism, List<Db2RawSqlStatement> statements) {
+        this.database = database;
+        this.parallelism = parallelism;
+        this.statements = statements;
+    }
+
+    /**
+     * Gets the statements
+     *
+     * @return List, in script order
+     */
+    public List<Db2RawSqlStatement> getStatements() {
+        return statements;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        Connection mainConnection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        String[] schemaAndPath = getSchemaAndPath(mainConnection);
+        List<List<Integer>> groups = getGroups(schemaAndPath[0]);
+        if (groups.size() < 2) {
+            executeSequentially();
+            return;
+        }
+        database.commit();
+        int connectionCount = Math.min(parallelism, groups.size());
+        BlockingQueue<Connection> connections = new ArrayBlockingQueue<>(connectionCount);
+        try {
+            for (int i = 0; i < connectionCount; i++) {
+                connections.add(openConnection(schemaAndPath));
+            }
+        } catch (DatabaseException | SQLException | RuntimeException e) {
+            getLogger().warning("Could not open extra connections, executing statements sequentially: " + e.getMessage());
+            closeAll(connections);
+            executeSequentially();
+            return;
+        }
+        getLogger().info("Executing " + statements.size() + " statements in " + groups.size() + " groups on "
+                + connectionCount + " connections");
+        java.util.concurrent.ExecutorService pool = Executors.newFixedThreadPool(connectionCount, runnable -> {
+            Thread thread = new Thread(runnable, "db2-parallel-ddl");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<Integer, SQLException> failures = new ConcurrentSkipListMap<>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Integer> group : groups) {
+                futures.add(pool.submit(() -> {
+                    executeGroup(group, connections, failures);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Interrupted while executing statements in parallel", e);
+        } catch (ExecutionException e) {
+            throw new DatabaseException("Error executing statements in parallel: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+            closeAll(connections);
+        }
+        if (!failures.isEmpty()) {
+            Map.Entry<Integer, SQLException> first = failures.entrySet().iterator().next();
+            Db2RawSqlStatement statement = statements.get(first.getKey());
+            throw new DatabaseException("Error executing SQL " + statement.getSql() + " (line " + statement.getLine() + "): "
+                    + first.getValue().getMessage()
+                    + (failures.size() > 1 ? " (" + (failures.size() - 1) + " more statements failed)" : ""),
+                    first.getValue());
+        }
+    }
+
+    /**
+     * Statements sharing a table end up in the same group, groups are ordered by their first statement
+     */
+    private List<List<Integer>> getGroups(String currentSchema) {
+        int[] parents = new int[statements.size()];
+        Map<String, Integer> tableOwners = new HashMap<>();
+        for (int i = 0; i < statements.size(); i++) {
+            parents[i] = i;
+            for (String table : DdlTableAnalyzer.tablesOf(statements.get(i).getSql())) {
+                String qualifiedTable = table.contains(".") ? table : currentSchema + "." + table;
+                Integer owner = tableOwners.putIfAbsent(qualifiedTable, i);
+                if (owner != null) {
+                    parents[find(parents, i)] = find(parents, owner);
+                }
+            }
+        }
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < statements.size(); i++) {
+            groups.computeIfAbsent(find(parents, i), root -> new ArrayList<>()).add(i);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static int find(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    private void executeGroup(List<Integer> group, BlockingQueue<Connection> connections,
+                              Map<Integer, SQLException> failures) throws InterruptedException {
+        Connection connection = connections.take();
+        try {
+            for (int index : group) {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute(statements.get(index).getSql());
+                } catch (SQLException e) {
+                    failures.put(index, e);
+                    rollback(connection);
+                    return;
+                }
+            }
+            try {
+                connection.commit();
+            } catch (SQLException e) {
+                failures.put(group.get(group.size() - 1), e);
+                rollback(connection);
+            }
+        } finally {
+            connections.put(connection);
+        }
+    }
+
+    private void executeSequentially() throws DatabaseException {
+        for (Db2RawSqlStatement statement : statements) {
+            Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database).execute(statement);
+        }
+    }
+
+    /**
+     * Unqualified names depend on the current schema, which may have been changed by the script
+     */
+    private String[] getSchemaAndPath(Connection connection) throws DatabaseException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT CURRENT SCHEMA, CURRENT PATH FROM SYSIBM.SYSDUMMY1")) {
+            if (!rs.next()) {
+                throw new SQLException("No result");
+            }
+            return new String[] { rs.getString(1).trim(), rs.getString(2) };
+        } catch (SQLException e) {
+            throw new DatabaseException("Error reading the current schema: " + e.getMessage(), e);
+        }
+    }
+
+    private Connection openConnection(String[] schemaAndPath) throws DatabaseException, SQLException {
+        String username = Db2EnhancedConfiguration.PARALLEL_USERNAME.getCurrentValue();
+        DatabaseConnection databaseConnection = DatabaseFactory.getInstance().openConnection(
+                database.getConnection().getURL(),
+                username == null ? database.getConnection().getConnectionUserName() : username,
+                Db2EnhancedConfiguration.PARALLEL_PASSWORD.getCurrentValue(),
+                null, Scope.getCurrentScope().getResourceAccessor());
+        Connection connection = ((JdbcConnection) databaseConnection).getUnderlyingConnection();
+        try (Statement stmt = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            stmt.execute("SET SCHEMA '" + schemaAndPath[0].replace("'", "''") + "'");
+            stmt.execute("SET PATH = " + schemaAndPath[1]);
+        } catch (SQLException e) {
+            closeAll(Collections.singletonList(connection));
+            throw e;
+        }
+        return connection;
+    }
+
+    private void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            getLogger().fine("Error rolling back: " + e.getMessage());
+        }
+    }
+
+    private void closeAll(Collection<Connection> connections) {
+        for (Connection connection : connections) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                getLogger().fine("Error closing extra connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private Logger getLogger() {
+        return Scope.getCurrentScope().getLog(getClass());
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelDdlStatement{" +
+                "statements=" + statements.size() +
+                ", line=" + statements.get(0).getLine() +
+                '}';
+    }
+}
@@ -0,0 +1,187 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.logging.Logger;
+import liquibase.statement.SqlStatement;
+import liquibase.statement.core.RawSqlStatement;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * On-disk cache of parsed 'db2SqlFile' scripts.
+ * <p>
+ * An entry holds the statements generated for a script (after all rewrites), and is keyed by the checksum of
+ * the script content and the parse options. The last modified time of an entry is used as its last access time,
+ * so when the cache grows beyond its maximum size, the least recently used entries are removed.
+ * Any problem reading or writing the cache is logged and treated as a cache miss.
+ *
+ * @since 1.2
+ */
+public class ParseCache {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".db2parse";
+
+    private final Path directory;
+    private final long maxSize;
+
+    /**
+     * @param directory Directory for the cache entries, created if missing
+     * @param maxSize Maximum total size of the entries in bytes
+     */
+    public ParseCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the cache configured with {@link Db2EnhancedConfiguration#PARSE_CACHE_DIRECTORY}
+     *
+     * @return The parse cache, null if not configured
+     */
+    public static ParseCache fromConfiguration() {
+        String cacheDirectory = Db2EnhancedConfiguration.PARSE_CACHE_DIRECTORY.getCurrentValue();
+        if (cacheDirectory == null || cacheDirectory.trim().isEmpty()) {
+            return null;
+        }
+        return new ParseCache(Paths.get(cacheDirectory.trim()), Db2EnhancedConfiguration.PARSE_CACHE_MAX_SIZE.getCurrentValue());
+    }
+
+    /**
+     * Computes the key for a script
+     *
+     * @param sql The content of the script
+     * @param options All options that change the generated statements
+     * @return A hex encoded SHA-256 checksum
+     */
+    public static String key(String sql, String options) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(options.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(sql.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the cached statements
+     *
+     * @param key See {@link #key(String, String)}
+     * @return The statements, null if not in the cache
+     */
+    public List<SqlStatement> get(String key) {
+        Path entry = directory.resolve(key + ENTRY_SUFFIX);
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            String endDelimiter = readString(in);
+            int count = in.readInt();
+            List<SqlStatement> statements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String terminator = readString(in);
+                int line = in.readInt();
+                statements.add(new Db2RawSqlStatement(readString(in), endDelimiter, terminator, line));
+            }
+            entry.toFile().setLastModified(System.currentTimeMillis());
+            getLogger().fine("Parse cache hit " + key);
+            return statements;
+        } catch (IOException | RuntimeException e) {
+            getLogger().warning("Ignoring unreadable parse cache entry " + entry + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Adds statements to the cache, and evicts the least recently used entries if the cache is too big
+     *
+     * @param key See {@link #key(String, String)}
+     * @param endDelimiter The end delimiter of the change
+     * @param statements The statements to cache, only {@link RawSqlStatement}s are supported
+     */
+    public void put(String key, String endDelimiter, List<SqlStatement> statements) {
+        Path entry = directory.resolve(key + ENTRY_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, endDelimiter);
+                out.writeInt(statements.size());
+                for (SqlStatement statement : statements) {
+                    RawSqlStatement rawSqlStatement = (RawSqlStatement) statement;
+                    boolean isDb2Statement = rawSqlStatement instanceof Db2RawSqlStatement;
+                    writeString(out, isDb2Statement ? ((Db2RawSqlStatement) rawSqlStatement).getTerminator() : null);
+                    out.writeInt(isDb2Statement ? ((Db2RawSqlStatement) rawSqlStatement).getLine() : 0);
+                    writeString(out, rawSqlStatement.getSql());
+                }
+            }
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            evict();
+        } catch (IOException | RuntimeException e) {
+            getLogger().warning("Could not write parse cache entry " + entry + ": " + e.getMessage());
+        }
+    }
+
+    private void evict() throws IOException {
+        File[] entries = directory.toFile().listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX));
+        if (entries == null) {
+            return;
+        }
+        long size = Arrays.stream(entries).mapToLong(File::length).sum();
+        if (size <= maxSize) {
+            return;
+        }
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        for (File entry : entries) {
+            if (size <= maxSize) {
+                break;
+            }
+            size -= entry.length();
+            getLogger().fine("Evicting parse cache entry " + entry.getName());
+            Files.deleteIfExists(entry.toPath());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Logger getLogger() {
+        return Scope.getCurrentScope().getLog(getClass());
+    }
+}
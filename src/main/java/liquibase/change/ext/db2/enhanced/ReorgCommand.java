@@ -0,0 +1,166 @@
+package liquibase.change.ext.db2.enhanced;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A 'REORG TABLE' command executed with 'CALL SYSPROC.ADMIN_CMD', as 'REORG TABLE X' statements are re-written.
+ * Also finds the tables that other statements refer to, to decide how far a REORG can be deferred.
+ * <p>
+ * Table names are returned as in {@link DdlTableAnalyzer}: ordinary identifiers in upper case
+ * and delimited identifiers without their quotes.
+ *
+ * @since 1.2
+ */
+public class ReorgCommand {
+
+    private static final Pattern ADMIN_CMD = Pattern.compile(
+            "\\s*CALL\\s+SYSPROC\\.ADMIN_CMD\\s*\\(\\s*'(.*)'\\s*\\)\\s*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final String schema;
+    private final String table;
+    private final String command;
+    private final boolean hasOptions;
+
+    private ReorgCommand(String schema, String table, String command, boolean hasOptions) {
+        this.schema = schema;
+        this.table = table;
+        this.command = command;
+        this.hasOptions = hasOptions;
+    }
+
+    /**
+     * Gets the schema of the table
+     *
+     * @return String, null if the table is not qualified
+     */
+    public String getSchema() {
+        return schema;
+    }
+
+    /**
+     * Gets the name of the table, without schema
+     *
+     * @return String, never null
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the table as 'SCHEMA.TABLE' or 'TABLE'
+     *
+     * @return String, never null
+     */
+    public String getQualifiedTable() {
+        return schema == null ? table : schema + "." + table;
+    }
+
+    /**
+     * Checks if the command has options after the table name, like 'INPLACE' or 'INDEX x'
+     *
+     * @return true if there are options
+     */
+    public boolean hasOptions() {
+        return hasOptions;
+    }
+
+    /**
+     * Checks if both commands do the same, ignoring case and whitespace
+     *
+     * @param other Another command
+     * @return true if the commands are the same
+     */
+    public boolean isSameCommand(ReorgCommand other) {
+        return command.equals(other.command);
+    }
+
+    /**
+     * Parses a statement
+     *
+     * @param sql The statement
+     * @return The command, null if the statement is not a 'REORG TABLE' executed with ADMIN_CMD
+     */
+    public static ReorgCommand of(String sql) {
+        Matcher matcher = ADMIN_CMD.matcher(sql);
+        if (!matcher.matches()) {
+            return null;
+        }
+        List<String> tokens = tokenize(matcher.group(1).replace("''", "'"));
+        if (tokens.size() < 3 || !tokens.get(0).equals("REORG") || !tokens.get(1).equals("TABLE")
+                || !isIdentifier(tokens.get(2))) {
+            return null;
+        }
+        if (tokens.size() > 4 && tokens.get(3).equals(".") && isIdentifier(tokens.get(4))) {
+            return new ReorgCommand(unquote(tokens.get(2)), unquote(tokens.get(4)), String.join(" ", tokens), tokens.size() > 5);
+        }
+        return new ReorgCommand(null, unquote(tokens.get(2)), String.join(" ", tokens), tokens.size() > 3);
+    }
+
+    /**
+     * Gets all identifiers of a statement, outside of string literals and comments
+     *
+     * @param sql The statement
+     * @return The identifiers, including keywords
+     */
+    public static Set<String> namesIn(String sql) {
+        Set<String> names = new HashSet<>();
+        for (String token : tokenize(sql)) {
+            if (isIdentifier(token)) {
+                names.add(unquote(token));
+            }
+        }
+        return names;
+    }
+
+    private static String unquote(String identifier) {
+        return identifier.charAt(0) == '"' ? identifier.substring(1, Math.max(1, identifier.length() - 1)) : identifier;
+    }
+
+    private static boolean isIdentifier(String token) {
+        return Character.isLetter(token.charAt(0)) || token.charAt(0) == '"';
+    }
+
+    /**
+     * Splits a statement into upper case words, delimited identifiers (with quotes) and single characters,
+     * skipping comments. String literals are returned as a single quote.
+     */
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end == -1 ? sql.length() : end;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end == -1 ? sql.length() : end + 2;
+            } else if (c == '"' || c == '\'') {
+                int end = i + 1;
+                while (end < sql.length() && (sql.charAt(end) != c || sql.startsWith(String.valueOf(c) + c, end))) {
+                    end += sql.charAt(end) == c ? 2 : 1;
+                }
+                tokens.add(c == '"' ? sql.substring(i, Math.min(end + 1, sql.length())) : "'");
+                i = end + 1;
+            } else if (Character.isLetterOrDigit(c) || c == '_') {
+                int end = i;
+                while (end < sql.length() && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_')) {
+                    end++;
+                }
+                tokens.add(sql.substring(i, end).toUpperCase());
+                i = end;
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+}
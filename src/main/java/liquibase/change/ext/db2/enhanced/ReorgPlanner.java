@@ -0,0 +1,130 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces 'REORG TABLE' statements (see {@link ReorgCommand}) by {@link ReorgStatement}s.
+ * <p>
+ * If deferring is enabled, a REORG is held back until the latest point that is still safe, and identical REORGs
+ * of the same table in between are merged into it. A held back REORG is executed before:
+ * <ul>
+ *     <li>any DDL statement that refers to the table. This includes reorg-recommended alterations
+ *     ('ALTER TABLE x DROP/ALTER ...'): DB2 only allows three of those before a REORG, and the table may already
+ *     have had some before the script.</li>
+ *     <li>any other statement except COMMIT (DML, queries, CALLs, ...), as these could use the table
+ *     through views, triggers or procedures</li>
+ *     <li>a different REORG of the same table, and the end of the script</li>
+ * </ul>
+ * <p>
+ * If online REORGs are enabled, all REORGs share an {@link OnlineReorgMonitor}, and {@link WaitForReorgStatement}s
+ * are added at each '--WAIT FOR REORG' statement (which replaces a 'WAIT FOR REORG' statement of the script),
+ * before each DDL statement that refers to a table that was reorganized, and at the end of the script.
+ *
+ * @since 1.2
+ */
+public class ReorgPlanner implements SqlStatementConsumer {
+
+    /** The 'WAIT FOR REORG' statement, as it is re-written by {@link Db2SQLFileChange} */
+    static final String WAIT_FOR_REORG = "--WAIT FOR REORG";
+
+    private final Database database;
+    private final boolean defer;
+    private final int threshold;
+    private final OnlineReorgMonitor monitor;
+    private final SqlStatementConsumer consumer;
+    private final Map<String, List<Db2RawSqlStatement>> pending = new LinkedHashMap<>();
+    private final Map<String, ReorgCommand> pendingCommands = new HashMap<>();
+    private final Set<String> reorganizedTables = new HashSet<>();
+
+    /**
+     * @param database The database the statements are executed against
+     * @param defer If true, REORGs are merged and deferred
+     * @param threshold See {@link ReorgStatement}
+     * @param online If true, REORGs are executed online where possible
+     * @param consumer Receives the REORG statements and all other statements
+     */
+    public ReorgPlanner(Database database, boolean defer, int threshold, boolean online, SqlStatementConsumer consumer) {
+        this.database = database;
+        this.defer = defer;
+        this.threshold = threshold;
+        this.monitor = online ? new OnlineReorgMonitor() : null;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void accept(SqlStatement statement) throws DatabaseException {
+        if (!(statement instanceof Db2RawSqlStatement)) {
+            passOnPending();
+            consumer.accept(statement);
+            return;
+        }
+        Db2RawSqlStatement raw = (Db2RawSqlStatement) statement;
+        if (monitor != null && raw.getSql().trim().equalsIgnoreCase(WAIT_FOR_REORG)) {
+            passOnPending();
+            consumer.accept(new WaitForReorgStatement(database, monitor, null, raw));
+            return;
+        }
+        ReorgCommand command = raw.getKind() == StatementKind.CALL ? ReorgCommand.of(raw.getSql()) : null;
+        if (command != null) {
+            String table = command.getQualifiedTable();
+            reorganizedTables.add(command.getTable());
+            if (!defer) {
+                consumer.accept(new ReorgStatement(database, new ArrayList<>(Collections.singletonList(raw)), command,
+                        threshold, monitor));
+            } else {
+                if (pending.containsKey(table) && !pendingCommands.get(table).isSameCommand(command)) {
+                    passOn(table);
+                }
+                pending.computeIfAbsent(table, key -> new ArrayList<>()).add(raw);
+                pendingCommands.put(table, command);
+            }
+            return;
+        }
+        if (raw.getKind() == StatementKind.DDL) {
+            Set<String> names = ReorgCommand.namesIn(raw.getSql());
+            for (String table : new ArrayList<>(pending.keySet())) {
+                if (names.contains(pendingCommands.get(table).getTable())) {
+                    passOn(table);
+                }
+            }
+            if (monitor != null && names.stream().anyMatch(reorganizedTables::contains)) {
+                names.retainAll(reorganizedTables);
+                consumer.accept(new WaitForReorgStatement(database, monitor, names, null));
+            }
+        } else if (raw.getKind() != StatementKind.COMMIT) {
+            passOnPending();
+        }
+        consumer.accept(statement);
+    }
+
+    @Override
+    public void flush() throws DatabaseException {
+        passOnPending();
+        if (monitor != null && !reorganizedTables.isEmpty()) {
+            consumer.accept(new WaitForReorgStatement(database, monitor, null, null));
+        }
+        consumer.flush();
+    }
+
+    private void passOnPending() throws DatabaseException {
+        for (String table : new ArrayList<>(pending.keySet())) {
+            passOn(table);
+        }
+    }
+
+    private void passOn(String table) throws DatabaseException {
+        consumer.accept(new ReorgStatement(database, pending.remove(table), pendingCommands.remove(table), threshold,
+                monitor));
+    }
+}
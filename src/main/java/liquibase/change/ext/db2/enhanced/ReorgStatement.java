@@ -0,0 +1,195 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.ExecutorService;
+import liquibase.logging.Logger;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * One or more identical 'REORG TABLE' statements of a script (see {@link ReorgCommand}), executed once.
+ * <p>
+ * If a threshold is set, the table is checked with 'SYSPROC.ADMIN_GET_TAB_INFO' first, and the REORG is only
+ * executed when the table is in reorg pending state, or has at least the threshold number of reorg-recommended
+ * alterations. If the table cannot be checked, the REORG is executed.
+ * <p>
+ * With a {@link OnlineReorgMonitor}, a REORG without options is executed as 'INPLACE ALLOW WRITE ACCESS' when the
+ * table supports it (a row-organized table that is not reorg pending or range-partitioned). This returns as soon as
+ * the REORG is started, the monitor waits for it later.
+ *
+ * @since 1.2
+ */
+public class ReorgStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private static final String INPLACE_QUERY = "SELECT CURRENT TIMESTAMP, T.TABLEORG, I.REORG_PENDING"
+            + " FROM SYSCAT.TABLES T, TABLE(SYSPROC.ADMIN_GET_TAB_INFO(T.TABSCHEMA, T.TABNAME)) AS I"
+            + " WHERE T.TABSCHEMA = COALESCE(CAST(? AS VARCHAR(128)), CURRENT SCHEMA) AND T.TABNAME = ? AND T.TYPE = 'T'"
+            + " AND NOT EXISTS (SELECT 1 FROM SYSCAT.DATAPARTITIONS P"
+            + " WHERE P.TABSCHEMA = T.TABSCHEMA AND P.TABNAME = T.TABNAME AND P.SEQNO > 0)";
+
+    private static final Pattern COMMAND_END = Pattern.compile("'\\s*\\)\\s*$");
+
+    private static final String TAB_INFO_QUERY = "SELECT REORG_PENDING, NUM_REORG_REC_ALTERS"
+            + " FROM TABLE(SYSPROC.ADMIN_GET_TAB_INFO(COALESCE(CAST(? AS VARCHAR(128)), CURRENT SCHEMA), ?)) AS T";
+
+    private final Database database;
+    private final List<Db2RawSqlStatement> statements;
+    private final ReorgCommand command;
+    private final int threshold;
+    private final OnlineReorgMonitor monitor;
+
+    /**
+     * @param database The database the statements are executed against
+     * @param statements The REORG statements, in script order, the last one is executed
+     * @param command The parsed REORG command
+     * @param threshold If more than 0, the minimum number of reorg-recommended alterations for a table that is
+     *                  not reorg pending, otherwise the REORG is always executed
+     * @param monitor Tracks online REORGs, null to always execute the REORG as written
+     */
+    public ReorgStatement(Database database, List<Db2RawSqlStatement> statements, ReorgCommand command, int threshold,
+                          OnlineReorgMonitor monitor) {
+        this.database = database;
+        this.statements = statements;
+        this.command = command;
+        this.threshold = threshold;
+        this.monitor = monitor;
+    }
+
+    /**
+     * Gets the REORG statements
+     *
+     * @return List, in script order
+     */
+    public List<Db2RawSqlStatement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Gets the REORG command
+     *
+     * @return ReorgCommand, never null
+     */
+    public ReorgCommand getCommand() {
+        return command;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        Db2RawSqlStatement statement = statements.get(statements.size() - 1);
+        if (statements.size() > 1) {
+            getLogger().info("Executing REORG of " + command.getQualifiedTable() + " once for the statements at lines "
+                    + statements.stream().map(s -> String.valueOf(s.getLine())).collect(Collectors.joining(", ")));
+        }
+        if (monitor != null) {
+            // DB2 allows only one REORG of a table at a time
+            monitor.waitFor(database, Collections.singleton(command.getTable()));
+        }
+        if (threshold > 0 && !isReorgNeeded()) {
+            return;
+        }
+        Timestamp start = monitor != null && !command.hasOptions() ? getInplaceStart() : null;
+        if (start != null) {
+            String sql = COMMAND_END.matcher(statement.getSql()).replaceFirst(" INPLACE ALLOW WRITE ACCESS')");
+            statement = new Db2RawSqlStatement(sql, statement.getEndDelimiter(), statement.getTerminator(), statement.getLine());
+        }
+        Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database).execute(statement);
+        if (start != null) {
+            getLogger().info("Started online REORG of " + command.getQualifiedTable() + " (line " + statement.getLine() + ")");
+            monitor.started(command, statement.getLine(), start);
+        }
+    }
+
+    /**
+     * @return The current time on the DB2 server, null if the table does not support an INPLACE REORG
+     */
+    private Timestamp getInplaceStart() {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        try (PreparedStatement stmt = connection.prepareStatement(INPLACE_QUERY)) {
+            setTable(stmt);
+            Timestamp start = null;
+            try (ResultSet rs = stmt.executeQuery()) {
+                // One row per database partition
+                while (rs.next()) {
+                    if (!"R".equals(rs.getString(2)) || !"N".equals(rs.getString(3))) {
+                        return null;
+                    }
+                    start = rs.getTimestamp(1);
+                }
+            }
+            return start;
+        } catch (SQLException e) {
+            getLogger().warning("Could not check if " + command.getQualifiedTable() + " supports an online REORG: "
+                    + e.getMessage());
+            return null;
+        }
+    }
+
+    private void setTable(PreparedStatement stmt) throws SQLException {
+        if (command.getSchema() == null) {
+            stmt.setNull(1, Types.VARCHAR);
+        } else {
+            stmt.setString(1, command.getSchema());
+        }
+        stmt.setString(2, command.getTable());
+    }
+
+    private boolean isReorgNeeded() {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        try (PreparedStatement stmt = connection.prepareStatement(TAB_INFO_QUERY)) {
+            setTable(stmt);
+            boolean found = false;
+            boolean pending = false;
+            long alterations = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                // One row per database partition
+                while (rs.next()) {
+                    found = true;
+                    pending |= "Y".equals(rs.getString(1));
+                    alterations = Math.max(alterations, rs.getLong(2));
+                }
+            }
+            if (found && !pending && alterations < threshold) {
+                getLogger().info("Skipping REORG of " + command.getQualifiedTable() + " (line "
+                        + statements.get(statements.size() - 1).getLine() + "), the table is not reorg pending and has "
+                        + alterations + " reorg-recommended alterations");
+                return false;
+            }
+        } catch (SQLException e) {
+            getLogger().warning("Could not check if " + command.getQualifiedTable() + " needs a REORG: " + e.getMessage());
+        }
+        return true;
+    }
+
+    private Logger getLogger() {
+        return Scope.getCurrentScope().getLog(getClass());
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ReorgStatement{" +
+                "table=" + command.getQualifiedTable() +
+                ", statements=" + statements.size() +
+                ", line=" + statements.get(statements.size() - 1).getLine() +
+                '}';
+    }
+}
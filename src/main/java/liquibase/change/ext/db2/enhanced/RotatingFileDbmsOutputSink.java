@@ -0,0 +1,98 @@
+package liquibase.change.ext.db2.enhanced;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends DBMS_OUTPUT to a file in UTF-8, one line per line of output. When the file would exceed its maximum size,
+ * it is renamed to 'file.1' (and an existing 'file.1' to 'file.2' and so on, dropping the oldest) and a new file
+ * is started. The file is only open while output is retrieved.
+ *
+ * @since 1.2
+ */
+public class RotatingFileDbmsOutputSink implements DbmsOutputSink {
+
+    private final Path file;
+    private final long maxSize;
+    private final int fileCount;
+    private Writer writer;
+    private long size;
+
+    /**
+     * @param file The current file, created with its parent directories if needed
+     * @param maxSize Size in bytes at which the file is rotated, if more than 0
+     * @param fileCount Number of files kept, including the current one
+     */
+    public RotatingFileDbmsOutputSink(Path file, long maxSize, int fileCount) {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.fileCount = Math.max(fileCount, 1);
+    }
+
+    @Override
+    public void accept(String line) throws IOException {
+        if (writer == null) {
+            open();
+        }
+        int length = line.getBytes(StandardCharsets.UTF_8).length + 1;
+        if (maxSize > 0 && size > 0 && size + length > maxSize) {
+            rotate();
+        }
+        writer.write(line);
+        writer.write('\n');
+        size += length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null) {
+            try {
+                writer.close();
+            } finally {
+                writer = null;
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        size = Files.exists(file) ? Files.size(file) : 0;
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    private void rotate() throws IOException {
+        flush();
+        for (int i = fileCount - 1; i > 1; i--) {
+            Path older = rotated(i - 1);
+            if (Files.exists(older)) {
+                Files.move(older, rotated(i), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (fileCount > 1) {
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        open();
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    @Override
+    public String toString() {
+        return "RotatingFileDbmsOutputSink{" +
+                "file=" + file +
+                '}';
+    }
+}
@@ -0,0 +1,300 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.ExecutorService;
+import liquibase.logging.Logger;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+import liquibase.statement.SqlStatement;
+import liquibase.statement.core.RawSqlStatement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs after the statements of a script with 'runstats': collects the statistics of the tables the script modified
+ * with one 'RUNSTATS ON TABLE x WITH DISTRIBUTION AND INDEXES ALL' per table, executed with 'SYSPROC.ADMIN_CMD'.
+ * <p>
+ * Tables are recorded from INSERT, UPDATE, DELETE, MERGE, TRUNCATE and CREATE INDEX statements when they are
+ * executed (see {@link #executed(SqlStatement)}), with the time they were first modified. Unqualified tables are
+ * qualified with the current schema at that time, which is read again after a 'SET SCHEMA'. A table
+ * is skipped if its statistics were collected after the script first modified it (see 'STATS_TIME' in
+ * 'SYSCAT.TABLES'), or if it is not a table (e.g. a view or a temporary table). A RUNSTATS that fails is logged, as the statistics
+ * do not change the outcome of the script.
+ *
+ * @since 1.2
+ */
+public class RunstatsStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private static final String NAME = "(\"(?:[^\"]|\"\")+\"|[A-Za-z_#@$][A-Za-z0-9_#@$]*)";
+
+    private static final Pattern MODIFIED_TABLE = Pattern.compile("(?is)^(?:\\s|--[^\\n]*(?:\\n|$)|/\\*.*?\\*/)*"
+            + "(?:INSERT\\s+INTO|UPDATE|DELETE\\s+FROM|MERGE\\s+INTO|TRUNCATE(?:\\s+TABLE)?"
+            + "|CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+" + NAME + "(?:\\s*\\.\\s*" + NAME + ")?\\s+ON)"
+            + "\\s*" + NAME + "(?:\\s*\\.\\s*" + NAME + ")?(?![A-Za-z0-9_#@$])");
+
+    private static final Pattern SET_SCHEMA = Pattern.compile("(?is)^(?:\\s|--[^\\n]*(?:\\n|$)|/\\*.*?\\*/)*"
+            + "SET\\s+(?:CURRENT\\s+)?SCHEMA(?![A-Za-z0-9_#@$])");
+
+    /** Finds the table, unless its statistics were collected since it was first modified */
+    private static final String TABLE_QUERY = "SELECT TABSCHEMA, TABNAME,"
+            + " CASE WHEN STATS_TIME >= CURRENT TIMESTAMP - CAST(? AS INTEGER) SECONDS THEN 'Y' ELSE 'N' END"
+            + " FROM SYSCAT.TABLES"
+            + " WHERE TABSCHEMA = COALESCE(CAST(? AS VARCHAR(128)), CURRENT SCHEMA) AND TABNAME = ? AND TYPE IN ('T', 'S')";
+
+    private static final String SCHEMA_QUERY = "SELECT CURRENT SCHEMA FROM SYSIBM.SYSDUMMY1";
+
+    private final Database database;
+    private final String path;
+    private final int samplePercent;
+    private final Map<String, Table> tables = new LinkedHashMap<>();
+    private String currentSchema;
+    private boolean isCurrentSchemaRead;
+
+    /**
+     * @param database The database the script is executed against
+     * @param path The path of the script, for the log
+     * @param samplePercent If between 1 and 99, the statistics are collected from this percentage of the pages
+     *                      of a table, otherwise from all rows
+     */
+    public RunstatsStatement(Database database, String path, int samplePercent) {
+        this.database = database;
+        this.path = path;
+        this.samplePercent = samplePercent;
+    }
+
+    /**
+     * Records the table a statement of the script modifies, if any, with the time it was executed as the time
+     * the table was first modified
+     *
+     * @param statement Any statement of the script, after it was executed
+     */
+    public synchronized void executed(SqlStatement statement) {
+        record(statement, System.nanoTime());
+    }
+
+    /**
+     * Records the table a statement committed by a previous run modifies (see {@link Checkpoint}), if any.
+     * The table keeps no time of modification, so its statistics are always collected.
+     *
+     * @param statement Any statement of the script, skipped
+     */
+    public synchronized void skipped(SqlStatement statement) {
+        record(statement, 0);
+    }
+
+    private void record(SqlStatement statement, long nanos) {
+        for (Db2RawSqlStatement rawStatement : ScriptMetrics.statementsOf(statement)) {
+            if (rawStatement.getKind() == StatementKind.SET) {
+                if (SET_SCHEMA.matcher(rawStatement.getSql()).find()) {
+                    isCurrentSchemaRead = false;
+                }
+                continue;
+            }
+            if (rawStatement.getKind() != StatementKind.DML && rawStatement.getKind() != StatementKind.DDL) {
+                continue;
+            }
+            Table modified = Table.modifiedBy(rawStatement.getSql());
+            if (modified == null) {
+                continue;
+            }
+            Table qualified = modified.schema == null ? new Table(getCurrentSchema(), modified.name) : modified;
+            Table table = tables.computeIfAbsent(qualified.getQualifiedName(), name -> qualified);
+            if (table.modifiedNanos == 0) {
+                table.modifiedNanos = nanos;
+            }
+        }
+    }
+
+    /**
+     * The schema unqualified tables are in, read once and again after each 'SET SCHEMA'
+     *
+     * @return The schema, null if it cannot be read (the table is then looked up in the current schema at the end)
+     */
+    private String getCurrentSchema() {
+        if (!isCurrentSchemaRead) {
+            isCurrentSchemaRead = true;
+            Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(SCHEMA_QUERY)) {
+                currentSchema = rs.next() ? rs.getString(1).trim() : null;
+            } catch (SQLException e) {
+                getLogger().warning("Could not read the current schema for the RUNSTATS after " + path + ": " + e.getMessage());
+                currentSchema = null;
+            }
+        }
+        return currentSchema;
+    }
+
+    /**
+     * Gets the tables modified so far
+     *
+     * @return The tables as 'SCHEMA.TABLE' ('TABLE' if the current schema could not be read),
+     *         in the order they were first modified
+     */
+    public synchronized Collection<String> getTables() {
+        return Collections.unmodifiableCollection(new ArrayList<>(tables.keySet()));
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        Collection<Table> modifiedTables = getModifiedTables();
+        List<String> commands = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement(TABLE_QUERY)) {
+            for (Table table : modifiedTables) {
+                String command = getCommand(stmt, table);
+                if (command != null) {
+                    commands.add(command);
+                }
+            }
+        } catch (SQLException e) {
+            getLogger().warning("Could not check the statistics of the tables modified by " + path + ": " + e.getMessage());
+            return;
+        }
+        int collected = 0;
+        for (String command : commands) {
+            try {
+                Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database)
+                        .execute(new RawSqlStatement("CALL SYSPROC.ADMIN_CMD('" + command.replace("'", "''") + "')"));
+                collected++;
+            } catch (DatabaseException e) {
+                getLogger().warning("Error executing " + command + " after " + path + ": " + e.getMessage());
+            }
+        }
+        getLogger().info("Collected the statistics of " + collected + " of the " + modifiedTables.size()
+                + " tables modified by " + path);
+    }
+
+    synchronized List<Table> getModifiedTables() {
+        return new ArrayList<>(tables.values());
+    }
+
+    /**
+     * @param stmt The prepared {@link #TABLE_QUERY}
+     * @return The RUNSTATS command for the table, null if it is skipped
+     */
+    String getCommand(PreparedStatement stmt, Table table) throws SQLException {
+        long seconds = table.modifiedNanos == 0 ? 0 : (System.nanoTime() - table.modifiedNanos) / 1000000000L;
+        stmt.setInt(1, (int) Math.min(seconds, Integer.MAX_VALUE));
+        if (table.schema == null) {
+            stmt.setNull(2, Types.VARCHAR);
+        } else {
+            stmt.setString(2, table.schema);
+        }
+        stmt.setString(3, table.name);
+        try (ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                getLogger().fine("Skipping RUNSTATS of " + table.getQualifiedName() + ", it is not a table");
+                return null;
+            } else if ("Y".equals(rs.getString(3))) {
+                getLogger().info("Skipping RUNSTATS of " + table.getQualifiedName()
+                        + ", its statistics were collected after " + path + " modified it");
+                return null;
+            }
+            return "RUNSTATS ON TABLE " + quote(rs.getString(1).trim()) + "." + quote(rs.getString(2))
+                    + " WITH DISTRIBUTION AND INDEXES ALL"
+                    + (samplePercent > 0 && samplePercent < 100 ? " TABLESAMPLE SYSTEM (" + samplePercent + ")" : "");
+        }
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    private Logger getLogger() {
+        return Scope.getCurrentScope().getLog(getClass());
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "RunstatsStatement{" +
+                "tables=" + getTables() +
+                '}';
+    }
+
+    /**
+     * A table modified by the script
+     */
+    static class Table {
+
+        private final String schema;
+        private final String name;
+        private long modifiedNanos;
+
+        private Table(String schema, String name) {
+            this.schema = schema;
+            this.name = name;
+        }
+
+        /**
+         * @return The schema, null if not qualified
+         */
+        String getSchema() {
+            return schema;
+        }
+
+        /**
+         * @return The name of the table
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return The {@link System#nanoTime()} when the table was first modified, 0 if not modified in this run
+         */
+        long getModifiedNanos() {
+            return modifiedNanos;
+        }
+
+        /**
+         * @return The table as 'SCHEMA.TABLE' or 'TABLE', with ordinary identifiers in upper case
+         *         and delimited identifiers without their quotes
+         */
+        String getQualifiedName() {
+            return schema == null ? name : schema + "." + name;
+        }
+
+        /**
+         * Parses a statement
+         *
+         * @param sql Any statement
+         * @return The table the statement modifies, null if unknown
+         */
+        static Table modifiedBy(String sql) {
+            Matcher matcher = MODIFIED_TABLE.matcher(sql);
+            if (!matcher.find()) {
+                return null;
+            }
+            return matcher.group(4) == null ? new Table(null, unquote(matcher.group(3)))
+                    : new Table(unquote(matcher.group(3)), unquote(matcher.group(4)));
+        }
+
+        private static String unquote(String identifier) {
+            return identifier.charAt(0) == '"' ? identifier.substring(1, identifier.length() - 1).replace("\"\"", "\"")
+                    : identifier.toUpperCase();
+        }
+    }
+}
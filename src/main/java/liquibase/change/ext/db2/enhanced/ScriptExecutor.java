@@ -0,0 +1,296 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.DatabaseConnection;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.ExecutorService;
+import liquibase.executor.jvm.RowMapper;
+import liquibase.sql.visitor.SqlVisitor;
+import liquibase.statement.SqlStatement;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * This executor applies the settings of the scripts, from their {@link ScriptStartStatement} on, to the statements
+ * executed and queries run. Next to retrieving DBMS_OUTPUT (see {@link DbmsOutputExecutor}), it:
+ * <ul>
+ *     <li>records the statements of the script if metrics are enabled, see {@link ScriptMetrics}</li>
+ *     <li>skips the statements committed by a previous run of a script with a {@link Checkpoint}</li>
+ *     <li>records the tables modified by a script with 'runstats' in its {@link RunstatsStatement}</li>
+ *     <li>retries statements after deadlocks and lock timeouts for scripts with 'lockRetries', from their
+ *     {@link LockRetryStatement} on, see {@link LockRetry}. It keeps the statements of the current
+ *     {@link UnitOfWork}, to execute them again before the statement if DB2 rolled back the whole unit of work.</li>
+ * </ul>
+ * It is installed for scripts that use any of these, or DBMS_OUTPUT.
+ *
+ * @since 1.2
+ */
+public class ScriptExecutor extends DbmsOutputExecutor {
+
+    /** The executors installed by {@link #install(Database)}, until they are closed */
+    private static final Set<ScriptExecutor> INSTALLED = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private ScriptMetrics metrics;
+
+    private int executionDepth;
+
+    private LockRetry lockRetry;
+
+    private final UnitOfWork unitOfWork = new UnitOfWork();
+
+    private Checkpoint checkpoint;
+
+    private RunstatsStatement runstats;
+
+    /**
+     * A statement of the script, executed once
+     */
+    @FunctionalInterface
+    private interface Execution<T> {
+        T execute() throws DatabaseException;
+    }
+
+    /**
+     * Installs a new executor for the database as its "jdbc" executor. Executors installed before that were replaced
+     * since (for example when Liquibase reset its executors after a previous run) are closed.
+     *
+     * @param database The database the executor executes against
+     * @return The executor, installed
+     */
+    public static ScriptExecutor install(Database database) {
+        ExecutorService executorService = Scope.getCurrentScope().getSingleton(ExecutorService.class);
+        ScriptExecutor executor = new ScriptExecutor();
+        executor.setDatabase(database);
+        executor.setResourceAccessor(Scope.getCurrentScope().getResourceAccessor());
+        executorService.setExecutor("jdbc", database, executor);
+        List<ScriptExecutor> replaced = new ArrayList<>();
+        synchronized (INSTALLED) {
+            for (ScriptExecutor installed : INSTALLED) {
+                if (installed.database == null || !executorService.executorExists("jdbc", installed.database)
+                        || executorService.getExecutor("jdbc", installed.database) != installed) {
+                    replaced.add(installed);
+                }
+            }
+            INSTALLED.removeAll(replaced);
+            INSTALLED.add(executor);
+        }
+        replaced.forEach(ScriptExecutor::close);
+        return executor;
+    }
+
+    /**
+     * The metrics of the current script
+     *
+     * @return ScriptMetrics, null if metrics are disabled
+     */
+    public ScriptMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @see #getMetrics()
+     * @param metrics null to stop recording
+     */
+    public void setMetrics(ScriptMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * The retries of the current script
+     *
+     * @return LockRetry, null if statements are not retried
+     */
+    public LockRetry getLockRetry() {
+        return lockRetry;
+    }
+
+    /**
+     * @see #getLockRetry()
+     * @param lockRetry null to stop retrying. The statements of the current unit of work are only kept while retrying,
+     *                  so it cannot be replayed afterwards until it ends.
+     */
+    public void setLockRetry(LockRetry lockRetry) {
+        if (lockRetry == null && this.lockRetry != null) {
+            unitOfWork.discard();
+        }
+        this.lockRetry = lockRetry;
+    }
+
+    @Override
+    public void execute(final SqlStatement sql, final List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        if (sql instanceof ScriptStartStatement) {
+            startScript((ScriptStartStatement) sql);
+            super.execute(sql, sqlVisitors);
+            return;
+        }
+        if (isSkipped(sql)) {
+            return;
+        }
+        if (sql instanceof LockRetryStatement) {
+            startLockRetry(((LockRetryStatement) sql).getLockRetry());
+            return;
+        }
+        boolean isUpdate = isMeasured(sql) && sql instanceof Db2RawSqlStatement
+                && ((Db2RawSqlStatement) sql).getKind() == StatementKind.DML;
+        executeInScript(sql, sqlVisitors, () -> {
+            if (isUpdate) {
+                // DML cannot produce output, so update can be used to get the number of rows
+                return (long) update(sql, sqlVisitors);
+            }
+            executeWithoutOutput(sql, sqlVisitors);
+            return sql instanceof BatchedDmlStatement ? ((BatchedDmlStatement) sql).getRowsAffected() : -1L;
+        }, Long::longValue);
+        retrieveOutput(sql);
+    }
+
+    @Override
+    public List query(SqlStatement sql, RowMapper rowMapper, List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        if (isSkipped(sql)) {
+            return Collections.emptyList();
+        }
+        // The rows returned are not rows affected
+        List<?> ret = executeInScript(sql, sqlVisitors, () -> queryWithoutOutput(sql, rowMapper, sqlVisitors),
+                rows -> -1);
+        retrieveOutput(sql);
+        return ret;
+    }
+
+    @Override
+    protected void outputRetrieved(long nanos) {
+        if (metrics != null) {
+            metrics.recordDbmsOutputDrain(nanos);
+        }
+    }
+
+    /**
+     * Applies the settings of the script, the statements of several scripts are generated before any is executed
+     */
+    private void startScript(ScriptStartStatement start) {
+        setMetrics(start.getMetrics());
+        checkpoint = start.getCheckpoint();
+        runstats = start.getRunstats();
+        if (!start.isLockRetried()) {
+            setLockRetry(null);
+        }
+    }
+
+    /**
+     * Statements committed by a previous run of the script are skipped
+     */
+    private boolean isSkipped(SqlStatement sql) {
+        if (checkpoint == null || !checkpoint.isCommitted(sql)) {
+            return false;
+        }
+        if (runstats != null) {
+            runstats.skipped(sql);
+        }
+        return true;
+    }
+
+    private void startLockRetry(LockRetry lockRetry) {
+        if (lockRetry.isStartsUnitOfWork()) {
+            unitOfWork.start();
+        } else if (this.lockRetry == null) {
+            // The statements executed before were not kept
+            unitOfWork.discard();
+        }
+        this.lockRetry = lockRetry;
+    }
+
+    private <T> T executeInScript(SqlStatement sql, List<SqlVisitor> sqlVisitors, Execution<T> execution,
+                                  ToLongFunction<T> rowsOf) throws DatabaseException {
+        T ret;
+        if (lockRetry != null && executionDepth == 0) {
+            ret = executeRetrying(sql, sqlVisitors, execution, rowsOf);
+            unitOfWork.executed(sql);
+        } else {
+            ret = executeOnce(sql, execution, rowsOf);
+        }
+        if (runstats != null && executionDepth == 0) {
+            runstats.executed(sql);
+        }
+        return ret;
+    }
+
+    /**
+     * Statements executed by a statement of the script (e.g. by a LOAD that falls back to INSERTs) are not recorded
+     */
+    private boolean isMeasured(SqlStatement sql) {
+        return metrics != null && executionDepth == 0 && ScriptMetrics.kindOf(sql) != null;
+    }
+
+    private <T> T executeOnce(SqlStatement sql, Execution<T> execution, ToLongFunction<T> rowsOf)
+            throws DatabaseException {
+        if (!isMeasured(sql)) {
+            return execution.execute();
+        }
+        executionDepth++;
+        try {
+            long start = System.nanoTime();
+            T ret = execution.execute();
+            metrics.recordExecution(sql, System.nanoTime() - start, rowsOf.applyAsLong(ret));
+            return ret;
+        } finally {
+            executionDepth--;
+        }
+    }
+
+    /**
+     * Executes a statement of the script, and retries it after deadlocks and lock timeouts as far as allowed.
+     * Replayed statements are not recorded in the metrics again.
+     */
+    private <T> T executeRetrying(SqlStatement sql, List<SqlVisitor> sqlVisitors, Execution<T> execution,
+                                  ToLongFunction<T> rowsOf) throws DatabaseException {
+        List<SqlStatement> replay = Collections.emptyList();
+        int attempt = 0;
+        while (true) {
+            try {
+                replay(replay, sqlVisitors);
+                return executeOnce(sql, execution, rowsOf);
+            } catch (DatabaseException e) {
+                SQLException failure = LockRetry.lockFailureOf(e);
+                if (failure == null || !UnitOfWork.isReplayable(sql)) {
+                    throw e;
+                }
+                if (LockRetry.isUnitOfWorkRolledBack(failure) && !isAutoCommit()) {
+                    if (!unitOfWork.isReplayable()) {
+                        getLogger().warning("Deadlock or lock timeout at line " + ScriptMetrics.lineOf(sql)
+                                + ", the unit of work cannot be executed again: " + failure.getMessage());
+                        throw e;
+                    }
+                    replay = unitOfWork.getStatements();
+                } else if (!(sql instanceof Db2RawSqlStatement) || !replay.isEmpty()) {
+                    // Only a single statement of a batch, or of the replayed statements, was rolled back
+                    throw e;
+                }
+                if (!lockRetry.retry(sql, failure, ++attempt, replay.size())) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void replay(List<SqlStatement> statements, List<SqlVisitor> sqlVisitors) throws DatabaseException {
+        executionDepth++;
+        try {
+            for (SqlStatement statement : statements) {
+                executeWithoutOutput(statement, sqlVisitors);
+            }
+        } finally {
+            executionDepth--;
+        }
+    }
+
+    private boolean isAutoCommit() throws DatabaseException {
+        DatabaseConnection con = database.getConnection();
+        return con == null || con.getAutoCommit();
+    }
+
+}
@@ -0,0 +1,231 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.resource.Resource;
+import liquibase.util.StreamUtil;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the '--#INCLUDE path' directives of a script for the {@link Db2ScriptLexer}. The path is relative to
+ * the including script.
+ * <p>
+ * Included scripts are parsed once per JVM for each delimiter they are included with (and the options of the lexer),
+ * and their statements are reused as long as neither their file nor the files they include changed
+ * (see {@link ScriptResource}).
+ * An included script may include other scripts, but a script that (directly or indirectly) includes itself fails.
+ * The included scripts are part of the checksum of the including change, see {@link #findIncluded(Resource, String, boolean)}.
+ *
+ * @since 1.2
+ */
+public class ScriptIncludes {
+
+    private static final Map<String, Fragment> FRAGMENTS = new ConcurrentHashMap<>();
+
+    private final Resource script;
+    private final List<URI> chain;
+    private final String encoding;
+    private final boolean useSetTerminatorComments;
+    private final boolean stripComments;
+    private final boolean splitStatements;
+    private final Map<URI, ScriptResource> included = new LinkedHashMap<>();
+
+    /**
+     * @param script The script with the directives
+     * @param encoding The encoding of the included scripts
+     * @param useSetTerminatorComments See {@link Db2ScriptLexer}
+     * @param stripComments See {@link Db2ScriptLexer}
+     * @param splitStatements See {@link Db2ScriptLexer}
+     */
+    public ScriptIncludes(Resource script, String encoding, boolean useSetTerminatorComments, boolean stripComments,
+                          boolean splitStatements) {
+        this(script, Collections.singletonList(script.getUri()), encoding, useSetTerminatorComments, stripComments,
+                splitStatements);
+    }
+
+    private ScriptIncludes(Resource script, List<URI> chain, String encoding, boolean useSetTerminatorComments,
+                           boolean stripComments, boolean splitStatements) {
+        this.script = script;
+        this.chain = chain;
+        this.encoding = encoding;
+        this.useSetTerminatorComments = useSetTerminatorComments;
+        this.stripComments = stripComments;
+        this.splitStatements = splitStatements;
+    }
+
+    /**
+     * Gets the statements of an included script
+     *
+     * @param path The path of the included script, relative to the including script
+     * @param delimiter The delimiter in use at the directive
+     * @return The included script, parsed
+     * @throws IOException if the script cannot be read or parsed, or includes itself
+     */
+    public Fragment include(String path, String delimiter) throws IOException {
+        Resource resource = script.resolveSibling(path);
+        if (!resource.exists()) {
+            throw new FileNotFoundException("Included script " + path + " not found next to " + script.getPath());
+        }
+        URI uri = resource.getUri();
+        checkCycle(Collections.singleton(uri), uri);
+        ScriptResource content = ScriptResource.of(resource);
+        String key = uri + "\n" + delimiter + "\n" + encoding + "\n" + useSetTerminatorComments + "\n" + stripComments
+                + "\n" + splitStatements;
+        Fragment fragment = FRAGMENTS.get(key);
+        if (fragment == null || !fragment.isCurrent()) {
+            fragment = parse(resource, content, delimiter);
+            FRAGMENTS.put(key, fragment);
+        } else {
+            checkCycle(fragment.contents.keySet(), uri);
+            Scope.getCurrentScope().getLog(getClass()).fine("Reusing the " + fragment.segments.size()
+                    + " statements of " + resource.getPath() + " included by " + script.getPath());
+        }
+        included.putAll(fragment.contents);
+        return fragment;
+    }
+
+    /**
+     * Finds the scripts a script includes, directly or indirectly. Every '--#INCLUDE' line counts, even one the lexer
+     * would reject (e.g. inside a statement), so the scripts are found without parsing.
+     *
+     * @param script The script with the directives
+     * @param encoding The encoding of the scripts
+     * @param isKept If false, the content of the script is not kept in memory (see {@link ScriptResource#open(boolean)}),
+     *               the included scripts are always kept to be parsed
+     * @return The included scripts, each once, in the order of their first directive
+     * @throws IOException if a script cannot be read, or an included script does not exist
+     */
+    public static List<Resource> findIncluded(Resource script, String encoding, boolean isKept) throws IOException {
+        Map<URI, Resource> included = new LinkedHashMap<>();
+        findIncluded(script, encoding, isKept, included);
+        included.remove(script.getUri());
+        return new ArrayList<>(included.values());
+    }
+
+    private static void findIncluded(Resource script, String encoding, boolean isKept, Map<URI, Resource> included)
+            throws IOException {
+        List<Resource> directives = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(StreamUtil.readStreamWithReader(
+                ScriptResource.of(script).open(isKept), encoding))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!Db2ScriptLexer.hasIncludeDirective(line)) {
+                    continue;
+                }
+                String path = Db2ScriptLexer.getIncludePath(line);
+                if (path.isEmpty()) {
+                    continue;
+                }
+                Resource resource = script.resolveSibling(path);
+                if (!resource.exists()) {
+                    throw new FileNotFoundException("Included script " + path + " not found next to " + script.getPath());
+                }
+                directives.add(resource);
+            }
+        }
+        for (Resource resource : directives) {
+            // A cycle fails when the script is parsed
+            if (!resource.getUri().equals(script.getUri()) && included.putIfAbsent(resource.getUri(), resource) == null) {
+                findIncluded(resource, encoding, true, included);
+            }
+        }
+    }
+
+    private void checkCycle(Set<URI> uris, URI uri) throws IOException {
+        for (URI including : chain) {
+            if (uris.contains(including)) {
+                List<URI> cycle = new ArrayList<>(chain.subList(chain.indexOf(including), chain.size()));
+                cycle.add(uri);
+                if (!uri.equals(including)) {
+                    cycle.add(including);
+                }
+                throw new IOException("Include cycle: " + cycle.stream().map(URI::toString)
+                        .collect(Collectors.joining(" -> ")));
+            }
+        }
+    }
+
+    private Fragment parse(Resource resource, ScriptResource content, String delimiter) throws IOException {
+        List<URI> nestedChain = new ArrayList<>(chain);
+        nestedChain.add(resource.getUri());
+        ScriptIncludes nested = new ScriptIncludes(resource, nestedChain, encoding, useSetTerminatorComments,
+                stripComments, splitStatements);
+        List<DelimitedSegment> segments = new ArrayList<>();
+        Db2ScriptLexer lexer;
+        try (InputStream stream = content.open(true)) {
+            lexer = new Db2ScriptLexer(StreamUtil.readStreamWithReader(stream, encoding), delimiter,
+                    useSetTerminatorComments, stripComments, splitStatements);
+            lexer.setIncludes(nested);
+            try {
+                for (DelimitedSegment segment = lexer.next(); segment != null; segment = lexer.next()) {
+                    if (segment.hasSql()) {
+                        segments.add(segment);
+                    }
+                }
+            } catch (IOException e) {
+                throw new IOException("Error reading " + resource.getPath() + " at line " + lexer.getLine() + ": "
+                        + e.getMessage(), e);
+            }
+        }
+        Map<URI, ScriptResource> contents = new LinkedHashMap<>();
+        contents.put(resource.getUri(), content);
+        contents.putAll(nested.included);
+        Scope.getCurrentScope().getLog(getClass()).fine("Parsed " + segments.size() + " statements of "
+                + resource.getPath() + " included by " + script.getPath());
+        return new Fragment(segments, lexer.getDelimiter(), contents);
+    }
+
+    /**
+     * The statements of an included script
+     */
+    public static class Fragment {
+
+        private final List<DelimitedSegment> segments;
+        private final String delimiter;
+        /** The script and the scripts it includes, directly or indirectly, as they were parsed */
+        private final Map<URI, ScriptResource> contents;
+
+        private Fragment(List<DelimitedSegment> segments, String delimiter, Map<URI, ScriptResource> contents) {
+            this.segments = Collections.unmodifiableList(segments);
+            this.delimiter = delimiter;
+            this.contents = Collections.unmodifiableMap(contents);
+        }
+
+        /**
+         * @return false if the script or any script it includes changed since it was parsed
+         */
+        private boolean isCurrent() {
+            for (ScriptResource content : contents.values()) {
+                if (!content.isCurrent()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return The statements (without segments of only comments), with their lines in the included script
+         */
+        public List<DelimitedSegment> getSegments() {
+            return segments;
+        }
+
+        /**
+         * @return The delimiter in use at the end of the included script
+         */
+        public String getDelimiter() {
+            return delimiter;
+        }
+    }
+}
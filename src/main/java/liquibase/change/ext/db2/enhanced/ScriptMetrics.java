@@ -0,0 +1,327 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.statement.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Execution metrics of 'db2SqlFile' scripts: parse time, and per {@link StatementKind} the number of statements,
+ * the rows affected and a latency histogram, the time spent retrieving DBMS_OUTPUT, the retries after deadlocks
+ * and lock timeouts, and the slowest statements with their line in the script.
+ * <p>
+ * Statements are recorded by the {@link ScriptExecutor}, see {@link Db2EnhancedConfiguration#METRICS}.
+ *
+ * @since 1.2
+ */
+public class ScriptMetrics {
+
+    /** Upper limits of the latency histogram buckets, the last bucket has no limit */
+    private static final long[] BUCKET_LIMITS_MILLIS = { 1, 10, 100, 1000, 10000, 60000 };
+
+    private static final int MAX_SQL_LENGTH = 100;
+
+    private final String script;
+    private final int maxSlowest;
+    private final Map<StatementKind, KindMetrics> kinds = new EnumMap<>(StatementKind.class);
+    private final PriorityQueue<SlowStatement> slowest = new PriorityQueue<>(Comparator.comparingLong(s -> s.nanos));
+    private long parseNanos;
+    private long drainNanos;
+    private int drains;
+    private int lockRetries;
+    private long replayedStatements;
+
+    /**
+     * @param script The path of the script, for the summary
+     * @param maxSlowest Number of slowest statements to keep
+     */
+    public ScriptMetrics(String script, int maxSlowest) {
+        this.script = script;
+        this.maxSlowest = maxSlowest;
+    }
+
+    /**
+     * Gets the kind of a statement of a 'db2SqlFile' script, as recorded in the metrics
+     *
+     * @param statement Any statement
+     * @return The kind, null if the statement is not recorded (e.g. the statements Liquibase itself executes)
+     */
+    public static StatementKind kindOf(SqlStatement statement) {
+        if (statement instanceof Db2RawSqlStatement) {
+            return ((Db2RawSqlStatement) statement).getKind();
+        } else if (statement instanceof BatchedDmlStatement || statement instanceof LoadStatement) {
+            return StatementKind.DML;
+        } else if (statement instanceof ParallelDdlStatement) {
+            return StatementKind.DDL;
+        } else if (statement instanceof ReorgStatement) {
+            return StatementKind.CALL;
+        } else if (statement instanceof WaitForReorgStatement) {
+            return StatementKind.OTHER;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the line of the first statement of the script that a statement executes
+     *
+     * @param statement A statement of a 'db2SqlFile' script
+     * @return The line, 0 if unknown
+     */
+    public static int lineOf(SqlStatement statement) {
+        List<Db2RawSqlStatement> statements = statementsOf(statement);
+        return statements.isEmpty() ? 0 : statements.get(0).getLine();
+    }
+
+    /**
+     * Gets the statements of the script that a statement executes
+     *
+     * @param statement A statement of a 'db2SqlFile' script
+     * @return List, in script order, empty if unknown
+     */
+    public static List<Db2RawSqlStatement> statementsOf(SqlStatement statement) {
+        if (statement instanceof Db2RawSqlStatement) {
+            return Collections.singletonList((Db2RawSqlStatement) statement);
+        } else if (statement instanceof BatchedDmlStatement) {
+            return ((BatchedDmlStatement) statement).getStatements();
+        } else if (statement instanceof LoadStatement) {
+            return ((LoadStatement) statement).getStatements();
+        } else if (statement instanceof ParallelDdlStatement) {
+            return ((ParallelDdlStatement) statement).getStatements();
+        } else if (statement instanceof ReorgStatement) {
+            return ((ReorgStatement) statement).getStatements();
+        } else if (statement instanceof WaitForReorgStatement) {
+            return ((WaitForReorgStatement) statement).getStatements();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Records the time spent parsing the script
+     *
+     * @param nanos Duration in nanoseconds
+     */
+    public synchronized void recordParse(long nanos) {
+        parseNanos += nanos;
+    }
+
+    /**
+     * Records the execution of a statement
+     *
+     * @param statement The statement, see {@link #kindOf(SqlStatement)}
+     * @param nanos Duration in nanoseconds
+     * @param rows Rows affected, negative if unknown
+     */
+    public synchronized void recordExecution(SqlStatement statement, long nanos, long rows) {
+        kinds.computeIfAbsent(kindOf(statement), kind -> new KindMetrics()).add(nanos, rows);
+        if (maxSlowest > 0 && (slowest.size() < maxSlowest || slowest.peek().nanos < nanos)) {
+            slowest.add(new SlowStatement(lineOf(statement), describe(statement), nanos));
+            if (slowest.size() > maxSlowest) {
+                slowest.poll();
+            }
+        }
+    }
+
+    /**
+     * Records retrieving DBMS_OUTPUT
+     *
+     * @param nanos Duration in nanoseconds
+     */
+    public synchronized void recordDbmsOutputDrain(long nanos) {
+        drainNanos += nanos;
+        drains++;
+    }
+
+    /**
+     * Records a retry after a deadlock or lock timeout, see {@link LockRetry}
+     *
+     * @param replayed Number of statements of the unit of work executed again before the statement
+     */
+    public synchronized void recordLockRetry(int replayed) {
+        lockRetries++;
+        replayedStatements += replayed;
+    }
+
+    /**
+     * Adds all metrics of another script to these
+     *
+     * @param other The metrics of another script
+     */
+    public synchronized void add(ScriptMetrics other) {
+        synchronized (other) {
+            parseNanos += other.parseNanos;
+            drainNanos += other.drainNanos;
+            drains += other.drains;
+            lockRetries += other.lockRetries;
+            replayedStatements += other.replayedStatements;
+            for (Map.Entry<StatementKind, KindMetrics> entry : other.kinds.entrySet()) {
+                kinds.computeIfAbsent(entry.getKey(), kind -> new KindMetrics()).add(entry.getValue());
+            }
+            for (SlowStatement statement : other.slowest) {
+                slowest.add(new SlowStatement(statement.line, other.script + ": " + statement.sql,
+                        statement.nanos));
+                if (slowest.size() > maxSlowest) {
+                    slowest.poll();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Number of statements executed
+     */
+    public synchronized long getStatementCount() {
+        return kinds.values().stream().mapToLong(k -> k.count).sum();
+    }
+
+    /**
+     * @return Total execution time of the statements in milliseconds
+     */
+    public synchronized long getExecutionMillis() {
+        return kinds.values().stream().mapToLong(k -> k.nanos).sum() / 1000000;
+    }
+
+    /**
+     * @return Number of rows changed, as far as the driver reports it
+     */
+    public synchronized long getRowsAffected() {
+        return kinds.values().stream().mapToLong(k -> k.rows).sum();
+    }
+
+    /**
+     * @return Time spent parsing in milliseconds
+     */
+    public synchronized long getParseMillis() {
+        return parseNanos / 1000000;
+    }
+
+    /**
+     * @return Time spent retrieving DBMS_OUTPUT in milliseconds
+     */
+    public synchronized long getDbmsOutputDrainMillis() {
+        return drainNanos / 1000000;
+    }
+
+    /**
+     * @return Number of retries after deadlocks and lock timeouts
+     */
+    public synchronized int getLockRetries() {
+        return lockRetries;
+    }
+
+    /**
+     * Gets the latency histogram of each kind of statement
+     *
+     * @return One line per kind, e.g. 'DML: 10 statements, 2 ms, 10 rows, <1ms: 9, <10ms: 1'
+     */
+    public synchronized List<String> getLatencyHistogram() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<StatementKind, KindMetrics> entry : kinds.entrySet()) {
+            KindMetrics metrics = entry.getValue();
+            StringBuilder line = new StringBuilder(entry.getKey() + ": " + metrics.count + " statements, "
+                    + metrics.nanos / 1000000 + " ms, " + metrics.rows + " rows");
+            for (int i = 0; i < metrics.buckets.length; i++) {
+                if (metrics.buckets[i] > 0) {
+                    line.append(", ").append(i < BUCKET_LIMITS_MILLIS.length
+                            ? "<" + BUCKET_LIMITS_MILLIS[i] + "ms" : ">=" + BUCKET_LIMITS_MILLIS[i - 1] + "ms")
+                            .append(": ").append(metrics.buckets[i]);
+                }
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Gets the slowest statements
+     *
+     * @return One line per statement, slowest first, e.g. 'line 12 (1500 ms): UPDATE ...'
+     */
+    public synchronized List<String> getSlowestStatements() {
+        List<SlowStatement> statements = new ArrayList<>(slowest);
+        statements.sort(Comparator.comparingLong((SlowStatement s) -> s.nanos).reversed());
+        List<String> lines = new ArrayList<>();
+        for (SlowStatement statement : statements) {
+            lines.add("line " + statement.line + " (" + statement.nanos / 1000000 + " ms): " + statement.sql);
+        }
+        return lines;
+    }
+
+    /**
+     * Gets a summary of all metrics, for the log
+     *
+     * @return String, multiple lines
+     */
+    public synchronized String getSummary() {
+        StringBuilder summary = new StringBuilder("Metrics of " + script + ": " + getStatementCount() + " statements in "
+                + getExecutionMillis() + " ms, " + getRowsAffected() + " rows, parsed in " + getParseMillis() + " ms");
+        if (drains > 0) {
+            summary.append(", DBMS_OUTPUT retrieved ").append(drains).append(" times in ")
+                    .append(getDbmsOutputDrainMillis()).append(" ms");
+        }
+        if (lockRetries > 0) {
+            summary.append(", ").append(lockRetries).append(" lock retries replaying ").append(replayedStatements)
+                    .append(" statements");
+        }
+        for (String line : getLatencyHistogram()) {
+            summary.append("\n  ").append(line);
+        }
+        for (String line : getSlowestStatements()) {
+            summary.append("\n  Slow: ").append(line);
+        }
+        return summary.toString();
+    }
+
+    private static String describe(SqlStatement statement) {
+        if (!(statement instanceof Db2RawSqlStatement)) {
+            return statement.toString();
+        }
+        String sql = ((Db2RawSqlStatement) statement).getSql().replaceAll("\\s+", " ").trim();
+        return sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "..." : sql;
+    }
+
+    private static class KindMetrics {
+
+        private final long[] buckets = new long[BUCKET_LIMITS_MILLIS.length + 1];
+        private long count;
+        private long nanos;
+        private long rows;
+
+        void add(long nanos, long rows) {
+            count++;
+            this.nanos += nanos;
+            this.rows += Math.max(rows, 0);
+            int bucket = 0;
+            while (bucket < BUCKET_LIMITS_MILLIS.length && nanos >= BUCKET_LIMITS_MILLIS[bucket] * 1000000) {
+                bucket++;
+            }
+            buckets[bucket]++;
+        }
+
+        void add(KindMetrics other) {
+            count += other.count;
+            nanos += other.nanos;
+            rows += other.rows;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += other.buckets[i];
+            }
+        }
+    }
+
+    private static class SlowStatement {
+
+        private final int line;
+        private final String sql;
+        private final long nanos;
+
+        SlowStatement(int line, String sql, long nanos) {
+            this.line = line;
+            this.sql = sql;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package liquibase.change.ext.db2.enhanced;
+
+import java.util.Comparator;
+
+/**
+ * The order in which the scripts of a 'db2SqlDirectory' change are executed, by their path relative to the directory.
+ *
+ * @since 1.2
+ */
+public enum ScriptOrder implements Comparator<String> {
+
+    /**
+     * By name, character by character, e.g. 'V10.sql' before 'V2.sql'
+     */
+    NAME {
+        @Override
+        public int compare(String path1, String path2) {
+            return path1.compareTo(path2);
+        }
+    },
+
+    /**
+     * By name, with numbers compared by their value, e.g. 'V2.sql' before 'V10.sql'
+     */
+    NATURAL {
+        @Override
+        public int compare(String path1, String path2) {
+            int i1 = 0;
+            int i2 = 0;
+            while (i1 < path1.length() && i2 < path2.length()) {
+                char c1 = path1.charAt(i1);
+                char c2 = path2.charAt(i2);
+                if (Character.isDigit(c1) && Character.isDigit(c2)) {
+                    int end1 = endOfNumber(path1, i1);
+                    int end2 = endOfNumber(path2, i2);
+                    int result = compareNumbers(path1.substring(i1, end1), path2.substring(i2, end2));
+                    if (result != 0) {
+                        return result;
+                    }
+                    i1 = end1;
+                    i2 = end2;
+                } else if (c1 != c2) {
+                    return Character.compare(c1, c2);
+                } else {
+                    i1++;
+                    i2++;
+                }
+            }
+            int result = Integer.compare(path1.length() - i1, path2.length() - i2);
+            // Paths which only differ in leading zeros still need an order
+            return result != 0 ? result : path1.compareTo(path2);
+        }
+    };
+
+    private static int endOfNumber(String path, int start) {
+        int end = start;
+        while (end < path.length() && Character.isDigit(path.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static int compareNumbers(String number1, String number2) {
+        String digits1 = stripLeadingZeros(number1);
+        String digits2 = stripLeadingZeros(number2);
+        return digits1.length() != digits2.length()
+                ? Integer.compare(digits1.length(), digits2.length()) : digits1.compareTo(digits2);
+    }
+
+    private static String stripLeadingZeros(String number) {
+        int start = 0;
+        while (start < number.length() - 1 && number.charAt(start) == '0') {
+            start++;
+        }
+        return number.substring(start);
+    }
+
+    /**
+     * Gets an order by its name in the change log
+     *
+     * @param name 'name' or 'natural', case is ignored
+     * @return The order, null if the name is unknown
+     */
+    public static ScriptOrder of(String name) {
+        for (ScriptOrder order : values()) {
+            if (order.name().equalsIgnoreCase(name)) {
+                return order;
+            }
+        }
+        return null;
+    }
+}
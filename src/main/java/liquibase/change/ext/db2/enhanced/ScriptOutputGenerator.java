@@ -0,0 +1,74 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.UnexpectedLiquibaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.executor.Executor;
+import liquibase.executor.ExecutorService;
+import liquibase.executor.LoggingExecutor;
+import liquibase.sql.Sql;
+import liquibase.sql.UnparsedSql;
+import liquibase.sqlgenerator.SqlGeneratorChain;
+import liquibase.sqlgenerator.core.AbstractSqlGenerator;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+
+/**
+ * Generates the updateSQL output of a {@link ScriptOutputStatement}.
+ * <p>
+ * The statements of the script are written straight to the output of the current {@link LoggingExecutor},
+ * and no SQL is returned, so the output keeps the terminators of the script and is generated in constant memory.
+ * If that output is not available, the script is returned as a single piece of SQL instead.
+ *
+ * @since 1.2
+ */
+public class ScriptOutputGenerator extends AbstractSqlGenerator<ScriptOutputStatement> {
+
+    @Override
+    public ValidationErrors validate(ScriptOutputStatement statement, Database database,
+                                     SqlGeneratorChain<ScriptOutputStatement> sqlGeneratorChain) {
+        return new ValidationErrors();
+    }
+
+    @Override
+    public Sql[] generateSql(ScriptOutputStatement statement, Database database,
+                             SqlGeneratorChain<ScriptOutputStatement> sqlGeneratorChain) {
+        try {
+            Writer output = getOutput(database);
+            if (output != null) {
+                statement.write(output);
+                return EMPTY_SQL;
+            }
+            StringWriter script = new StringWriter();
+            statement.write(script);
+            return new Sql[] { new UnparsedSql(script.toString().trim()) };
+        } catch (DatabaseException e) {
+            throw new UnexpectedLiquibaseException(e);
+        }
+    }
+
+    /**
+     * The output of the LoggingExecutor is not public
+     *
+     * @return The output, null if not available
+     */
+    private static Writer getOutput(Database database) {
+        Executor executor = Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database);
+        if (!(executor instanceof LoggingExecutor)) {
+            return null;
+        }
+        try {
+            Method getOutput = LoggingExecutor.class.getDeclaredMethod("getOutput");
+            getOutput.setAccessible(true);
+            return (Writer) getOutput.invoke(executor);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            Scope.getCurrentScope().getLog(ScriptOutputGenerator.class)
+                    .warning("Cannot write to the updateSQL output, generating the script in memory: " + e.getMessage());
+            return null;
+        }
+    }
+}
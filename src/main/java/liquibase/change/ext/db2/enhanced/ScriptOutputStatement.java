@@ -0,0 +1,52 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.AbstractSqlStatement;
+
+import java.io.Writer;
+
+/**
+ * A single statement standing for a whole 'db2SqlFile' script in updateSQL output.
+ * The {@link ScriptOutputGenerator} writes the statements of the script straight to the output as they are parsed
+ * (see {@link ClpScriptWriter}), so the script never has to be held in memory as a whole.
+ *
+ * @since 1.2
+ */
+public class ScriptOutputStatement extends AbstractSqlStatement {
+
+    private final Db2SQLFileChange change;
+    private final Database database;
+
+    /**
+     * @param change The change providing the script and the parse options
+     * @param database The database the script is generated for
+     */
+    public ScriptOutputStatement(Db2SQLFileChange change, Database database) {
+        this.change = change;
+        this.database = database;
+    }
+
+    /**
+     * Writes the statements of the script
+     *
+     * @param output Receives the script, is not closed
+     * @return The number of statements written
+     * @throws DatabaseException If the script cannot be read or written
+     */
+    public int write(Writer output) throws DatabaseException {
+        return change.writeSqlStatements(database, output);
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ScriptOutputStatement{" +
+                "path='" + change.getPath() + '\'' +
+                '}';
+    }
+}
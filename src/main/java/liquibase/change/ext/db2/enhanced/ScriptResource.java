@@ -0,0 +1,158 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.change.AbstractSQLChange;
+import liquibase.change.CheckSum;
+import liquibase.resource.Resource;
+import liquibase.util.StreamUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The content and Liquibase checksums of a script, memoized for the JVM by the URI of its resource, so a script is read
+ * once for its checksum and its statements, and the checksum is computed once however often Liquibase asks for it.
+ * <p>
+ * An entry is only reused while the size and modification time of the file (or of the JAR file it is in) are the same.
+ * Resources which are neither files nor in a JAR file are not memoized. The content is only kept while memory allows
+ * (with a {@link SoftReference}), and not at all for scripts that are streamed, so it is read again if needed.
+ *
+ * @since 1.2
+ */
+public class ScriptResource {
+
+    private static final Map<URI, ScriptResource> RESOURCES = new ConcurrentHashMap<>();
+
+    private final Resource resource;
+    private final Path file;
+    private final long size;
+    private final long modified;
+    private final Map<String, CheckSum> checkSums = new ConcurrentHashMap<>();
+    private SoftReference<byte[]> content;
+
+    private ScriptResource(Resource resource, Path file, BasicFileAttributes attributes) {
+        this.resource = resource;
+        this.file = file;
+        this.size = attributes == null ? -1 : attributes.size();
+        this.modified = attributes == null ? -1 : attributes.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Gets the memoized script of a resource
+     *
+     * @param resource The resource of the script
+     * @return The script, a new one if the resource is not memoized or its file changed
+     */
+    public static ScriptResource of(Resource resource) {
+        URI uri = resource.getUri();
+        Path file = fileOf(uri);
+        BasicFileAttributes attributes = null;
+        if (file != null) {
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (IOException | UnsupportedOperationException e) {
+                file = null;
+            }
+        }
+        if (file == null) {
+            return new ScriptResource(resource, null, null);
+        }
+        ScriptResource script = RESOURCES.get(uri);
+        if (script == null || script.size != attributes.size()
+                || script.modified != attributes.lastModifiedTime().toMillis()) {
+            script = new ScriptResource(resource, file, attributes);
+            RESOURCES.put(uri, script);
+        }
+        return script;
+    }
+
+    /**
+     * @return The file of a 'file:' URI, or the JAR file of a 'jar:file:' URI, null for any other URI
+     */
+    private static Path fileOf(URI uri) {
+        String location = uri.toString();
+        if (location.startsWith("jar:file:") && location.contains("!/")) {
+            location = location.substring("jar:".length(), location.indexOf("!/"));
+        } else if (!location.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return Paths.get(URI.create(location));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if this is still the memoized script of its resource, see {@link #of(Resource)}
+     *
+     * @return false if the file changed, or the resource is not memoized
+     */
+    public boolean isCurrent() {
+        return of(resource) == this;
+    }
+
+    /**
+     * Opens the script, from its content in memory if it is still there
+     *
+     * @param isKept If true, the content is read into memory (unless it is there) and kept for the next call
+     * @return The stream, to close by the caller
+     */
+    public InputStream open(boolean isKept) throws IOException {
+        byte[] bytes = getContent();
+        if (bytes == null && isKept) {
+            if (file != null && resource.getUri().getScheme().equals("file")) {
+                // Read at once, into an array of the size of the file
+                bytes = Files.readAllBytes(file);
+            } else {
+                try (InputStream stream = resource.openInputStream()) {
+                    bytes = StreamUtil.readStream(stream);
+                }
+            }
+            if (file != null) {
+                synchronized (this) {
+                    content = new SoftReference<>(bytes);
+                }
+            }
+        }
+        return bytes == null ? resource.openInputStream() : new ByteArrayInputStream(bytes);
+    }
+
+    private synchronized byte[] getContent() {
+        return content == null ? null : content.get();
+    }
+
+    /**
+     * Gets the checksum Liquibase computes for an 'sqlFile' with this script, see
+     * {@link AbstractSQLChange#generateCheckSum()}
+     *
+     * @param endDelimiter The end delimiter of the change
+     * @param splitStatements 'splitStatements' of the change
+     * @param stripComments 'stripComments' of the change
+     * @param isKept See {@link #open(boolean)}
+     * @return The checksum, computed from the bytes of the script like Liquibase does
+     */
+    public CheckSum getCheckSum(String endDelimiter, Boolean splitStatements, Boolean stripComments, boolean isKept)
+            throws IOException {
+        String key = endDelimiter + "\n" + splitStatements + "\n" + stripComments;
+        CheckSum checkSum = checkSums.get(key);
+        if (checkSum == null) {
+            try (InputStream stream = open(isKept)) {
+                checkSum = CheckSum.compute(new AbstractSQLChange.NormalizingStream(endDelimiter, splitStatements,
+                        stripComments, stream), false);
+            }
+            if (file != null) {
+                checkSums.put(key, checkSum);
+            }
+        }
+        return checkSum;
+    }
+}
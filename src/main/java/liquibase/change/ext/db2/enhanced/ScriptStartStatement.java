@@ -0,0 +1,147 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.PreparedStatementFactory;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+/**
+ * Marks the start of a script: the {@link ScriptExecutor} applies the settings of the script when it executes
+ * this (retrieving DBMS_OUTPUT, its limit of lines, retries) and records the following statements in the
+ * {@link ScriptMetrics} of the script, and the metrics become the current metrics of {@link Db2EnhancedMetrics}.
+ * The {@link Checkpoint} of a previous run is read, and the executor skips the statements it covers. The executor
+ * records when the tables of the {@link RunstatsStatement} are modified.
+ * <p>
+ * The statements of a script are generated before any of them is executed, and a 'db2SqlDirectory' generates
+ * the statements of all its scripts first, so the state of a script is only applied when this is executed.
+ *
+ * @since 1.2
+ */
+public class ScriptStartStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private final String path;
+    private final ScriptMetrics metrics;
+    private final Checkpoint checkpoint;
+    private final boolean dbmsOutputEnabled;
+    private final int drainEvery;
+    private final DbmsOutputLimit outputLimit;
+    private final boolean lockRetried;
+    private final RunstatsStatement runstats;
+
+    /**
+     * @param path The path of the script
+     * @param metrics The metrics of the script, null if not recorded
+     * @param checkpoint The checkpoint of the script, null if not used
+     * @param dbmsOutputEnabled If true, DBMS_OUTPUT is retrieved from the start of the script
+     * @param drainEvery See {@link DbmsOutputExecutor#getDrainEvery()}
+     * @param outputLimit The limit of DBMS_OUTPUT lines of the script, null if unlimited
+     * @param lockRetried If true, a {@link LockRetryStatement} follows, otherwise statements are not retried
+     * @param runstats The statement collecting the statistics of the tables the script modifies, null if not enabled
+     */
+    public ScriptStartStatement(String path, ScriptMetrics metrics, Checkpoint checkpoint, boolean dbmsOutputEnabled,
+                                int drainEvery, DbmsOutputLimit outputLimit, boolean lockRetried,
+                                RunstatsStatement runstats) {
+        this.path = path;
+        this.metrics = metrics;
+        this.checkpoint = checkpoint;
+        this.dbmsOutputEnabled = dbmsOutputEnabled;
+        this.drainEvery = drainEvery;
+        this.outputLimit = outputLimit;
+        this.lockRetried = lockRetried;
+        this.runstats = runstats;
+    }
+
+    /**
+     * Gets the path of the script
+     *
+     * @return String
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the metrics of the script
+     *
+     * @return ScriptMetrics, null if not recorded
+     */
+    public ScriptMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the checkpoint of the script
+     *
+     * @return Checkpoint, null if not used
+     */
+    public Checkpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Checks if DBMS_OUTPUT is retrieved from the start of the script
+     *
+     * @return boolean
+     */
+    public boolean isDbmsOutputEnabled() {
+        return dbmsOutputEnabled;
+    }
+
+    /**
+     * Gets the number of statements that can produce output after which the output is retrieved
+     *
+     * @return int, 0 or less if only retrieved at the end of the script
+     */
+    public int getDrainEvery() {
+        return drainEvery;
+    }
+
+    /**
+     * Gets the limit of DBMS_OUTPUT lines of the script
+     *
+     * @return DbmsOutputLimit, null if unlimited
+     */
+    public DbmsOutputLimit getOutputLimit() {
+        return outputLimit;
+    }
+
+    /**
+     * Checks if the statements of the script are retried after deadlocks and lock timeouts
+     *
+     * @return boolean
+     */
+    public boolean isLockRetried() {
+        return lockRetried;
+    }
+
+    /**
+     * Gets the statement collecting the statistics of the tables the script modifies
+     *
+     * @return RunstatsStatement, null if not enabled
+     */
+    public RunstatsStatement getRunstats() {
+        return runstats;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        if (metrics != null) {
+            Db2EnhancedMetrics.startScript(metrics);
+        }
+        if (checkpoint != null) {
+            checkpoint.read();
+        }
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "ScriptStartStatement{" +
+                "path='" + path + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,29 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+
+/**
+ * Receives the SQL statements of a script one at a time, in script order.
+ *
+ * @since 1.2
+ */
+@FunctionalInterface
+public interface SqlStatementConsumer {
+
+    /**
+     * Handles the next statement of the script
+     *
+     * @param statement The statement, never null
+     * @throws DatabaseException If the statement could not be handled (e.g. executed)
+     */
+    void accept(SqlStatement statement) throws DatabaseException;
+
+    /**
+     * Called after the last statement of the script, to pass on any statements that were held back
+     *
+     * @throws DatabaseException If the statements could not be handled
+     */
+    default void flush() throws DatabaseException {
+    }
+}
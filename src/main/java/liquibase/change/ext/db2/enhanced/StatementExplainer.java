@@ -0,0 +1,124 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.exception.DatabaseException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Explains statements with 'EXPLAIN PLAN FOR', and reads their estimated cost, cardinality and table scans
+ * from the explain tables into an {@link ExplainReport}. The statements themselves are not executed.
+ * <p>
+ * DB2 writes to the explain tables of the session user, or to those in SYSTOOLS if the user has none.
+ * They can be created with 'CALL SYSPROC.SYSINSTALLOBJECTS('EXPLAIN', 'C', NULL, NULL)'.
+ * The rows of each run are tagged with their own QUERYTAG, and each statement gets its own QUERYNO.
+ *
+ * @since 1.2
+ */
+public class StatementExplainer {
+
+    private static final int MISSING_EXPLAIN_TABLE = -219;
+    private static final int INVALID_EXPLAIN_TABLE = -220;
+
+    private static final String KEY_JOIN = "%1$s.EXPLAIN_REQUESTER = S.EXPLAIN_REQUESTER AND %1$s.EXPLAIN_TIME = S.EXPLAIN_TIME "
+            + "AND %1$s.SOURCE_NAME = S.SOURCE_NAME AND %1$s.SOURCE_SCHEMA = S.SOURCE_SCHEMA "
+            + "AND %1$s.SOURCE_VERSION = S.SOURCE_VERSION AND %1$s.EXPLAIN_LEVEL = S.EXPLAIN_LEVEL "
+            + "AND %1$s.STMTNO = S.STMTNO AND %1$s.SECTNO = S.SECTNO";
+
+    private final Connection connection;
+    private final String queryTag;
+    private String schema;
+    private int queryNo;
+
+    /**
+     * @param connection The connection the statements will be executed with
+     */
+    public StatementExplainer(Connection connection) {
+        this.connection = connection;
+        this.queryTag = "LB" + Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+    }
+
+    /**
+     * Explains a statement, and adds it to the report
+     *
+     * @param statement The statement, a DML statement or a query
+     * @param count The number of statements of the script with the same shape
+     * @param report Receives the estimates, or the error if DB2 cannot explain the statement
+     * @throws DatabaseException If the explain tables are missing or cannot be read
+     */
+    public void explain(Db2RawSqlStatement statement, int count, ExplainReport report) throws DatabaseException {
+        int number = ++queryNo;
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("EXPLAIN PLAN SET QUERYNO = " + number + " SET QUERYTAG = '" + queryTag + "' FOR "
+                    + statement.getSql());
+        } catch (SQLException e) {
+            if (e.getErrorCode() == MISSING_EXPLAIN_TABLE || e.getErrorCode() == INVALID_EXPLAIN_TABLE) {
+                throw new DatabaseException("The explain tables are missing or invalid, create them with "
+                        + "CALL SYSPROC.SYSINSTALLOBJECTS('EXPLAIN', 'C', NULL, NULL): " + e.getMessage(), e);
+            }
+            report.addFailure(statement, e.getMessage());
+            return;
+        }
+        try {
+            double cost = 0;
+            try (PreparedStatement stmt = connection.prepareStatement("SELECT TOTAL_COST FROM " + getSchema()
+                    + ".EXPLAIN_STATEMENT WHERE QUERYTAG = ? AND QUERYNO = ? AND EXPLAIN_LEVEL = 'P'")) {
+                stmt.setString(1, queryTag);
+                stmt.setInt(2, number);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        cost = Math.max(cost, rs.getDouble(1));
+                    }
+                }
+            }
+            double cardinality = 0;
+            List<String> tableScans = new ArrayList<>();
+            // The stream into the RETURN operator holds the rows of the statement, the data streams into
+            // TBSCAN operators the tables which are scanned
+            try (PreparedStatement stmt = connection.prepareStatement("SELECT O.OPERATOR_TYPE, T.STREAM_COUNT, "
+                    + "T.OBJECT_SCHEMA, T.OBJECT_NAME FROM " + getSchema() + ".EXPLAIN_STATEMENT S JOIN " + getSchema()
+                    + ".EXPLAIN_OPERATOR O ON " + String.format(KEY_JOIN, "O") + " JOIN " + getSchema()
+                    + ".EXPLAIN_STREAM T ON " + String.format(KEY_JOIN, "T")
+                    + " AND T.TARGET_TYPE = 'O' AND T.TARGET_ID = O.OPERATOR_ID "
+                    + "WHERE S.QUERYTAG = ? AND S.QUERYNO = ? AND S.EXPLAIN_LEVEL = 'P' "
+                    + "AND (O.OPERATOR_TYPE = 'RETURN' OR (O.OPERATOR_TYPE = 'TBSCAN' AND T.SOURCE_TYPE = 'D')) "
+                    + "ORDER BY O.OPERATOR_ID")) {
+                stmt.setString(1, queryTag);
+                stmt.setInt(2, number);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if ("RETURN".equals(rs.getString(1).trim())) {
+                            cardinality = Math.max(cardinality, rs.getDouble(2));
+                        } else {
+                            tableScans.add(rs.getString(3).trim() + "." + rs.getString(4).trim()
+                                    + " (" + Math.round(rs.getDouble(2)) + " rows)");
+                        }
+                    }
+                }
+            }
+            report.add(statement, count, cost, cardinality, tableScans);
+        } catch (SQLException e) {
+            throw new DatabaseException("Error reading the explain tables: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Finds the explain tables the same way DB2 does: those of the session user, else those in SYSTOOLS
+     */
+    private String getSchema() throws SQLException {
+        if (schema == null) {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT TABSCHEMA FROM SYSCAT.TABLES WHERE TABNAME = 'EXPLAIN_STATEMENT' "
+                         + "AND TABSCHEMA IN (SESSION_USER, 'SYSTOOLS') "
+                         + "ORDER BY CASE WHEN TABSCHEMA = 'SYSTOOLS' THEN 1 ELSE 0 END FETCH FIRST 1 ROW ONLY")) {
+                schema = rs.next() ? "\"" + rs.getString(1).trim() + "\"" : "SYSTOOLS";
+            }
+        }
+        return schema;
+    }
+}
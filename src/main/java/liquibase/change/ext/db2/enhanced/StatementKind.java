@@ -0,0 +1,116 @@
+package liquibase.change.ext.db2.enhanced;
+
+/**
+ * A rough classification of SQL statements, based on the first keyword after any leading comments.
+ *
+ * @since 1.2
+ */
+public enum StatementKind {
+
+    /** CALL of a procedure */
+    CALL,
+    /** Anonymous block or compound statement (BEGIN ... END, optionally labelled) */
+    BLOCK,
+    /** SELECT, VALUES or WITH */
+    QUERY,
+    /** INSERT, UPDATE, DELETE or MERGE */
+    DML,
+    /** CREATE, ALTER, DROP, COMMENT, GRANT, REVOKE, RENAME, LABEL or TRUNCATE */
+    DDL,
+    COMMIT,
+    ROLLBACK,
+    /** SET of a special register, e.g. SET CURRENT SCHEMA */
+    SET,
+    /** Anything that could not be classified */
+    OTHER;
+
+    /**
+     * Checks if a statement of this kind may write to DBMS_OUTPUT.
+     * Statements that cannot be classified are assumed to produce output.
+     *
+     * @return true for CALLs, blocks and unknown statements
+     */
+    public boolean canProduceOutput() {
+        return this == CALL || this == BLOCK || this == OTHER;
+    }
+
+    /**
+     * Classifies a statement
+     *
+     * @param sql The statement, may start with comments
+     * @return The kind, never null
+     */
+    public static StatementKind of(String sql) {
+        if (sql == null) {
+            return OTHER;
+        }
+        int index = skipWhitespaceAndComments(sql, 0);
+        int end = wordEnd(sql, index);
+        String keyword = sql.substring(index, end).toUpperCase();
+        int next = skipWhitespaceAndComments(sql, end);
+        if (next < sql.length() && sql.charAt(next) == ':' && !keyword.isEmpty()) {
+            // A labelled compound statement, e.g. 'P1: BEGIN'
+            next = skipWhitespaceAndComments(sql, next + 1);
+            keyword = sql.substring(next, wordEnd(sql, next)).toUpperCase();
+        }
+        switch (keyword) {
+            case "CALL":
+                return CALL;
+            case "BEGIN":
+            case "DECLARE":
+                return BLOCK;
+            case "SELECT":
+            case "VALUES":
+            case "WITH":
+                return QUERY;
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "MERGE":
+                return DML;
+            case "CREATE":
+            case "ALTER":
+            case "DROP":
+            case "COMMENT":
+            case "GRANT":
+            case "REVOKE":
+            case "RENAME":
+            case "LABEL":
+            case "TRUNCATE":
+                return DDL;
+            case "COMMIT":
+                return COMMIT;
+            case "ROLLBACK":
+                return ROLLBACK;
+            case "SET":
+                return SET;
+            default:
+                return OTHER;
+        }
+    }
+
+    private static int skipWhitespaceAndComments(String sql, int index) {
+        while (index < sql.length()) {
+            char c = sql.charAt(index);
+            if (Character.isWhitespace(c)) {
+                index++;
+            } else if (sql.startsWith("--", index)) {
+                int lineEnd = sql.indexOf('\n', index);
+                index = lineEnd == -1 ? sql.length() : lineEnd + 1;
+            } else if (sql.startsWith("/*", index)) {
+                int commentEnd = sql.indexOf("*/", index + 2);
+                index = commentEnd == -1 ? sql.length() : commentEnd + 2;
+            } else {
+                break;
+            }
+        }
+        return index;
+    }
+
+    private static int wordEnd(String sql, int index) {
+        while (index < sql.length() && (Character.isLetterOrDigit(sql.charAt(index)) || sql.charAt(index) == '_')) {
+            index++;
+        }
+        return index;
+    }
+}
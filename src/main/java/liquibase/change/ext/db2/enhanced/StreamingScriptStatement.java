@@ -0,0 +1,50 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.ExecutorService;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+/**
+ * A single statement standing for a whole 'db2SqlFile' script.
+ * When executed, the script is read and each statement is handed to the current JDBC executor as soon as it is parsed,
+ * so the script never has to be held in memory as a whole.
+ *
+ * @since 1.2
+ */
+public class StreamingScriptStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private final Db2SQLFileChange change;
+    private final Database database;
+
+    /**
+     * @param change The change providing the script and the parse options
+     * @param database The database the script is executed against
+     */
+    public StreamingScriptStatement(Db2SQLFileChange change, Database database) {
+        this.change = change;
+        this.database = database;
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        // The executor is looked up for every statement, as the script may install the ScriptExecutor
+        change.streamSqlStatements(database, statement ->
+                Scope.getCurrentScope().getSingleton(ExecutorService.class).getExecutor("jdbc", database).execute(statement));
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingScriptStatement{" +
+                "path='" + change.getPath() + '\'' +
+                '}';
+    }
+}
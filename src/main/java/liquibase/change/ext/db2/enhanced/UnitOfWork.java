@@ -0,0 +1,135 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.statement.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The statements executed since the start of the current unit of work, as far as they can be executed again
+ * after DB2 rolled back the unit of work (see {@link LockRetry}).
+ * <p>
+ * DML statements, queries, SET statements, savepoints and DDL (which is transactional in DB2, except TRUNCATE)
+ * can be executed again. CALLs, blocks, LOADs, REORGs and statements on other connections can have effects
+ * which are not rolled back, so a unit of work with one of them cannot be replayed.
+ * Neither can a unit of work which did not start in a script, or which holds too many statements.
+ *
+ * @since 1.2
+ */
+public class UnitOfWork {
+
+    private static final int MAX_STATEMENTS = 10000;
+
+    private static final String LEADING_COMMENTS = "(?is)^(\\s|--[^\\n]*(\\n|$)|/\\*.*?\\*/)*";
+    private static final Pattern SAVEPOINT = Pattern.compile(LEADING_COMMENTS + "(SAVEPOINT|RELEASE)\\s");
+    private static final Pattern TO_SAVEPOINT = Pattern.compile(LEADING_COMMENTS + "ROLLBACK(\\s+WORK)?\\s+TO\\s+SAVEPOINT\\b");
+    private static final Pattern TRUNCATE = Pattern.compile(LEADING_COMMENTS + "TRUNCATE\\s");
+
+    private final List<SqlStatement> statements = new ArrayList<>();
+    private boolean isReplayable;
+
+    /**
+     * Starts a new unit of work, e.g. after a COMMIT
+     */
+    public void start() {
+        statements.clear();
+        isReplayable = true;
+    }
+
+    /**
+     * Records an executed statement
+     *
+     * @param statement Any statement executed on the connection
+     */
+    public void executed(SqlStatement statement) {
+        if (isEnd(statement)) {
+            start();
+        } else if (isReplayable(statement)) {
+            if (isReplayable && statements.size() < MAX_STATEMENTS) {
+                statements.add(statement);
+            } else {
+                discard();
+            }
+        } else if (!isNeutral(statement)) {
+            discard();
+        }
+    }
+
+    /**
+     * Marks the unit of work as not replayable until it ends, e.g. when its statements were not recorded
+     */
+    public void discard() {
+        statements.clear();
+        isReplayable = false;
+    }
+
+    /**
+     * Checks if the unit of work can be executed again
+     *
+     * @return true if all its statements can be executed again
+     */
+    public boolean isReplayable() {
+        return isReplayable;
+    }
+
+    /**
+     * Gets the statements to execute again
+     *
+     * @return List, in execution order, empty if the unit of work cannot be replayed
+     */
+    public List<SqlStatement> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * Checks if a statement of a script can be executed again after it (or its unit of work) was rolled back
+     *
+     * @param statement Any statement
+     * @return true for DML statements, queries, SET statements, savepoints and DDL except TRUNCATE
+     */
+    public static boolean isReplayable(SqlStatement statement) {
+        if (statement instanceof BatchedDmlStatement || statement instanceof FileChecksumStatement
+                || statement instanceof ClearCheckpointStatement) {
+            return true;
+        } else if (!(statement instanceof Db2RawSqlStatement)) {
+            return false;
+        }
+        String sql = ((Db2RawSqlStatement) statement).getSql();
+        switch (((Db2RawSqlStatement) statement).getKind()) {
+            case DML:
+            case QUERY:
+            case SET:
+                return true;
+            case DDL:
+                return !TRUNCATE.matcher(sql).find();
+            case ROLLBACK:
+                return TO_SAVEPOINT.matcher(sql).find();
+            case OTHER:
+                return SAVEPOINT.matcher(sql).find();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true for the statements which end the unit of work
+     */
+    private static boolean isEnd(SqlStatement statement) {
+        if (statement instanceof CommitIntervalStatement) {
+            return ((CommitIntervalStatement) statement).isCommitted();
+        }
+        StatementKind kind = ScriptMetrics.kindOf(statement);
+        return kind == StatementKind.COMMIT || kind == StatementKind.ROLLBACK && !isReplayable(statement);
+    }
+
+    /**
+     * @return true for the statements which change nothing in the database
+     */
+    private static boolean isNeutral(SqlStatement statement) {
+        return statement instanceof CommitIntervalStatement || statement instanceof DrainDbmsOutputStatement
+                || statement instanceof MetricsSummaryStatement || statement instanceof LockRetryStatement
+                || statement instanceof ExplainStatement || statement instanceof WaitForReorgStatement;
+    }
+}
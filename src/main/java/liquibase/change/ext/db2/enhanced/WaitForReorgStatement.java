@@ -0,0 +1,65 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.Database;
+import liquibase.database.PreparedStatementFactory;
+import liquibase.exception.DatabaseException;
+import liquibase.statement.AbstractSqlStatement;
+import liquibase.statement.ExecutablePreparedStatement;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A point in a script where online REORGs must be finished (see {@link OnlineReorgMonitor}):
+ * a '--WAIT FOR REORG' statement, a DDL statement that uses the table, or the end of the script.
+ *
+ * @since 1.2
+ */
+public class WaitForReorgStatement extends AbstractSqlStatement implements ExecutablePreparedStatement {
+
+    private final Database database;
+    private final OnlineReorgMonitor monitor;
+    private final Set<String> tables;
+    private final Db2RawSqlStatement statement;
+
+    /**
+     * @param database The database the REORGs run in
+     * @param monitor Tracks the running REORGs
+     * @param tables Only REORGs of tables with one of these names (without schema) are waited for, null for all
+     * @param statement The '--WAIT FOR REORG' statement this replaces, null if the wait was added
+     */
+    public WaitForReorgStatement(Database database, OnlineReorgMonitor monitor, Set<String> tables,
+                                 Db2RawSqlStatement statement) {
+        this.database = database;
+        this.monitor = monitor;
+        this.tables = tables;
+        this.statement = statement;
+    }
+
+    /**
+     * Gets the statement of the script this replaces
+     *
+     * @return List, empty if the wait was added
+     */
+    public List<Db2RawSqlStatement> getStatements() {
+        return statement == null ? Collections.emptyList() : Collections.singletonList(statement);
+    }
+
+    @Override
+    public void execute(PreparedStatementFactory factory) throws DatabaseException {
+        monitor.waitFor(database, tables);
+    }
+
+    @Override
+    public boolean skipOnUnsupported() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "WaitForReorgStatement{" +
+                "tables=" + (tables == null ? "all" : tables) +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class AlterTableCoalescerTest extends AbstractTest {
+
+    @Test
+    void testMerge() throws DatabaseException {
+        List<SqlStatement> statements = coalesce(
+                "ALTER TABLE APP.ORDERS ADD COLUMN NOTE VARCHAR(100) NOT NULL WITH DEFAULT 'none'",
+                "alter table app.orders add column CREATED TIMESTAMP -- audit",
+                "ALTER TABLE APP.ORDERS ALTER COLUMN STATUS SET DATA TYPE VARCHAR(20)",
+                "ALTER TABLE APP.ORDERS ALTER COLUMN PRICE DROP NOT NULL",
+                "ALTER TABLE APP.ORDERS ALTER COLUMN NOTE SET DEFAULT 'n/a'",
+                "ALTER TABLE APP.ITEMS ADD COLUMN QTY INT",
+                "INSERT INTO APP.ITEMS VALUES (1)",
+                "ALTER TABLE APP.ITEMS ADD COLUMN PRICE DECIMAL(10, 2)");
+
+        Assertions.assertThat(statements).hasSize(5);
+        Db2RawSqlStatement merged = (Db2RawSqlStatement) statements.get(0);
+        Assertions.assertThat(merged.getSql()).isEqualTo(
+                "ALTER TABLE APP.ORDERS ADD COLUMN NOTE VARCHAR(100) NOT NULL WITH DEFAULT 'none'\n"
+                        + "add column CREATED TIMESTAMP -- audit\n"
+                        + "ALTER COLUMN STATUS SET DATA TYPE VARCHAR(20)\n"
+                        + "ALTER COLUMN PRICE DROP NOT NULL");
+        Assertions.assertThat(merged.getLine()).isEqualTo(1);
+        Assertions.assertThat(merged.getKind()).isEqualTo(StatementKind.DDL);
+        // NOTE is already in the merged statement
+        Assertions.assertThat(((Db2RawSqlStatement) statements.get(1)).getSql())
+                .isEqualTo("ALTER TABLE APP.ORDERS ALTER COLUMN NOTE SET DEFAULT 'n/a'");
+        Assertions.assertThat(((Db2RawSqlStatement) statements.get(2)).getLine()).isEqualTo(6);
+        Assertions.assertThat(((Db2RawSqlStatement) statements.get(4)).getLine()).isEqualTo(8);
+    }
+
+    @Test
+    void testNotMerged() throws DatabaseException {
+        List<SqlStatement> statements = coalesce(
+                "ALTER TABLE T ADD COLUMN A INT",
+                "ALTER TABLE T ADD COLUMN B INT GENERATED ALWAYS AS IDENTITY",
+                "ALTER TABLE T ADD COLUMN C INT REFERENCES U",
+                "ALTER TABLE T ADD CONSTRAINT PK PRIMARY KEY (A)",
+                "ALTER TABLE T DROP COLUMN D",
+                "ALTER TABLE T ALTER COLUMN E SET GENERATED ALWAYS",
+                "ALTER TABLE T ADD COLUMN F INT ADD COLUMN G INT",
+                "ALTER TABLE S.T ADD COLUMN H INT",
+                "ALTER TABLE \"t\" ADD COLUMN I INT");
+
+        Assertions.assertThat(statements).hasSize(9);
+    }
+
+    @Test
+    void testClause() {
+        AlterTableCoalescer.Clause clause = AlterTableCoalescer.Clause.of(
+                "/* new */ ALTER TABLE \"App\".\"Order\"\"s\" ALTER COLUMN \"Note\" SET WITH DEFAULT 'it''s'");
+        Assertions.assertThat(clause.getTable()).isEqualTo("App.Order\"s");
+        Assertions.assertThat(clause.getColumn()).isEqualTo("Note");
+        Assertions.assertThat(clause.getSql()).isEqualTo("ALTER COLUMN \"Note\" SET WITH DEFAULT 'it''s'");
+        Assertions.assertThat(AlterTableCoalescer.Clause.of("ALTER TABLE T ALTER COLUMN A SET DEFAULT 'x")).isNull();
+        Assertions.assertThat(AlterTableCoalescer.Clause.of("ALTER TABLE T ALTER COLUMN A DROP DEFAULT")).isNotNull();
+        Assertions.assertThat(AlterTableCoalescer.Clause.of("ALTER TABLE T ALTER COLUMN A SET NOT NULL")).isNotNull();
+    }
+
+    private static List<SqlStatement> coalesce(String... sql) throws DatabaseException {
+        List<SqlStatement> statements = new ArrayList<>();
+        AlterTableCoalescer coalescer = new AlterTableCoalescer("test.sql", statements::add);
+        for (int i = 0; i < sql.length; i++) {
+            coalescer.accept(new Db2RawSqlStatement(sql[i], null, ";", i + 1));
+        }
+        coalescer.flush();
+        return statements;
+    }
+}
@@ -0,0 +1,63 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.exception.DatabaseException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+class ClpScriptWriterTest extends AbstractTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Test
+    void testTerminatorDirectives() throws DatabaseException {
+        StringWriter output = new StringWriter();
+        ClpScriptWriter writer = new ClpScriptWriter(output);
+        writer.accept(new Db2RawSqlStatement("SET SCHEMA APP", ";", ";", 1));
+        writer.accept(new Db2RawSqlStatement("CREATE PROCEDURE P() BEGIN CALL Q(); END", ";", "@", 3));
+        writer.accept(new Db2RawSqlStatement("CALL P()", ";", "@", 4));
+        writer.accept(new Db2RawSqlStatement("COMMIT", ";", ";", 6));
+        writer.flush();
+
+        Assertions.assertThat(writer.getCount()).isEqualTo(4);
+        Assertions.assertThat(output.toString()).isEqualTo(
+                "--#SET TERMINATOR ;" + NL
+                + "SET SCHEMA APP;" + NL + NL
+                + "--#SET TERMINATOR @" + NL
+                + "CREATE PROCEDURE P() BEGIN CALL Q(); END@" + NL + NL
+                + "CALL P()@" + NL + NL
+                + "--#SET TERMINATOR ;" + NL
+                + "COMMIT;" + NL + NL);
+    }
+
+    @Test
+    void testTerminatorOnOwnLine() throws DatabaseException {
+        StringWriter output = new StringWriter();
+        ClpScriptWriter writer = new ClpScriptWriter(output);
+        writer.accept(new Db2RawSqlStatement("SELECT 1 FROM SYSIBM.SYSDUMMY1 -- one", ";", ";", 1));
+        writer.accept(new Db2RawSqlStatement("BEGIN END", ";", "GO", 2));
+        writer.accept(new Db2RawSqlStatement("--SET SERVEROUTPUT ON", ";", "GO", 3));
+
+        Assertions.assertThat(output.toString()).isEqualTo(
+                "--#SET TERMINATOR ;" + NL
+                + "SELECT 1 FROM SYSIBM.SYSDUMMY1 -- one" + NL + ";" + NL + NL
+                + "--#SET TERMINATOR GO" + NL
+                + "BEGIN END" + NL + "GO" + NL + NL
+                + "--SET SERVEROUTPUT ON" + NL + NL);
+    }
+
+    @Test
+    void testTerminatorIsResetWhenFlushed() throws DatabaseException {
+        StringWriter output = new StringWriter();
+        ClpScriptWriter writer = new ClpScriptWriter(output);
+        writer.accept(new Db2RawSqlStatement("CREATE PROCEDURE P() BEGIN CALL Q(); END", ";", "@", 2));
+        writer.flush();
+        writer.flush();
+
+        Assertions.assertThat(output.toString()).isEqualTo(
+                "--#SET TERMINATOR @" + NL
+                + "CREATE PROCEDURE P() BEGIN CALL Q(); END@" + NL + NL
+                + "--#SET TERMINATOR ;" + NL);
+    }
+}
@@ -0,0 +1,85 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class CommitIntervalPlannerTest extends AbstractTest {
+
+    @Test
+    void testCommitPointsAfterDml() throws DatabaseException {
+        Assertions.assertThat(plan(
+                "INSERT INTO T VALUES (1)",
+                "CREATE INDEX I ON T (A)",
+                "UPDATE T SET A = 2",
+                "COMMIT",
+                "BEGIN INSERT INTO T VALUES (3); END"))
+                .containsExactly(
+                        "INSERT INTO T VALUES (1)", "CommitIntervalStatement{kind=DML, line=1}",
+                        "CREATE INDEX I ON T (A)",
+                        "UPDATE T SET A = 2", "CommitIntervalStatement{kind=DML, line=3}",
+                        "CommitIntervalStatement{kind=COMMIT, line=4}", "COMMIT",
+                        "BEGIN INSERT INTO T VALUES (3); END");
+    }
+
+    @Test
+    void testNoCommitPointsWhileHoldingUnitOfWork() throws DatabaseException {
+        Assertions.assertThat(plan(
+                "SAVEPOINT S1 ON ROLLBACK RETAIN CURSORS",
+                "INSERT INTO T VALUES (1)",
+                "ROLLBACK TO SAVEPOINT S1",
+                "INSERT INTO T VALUES (2)",
+                "ROLLBACK",
+                "DECLARE GLOBAL TEMPORARY TABLE SESSION.X (A INT) ON COMMIT PRESERVE ROWS",
+                "INSERT INTO SESSION.X VALUES (3)"))
+                .containsExactly(
+                        "SAVEPOINT S1 ON ROLLBACK RETAIN CURSORS",
+                        "INSERT INTO T VALUES (1)",
+                        "ROLLBACK TO SAVEPOINT S1",
+                        "INSERT INTO T VALUES (2)",
+                        "CommitIntervalStatement{kind=ROLLBACK, line=5}", "ROLLBACK",
+                        "DECLARE GLOBAL TEMPORARY TABLE SESSION.X (A INT) ON COMMIT PRESERVE ROWS",
+                        "INSERT INTO SESSION.X VALUES (3)", "CommitIntervalStatement{kind=DML, line=7}");
+    }
+
+    @Test
+    void testCheckpointAfterDeferredStatements() throws DatabaseException {
+        Checkpoint checkpoint = new Checkpoint(null, "test.sql", "", "");
+        CommitIntervalPlanner planner = new CommitIntervalPlanner(null, new CommitInterval("test.sql", 0, 0, null, checkpoint),
+                statement -> { });
+        Db2RawSqlStatement reorg = statement("CALL SYSPROC.ADMIN_CMD ('REORG TABLE T')", 1);
+        planner.accept(statement("ALTER TABLE T DROP COLUMN B", 2));
+        planner.accept(statement("COMMIT", 3));
+        Assertions.assertThat(checkpoint.getPassed()).isZero();
+
+        planner.accept(reorg);
+        Assertions.assertThat(checkpoint.getPassed()).isEqualTo(3);
+        planner.accept(statement("INSERT INTO T VALUES (1)", 4));
+        Assertions.assertThat(checkpoint.getPassed()).isEqualTo(4);
+    }
+
+    private static Db2RawSqlStatement statement(String sql, int ordinal) {
+        Db2RawSqlStatement statement = new Db2RawSqlStatement(sql, null, ";", ordinal);
+        statement.setOrdinal(ordinal);
+        return statement;
+    }
+
+    private static List<String> plan(String... sqls) throws DatabaseException {
+        List<String> planned = new ArrayList<>();
+        CommitIntervalPlanner planner = new CommitIntervalPlanner(null, new CommitInterval("test.sql", 1, 0, null, null),
+                statement -> planned.add(describe(statement)));
+        for (int i = 0; i < sqls.length; i++) {
+            planner.accept(new Db2RawSqlStatement(sqls[i], null, ";", i + 1));
+        }
+        planner.flush();
+        return planned;
+    }
+
+    private static String describe(SqlStatement statement) {
+        return statement instanceof Db2RawSqlStatement ? ((Db2RawSqlStatement) statement).getSql() : statement.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class CreateIndexPlannerTest extends AbstractTest {
+
+    @Test
+    void testDefer() throws DatabaseException {
+        List<Integer> lines = plan(
+                "CREATE INDEX APP.IX_ORDERS ON APP.ORDERS (CUSTOMER)",
+                "CREATE INDEX APP.IX_ITEMS ON \"APP\".ITEMS (ORDER_ID)",
+                "INSERT INTO app.orders VALUES (1, 'a')",
+                "INSERT INTO APP.ITEMS (ORDER_ID) VALUES (1), (2)",
+                "INSERT INTO APP.ORDERS VALUES (2, 'b')",
+                "COMMIT",
+                "CREATE INDEX IX_T ON T (A)",
+                "INSERT INTO T VALUES (1)");
+
+        Assertions.assertThat(lines).containsExactly(3, 4, 5, 1, 2, 6, 8, 7);
+    }
+
+    @Test
+    void testNotDeferred() throws DatabaseException {
+        Assertions.assertThat(plan(
+                "CREATE UNIQUE INDEX IX_T ON T (A)",
+                "INSERT INTO T VALUES (1)",
+                "CREATE INDEX IX_T2 ON T (B) CLUSTER",
+                "INSERT INTO T VALUES (2)",
+                "CREATE INDEX IX_T3 ON T (C)",
+                "INSERT INTO T SELECT * FROM U",
+                "INSERT INTO T VALUES (3)",
+                "CREATE INDEX IX_T4 ON T (D)",
+                "INSERT INTO U VALUES (1)",
+                "INSERT INTO T VALUES (4)",
+                "CREATE INDEX IX_T5 ON T (E)",
+                "UPDATE T SET E = 1",
+                "INSERT INTO T VALUES (5)"))
+                .containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13);
+    }
+
+    @Test
+    void testTables() {
+        Assertions.assertThat(CreateIndexPlanner.deferrableIndexTable("-- index\nCREATE INDEX X ON S.\"Tab\" (A)"))
+                .isEqualTo("S.Tab");
+        Assertions.assertThat(CreateIndexPlanner.deferrableIndexTable("CREATE UNIQUE INDEX X ON T (A)")).isNull();
+        Assertions.assertThat(CreateIndexPlanner.insertedTable(
+                new Db2RawSqlStatement("INSERT INTO s . \"Tab\" VALUES ('x')", null, ";", 1))).isEqualTo("S.Tab");
+        Assertions.assertThat(CreateIndexPlanner.insertedTable(
+                new Db2RawSqlStatement("INSERT INTO T SELECT * FROM U", null, ";", 1))).isNull();
+    }
+
+    private static List<Integer> plan(String... sql) throws DatabaseException {
+        List<Integer> lines = new ArrayList<>();
+        CreateIndexPlanner planner = new CreateIndexPlanner("test.sql",
+                statement -> lines.add(((Db2RawSqlStatement) statement).getLine()));
+        for (int i = 0; i < sql.length; i++) {
+            planner.accept(new Db2RawSqlStatement(sql[i], null, ";", i + 1));
+        }
+        planner.flush();
+        return lines;
+    }
+}
@@ -0,0 +1,192 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.core.DB2Database;
+import liquibase.exception.SetupException;
+import liquibase.executor.Executor;
+import liquibase.executor.ExecutorService;
+import liquibase.ext.db2i.database.DB2iDatabase;
+import liquibase.resource.DirectoryResourceAccessor;
+import liquibase.statement.SqlStatement;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class Db2SQLDirectoryChangeTest extends AbstractTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFilesInNaturalOrder() throws SetupException {
+        Db2SQLDirectoryChange change = new Db2SQLDirectoryChange();
+        change.setPath("test-directory");
+        change.setOrder("natural");
+        change.finishInitialization();
+
+        SqlStatement[] statements = change.generateStatements(new DB2Database());
+
+        Assertions.assertThat(Arrays.stream(statements).map(statement -> ((Db2RawSqlStatement) statement).getLine()))
+                .containsExactly(1, 1, 1, 2);
+        Assertions.assertThat(((Db2RawSqlStatement) statements[0]).getSql()).endsWith("VALUES (1, 'one', 0)");
+        Assertions.assertThat(((Db2RawSqlStatement) statements[1]).getTerminator()).isEqualTo("@");
+        Assertions.assertThat(((Db2RawSqlStatement) statements[2]).getSql()).isEqualTo("INSERT INTO TEST VALUES (10, 'ten', 0)");
+        Assertions.assertThat(((Db2RawSqlStatement) statements[3]).getSql()).isEqualTo("COMMIT");
+    }
+
+    @Test
+    void testFilesInNameOrderWithOptions() throws SetupException {
+        Db2SQLDirectoryChange change = new Db2SQLDirectoryChange();
+        change.setPath("test-directory");
+        change.setIncludePattern("V1*.sql");
+        change.setStripComments(true);
+        change.finishInitialization();
+
+        SqlStatement[] statements = change.generateStatements(new DB2Database());
+
+        Assertions.assertThat(Arrays.stream(statements).map(statement -> ((Db2RawSqlStatement) statement).getSql()))
+                .containsExactly("INSERT INTO TEST VALUES (10, 'ten', 0)", "COMMIT", "INSERT INTO TEST VALUES (1, 'one', 0)");
+    }
+
+    @Test
+    void testChecksumOfFiles() throws SetupException {
+        Db2SQLDirectoryChange change = new Db2SQLDirectoryChange();
+        change.setPath("test-directory");
+        change.finishInitialization();
+        Db2SQLDirectoryChange otherFiles = new Db2SQLDirectoryChange();
+        otherFiles.setPath("test-directory");
+        otherFiles.setIncludePattern("V1*.sql");
+        otherFiles.finishInitialization();
+
+        Assertions.assertThat(change.generateCheckSum()).isEqualTo(change.generateCheckSum());
+        Assertions.assertThat(change.generateCheckSum()).isNotEqualTo(otherFiles.generateCheckSum());
+    }
+
+    @Test
+    void testStreamStatementsStreamsFiles() throws SetupException {
+        Db2SQLDirectoryChange change = new Db2SQLDirectoryChange();
+        change.setPath("test-directory");
+        change.setStreamStatements(true);
+        change.finishInitialization();
+
+        SqlStatement[] statements = change.generateStatements(new RecordingConnection().database());
+
+        Assertions.assertThat(statements).filteredOn(StreamingScriptStatement.class::isInstance).hasSize(3);
+    }
+
+    @Test
+    void testValidation() {
+        Db2SQLDirectoryChange change = new Db2SQLDirectoryChange();
+        change.setPath("test-directory");
+        change.setOrder("date");
+
+        Assertions.assertThat(change.validate(new DB2Database()).getErrorMessages())
+                .containsExactly("'order' must be 'name' or 'natural'");
+    }
+
+    @Test
+    void testEscapesAreTranslatedOnCurrentThread() throws Exception {
+        write("scripts/V1__escapes.sql", "INSERT INTO TEST VALUES ({fn ABS(-1)}, 'one', 0);\n");
+        write("scripts/V2__escapes.sql", "UPDATE TEST SET TEXT = {fn UCASE(TEXT)};\n");
+        RecordingConnection connection = new RecordingConnection();
+        Scope.child(Scope.Attr.resourceAccessor.name(), new DirectoryResourceAccessor(directory), () -> {
+            Db2SQLDirectoryChange change = new Db2SQLDirectoryChange();
+            change.setPath("scripts");
+            change.finishInitialization();
+
+            SqlStatement[] statements = change.generateStatements(connection.database());
+
+            Assertions.assertThat(statements).filteredOn(Db2RawSqlStatement.class::isInstance).hasSize(2);
+        });
+        Assertions.assertThat(connection.nativeSqlThreads).hasSize(2).containsOnly(Thread.currentThread());
+    }
+
+    @Test
+    void testUnchangedFileIsSkipped() throws Exception {
+        write("scripts/V1__a.sql", "INSERT INTO A VALUES (1);\n");
+        write("scripts/V2__b.sql", "INSERT INTO B VALUES (2);\n");
+        RecordingConnection connection = new RecordingConnection();
+        connection.queryResults.put("SELECT FILE_PATH", Collections.singletonList(
+                new Object[] { "V1__a.sql", Checkpoint.checksum(new StringReader("INSERT INTO A VALUES (1);\n")) }));
+
+        executeSkippingUnchangedFiles(connection);
+
+        Assertions.assertThat(connection.executed).doesNotContain("INSERT INTO A VALUES (1)")
+                .contains("INSERT INTO B VALUES (2)");
+        Assertions.assertThat(recordedPaths(connection)).containsExactly("V2__b.sql");
+    }
+
+    @Test
+    void testChangedFileIsExecutedAndRecorded() throws Exception {
+        write("scripts/V1__a.sql", "INSERT INTO A VALUES (1);\n");
+        RecordingConnection connection = new RecordingConnection();
+        connection.queryResults.put("SELECT FILE_PATH", Collections.singletonList(new Object[] { "V1__a.sql", "old" }));
+
+        executeSkippingUnchangedFiles(connection);
+
+        Assertions.assertThat(connection.executed).containsSubsequence("INSERT INTO A VALUES (1)",
+                "DELETE FROM DB2ENHANCED_FILE_CHECKSUM WHERE FILE_KEY = ?");
+        Assertions.assertThat(connection.parameters).filteredOn(parameters -> parameters.size() == 5)
+                .extracting(parameters -> parameters.get(3))
+                .containsExactly(Checkpoint.checksum(new StringReader("INSERT INTO A VALUES (1);\n")));
+    }
+
+    @Test
+    void testChecksumTableIsCreatedOnFirstRun() throws Exception {
+        write("scripts/V1__a.sql", "INSERT INTO A VALUES (1);\n");
+        write("scripts/V2__b.sql", "INSERT INTO B VALUES (2);\n");
+        RecordingConnection connection = new RecordingConnection()
+                .failOn("SELECT FILE_PATH", new SQLException("DB2ENHANCED_FILE_CHECKSUM is an undefined name", "42704", -204))
+                .failOn("DELETE FROM DB2ENHANCED_FILE_CHECKSUM", new SQLException("DB2ENHANCED_FILE_CHECKSUM is an undefined name", "42704", -204));
+
+        executeSkippingUnchangedFiles(connection);
+
+        Assertions.assertThat(connection.executed).contains("INSERT INTO A VALUES (1)", "INSERT INTO B VALUES (2)")
+                .filteredOn(sql -> sql.startsWith("CREATE TABLE DB2ENHANCED_FILE_CHECKSUM")).hasSize(1);
+        Assertions.assertThat(recordedPaths(connection)).containsExactly("V1__a.sql", "V2__b.sql");
+    }
+
+    private void executeSkippingUnchangedFiles(RecordingConnection connection) throws Exception {
+        DB2iDatabase database = connection.database();
+        ExecutorService executorService = Scope.getCurrentScope().getSingleton(ExecutorService.class);
+        Scope.child(Scope.Attr.resourceAccessor.name(), new DirectoryResourceAccessor(directory), () -> {
+            Db2SQLDirectoryChange change = new Db2SQLDirectoryChange();
+            change.setPath("scripts");
+            change.setSkipUnchangedFiles(true);
+            change.finishInitialization();
+            try {
+                Executor executor = executorService.getExecutor("jdbc", database);
+                for (SqlStatement statement : change.generateStatements(database)) {
+                    executor.execute(statement);
+                }
+            } finally {
+                executorService.reset();
+            }
+        });
+    }
+
+    /**
+     * The paths of the files whose checksum was recorded
+     */
+    private static List<Object> recordedPaths(RecordingConnection connection) {
+        return connection.parameters.stream().filter(parameters -> parameters.size() == 5)
+                .map(parameters -> parameters.get(2)).collect(Collectors.toList());
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = directory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
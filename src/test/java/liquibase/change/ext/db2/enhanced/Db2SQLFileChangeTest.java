@@ -1,5 +1,10 @@
 package liquibase.change.ext.db2.enhanced;
 
+import liquibase.Scope;
+import liquibase.changelog.ChangeSet;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.ExecutorService;
+import liquibase.executor.LoggingExecutor;
 import liquibase.exception.SetupException;
 import liquibase.ext.db2i.database.DB2iDatabase;
 import liquibase.statement.SqlStatement;
@@ -7,6 +12,15 @@ import liquibase.statement.core.RawSqlStatement;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 class Db2SQLFileChangeTest extends AbstractTest {
 
     @Test
@@ -50,6 +64,22 @@ class Db2SQLFileChangeTest extends AbstractTest {
         db2SQLFileChange.finishInitialization();
     }
 
+    @Test
+    void testParallelDdlRequiresNoTransaction() {
+        Db2SQLFileChange db2SQLFileChange = new Db2SQLFileChange();
+        db2SQLFileChange.setPath("test-basic-end-terminator-1.sql");
+        db2SQLFileChange.setParallelDdl(4);
+        ChangeSet changeSet = new ChangeSet("1", "test", false, false, "changelog.xml", null, null, true, null);
+        db2SQLFileChange.setChangeSet(changeSet);
+
+        Assertions.assertThat(db2SQLFileChange.validate(new DB2iDatabase()).getErrorMessages())
+                .containsExactly("'parallelDdl' commits the statements before it, it requires " +
+                        "runInTransaction=\"false\" on changeset 1");
+
+        db2SQLFileChange.setChangeSet(new ChangeSet("1", "test", false, false, "changelog.xml", null, null, false, null));
+        Assertions.assertThat(db2SQLFileChange.validate(new DB2iDatabase()).getErrorMessages()).isEmpty();
+    }
+
     @Test
     void testDb2ParseTestBasicEndTerminatorSimpleExample() throws SetupException {
         Db2SQLFileChange db2SQLFileChange = new Db2SQLFileChange();
@@ -143,6 +173,217 @@ class Db2SQLFileChangeTest extends AbstractTest {
                 .doesNotContain("CALL SYSIBMADM.DBMS_OUTPUT.ENABLE(NULL)");
     }
 
+    @Test
+    void testStreamStatementsFallsBackWithoutConnection() throws SetupException {
+        Db2SQLFileChange db2SQLFileChange = new Db2SQLFileChange();
+        db2SQLFileChange.setPath("test-basic-end-terminator-2.sql");
+        Assertions.assertThat(db2SQLFileChange.isStreamStatements()).isFalse();
+        db2SQLFileChange.setStreamStatements(true);
+        db2SQLFileChange.finishInitialization();
+        SqlStatement[] statements = db2SQLFileChange.generateStatements(new DB2iDatabase());
+        Assertions.assertThat(statements)
+                .hasSize(15)
+                .allMatch(RawSqlStatement.class::isInstance);
+    }
+
+    @Test
+    void testNoDrainForSqlOutput() throws SetupException {
+        DB2iDatabase database = new RecordingConnection().database();
+        Db2SQLFileChange db2SQLFileChange = new Db2SQLFileChange();
+        db2SQLFileChange.setPath("test-dbms-output.sql");
+        db2SQLFileChange.finishInitialization();
+        ExecutorService executorService = Scope.getCurrentScope().getSingleton(ExecutorService.class);
+        try {
+            executorService.setExecutor("jdbc", database, new LoggingExecutor(null, new StringWriter(), database));
+
+            Assertions.assertThat(db2SQLFileChange.generateStatements(database))
+                    .noneMatch(DrainDbmsOutputStatement.class::isInstance);
+        } finally {
+            executorService.reset();
+        }
+    }
+
+    @Test
+    void testSqlOutputWithLockRetries() throws SetupException, DatabaseException {
+        DB2iDatabase database = new RecordingConnection().database();
+        Db2SQLFileChange db2SQLFileChange = new Db2SQLFileChange();
+        db2SQLFileChange.setPath("test-dbms-output.sql");
+        db2SQLFileChange.setLockRetries(3);
+        db2SQLFileChange.finishInitialization();
+        ExecutorService executorService = Scope.getCurrentScope().getSingleton(ExecutorService.class);
+        try {
+            StringWriter output = new StringWriter();
+            LoggingExecutor loggingExecutor = new LoggingExecutor(null, output, database);
+            executorService.setExecutor("jdbc", database, loggingExecutor);
+
+            SqlStatement[] statements = db2SQLFileChange.generateStatements(database);
+            for (SqlStatement statement : statements) {
+                executorService.getExecutor("jdbc", database).execute(statement);
+            }
+
+            Assertions.assertThat(executorService.getExecutor("jdbc", database)).isSameAs(loggingExecutor);
+            Assertions.assertThat(statements).isNotEmpty().allMatch(RawSqlStatement.class::isInstance);
+            Assertions.assertThat(output.toString()).contains("CALL SYSIBMADM.DBMS_OUTPUT.ENABLE(NULL)")
+                    .doesNotContain("GET_LINE");
+        } finally {
+            executorService.reset();
+        }
+    }
+
+    @Test
+    void testMetricsStartWhenScriptIsExecuted() throws SetupException, DatabaseException {
+        DB2iDatabase database = new RecordingConnection().database();
+        ExecutorService executorService = Scope.getCurrentScope().getSingleton(ExecutorService.class);
+        try {
+            System.setProperty("liquibase.db2Enhanced.metrics", "true");
+            Db2EnhancedMetrics.getInstance().reset();
+            SqlStatement[] first = generateStatements("test-basic-end-terminator-1.sql", database);
+            SqlStatement[] second = generateStatements("test-basic-end-terminator-2.sql", database);
+            Assertions.assertThat(first[0]).isInstanceOf(ScriptStartStatement.class);
+            Assertions.assertThat(Db2EnhancedMetrics.getInstance().getCurrentScriptSummary()).isNull();
+
+            for (SqlStatement statement : first) {
+                executorService.getExecutor("jdbc", database).execute(statement);
+            }
+            Assertions.assertThat(Db2EnhancedMetrics.getInstance().getCurrentScriptSummary())
+                    .startsWith("Metrics of test-basic-end-terminator-1.sql: 5 statements");
+            executorService.getExecutor("jdbc", database).execute(second[0]);
+            Assertions.assertThat(Db2EnhancedMetrics.getInstance().getCurrentScriptSummary())
+                    .startsWith("Metrics of test-basic-end-terminator-2.sql: 0 statements");
+        } finally {
+            System.clearProperty("liquibase.db2Enhanced.metrics");
+            Db2EnhancedMetrics.getInstance().reset();
+            executorService.reset();
+        }
+    }
+
+    @Test
+    void testCheckpointIsReadWhenScriptIsExecuted() throws SetupException, DatabaseException, IOException {
+        List<String> expected = streamSql("test-basic-end-terminator-2.sql");
+        String checksum;
+        try (Reader script = new InputStreamReader(getClass().getResourceAsStream("/test-basic-end-terminator-2.sql"),
+                StandardCharsets.UTF_8)) {
+            checksum = Checkpoint.checksum(script);
+        }
+        for (boolean isStreamed : new boolean[] { false, true }) {
+            RecordingConnection connection = new RecordingConnection();
+            DB2iDatabase database = connection.database();
+            Db2SQLFileChange db2SQLFileChange = new Db2SQLFileChange();
+            db2SQLFileChange.setPath("test-basic-end-terminator-2.sql");
+            db2SQLFileChange.setCheckpoint(true);
+            db2SQLFileChange.setStreamStatements(isStreamed);
+            db2SQLFileChange.finishInitialization();
+            // The previous run committed the first five statements, with the same checksum in both modes
+            connection.queryResults.put("SCRIPT_CHECKSUM", Collections.singletonList(new Object[] { checksum,
+                    Checkpoint.sha256(db2SQLFileChange.getParseOptions()), 5, 14 }));
+            ExecutorService executorService = Scope.getCurrentScope().getSingleton(ExecutorService.class);
+            try {
+                SqlStatement[] statements = db2SQLFileChange.generateStatements(database);
+                Assertions.assertThat(connection.executed).isEmpty();
+
+                for (SqlStatement statement : statements) {
+                    executorService.getExecutor("jdbc", database).execute(statement);
+                }
+                // SET statements only change the session, so they are executed again
+                List<String> resumed = new ArrayList<>(expected.subList(0, 2));
+                resumed.addAll(expected.subList(5, expected.size()));
+                Assertions.assertThat(connection.executed).filteredOn(expected::contains)
+                        .containsExactlyElementsOf(resumed);
+            } finally {
+                executorService.reset();
+            }
+        }
+    }
+
+    @Test
+    void testSettingsApplyWhenScriptIsExecuted() throws SetupException, DatabaseException {
+        DB2iDatabase database = new RecordingConnection().database();
+        ExecutorService executorService = Scope.getCurrentScope().getSingleton(ExecutorService.class);
+        try {
+            Db2SQLFileChange output = new Db2SQLFileChange();
+            output.setPath("test-dbms-output.sql");
+            output.setDbmsOutputDrainEvery(5);
+            output.setDbmsOutputMaxLines(10);
+            output.finishInitialization();
+            SqlStatement[] first = output.generateStatements(database);
+            SqlStatement[] second = generateStatements("test-basic-end-terminator-2.sql", database);
+            DbmsOutputExecutor executor = (DbmsOutputExecutor) executorService.getExecutor("jdbc", database);
+
+            executor.execute(first[0]);
+            Assertions.assertThat(executor.isDbmsOutputEnabled()).isTrue();
+            Assertions.assertThat(executor.getDrainEvery()).isEqualTo(5);
+            Assertions.assertThat(executor.getOutputLimit()).isNotNull();
+            executor.execute(second[0]);
+            Assertions.assertThat(executor.isDbmsOutputEnabled()).isFalse();
+            Assertions.assertThat(executor.getDrainEvery()).isEqualTo(1);
+            Assertions.assertThat(executor.getOutputLimit()).isNull();
+        } finally {
+            executorService.reset();
+        }
+    }
+
+    private static SqlStatement[] generateStatements(String path, DB2iDatabase database) throws SetupException {
+        Db2SQLFileChange db2SQLFileChange = new Db2SQLFileChange();
+        db2SQLFileChange.setPath(path);
+        db2SQLFileChange.finishInitialization();
+        return db2SQLFileChange.generateStatements(database);
+    }
+
+    @Test
+    void testStreamStatementsExecutesInScriptOrder() throws SetupException, DatabaseException {
+        List<String> expected = streamSql("test-basic-end-terminator-2.sql");
+        RecordingConnection connection = new RecordingConnection();
+        DB2iDatabase database = connection.database();
+        Db2SQLFileChange db2SQLFileChange = new Db2SQLFileChange();
+        db2SQLFileChange.setPath("test-basic-end-terminator-2.sql");
+        db2SQLFileChange.setStreamStatements(true);
+        db2SQLFileChange.finishInitialization();
+        ExecutorService executorService = Scope.getCurrentScope().getSingleton(ExecutorService.class);
+        try {
+            SqlStatement[] statements = db2SQLFileChange.generateStatements(database);
+            Assertions.assertThat(statements).hasSize(1);
+            Assertions.assertThat(statements[0]).isInstanceOf(StreamingScriptStatement.class);
+            Assertions.assertThat(connection.executed).isEmpty();
+
+            executorService.getExecutor("jdbc", database).execute(statements[0]);
+            Assertions.assertThat(connection.executed)
+                    .filteredOn(sql -> !sql.contains("DBMS_OUTPUT.GET_LINE"))
+                    .containsExactlyElementsOf(expected);
+        } finally {
+            executorService.reset();
+        }
+    }
+
+    @Test
+    void testStreamedEscapesAreTranslated() throws SetupException, DatabaseException {
+        RecordingConnection connection = new RecordingConnection();
+        DB2iDatabase database = connection.database();
+        Db2SQLFileChange db2SQLFileChange = new Db2SQLFileChange();
+        db2SQLFileChange.setPath("test-jdbc-escapes.sql");
+        db2SQLFileChange.finishInitialization();
+        List<String> sql = new ArrayList<>();
+
+        db2SQLFileChange.streamSqlStatements(database, statement -> {
+            if (statement instanceof RawSqlStatement) {
+                sql.add(((RawSqlStatement) statement).getSql());
+            }
+        });
+
+        Assertions.assertThat(sql).hasSize(3);
+        // Only the statements with JDBC escapes are passed to the driver
+        Assertions.assertThat(connection.nativeSqlThreads).hasSize(2);
+    }
+
+    private List<String> streamSql(String path) throws SetupException, DatabaseException {
+        Db2SQLFileChange db2SQLFileChange = new Db2SQLFileChange();
+        db2SQLFileChange.setPath(path);
+        db2SQLFileChange.finishInitialization();
+        List<String> sql = new ArrayList<>();
+        db2SQLFileChange.streamSqlStatements(new DB2iDatabase(), statement ->
+                sql.add(((RawSqlStatement) statement).getSql()));
+        return sql;
+    }
+
     private String getFirstLine(String s) {
         return s.contains("\n") ? s.substring(0, s.indexOf("\n")) : s;
     }
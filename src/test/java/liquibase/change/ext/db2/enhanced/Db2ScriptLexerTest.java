@@ -0,0 +1,136 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.util.SqlParser;
+import liquibase.util.StreamUtil;
+import liquibase.util.StringUtil;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+class Db2ScriptLexerTest extends AbstractTest {
+
+    @Test
+    void testDelimiterInStringsAndIdentifiers() throws IOException {
+        List<DelimitedSegment> segments = parse("INSERT INTO T VALUES ('a;b', 'it''s');\nSELECT \"X;Y\" FROM T;");
+        Assertions.assertThat(segments)
+                .extracting(DelimitedSegment::getSql)
+                .containsExactly("INSERT INTO T VALUES ('a;b', 'it''s')", "SELECT \"X;Y\" FROM T");
+    }
+
+    @Test
+    void testSetTerminator() throws IOException {
+        List<DelimitedSegment> segments = parse("SELECT 1 FROM T;\r\n--#SET TERMINATOR @\r\nCALL X('@');\r\n@\r\n");
+        Assertions.assertThat(segments)
+                .extracting(DelimitedSegment::getDelimiter, DelimitedSegment::getLine, DelimitedSegment::getSql)
+                .containsExactly(
+                        Assertions.tuple(";", 1, "SELECT 1 FROM T"),
+                        Assertions.tuple("@", 2, "--#SET TERMINATOR @\nCALL X('@');")
+                );
+    }
+
+    @Test
+    void testCommentOnlySegment() throws IOException {
+        List<DelimitedSegment> segments = parse("SELECT 1 FROM T; /* ; */\n-- Final comment ;");
+        Assertions.assertThat(segments)
+                .extracting(DelimitedSegment::getSql, DelimitedSegment::hasSql)
+                .containsExactly(
+                        Assertions.tuple("SELECT 1 FROM T", true),
+                        Assertions.tuple("/* ; */\n-- Final comment ;", false)
+                );
+    }
+
+    @Test
+    void testSetTerminatorOnlyInFirstColumn() throws IOException {
+        List<DelimitedSegment> segments = parse("SELECT 1 FROM T;\n  --#SET TERMINATOR @\nSELECT 2 FROM T;\n");
+        Assertions.assertThat(segments)
+                .extracting(DelimitedSegment::getDelimiter, DelimitedSegment::getSql)
+                .containsExactly(
+                        Assertions.tuple(";", "SELECT 1 FROM T"),
+                        Assertions.tuple(";", "--#SET TERMINATOR @\nSELECT 2 FROM T")
+                );
+    }
+
+    @Test
+    void testSameStatementsAsLineParsing() throws IOException {
+        for (String path : new String[]{"test-basic-end-terminator-1.sql", "test-basic-end-terminator-1-rollback.sql",
+                "test-basic-end-terminator-2.sql", "test-basic-end-terminator-2-rollback.sql", "test-dbms-output.sql",
+                "test-dbms-output-rollback.sql", "test-delimiter-in-comments.sql", "test-reorg-table.sql",
+                "test-truncate-table.sql", "test-directory/V1__insert.sql", "test-directory/V2__procedure.sql",
+                "test-directory/V10__insert.sql"}) {
+            String script;
+            try (InputStream stream = getClass().getClassLoader().getResourceAsStream(path)) {
+                script = StreamUtil.readStreamAsString(Objects.requireNonNull(stream, path)).trim();
+            }
+            for (String variant : new String[]{script, script.replace("\n", "\r\n")}) {
+                for (boolean stripComments : new boolean[]{false, true}) {
+                    List<String> statements = parse(variant, stripComments).stream()
+                            .filter(DelimitedSegment::hasSql)
+                            .map(DelimitedSegment::getSql)
+                            .collect(Collectors.toList());
+                    if (!stripComments && variant.startsWith("-- Test DBMSOUTPUT")) {
+                        // The comment before the first directive of a script now stays with the statement after it
+                        Assertions.assertThat(statements.get(0)).startsWith("-- Test DBMSOUTPUT\n\n");
+                        statements.set(0, statements.get(0).substring("-- Test DBMSOUTPUT\n\n".length()));
+                    }
+                    Assertions.assertThat(statements).as(path)
+                            .containsExactlyElementsOf(LineParsing.parse(variant, stripComments));
+                }
+            }
+        }
+    }
+
+    private List<DelimitedSegment> parse(String sql) throws IOException {
+        return parse(sql, false);
+    }
+
+    private List<DelimitedSegment> parse(String sql, boolean stripComments) throws IOException {
+        Db2ScriptLexer lexer = new Db2ScriptLexer(new StringReader(sql), null, true, stripComments, true);
+        List<DelimitedSegment> segments = new ArrayList<>();
+        for (DelimitedSegment segment = lexer.next(); segment != null; segment = lexer.next()) {
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    /**
+     * The line based parsing the lexer replaced: split the script at the '--#SET TERMINATOR' lines (moving the text
+     * after the last delimiter to the next segment) and split each segment with Liquibase
+     */
+    @SuppressWarnings("deprecation")
+    private static class LineParsing {
+
+        static List<String> parse(String script, boolean stripComments) {
+            List<DelimitedSegment> segments = new ArrayList<>();
+            DelimitedSegment segment = new DelimitedSegment(null, "");
+            for (String line : script.replace("\r\n", "\n").split("\n")) {
+                if (line.toUpperCase().startsWith("--#SET TERMINATOR ")) {
+                    String rest = segment.getAndRemoveAfterLastDelimiter();
+                    segments.add(segment);
+                    segment = new DelimitedSegment(line.substring("--#SET TERMINATOR ".length()).trim(), rest);
+                }
+                segment.append(line).append("\n");
+            }
+            segments.add(segment);
+
+            List<String> statements = new ArrayList<>();
+            for (DelimitedSegment delimited : segments) {
+                for (String statement : StringUtil.processMultiLineSQL(delimited.getSql(), stripComments, true,
+                        delimited.getDelimiter())) {
+                    if (!Arrays.stream(SqlParser.parse(statement, false, false).toArray(true))
+                            .map(Objects::toString).collect(Collectors.joining()).isEmpty()) {
+                        statements.add(statement);
+                    }
+                }
+            }
+            return statements;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.exception.DatabaseException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class DbmsOutputExecutorTest extends AbstractTest {
+
+    @Test
+    void testDrainWithGetLines() throws DatabaseException {
+        RecordingConnection connection = new RecordingConnection();
+        List<String> lines = lines(2500);
+        connection.output.addAll(lines);
+        List<String> received = new ArrayList<>();
+        DbmsOutputExecutor executor = executor(connection, received);
+
+        executor.execute(new DrainDbmsOutputStatement());
+
+        Assertions.assertThat(received).isEqualTo(lines);
+        // Three batches, the last one with less lines than requested, all with the same statement
+        Assertions.assertThat(connection.executed).filteredOn(sql -> sql.contains("GET_LINES")).hasSize(3);
+        Assertions.assertThat(connection.preparedCalls).isEqualTo(1);
+
+        connection.output.add("later");
+        executor.execute(new DrainDbmsOutputStatement());
+        Assertions.assertThat(received).endsWith("later");
+        Assertions.assertThat(connection.preparedCalls).isEqualTo(1);
+    }
+
+    @Test
+    void testDrainFallsBackToGetLine() throws DatabaseException {
+        RecordingConnection connection = new RecordingConnection();
+        connection.isGetLinesSupported = false;
+        connection.output.addAll(lines(3));
+        List<String> received = new ArrayList<>();
+        DbmsOutputExecutor executor = executor(connection, received);
+
+        executor.execute(new DrainDbmsOutputStatement());
+
+        Assertions.assertThat(received).isEqualTo(lines(3));
+        Assertions.assertThat(connection.executed).noneMatch(sql -> sql.contains("GET_LINES"));
+        Assertions.assertThat(connection.executed).filteredOn(sql -> sql.contains("GET_LINE(")).hasSize(4);
+        // The GET_LINES statement is closed before preparing GET_LINE
+        Assertions.assertThat(connection.closedCalls).isEqualTo(1);
+    }
+
+    private static DbmsOutputExecutor executor(RecordingConnection connection, List<String> received) {
+        DbmsOutputExecutor executor = new DbmsOutputExecutor();
+        executor.setDatabase(connection.database());
+        executor.setDrainEvery(0);
+        executor.setSink(received::add);
+        return executor;
+    }
+
+    private static List<String> lines(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(i -> "line " + i).collect(Collectors.toList());
+    }
+}
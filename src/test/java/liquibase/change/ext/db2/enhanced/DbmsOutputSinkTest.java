@@ -0,0 +1,49 @@
+package liquibase.change.ext.db2.enhanced;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class DbmsOutputSinkTest extends AbstractTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRotatingFile() throws IOException {
+        Path file = directory.resolve("output/dbms.log");
+        RotatingFileDbmsOutputSink sink = new RotatingFileDbmsOutputSink(file, 10, 3);
+        for (String line : new String[]{"1234", "5678", "abc", "def", "ghi"}) {
+            sink.accept(line);
+        }
+        sink.flush();
+        sink.accept("jkl");
+        sink.flush();
+
+        Assertions.assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).isEqualTo("ghi\njkl\n");
+        Assertions.assertThat(new String(Files.readAllBytes(directory.resolve("output/dbms.log.1")),
+                StandardCharsets.UTF_8)).isEqualTo("abc\ndef\n");
+        Assertions.assertThat(new String(Files.readAllBytes(directory.resolve("output/dbms.log.2")),
+                StandardCharsets.UTF_8)).isEqualTo("1234\n5678\n");
+        Assertions.assertThat(Files.exists(directory.resolve("output/dbms.log.3"))).isFalse();
+    }
+
+    @Test
+    void testLimit() {
+        DbmsOutputLimit limit = new DbmsOutputLimit("test.sql", 2);
+        Assertions.assertThat(limit.accept()).isTrue();
+        Assertions.assertThat(limit.accept()).isTrue();
+        Assertions.assertThat(limit.accept()).isFalse();
+        Assertions.assertThat(limit.accept()).isFalse();
+        limit.finish();
+
+        Assertions.assertThat(limit.getLines()).isEqualTo(4);
+        Assertions.assertThat(limit.getDropped()).isEqualTo(2);
+        Assertions.assertThat(new DbmsOutputLimit("test.sql", 0).accept()).isTrue();
+    }
+}
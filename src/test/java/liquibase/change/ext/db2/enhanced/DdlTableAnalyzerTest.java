@@ -0,0 +1,32 @@
+package liquibase.change.ext.db2.enhanced;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DdlTableAnalyzerTest extends AbstractTest {
+
+    @Test
+    void testCreateIndex() {
+        Assertions.assertThat(DdlTableAnalyzer.tablesOf("CREATE UNIQUE INDEX APP.I1 ON app.orders (ID)"))
+                .containsExactly("APP.ORDERS");
+        Assertions.assertThat(DdlTableAnalyzer.tablesOf("-- Index\ncreate index I2 on \"Lines\" (ORDER_ID)"))
+                .containsExactly("Lines");
+    }
+
+    @Test
+    void testAddConstraint() {
+        Assertions.assertThat(DdlTableAnalyzer.tablesOf(
+                "ALTER TABLE LINES ADD CONSTRAINT FK_ORDER FOREIGN KEY (ORDER_ID) REFERENCES APP.ORDERS (ID)"))
+                .containsExactly("LINES", "APP.ORDERS");
+        Assertions.assertThat(DdlTableAnalyzer.tablesOf("ALTER TABLE ORDERS ADD PRIMARY KEY (ID)"))
+                .containsExactly("ORDERS");
+    }
+
+    @Test
+    void testOtherStatementsAreNotAnalyzed() {
+        Assertions.assertThat(DdlTableAnalyzer.tablesOf("ALTER TABLE ORDERS ADD COLUMN X INT")).isNull();
+        Assertions.assertThat(DdlTableAnalyzer.tablesOf("ALTER TABLE ORDERS ADD CHECK (STATE <> 'X')")).isNull();
+        Assertions.assertThat(DdlTableAnalyzer.tablesOf("CREATE TABLE ORDERS (ID INT)")).isNull();
+        Assertions.assertThat(DdlTableAnalyzer.tablesOf("INSERT INTO ORDERS VALUES (1)")).isNull();
+    }
+}
@@ -0,0 +1,31 @@
+package liquibase.change.ext.db2.enhanced;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+class DmlShapeTest extends AbstractTest {
+
+    @Test
+    void testInsertValues() {
+        DmlShape shape = DmlShape.of("-- Row 1\nINSERT INTO T (A, B)\n  VALUES (1, 'it''s')");
+        Assertions.assertThat(shape.getSql()).isEqualTo("INSERT INTO T (A, B) VALUES (?, ?)");
+        Assertions.assertThat(shape.getParameters()).containsExactly(new BigDecimal("1"), "it's");
+    }
+
+    @Test
+    void testUpdateWithConditions() {
+        DmlShape shape = DmlShape.of("UPDATE T SET A = 2.5, B = 'x' WHERE C = 3 AND D = 'y'");
+        Assertions.assertThat(shape.getSql()).isEqualTo("UPDATE T SET A = ?, B = ? WHERE C = ? AND D = ?");
+        Assertions.assertThat(shape.getParameters()).containsExactly(new BigDecimal("2.5"), "x", new BigDecimal("3"), "y");
+    }
+
+    @Test
+    void testLiteralsWithoutKnownTypeAreKept() {
+        String sql = "INSERT INTO T VALUES (SUBSTR('abc', 1), -1, X'FF', DATE '2020-01-01', NULL, 1 + 2)";
+        DmlShape shape = DmlShape.of(sql);
+        Assertions.assertThat(shape.hasParameters()).isFalse();
+        Assertions.assertThat(shape.getSql()).isEqualTo(sql);
+    }
+}
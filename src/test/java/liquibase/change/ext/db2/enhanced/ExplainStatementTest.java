@@ -0,0 +1,176 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.exception.DatabaseException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class ExplainStatementTest extends AbstractTest {
+
+    @Test
+    void testReport() throws DatabaseException {
+        StubConnection stub = new StubConnection();
+        // Statements are explained in script order, one per shape: QUERYNO 1 is the INSERT, 2 the UPDATE
+        stub.costs.put(1, 7.5);
+        stub.operators.put(1, Collections.singletonList(new Object[] { "RETURN", 1.0, null, null }));
+        stub.costs.put(2, 250000.0);
+        stub.operators.put(2, Arrays.asList(new Object[] { "RETURN", 2000000.0, null, null },
+                new Object[] { "TBSCAN", 2000000000.0, "APP     ", "ORDERS" }));
+
+        ExplainStatement explain = new ExplainStatement(null, "fix.sql", 0, null);
+        explain.add(new Db2RawSqlStatement("CREATE TABLE APP.LOG (ID INT)", null, ";", 1));
+        explain.add(new Db2RawSqlStatement("INSERT INTO APP.LOG VALUES (1)", null, ";", 2));
+        explain.add(new Db2RawSqlStatement("UPDATE APP.ORDERS SET STATUS = 'X' WHERE NOTE LIKE '%x%'", null, ";", 3));
+        explain.add(new Db2RawSqlStatement("INSERT INTO APP.LOG VALUES (2)", null, ";", 4));
+        explain.add(new Db2RawSqlStatement("INSERT INTO APP.MISSING VALUES (3)", null, ";", 5));
+        explain.add(new Db2RawSqlStatement("COMMIT", null, ";", 6));
+        Assertions.assertThat(explain.getShapeCount()).isEqualTo(3);
+
+        ExplainReport report = explain.explain(stub.connection);
+        Assertions.assertThat(report.getRanked(0)).containsExactly(
+                "line 3 (cost 250000, 2000000 rows, table scans: APP.ORDERS (2000000000 rows)): "
+                        + "UPDATE APP.ORDERS SET STATUS = 'X' WHERE NOTE LIKE '%x%'",
+                "line 2 (cost 7.5 x 2, 1 rows): INSERT INTO APP.LOG VALUES (1)");
+        Assertions.assertThat(report.getRanked(1)).hasSize(1);
+        Assertions.assertThat(report.getFailures()).containsExactly(
+                "line 5: INSERT INTO APP.MISSING VALUES (3): SQL0204N APP.MISSING is an undefined name");
+        Assertions.assertThat(report.getTotalCost()).isEqualTo(250015.0);
+        Assertions.assertThat(stub.executed).allMatch(sql -> sql.startsWith("EXPLAIN PLAN SET QUERYNO = "))
+                .hasSize(2);
+        Assertions.assertThat(stub.executed.get(0)).endsWith("' FOR INSERT INTO APP.LOG VALUES (1)");
+        Assertions.assertThat(stub.rolledBack).isTrue();
+    }
+
+    @Test
+    void testCostCeiling() throws DatabaseException {
+        StubConnection stub = new StubConnection();
+        stub.costs.put(1, 1500.0);
+        stub.costs.put(2, 20.0);
+
+        ExplainStatement explain = new ExplainStatement(null, "fix.sql", 1000, null);
+        explain.add(new Db2RawSqlStatement("DELETE FROM APP.ORDERS WHERE YEAR(CREATED) < 2000", null, ";", 7));
+        explain.add(new Db2RawSqlStatement("SELECT COUNT(*) FROM APP.ORDERS WHERE ID = 1", null, ";", 8));
+        ExplainReport report = explain.explain(stub.connection);
+
+        Assertions.assertThat(report.getExceeding(1000)).containsExactly("line 7 (cost 1500)");
+        Assertions.assertThatThrownBy(() -> explain.checkCostCeiling(report))
+                .isInstanceOf(DatabaseException.class)
+                .hasMessageContaining("1 statements exceed the cost ceiling of 1000 timerons: line 7 (cost 1500)");
+        new ExplainStatement(null, "fix.sql", 0, null).checkCostCeiling(report);
+    }
+
+    @Test
+    void testMissingExplainTables() {
+        StubConnection stub = new StubConnection();
+        stub.explainError = new SQLException("SQL0219N The required Explain table does not exist", "42704", -219);
+
+        ExplainStatement explain = new ExplainStatement(null, "fix.sql", 0, null);
+        explain.add(new Db2RawSqlStatement("DELETE FROM APP.ORDERS", null, ";", 1));
+        Assertions.assertThatThrownBy(() -> explain.explain(stub.connection))
+                .isInstanceOf(DatabaseException.class)
+                .hasMessageContaining("SYSPROC.SYSINSTALLOBJECTS");
+        Assertions.assertThat(stub.rolledBack).isTrue();
+    }
+
+    /**
+     * A JDBC connection which returns canned rows of the explain tables by QUERYNO
+     */
+    private static class StubConnection {
+
+        private final Map<Integer, Double> costs = new HashMap<>();
+        private final Map<Integer, List<Object[]>> operators = new HashMap<>();
+        private final List<String> executed = new ArrayList<>();
+        private SQLException explainError;
+        private boolean rolledBack;
+        private final Connection connection = proxy(Connection.class, (method, args) -> {
+            switch (method) {
+                case "getAutoCommit":
+                    return false;
+                case "setSavepoint":
+                    return proxy(Savepoint.class, (m, a) -> null);
+                case "rollback":
+                    rolledBack = true;
+                    return null;
+                case "createStatement":
+                    return createStatement();
+                case "prepareStatement":
+                    return prepareStatement((String) args[0]);
+                default:
+                    return null;
+            }
+        });
+
+        private Statement createStatement() {
+            return proxy(Statement.class, (method, args) -> {
+                if (method.equals("execute")) {
+                    String sql = (String) args[0];
+                    if (explainError != null) {
+                        throw explainError;
+                    } else if (sql.contains("APP.MISSING")) {
+                        throw new SQLException("SQL0204N APP.MISSING is an undefined name", "42704", -204);
+                    }
+                    executed.add(sql);
+                    return false;
+                } else if (method.equals("executeQuery")) {
+                    return resultSet(Collections.singletonList(new Object[] { "SYSTOOLS" }));
+                }
+                return null;
+            });
+        }
+
+        private PreparedStatement prepareStatement(String sql) {
+            int[] queryNo = new int[1];
+            return proxy(PreparedStatement.class, (method, args) -> {
+                if (method.equals("setInt")) {
+                    queryNo[0] = (Integer) args[1];
+                } else if (method.equals("executeQuery")) {
+                    if (sql.contains("OPERATOR_TYPE")) {
+                        return resultSet(operators.getOrDefault(queryNo[0], Collections.emptyList()));
+                    }
+                    return resultSet(costs.containsKey(queryNo[0])
+                            ? Collections.singletonList(new Object[] { costs.get(queryNo[0]) })
+                            : Collections.emptyList());
+                }
+                return null;
+            });
+        }
+
+        private static ResultSet resultSet(List<Object[]> rows) {
+            int[] row = { -1 };
+            return proxy(ResultSet.class, (method, args) -> {
+                switch (method) {
+                    case "next":
+                        return ++row[0] < rows.size();
+                    case "getString":
+                        return (String) rows.get(row[0])[(Integer) args[0] - 1];
+                    case "getDouble":
+                        return (Double) rows.get(row[0])[(Integer) args[0] - 1];
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        private static <T> T proxy(Class<T> type, Handler handler) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                    (proxy, method, args) -> handler.invoke(method.getName(), args)));
+        }
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws SQLException;
+    }
+}
@@ -0,0 +1,130 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.database.Database;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.ExecutorService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class LoadStatementTest extends AbstractTest {
+
+    @Test
+    void testParse() {
+        LiteralInsert insert = LiteralInsert.parse("INSERT INTO app.orders (ID, NAME) VALUES (1, 'it''s'), (-2.5, NULL)");
+        Assertions.assertThat(insert).isNotNull();
+        Assertions.assertThat(insert.getTable()).isEqualTo("app.orders");
+        Assertions.assertThat(insert.getColumns()).isEqualTo("(ID, NAME)");
+        Assertions.assertThat(insert.getRows()).containsExactly(new String[] { "1", "'it''s'" }, new String[] { "-2.5", "NULL" });
+        Assertions.assertThat(insert.isSameTarget(LiteralInsert.parse("insert into APP.ORDERS (id, name) values (3, 'x')"))).isTrue();
+        Assertions.assertThat(insert.isSameTarget(LiteralInsert.parse("INSERT INTO APP.ORDERS VALUES (3, 'x')"))).isFalse();
+    }
+
+    @Test
+    void testNonLiteralInsertsAreNotParsed() {
+        Assertions.assertThat(LiteralInsert.parse("INSERT INTO ORDERS VALUES (CURRENT DATE)")).isNull();
+        Assertions.assertThat(LiteralInsert.parse("INSERT INTO ORDERS SELECT * FROM OLD_ORDERS")).isNull();
+        Assertions.assertThat(LiteralInsert.parse("INSERT INTO ORDERS VALUES (1 + 1)")).isNull();
+        Assertions.assertThat(LiteralInsert.parse("INSERT INTO ORDERS VALUES (1), (1, 2)")).isNull();
+        Assertions.assertThat(LiteralInsert.parse("UPDATE ORDERS SET ID = 1")).isNull();
+    }
+
+    @Test
+    void testStagingFile() throws IOException {
+        StringWriter writer = new StringWriter();
+        createLoad("INSERT INTO ORDERS VALUES (1, 'say \"hi\"', NULL)", "INSERT INTO ORDERS VALUES (+2, 'it''s', 'x,y')")
+                .writeStagingFile(writer);
+        Assertions.assertThat(writer.toString()).isEqualTo("1,\"say \"\"hi\"\"\",\n2,\"it's\",\"x,y\"\n");
+    }
+
+    @Test
+    void testLoadCommands() {
+        LoadStatement load = createLoad("INSERT INTO APP.ORDERS (ID, NAME) VALUES (1, 'a')",
+                "INSERT INTO APP.ORDERS (ID, NAME) VALUES (2, NULL), (3, 'c')");
+        Assertions.assertThat(load.getFileLoadCommand("/tmp/load rows.del")).isEqualTo(
+                "LOAD FROM \"/tmp/load rows.del\" OF DEL MODIFIED BY CODEPAGE=1208 DELPRIORITYCHAR INSERT INTO APP.ORDERS (ID, NAME)");
+        Assertions.assertThat(load.getCursorLoadCommand(0, 2)).isEqualTo(
+                "LOAD FROM (SELECT * FROM (VALUES (1, 'a'), (2, NULL), (3, 'c')) AS V) OF CURSOR INSERT INTO APP.ORDERS (ID, NAME)");
+        Assertions.assertThat(load.getCursorLoadCommand(1, 2)).isEqualTo(
+                "LOAD FROM (SELECT * FROM (VALUES (2, NULL), (3, 'c')) AS V) OF CURSOR INSERT INTO APP.ORDERS (ID, NAME)");
+        Assertions.assertThat(load.getTerminateCommand(load.getCursorLoadCommand(1, 2))).isEqualTo(
+                "LOAD FROM (SELECT * FROM (VALUES (2, NULL), (3, 'c')) AS V) OF CURSOR TERMINATE INTO APP.ORDERS");
+    }
+
+    @Test
+    void testFallbackAfterTerminate() throws DatabaseException {
+        RecordingConnection connection = new RecordingConnection()
+                .failOn("OF CURSOR INSERT INTO", new SQLException("Load failed", "57011", -964));
+        connection.queryResults.put("SYSCAT.TABLES", Collections.singletonList(new Object[] { "APP     ", "ORDERS" }));
+        LoadStatement load = createLoad(connection.database(), true, "INSERT INTO APP.ORDERS VALUES (1, 'a')",
+                "INSERT INTO APP.ORDERS VALUES (2, 'b')");
+        try {
+            load.execute(null);
+        } finally {
+            Scope.getCurrentScope().getSingleton(ExecutorService.class).reset();
+        }
+
+        Assertions.assertThat(connection.executed).containsExactly(
+                "SELECT COUNT(*) FROM SYSCAT.TRIGGERS"
+                        + " WHERE TABSCHEMA = COALESCE(CAST(? AS VARCHAR(128)), CURRENT SCHEMA) AND TABNAME = ?",
+                "CALL SYSPROC.ADMIN_CMD('" + load.getCursorLoadCommand(0, 2) + "')",
+                "CALL SYSPROC.ADMIN_CMD('" + load.getTerminateCommand(load.getCursorLoadCommand(0, 2)) + "')",
+                "SELECT TABSCHEMA, TABNAME FROM SYSCAT.TABLES"
+                        + " WHERE TABSCHEMA = COALESCE(CAST(? AS VARCHAR(128)), CURRENT SCHEMA) AND TABNAME = ? AND STATUS = 'C'",
+                "SET INTEGRITY FOR \"APP\".\"ORDERS\" IMMEDIATE CHECKED",
+                "INSERT INTO APP.ORDERS VALUES (1, 'a')",
+                "INSERT INTO APP.ORDERS VALUES (2, 'b')");
+    }
+
+    @Test
+    void testFailureWithoutFallback() {
+        RecordingConnection connection = new RecordingConnection()
+                .failOn("OF CURSOR INSERT INTO", new SQLException("Load failed", "57011", -964));
+        LoadStatement load = createLoad(connection.database(), false, "INSERT INTO ORDERS VALUES (1, 'a')");
+
+        Assertions.assertThatThrownBy(() -> load.execute(null))
+                .isInstanceOf(DatabaseException.class)
+                .hasMessageContaining("starting at line 1");
+        Assertions.assertThat(connection.executed)
+                .anyMatch(sql -> sql.contains("TERMINATE INTO ORDERS"))
+                .noneMatch(sql -> sql.startsWith("INSERT"));
+    }
+
+    @Test
+    void testTableWithTriggersIsNotLoaded() throws DatabaseException {
+        RecordingConnection connection = new RecordingConnection();
+        connection.queryResults.put("SYSCAT.TRIGGERS", Collections.singletonList(new Object[] { 1 }));
+        LoadStatement load = createLoad(connection.database(), true, "INSERT INTO ORDERS VALUES (1, 'a')",
+                "INSERT INTO ORDERS VALUES (2, 'b')");
+        try {
+            load.execute(null);
+        } finally {
+            Scope.getCurrentScope().getSingleton(ExecutorService.class).reset();
+        }
+
+        Assertions.assertThat(connection.executed).noneMatch(sql -> sql.contains("ADMIN_CMD"))
+                .endsWith("INSERT INTO ORDERS VALUES (1, 'a')", "INSERT INTO ORDERS VALUES (2, 'b')");
+    }
+
+    private static LoadStatement createLoad(String... sqls) {
+        return createLoad(null, true, sqls);
+    }
+
+    private static LoadStatement createLoad(Database database, boolean fallback, String... sqls) {
+        List<Db2RawSqlStatement> statements = new ArrayList<>();
+        List<LiteralInsert> inserts = new ArrayList<>();
+        for (String sql : Arrays.asList(sqls)) {
+            statements.add(new Db2RawSqlStatement(sql, null, ";", statements.size() + 1));
+            inserts.add(LiteralInsert.parse(sql));
+        }
+        return new LoadStatement(database, statements, inserts, fallback);
+    }
+}
@@ -0,0 +1,102 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.exception.DatabaseException;
+import liquibase.statement.core.RawSqlStatement;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+class LockRetryTest extends AbstractTest {
+
+    @Test
+    void testLockFailureOf() {
+        SQLException deadlock = new SQLException("DB2 SQL Error: SQLCODE=-911, SQLSTATE=40001, SQLERRMC=2", "40001", -911);
+        SQLException timeout = new SQLException("DB2 SQL Error: SQLCODE=-913, SQLSTATE=57033, SQLERRMC=68", "57033", -913);
+        SQLException logFull = new SQLException("DB2 SQL Error: SQLCODE=-911, SQLSTATE=40001, SQLERRMC=3", "40001", -911);
+        SQLException clpMessage = new SQLException("SQL0911N The current transaction has been rolled back because "
+                + "of a deadlock or timeout. Reason code \"68\".", "40001", -911);
+
+        Assertions.assertThat((Throwable) LockRetry.lockFailureOf(new DatabaseException("Error executing SQL", deadlock)))
+                .isEqualTo(deadlock);
+        Assertions.assertThat(LockRetry.isUnitOfWorkRolledBack(deadlock)).isTrue();
+        Assertions.assertThat((Throwable) LockRetry.lockFailureOf(timeout)).isEqualTo(timeout);
+        Assertions.assertThat(LockRetry.isUnitOfWorkRolledBack(timeout)).isFalse();
+        Assertions.assertThat((Throwable) LockRetry.lockFailureOf(clpMessage)).isEqualTo(clpMessage);
+        Assertions.assertThat((Throwable) LockRetry.lockFailureOf(logFull)).isNull();
+        Assertions.assertThat((Throwable) LockRetry.lockFailureOf(new SQLException("SQL0803N", "23505", -803))).isNull();
+        Assertions.assertThat((Throwable) LockRetry.lockFailureOf(new DatabaseException("Error"))).isNull();
+    }
+
+    @Test
+    void testDelay() {
+        LockRetry lockRetry = new LockRetry("test.sql", 20, true, null);
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertThat(lockRetry.getDelay(1)).isBetween(50L, 100L);
+            Assertions.assertThat(lockRetry.getDelay(4)).isBetween(400L, 800L);
+            Assertions.assertThat(lockRetry.getDelay(20)).isBetween(5000L, 10000L);
+        }
+    }
+
+    @Test
+    void testLimits() {
+        SQLException deadlock = new SQLException("SQLCODE=-911, SQLERRMC=2", "40001", -911);
+        Db2RawSqlStatement statement = new Db2RawSqlStatement("UPDATE T SET A = 1", null, ";", 3);
+        ScriptMetrics metrics = new ScriptMetrics("test.sql", 0);
+        try {
+            System.setProperty("liquibase.db2Enhanced.lockRetryDelay", "1");
+            System.setProperty("liquibase.db2Enhanced.lockRetryBudget", "3");
+            LockRetry lockRetry = new LockRetry("test.sql", 2, true, metrics);
+
+            Assertions.assertThat(lockRetry.retry(statement, deadlock, 1, 4)).isTrue();
+            Assertions.assertThat(lockRetry.retry(statement, deadlock, 2, 4)).isTrue();
+            Assertions.assertThat(lockRetry.retry(statement, deadlock, 3, 4)).isFalse();
+            Assertions.assertThat(lockRetry.retry(statement, deadlock, 1, 0)).isTrue();
+            // The budget of the script is used up
+            Assertions.assertThat(lockRetry.retry(statement, deadlock, 1, 0)).isFalse();
+            Assertions.assertThat(lockRetry.getRetries()).isEqualTo(3);
+            Assertions.assertThat(metrics.getLockRetries()).isEqualTo(3);
+            Assertions.assertThat(metrics.getSummary()).contains(", 3 lock retries replaying 8 statements");
+        } finally {
+            System.clearProperty("liquibase.db2Enhanced.lockRetryDelay");
+            System.clearProperty("liquibase.db2Enhanced.lockRetryBudget");
+        }
+    }
+
+    @Test
+    void testUnitOfWork() {
+        Db2RawSqlStatement insert = new Db2RawSqlStatement("INSERT INTO T VALUES (1)", null, ";", 1);
+        Db2RawSqlStatement savepoint = new Db2RawSqlStatement("SAVEPOINT S ON ROLLBACK RETAIN CURSORS", null, ";", 2);
+        Db2RawSqlStatement toSavepoint = new Db2RawSqlStatement("ROLLBACK TO SAVEPOINT S", null, ";", 3);
+        Db2RawSqlStatement create = new Db2RawSqlStatement("CREATE TABLE U (A INT)", null, ";", 4);
+        Db2RawSqlStatement commit = new Db2RawSqlStatement("COMMIT", null, ";", 5);
+        Db2RawSqlStatement call = new Db2RawSqlStatement("CALL P()", null, ";", 6);
+        Db2RawSqlStatement truncate = new Db2RawSqlStatement("TRUNCATE TABLE U IMMEDIATE", null, ";", 7);
+
+        Assertions.assertThat(UnitOfWork.isReplayable(call)).isFalse();
+        Assertions.assertThat(UnitOfWork.isReplayable(truncate)).isFalse();
+        Assertions.assertThat(UnitOfWork.isReplayable(new RawSqlStatement("UPDATE T SET A = 1"))).isFalse();
+
+        UnitOfWork unitOfWork = new UnitOfWork();
+        unitOfWork.executed(insert);
+        Assertions.assertThat(unitOfWork.isReplayable()).isFalse();
+
+        unitOfWork.start();
+        for (Db2RawSqlStatement statement : Arrays.asList(insert, savepoint, toSavepoint, create)) {
+            unitOfWork.executed(statement);
+        }
+        unitOfWork.executed(new DrainDbmsOutputStatement());
+        Assertions.assertThat(unitOfWork.isReplayable()).isTrue();
+        Assertions.assertThat(unitOfWork.getStatements()).containsExactly(insert, savepoint, toSavepoint, create);
+
+        unitOfWork.executed(call);
+        Assertions.assertThat(unitOfWork.isReplayable()).isFalse();
+        Assertions.assertThat(unitOfWork.getStatements()).isEmpty();
+
+        unitOfWork.executed(commit);
+        unitOfWork.executed(insert);
+        Assertions.assertThat(unitOfWork.isReplayable()).isTrue();
+        Assertions.assertThat(unitOfWork.getStatements()).containsExactly(insert);
+    }
+}
@@ -0,0 +1,55 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.statement.SqlStatement;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+class ParseCacheTest extends AbstractTest {
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    void testRoundTrip() {
+        ParseCache parseCache = new ParseCache(cacheDirectory, 1024 * 1024);
+        String key = ParseCache.key("SELECT 1 FROM T;", "options");
+        Assertions.assertThat(parseCache.get(key)).isNull();
+
+        parseCache.put(key, null, Arrays.asList(
+                new Db2RawSqlStatement("SET CURRENT SCHEMA = 'DB2TEST'", null, ";", 1),
+                new Db2RawSqlStatement("CALL SYSPROC.ADMIN_CMD ('REORG TABLE TEST_REORG')", null, "@", 3)));
+
+        List<SqlStatement> statements = parseCache.get(key);
+        Assertions.assertThat(statements)
+                .extracting(Db2RawSqlStatement.class::cast)
+                .extracting(Db2RawSqlStatement::getSql, Db2RawSqlStatement::getTerminator, Db2RawSqlStatement::getLine)
+                .containsExactly(
+                        Assertions.tuple("SET CURRENT SCHEMA = 'DB2TEST'", ";", 1),
+                        Assertions.tuple("CALL SYSPROC.ADMIN_CMD ('REORG TABLE TEST_REORG')", "@", 3));
+    }
+
+    @Test
+    void testKeyDependsOnOptions() {
+        Assertions.assertThat(ParseCache.key("SELECT 1 FROM T;", "stripComments=false"))
+                .isNotEqualTo(ParseCache.key("SELECT 1 FROM T;", "stripComments=true"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() throws Exception {
+        ParseCache parseCache = new ParseCache(cacheDirectory, 100);
+        List<SqlStatement> statements = Arrays.asList(new Db2RawSqlStatement("SELECT 1 FROM T", null, ";", 1));
+
+        parseCache.put("first", null, statements);
+        cacheDirectory.resolve("first.db2parse").toFile().setLastModified(System.currentTimeMillis() - 60_000);
+        parseCache.put("second", null, statements);
+        parseCache.put("third", null, statements);
+
+        Assertions.assertThat(parseCache.get("first")).isNull();
+        Assertions.assertThat(parseCache.get("third")).hasSize(1);
+    }
+}
@@ -0,0 +1,266 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.ext.db2i.database.DB2iDatabase;
+
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A JDBC connection to a pretended DB2, which records the SQL it executes, returns canned rows for queries,
+ * fails statements on request and returns lines of DBMS_OUTPUT
+ */
+class RecordingConnection {
+
+    /** SQL executed, calls (with their string parameter) and commits/rollbacks ('COMMIT'/'ROLLBACK'), in order */
+    final List<String> executed = new ArrayList<>();
+    /** Rows returned by queries containing the key */
+    final Map<String, List<Object[]>> queryResults = new LinkedHashMap<>();
+    /** Failures of statements containing the key, each thrown once */
+    final Map<String, Deque<SQLException>> failures = new LinkedHashMap<>();
+    /** Lines of DBMS_OUTPUT waiting to be retrieved */
+    final Deque<String> output = new ArrayDeque<>();
+    /** The parameters of the prepared statements executed, in order */
+    final List<List<Object>> parameters = new ArrayList<>();
+    /** The threads which called nativeSQL, in order */
+    final List<Thread> nativeSqlThreads = new ArrayList<>();
+    boolean isGetLinesSupported = true;
+    int preparedCalls;
+    int closedCalls;
+
+    final Connection connection = proxy(Connection.class, (method, args) -> {
+        switch (method) {
+            case "getMetaData":
+                return proxy(DatabaseMetaData.class, (m, a) -> m.equals("getSQLKeywords") ? ""
+                        : "DB2/LINUXX8664");
+            case "getAutoCommit":
+            case "isClosed":
+                return false;
+            case "commit":
+                executed.add("COMMIT");
+                return null;
+            case "rollback":
+                executed.add("ROLLBACK");
+                return null;
+            case "nativeSQL":
+                nativeSqlThreads.add(Thread.currentThread());
+                return args[0];
+            case "createStatement":
+                return statement(null);
+            case "prepareStatement":
+                return statement((String) args[0]);
+            case "prepareCall":
+                return call((String) args[0]);
+            default:
+                return null;
+        }
+    });
+
+    /**
+     * @return A DB2 database on this connection
+     */
+    DB2iDatabase database() {
+        DB2iDatabase database = new DB2iDatabase();
+        database.setConnection(new JdbcConnection(connection));
+        return database;
+    }
+
+    /**
+     * Fails the next statement containing the text
+     */
+    RecordingConnection failOn(String text, SQLException failure) {
+        failures.computeIfAbsent(text, key -> new ArrayDeque<>()).add(failure);
+        return this;
+    }
+
+    private Statement statement(String preparedSql) {
+        List<String> batch = new ArrayList<>();
+        Map<Integer, Object> values = new TreeMap<>();
+        Class<? extends Statement> type = preparedSql == null ? Statement.class : PreparedStatement.class;
+        return proxy(type, (method, args) -> {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            switch (method) {
+                case "setString":
+                case "setInt":
+                case "setLong":
+                case "setTimestamp":
+                    values.put((Integer) args[0], args[1]);
+                    return null;
+                case "addBatch":
+                    batch.add(sql);
+                    return null;
+                case "executeBatch":
+                    int[] counts = new int[batch.size()];
+                    for (int i = 0; i < batch.size(); i++) {
+                        execute(batch.get(i));
+                        counts[i] = 1;
+                    }
+                    batch.clear();
+                    return counts;
+                case "execute":
+                    execute(sql);
+                    return false;
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    if (preparedSql != null) {
+                        parameters.add(new ArrayList<>(values.values()));
+                    }
+                    execute(sql);
+                    return method.equals("executeUpdate") ? (Object) 1 : (Object) 1L;
+                case "executeQuery":
+                    execute(sql);
+                    return resultSet(rowsOf(sql));
+                case "getUpdateCount":
+                    return -1;
+                case "getMoreResults":
+                    return false;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private void execute(String sql) throws SQLException {
+        executed.add(sql);
+        for (Map.Entry<String, Deque<SQLException>> failure : failures.entrySet()) {
+            if (sql.contains(failure.getKey()) && !failure.getValue().isEmpty()) {
+                throw failure.getValue().removeFirst();
+            }
+        }
+    }
+
+    private List<Object[]> rowsOf(String sql) {
+        for (Map.Entry<String, List<Object[]>> result : queryResults.entrySet()) {
+            if (sql.contains(result.getKey())) {
+                return result.getValue();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private CallableStatement call(String sql) {
+        preparedCalls++;
+        int[] requested = new int[1];
+        int[] fetched = new int[1];
+        List<String> lines = new ArrayList<>();
+        String[] parameter = new String[1];
+        boolean[] closed = new boolean[1];
+        return proxy(CallableStatement.class, (method, args) -> {
+            switch (method) {
+                case "registerOutParameter":
+                    if ((Integer) args[1] == Types.ARRAY && !isGetLinesSupported) {
+                        throw new SQLException("Invalid data type", "42815", -4461);
+                    }
+                    return null;
+                case "setInt":
+                    requested[0] = (Integer) args[1];
+                    return null;
+                case "setString":
+                    parameter[0] = (String) args[1];
+                    return null;
+                case "execute":
+                    // Recorded with the parameter, e.g. the command of ADMIN_CMD
+                    execute(parameter[0] == null ? sql : sql.replace("?", "'" + parameter[0] + "'"));
+                    lines.clear();
+                    if (sql.contains("GET_LINES")) {
+                        while (lines.size() < requested[0] && !output.isEmpty()) {
+                            lines.add(output.removeFirst());
+                        }
+                        fetched[0] = lines.size();
+                    } else {
+                        // GET_LINE returns status 1 when there are no more lines
+                        fetched[0] = output.isEmpty() ? 1 : 0;
+                        lines.add(output.pollFirst());
+                    }
+                    return false;
+                case "getInt":
+                    return fetched[0];
+                case "getString":
+                    return lines.get(0);
+                case "getArray":
+                    Object[] values = lines.toArray();
+                    return proxy(Array.class, (m, a) -> m.equals("getArray") ? values : null);
+                case "isClosed":
+                    return closed[0];
+                case "close":
+                    if (!closed[0]) {
+                        closed[0] = true;
+                        closedCalls++;
+                    }
+                    return null;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static ResultSet resultSet(List<Object[]> rows) {
+        int[] row = { -1 };
+        return proxy(ResultSet.class, (method, args) -> {
+            switch (method) {
+                case "next":
+                    return ++row[0] < rows.size();
+                case "getObject":
+                case "getString":
+                case "getInt":
+                case "getLong":
+                case "getDouble":
+                case "getTimestamp":
+                    Object value = rows.get(row[0])[(Integer) args[0] - 1];
+                    if (method.equals("getInt")) {
+                        return value == null ? 0 : ((Number) value).intValue();
+                    } else if (method.equals("getLong")) {
+                        return value == null ? 0L : ((Number) value).longValue();
+                    } else if (method.equals("getDouble")) {
+                        return value == null ? 0.0 : ((Number) value).doubleValue();
+                    } else if (method.equals("getString")) {
+                        return value == null ? null : value.toString();
+                    }
+                    return value;
+                case "wasNull":
+                    return false;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    Object result = handler.invoke(method.getName(), args);
+                    Class<?> returnType = method.getReturnType();
+                    if (result != null && (returnType.isInstance(result) || returnType.isPrimitive()
+                            && !(result instanceof String))) {
+                        return result;
+                    } else if (returnType == boolean.class) {
+                        return false;
+                    } else if (returnType == int.class) {
+                        return 0;
+                    } else if (returnType == long.class) {
+                        return 0L;
+                    }
+                    return null;
+                }));
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws SQLException;
+    }
+}
@@ -0,0 +1,60 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.exception.DatabaseException;
+import liquibase.statement.SqlStatement;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ReorgCommandTest extends AbstractTest {
+
+    @Test
+    void testReorgCommand() {
+        ReorgCommand command = ReorgCommand.of("CALL SYSPROC.ADMIN_CMD ('REORG TABLE app.orders')");
+        Assertions.assertThat(command).isNotNull();
+        Assertions.assertThat(command.getSchema()).isEqualTo("APP");
+        Assertions.assertThat(command.getTable()).isEqualTo("ORDERS");
+        Assertions.assertThat(command.getQualifiedTable()).isEqualTo("APP.ORDERS");
+        Assertions.assertThat(command.isSameCommand(ReorgCommand.of("call sysproc.admin_cmd('reorg table APP.ORDERS')"))).isTrue();
+        Assertions.assertThat(command.isSameCommand(ReorgCommand.of("CALL SYSPROC.ADMIN_CMD ('REORG TABLE APP.ORDERS INPLACE')"))).isFalse();
+        Assertions.assertThat(command.hasOptions()).isFalse();
+        Assertions.assertThat(ReorgCommand.of("CALL SYSPROC.ADMIN_CMD ('REORG TABLE APP.ORDERS INDEX I1')").hasOptions()).isTrue();
+
+        command = ReorgCommand.of("CALL SYSPROC.ADMIN_CMD ('REORG TABLE \"Lines\"')");
+        Assertions.assertThat(command.getSchema()).isNull();
+        Assertions.assertThat(command.getQualifiedTable()).isEqualTo("Lines");
+    }
+
+    @Test
+    void testOtherCommandsAreNotParsed() {
+        Assertions.assertThat(ReorgCommand.of("CALL SYSPROC.ADMIN_CMD ('RUNSTATS ON TABLE APP.ORDERS')")).isNull();
+        Assertions.assertThat(ReorgCommand.of("CALL SYSPROC.ADMIN_CMD ('REORG INDEXES ALL FOR TABLE APP.ORDERS')")).isNull();
+        Assertions.assertThat(ReorgCommand.of("CALL MY_PROC ('REORG TABLE APP.ORDERS')")).isNull();
+    }
+
+    @Test
+    void testReorgIsNotDeferredPastAlter() throws DatabaseException {
+        List<SqlStatement> planned = new ArrayList<>();
+        ReorgPlanner planner = new ReorgPlanner(null, true, 0, false, planned::add);
+        for (String sql : new String[] { "ALTER TABLE ORDERS DROP COLUMN X", "CALL SYSPROC.ADMIN_CMD('REORG TABLE ORDERS')",
+                "COMMIT", "CALL SYSPROC.ADMIN_CMD('REORG TABLE ORDERS')", "ALTER TABLE ORDERS ALTER COLUMN Y SET NOT NULL",
+                "CALL SYSPROC.ADMIN_CMD('REORG TABLE ORDERS')" }) {
+            planner.accept(new Db2RawSqlStatement(sql, null, ";", planned.size() + 1));
+        }
+        planner.flush();
+
+        Assertions.assertThat(planned).extracting(statement -> statement.getClass().getSimpleName()).containsExactly(
+                "Db2RawSqlStatement", "Db2RawSqlStatement", "ReorgStatement", "Db2RawSqlStatement", "ReorgStatement");
+        // The identical REORGs around the COMMIT are merged, but not the one after the ALTER
+        Assertions.assertThat(((ReorgStatement) planned.get(2)).getStatements()).hasSize(2);
+        Assertions.assertThat(((Db2RawSqlStatement) planned.get(3)).getSql()).startsWith("ALTER TABLE ORDERS ALTER");
+    }
+
+    @Test
+    void testNamesIn() {
+        Assertions.assertThat(ReorgCommand.namesIn("SELECT * FROM app.\"Orders\" WHERE NAME = 'LINES' -- ITEMS"))
+                .containsExactlyInAnyOrder("SELECT", "FROM", "APP", "Orders", "WHERE", "NAME");
+    }
+}
@@ -0,0 +1,116 @@
+package liquibase.change.ext.db2.enhanced;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+class RunstatsStatementTest extends AbstractTest {
+
+    @Test
+    void testModifiedTables() {
+        RecordingConnection connection = new RecordingConnection();
+        connection.queryResults.put("CURRENT SCHEMA", Collections.singletonList(new Object[] { "APP     " }));
+        RunstatsStatement runstats = new RunstatsStatement(connection.database(), "data.sql", 0);
+        runstats.executed(new Db2RawSqlStatement("-- orders\nINSERT INTO app.orders VALUES (1)", null, ";", 1));
+        runstats.executed(new Db2RawSqlStatement("UPDATE APP.ORDERS SET STATUS = 'X'", null, ";", 2));
+        runstats.executed(new Db2RawSqlStatement("DELETE FROM \"App\" . \"Items\" WHERE ID = 1", null, ";", 3));
+        runstats.executed(new Db2RawSqlStatement("MERGE INTO LOG AS L USING (VALUES 1) AS V (ID) ON L.ID = V.ID "
+                + "WHEN NOT MATCHED THEN INSERT VALUES (V.ID)", null, ";", 4));
+        runstats.executed(new Db2RawSqlStatement("CREATE UNIQUE INDEX APP.IX1 ON APP.CUSTOMERS (ID)", null, ";", 5));
+        runstats.executed(new Db2RawSqlStatement("TRUNCATE TABLE APP.AUDIT IMMEDIATE", null, ";", 6));
+        runstats.executed(new Db2RawSqlStatement("SELECT * FROM APP.PRODUCTS", null, ";", 7));
+        runstats.executed(new Db2RawSqlStatement("CREATE TABLE APP.NEW (ID INT)", null, ";", 8));
+        runstats.executed(new Db2RawSqlStatement("CALL APP.FILL()", null, ";", 9));
+        runstats.executed(new Db2RawSqlStatement("UPDATE (SELECT * FROM APP.PRICES) SET PRICE = 1", null, ";", 10));
+
+        Assertions.assertThat(runstats.getTables()).containsExactly("APP.ORDERS", "App.Items", "APP.LOG",
+                "APP.CUSTOMERS", "APP.AUDIT");
+    }
+
+    @Test
+    void testUnqualifiedTablesInCurrentSchema() {
+        RecordingConnection connection = new RecordingConnection();
+        connection.queryResults.put("CURRENT SCHEMA", Collections.singletonList(new Object[] { "APP" }));
+        RunstatsStatement runstats = new RunstatsStatement(connection.database(), "data.sql", 0);
+        runstats.executed(new Db2RawSqlStatement("INSERT INTO ORDERS VALUES (1)", null, ";", 1));
+        runstats.executed(new Db2RawSqlStatement("DELETE FROM ITEMS", null, ";", 2));
+        runstats.executed(new Db2RawSqlStatement("SET CURRENT SCHEMA = OTHER", null, ";", 3));
+        connection.queryResults.put("CURRENT SCHEMA", Collections.singletonList(new Object[] { "OTHER" }));
+        runstats.executed(new Db2RawSqlStatement("INSERT INTO ORDERS VALUES (2)", null, ";", 4));
+        runstats.executed(new Db2RawSqlStatement("SET PATH = SYSTEM PATH, OTHER", null, ";", 5));
+        runstats.executed(new Db2RawSqlStatement("INSERT INTO OTHER.ITEMS VALUES (3)", null, ";", 6));
+
+        Assertions.assertThat(runstats.getTables()).containsExactly("APP.ORDERS", "APP.ITEMS", "OTHER.ORDERS",
+                "OTHER.ITEMS");
+        // Read once, and again after SET SCHEMA
+        Assertions.assertThat(connection.executed).filteredOn(sql -> sql.contains("CURRENT SCHEMA")).hasSize(2);
+    }
+
+    @Test
+    void testModifiedWhenExecuted() {
+        RunstatsStatement runstats = new RunstatsStatement(null, "data.sql", 0);
+        runstats.skipped(new Db2RawSqlStatement("DELETE FROM APP.ITEMS", null, ";", 1));
+        Assertions.assertThat(runstats.getModifiedTables()).allMatch(table -> table.getModifiedNanos() == 0);
+
+        long before = System.nanoTime();
+        runstats.executed(new Db2RawSqlStatement("INSERT INTO APP.ORDERS VALUES (1)", null, ";", 2));
+
+        Assertions.assertThat(runstats.getModifiedTables()).extracting(RunstatsStatement.Table::getName)
+                .containsExactly("ITEMS", "ORDERS");
+        Assertions.assertThat(runstats.getModifiedTables().get(0).getModifiedNanos()).isZero();
+        Assertions.assertThat(runstats.getModifiedTables().get(1).getModifiedNanos()).isGreaterThanOrEqualTo(before);
+    }
+
+    @Test
+    void testCommand() throws SQLException {
+        List<Object[]> parameters = new ArrayList<>();
+        String[] row = { "APP     ", "ORDERS", "N" };
+        PreparedStatement stmt = proxy(PreparedStatement.class, (m, a) -> {
+            if (m.startsWith("set")) {
+                parameters.add(a);
+            } else if (m.equals("executeQuery")) {
+                boolean[] next = { row[0] != null };
+                return proxy(ResultSet.class, (m2, a2) -> {
+                    if (m2.equals("next")) {
+                        boolean ret = next[0];
+                        next[0] = false;
+                        return ret;
+                    }
+                    return m2.equals("getString") ? row[(Integer) a2[0] - 1] : null;
+                });
+            }
+            return null;
+        });
+        RunstatsStatement.Table table = RunstatsStatement.Table.modifiedBy("INSERT INTO ORDERS VALUES (1)");
+
+        Assertions.assertThat(new RunstatsStatement(null, "data.sql", 10).getCommand(stmt, table)).isEqualTo(
+                "RUNSTATS ON TABLE \"APP\".\"ORDERS\" WITH DISTRIBUTION AND INDEXES ALL TABLESAMPLE SYSTEM (10)");
+        Assertions.assertThat(parameters).hasSize(3);
+        Assertions.assertThat(parameters.get(2)[1]).isEqualTo("ORDERS");
+        Assertions.assertThat(new RunstatsStatement(null, "data.sql", 0).getCommand(stmt, table))
+                .isEqualTo("RUNSTATS ON TABLE \"APP\".\"ORDERS\" WITH DISTRIBUTION AND INDEXES ALL");
+
+        // Statistics collected since the table was modified
+        row[2] = "Y";
+        Assertions.assertThat(new RunstatsStatement(null, "data.sql", 0).getCommand(stmt, table)).isNull();
+        // Not a table
+        row[0] = null;
+        Assertions.assertThat(new RunstatsStatement(null, "data.sql", 0).getCommand(stmt, table)).isNull();
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> handler.invoke(method.getName(), args)));
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+}
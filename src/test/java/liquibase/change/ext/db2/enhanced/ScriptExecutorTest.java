@@ -0,0 +1,64 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.exception.DatabaseException;
+import liquibase.executor.ExecutorService;
+import liquibase.ext.db2i.database.DB2iDatabase;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+class ScriptExecutorTest extends AbstractTest {
+
+    @Test
+    void testReplacedExecutorIsClosed() throws DatabaseException {
+        RecordingConnection connection = new RecordingConnection();
+        DB2iDatabase database = connection.database();
+        ExecutorService executorService = Scope.getCurrentScope().getSingleton(ExecutorService.class);
+        try {
+            ScriptExecutor first = ScriptExecutor.install(database);
+            first.setSink(line -> { });
+            connection.output.add("line");
+            first.execute(new DrainDbmsOutputStatement());
+            Assertions.assertThat(executorService.getExecutor("jdbc", database)).isSameAs(first);
+
+            // As after a previous run
+            executorService.reset();
+            ScriptExecutor second = ScriptExecutor.install(database);
+            Assertions.assertThat(second).isNotSameAs(first);
+            Assertions.assertThat(connection.closedCalls).isEqualTo(1);
+        } finally {
+            executorService.reset();
+        }
+    }
+
+    @Test
+    void testQueryIsRetriedAndMeasured() throws DatabaseException {
+        RecordingConnection connection = new RecordingConnection();
+        connection.queryResults.put("FROM T", Collections.singletonList(new Object[]{1}));
+        connection.failOn("FROM T", new SQLException("SQLCODE=-913, SQLERRMC=68", "57033", -913));
+        ScriptExecutor executor = new ScriptExecutor();
+        executor.setDatabase(connection.database());
+        ScriptMetrics metrics = new ScriptMetrics("test.sql", 0);
+        Db2RawSqlStatement query = new Db2RawSqlStatement("SELECT A FROM T", null, ";", 1);
+        try {
+            System.setProperty("liquibase.db2Enhanced.lockRetryDelay", "1");
+            executor.execute(new ScriptStartStatement("test.sql", metrics, null, false, 1, null, true, null));
+            executor.execute(new LockRetryStatement(new LockRetry("test.sql", 1, true, metrics)));
+
+            List<?> rows = executor.query(query, (resultSet, row) -> resultSet.getInt(1));
+
+            Assertions.assertThat(rows).hasSize(1);
+            Assertions.assertThat(connection.executed).filteredOn(sql -> sql.contains("FROM T")).hasSize(2);
+            Assertions.assertThat(metrics.getLockRetries()).isEqualTo(1);
+            Assertions.assertThat(metrics.getStatementCount()).isEqualTo(1);
+            Assertions.assertThat(metrics.getRowsAffected()).isZero();
+        } finally {
+            System.clearProperty("liquibase.db2Enhanced.lockRetryDelay");
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.Scope;
+import liquibase.change.CheckSum;
+import liquibase.exception.SetupException;
+import liquibase.resource.DirectoryResourceAccessor;
+import liquibase.resource.PathResource;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+class ScriptIncludesTest extends AbstractTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testInclude() throws IOException {
+        write("shared/grants.sql", "GRANT SELECT ON T TO ROLE R;\n"
+                + "--#SET TERMINATOR @\n"
+                + "CREATE PROCEDURE P() BEGIN END@\n");
+        Path script = write("main.sql", "");
+        List<DelimitedSegment> segments = lex(script, "CREATE TABLE T (A INT);\n"
+                + "--#INCLUDE shared/grants.sql\n"
+                + "INSERT INTO T VALUES (1)@\n"
+                + "--#INCLUDE 'shared/grants.sql'\n");
+
+        Assertions.assertThat(segments).hasSize(5);
+        Assertions.assertThat(segments.get(1).getSql()).isEqualTo("GRANT SELECT ON T TO ROLE R");
+        Assertions.assertThat(segments.get(1).getLine()).isEqualTo(2);
+        Assertions.assertThat(segments.get(1).isIncluded()).isTrue();
+        Assertions.assertThat(segments.get(2).getDelimiter()).isEqualTo("@");
+        // The terminator of the included script stays in use
+        Assertions.assertThat(segments.get(3).getSql()).isEqualTo("INSERT INTO T VALUES (1)");
+        Assertions.assertThat(segments.get(3).isIncluded()).isFalse();
+        // Included with '@', so the first statement is only ended by the '@' after the procedure
+        Assertions.assertThat(segments.get(4).getSql()).startsWith("GRANT SELECT ON T TO ROLE R;");
+        Assertions.assertThat(segments.get(4).getLine()).isEqualTo(4);
+    }
+
+    @Test
+    void testParsedOnce() throws IOException {
+        write("grants.sql", "GRANT SELECT ON T TO ROLE R;");
+        ScriptIncludes includes = new ScriptIncludes(new PathResource("main.sql", write("main.sql", "")),
+                "UTF-8", true, false, true);
+
+        ScriptIncludes.Fragment fragment = includes.include("grants.sql", ";");
+        Assertions.assertThat(includes.include("grants.sql", ";")).isSameAs(fragment);
+        Assertions.assertThat(includes.include("grants.sql", "@")).isNotSameAs(fragment);
+    }
+
+    @Test
+    void testNestedIncludeChanged() throws IOException {
+        write("grants.sql", "GRANT SELECT ON T TO ROLE R;\n--#INCLUDE roles.sql\n");
+        write("roles.sql", "CREATE ROLE R;\n");
+        ScriptIncludes includes = new ScriptIncludes(new PathResource("main.sql", write("main.sql", "")),
+                "UTF-8", true, false, true);
+        ScriptIncludes.Fragment fragment = includes.include("grants.sql", ";");
+        Assertions.assertThat(includes.include("grants.sql", ";")).isSameAs(fragment);
+
+        write("roles.sql", "CREATE ROLE OTHER;\n");
+        ScriptIncludes.Fragment changed = includes.include("grants.sql", ";");
+
+        Assertions.assertThat(changed).isNotSameAs(fragment);
+        Assertions.assertThat(changed.getSegments()).extracting(DelimitedSegment::getSql)
+                .containsExactly("GRANT SELECT ON T TO ROLE R", "CREATE ROLE OTHER");
+    }
+
+    @Test
+    void testCycle() throws IOException {
+        write("a.sql", "--#INCLUDE b.sql\n");
+        write("b.sql", "SELECT 1 FROM SYSIBM.SYSDUMMY1;\n--#INCLUDE a.sql\n");
+        Path script = write("main.sql", "");
+
+        Assertions.assertThatThrownBy(() -> lex(script, "--#INCLUDE a.sql\n"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Include cycle");
+        Assertions.assertThatThrownBy(() -> lex(script, "SELECT 1 FROM SYSIBM.SYSDUMMY1\n--#INCLUDE a.sql\n"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("inside a statement");
+    }
+
+    @Test
+    void testFindIncluded() throws IOException {
+        write("a.sql", "--#INCLUDE shared/c.sql\nSELECT 1 FROM SYSIBM.SYSDUMMY1;\n");
+        write("shared/b.sql", "--#include c.sql\n");
+        write("shared/c.sql", "--#INCLUDE ../a.sql\n");
+        Path script = write("main.sql", "-- Not a directive: --#INCLUDE x.sql\n--#INCLUDE a.sql\n"
+                + "--#INCLUDE 'shared/b.sql'\n--#INCLUDE a.sql\n");
+
+        Assertions.assertThat(ScriptIncludes.findIncluded(new PathResource("main.sql", script), "UTF-8", true))
+                .extracting(resource -> directory.relativize(Paths.get(resource.getUri())).toString().replace('\\', '/'))
+                .containsExactly("a.sql", "shared/c.sql", "shared/b.sql");
+    }
+
+    @Test
+    void testIncludedScriptsAreInChecksum() throws Exception {
+        write("grants.sql", "GRANT SELECT ON T TO ROLE R;\n");
+        write("main.sql", "CREATE TABLE T (A INT);\n--#INCLUDE grants.sql\n");
+        Scope.child(Scope.Attr.resourceAccessor.name(), new DirectoryResourceAccessor(directory), () -> {
+            CheckSum withoutIncludes = checkSum(false);
+            CheckSum before = checkSum(true);
+            Assertions.assertThat(before).isNotEqualTo(withoutIncludes);
+
+            write("grants.sql", "GRANT SELECT ON T TO ROLE OTHER;\n");
+            Assertions.assertThat(checkSum(true)).isNotEqualTo(before);
+            Assertions.assertThat(checkSum(false)).isEqualTo(withoutIncludes);
+        });
+    }
+
+    private static CheckSum checkSum(boolean useIncludeComments) throws SetupException {
+        Db2SQLFileChange change = new Db2SQLFileChange();
+        change.setPath("main.sql");
+        change.setUseIncludeComments(useIncludeComments);
+        change.finishInitialization();
+        return change.generateCheckSum();
+    }
+
+    private Path write(String path, String content) throws IOException {
+        Path file = directory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<DelimitedSegment> lex(Path script, String sql) throws IOException {
+        Db2ScriptLexer lexer = new Db2ScriptLexer(new StringReader(sql), ";", true, false, true);
+        lexer.setIncludes(new ScriptIncludes(new PathResource("main.sql", script), "UTF-8", true, false, true));
+        List<DelimitedSegment> segments = new ArrayList<>();
+        for (DelimitedSegment segment = lexer.next(); segment != null; segment = lexer.next()) {
+            if (segment.hasSql()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+}
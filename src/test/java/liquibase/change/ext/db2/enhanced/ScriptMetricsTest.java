@@ -0,0 +1,69 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.statement.core.RawSqlStatement;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+class ScriptMetricsTest extends AbstractTest {
+
+    private static final long MILLIS = 1000000;
+
+    @Test
+    void testHistogram() {
+        ScriptMetrics metrics = new ScriptMetrics("test.sql", 10);
+        metrics.recordExecution(new Db2RawSqlStatement("INSERT INTO T VALUES (1)", null, ";", 1), 500000, 1);
+        metrics.recordExecution(new Db2RawSqlStatement("UPDATE T SET A = 2", null, ";", 2), 50 * MILLIS, 3);
+        metrics.recordExecution(new Db2RawSqlStatement("CREATE TABLE U (A INT)", null, ";", 3), 2000 * MILLIS, -1);
+        metrics.recordExecution(new Db2RawSqlStatement("COMMIT", null, ";", 4), 70000 * MILLIS, -1);
+
+        Assertions.assertThat(metrics.getStatementCount()).isEqualTo(4);
+        Assertions.assertThat(metrics.getRowsAffected()).isEqualTo(4);
+        Assertions.assertThat(metrics.getExecutionMillis()).isEqualTo(72050);
+        Assertions.assertThat(metrics.getLatencyHistogram()).containsExactly(
+                "DML: 2 statements, 50 ms, 4 rows, <1ms: 1, <100ms: 1",
+                "DDL: 1 statements, 2000 ms, 0 rows, <10000ms: 1",
+                "COMMIT: 1 statements, 70000 ms, 0 rows, >=60000ms: 1");
+    }
+
+    @Test
+    void testSlowestStatements() {
+        ScriptMetrics metrics = new ScriptMetrics("test.sql", 2);
+        metrics.recordExecution(new Db2RawSqlStatement("UPDATE T\n  SET A = 1", null, ";", 1), 30 * MILLIS, 1);
+        metrics.recordExecution(new Db2RawSqlStatement("UPDATE T SET A = 2", null, ";", 2), 10 * MILLIS, 1);
+        metrics.recordExecution(new BatchedDmlStatement(null, Arrays.asList(
+                new Db2RawSqlStatement("INSERT INTO T VALUES (1)", null, ";", 3),
+                new Db2RawSqlStatement("INSERT INTO T VALUES (2)", null, ";", 4))), 20 * MILLIS, 2);
+
+        Assertions.assertThat(metrics.getSlowestStatements()).containsExactly(
+                "line 1 (30 ms): UPDATE T SET A = 1",
+                "line 3 (20 ms): BatchedDmlStatement{statements=2, line=3}");
+    }
+
+    @Test
+    void testSummaryAndTotals() {
+        ScriptMetrics metrics = new ScriptMetrics("test.sql", 10);
+        metrics.recordParse(5 * MILLIS);
+        metrics.recordDbmsOutputDrain(2 * MILLIS);
+        metrics.recordExecution(new Db2RawSqlStatement("CALL P()", null, "@", 7), 3 * MILLIS, -1);
+        Assertions.assertThat(metrics.getSummary()).isEqualTo(
+                "Metrics of test.sql: 1 statements in 3 ms, 0 rows, parsed in 5 ms, DBMS_OUTPUT retrieved 1 times in 2 ms\n"
+                + "  CALL: 1 statements, 3 ms, 0 rows, <10ms: 1\n"
+                + "  Slow: line 7 (3 ms): CALL P()");
+
+        ScriptMetrics total = new ScriptMetrics("all scripts", 10);
+        total.add(metrics);
+        total.add(metrics);
+        Assertions.assertThat(total.getStatementCount()).isEqualTo(2);
+        Assertions.assertThat(total.getParseMillis()).isEqualTo(10);
+        Assertions.assertThat(total.getSlowestStatements()).containsExactly(
+                "line 7 (3 ms): test.sql: CALL P()", "line 7 (3 ms): test.sql: CALL P()");
+    }
+
+    @Test
+    void testKindOf() {
+        Assertions.assertThat(ScriptMetrics.kindOf(new Db2RawSqlStatement("DROP TABLE T", null, ";", 1))).isEqualTo(StatementKind.DDL);
+        Assertions.assertThat(ScriptMetrics.kindOf(new RawSqlStatement("SELECT 1 FROM SYSIBM.SYSDUMMY1"))).isNull();
+    }
+}
@@ -0,0 +1,33 @@
+package liquibase.change.ext.db2.enhanced;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+class ScriptOrderTest extends AbstractTest {
+
+    @Test
+    void testNameOrder() {
+        List<String> paths = Arrays.asList("V2__b.sql", "V10__a.sql", "V1__c.sql");
+        paths.sort(ScriptOrder.NAME);
+        Assertions.assertThat(paths).containsExactly("V10__a.sql", "V1__c.sql", "V2__b.sql");
+    }
+
+    @Test
+    void testNaturalOrder() {
+        List<String> paths = Arrays.asList("V2__b.sql", "V10__a.sql", "V1__c.sql", "V1.2__d.sql", "V1.10__e.sql",
+                "V01__f.sql", "a/V3.sql");
+        paths.sort(ScriptOrder.NATURAL);
+        Assertions.assertThat(paths).containsExactly("V1.2__d.sql", "V1.10__e.sql", "V1__c.sql", "V01__f.sql",
+                "V2__b.sql", "V10__a.sql", "a/V3.sql");
+    }
+
+    @Test
+    void testOf() {
+        Assertions.assertThat(ScriptOrder.of("natural")).isEqualTo(ScriptOrder.NATURAL);
+        Assertions.assertThat(ScriptOrder.of("Name")).isEqualTo(ScriptOrder.NAME);
+        Assertions.assertThat(ScriptOrder.of("date")).isNull();
+    }
+}
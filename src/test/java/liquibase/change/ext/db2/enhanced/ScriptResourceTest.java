@@ -0,0 +1,59 @@
+package liquibase.change.ext.db2.enhanced;
+
+import liquibase.change.CheckSum;
+import liquibase.change.core.SQLFileChange;
+import liquibase.resource.PathResource;
+import liquibase.util.StreamUtil;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+class ScriptResourceTest extends AbstractTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSameCheckSumAsSqlFile() {
+        for (String path : new String[]{"test-basic-end-terminator-1.sql", "test-delimiter-in-comments.sql",
+                "test-dbms-output.sql"}) {
+            SQLFileChange sqlFileChange = new SQLFileChange();
+            sqlFileChange.setPath(path);
+            sqlFileChange.setStripComments(true);
+            Db2SQLFileChange db2SQLFileChange = new Db2SQLFileChange();
+            db2SQLFileChange.setPath(path);
+            db2SQLFileChange.setStripComments(true);
+
+            Assertions.assertThat(db2SQLFileChange.generateCheckSum()).isEqualTo(sqlFileChange.generateCheckSum());
+            Assertions.assertThat(db2SQLFileChange.getSql()).isEqualTo(sqlFileChange.getSql());
+        }
+    }
+
+    @Test
+    void testMemoizedUntilChanged() throws IOException {
+        Path file = directory.resolve("script.sql");
+        Files.write(file, "SELECT 1 FROM SYSIBM.SYSDUMMY1;".getBytes(StandardCharsets.UTF_8));
+        ScriptResource script = ScriptResource.of(new PathResource("script.sql", file));
+        CheckSum checkSum = script.getCheckSum(null, true, false, true);
+
+        Assertions.assertThat(ScriptResource.of(new PathResource("script.sql", file))).isSameAs(script);
+        Assertions.assertThat(script.getCheckSum(null, true, false, true)).isSameAs(checkSum);
+
+        Files.write(file, "SELECT 2 FROM SYSIBM.SYSDUMMY1;".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+        ScriptResource changed = ScriptResource.of(new PathResource("script.sql", file));
+
+        Assertions.assertThat(changed).isNotSameAs(script);
+        Assertions.assertThat(changed.getCheckSum(null, true, false, true)).isNotEqualTo(checkSum);
+        try (InputStream stream = changed.open(true)) {
+            Assertions.assertThat(new String(StreamUtil.readStream(stream), StandardCharsets.UTF_8)).startsWith("SELECT 2");
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package liquibase.change.ext.db2.enhanced;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class StatementKindTest extends AbstractTest {
+
+    @Test
+    void testClassification() {
+        Assertions.assertThat(StatementKind.of("-- Call it\nCALL SYSIBMADM.DBMS_OUTPUT.PUT_LINE('x')")).isEqualTo(StatementKind.CALL);
+        Assertions.assertThat(StatementKind.of("/* block */ begin\n  CALL X();\nEND")).isEqualTo(StatementKind.BLOCK);
+        Assertions.assertThat(StatementKind.of("P1: BEGIN END")).isEqualTo(StatementKind.BLOCK);
+        Assertions.assertThat(StatementKind.of("insert into T values (1)")).isEqualTo(StatementKind.DML);
+        Assertions.assertThat(StatementKind.of("TRUNCATE TABLE T IMMEDIATE")).isEqualTo(StatementKind.DDL);
+        Assertions.assertThat(StatementKind.of("COMMIT")).isEqualTo(StatementKind.COMMIT);
+        Assertions.assertThat(StatementKind.of("-- only a comment")).isEqualTo(StatementKind.OTHER);
+    }
+
+    @Test
+    void testCanProduceOutput() {
+        Assertions.assertThat(StatementKind.values())
+                .filteredOn(StatementKind::canProduceOutput)
+                .containsExactly(StatementKind.CALL, StatementKind.BLOCK, StatementKind.OTHER);
+    }
+}
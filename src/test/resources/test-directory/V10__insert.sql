@@ -0,0 +1,2 @@
+INSERT INTO TEST VALUES (10, 'ten', 0);
+COMMIT;
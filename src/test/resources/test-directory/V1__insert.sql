@@ -0,0 +1,2 @@
+-- First script
+INSERT INTO TEST VALUES (1, 'one', 0);
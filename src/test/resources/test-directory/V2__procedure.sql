@@ -0,0 +1,5 @@
+--#SET TERMINATOR @
+CREATE OR REPLACE PROCEDURE TEST_DIR_PROC()
+BEGIN
+    DELETE FROM TEST WHERE OBJ_ID = 2;
+END@
@@ -0,0 +1,4 @@
+-- Statements with JDBC escapes
+INSERT INTO TEST VALUES ({fn ABS(-1)}, 'one', 0);
+INSERT INTO TEST VALUES (2, 'two', 0);
+UPDATE TEST SET TEXT = {fn UCASE(TEXT)};